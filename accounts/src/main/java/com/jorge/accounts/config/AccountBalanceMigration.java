@@ -0,0 +1,46 @@
+package com.jorge.accounts.config;
+
+import com.jorge.accounts.model.Account;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Balances used to be persisted as strings (default BigDecimal mapping). $inc and the numeric balance guards only work
+// on numeric types, so any legacy document is converted to Decimal128 once on startup. It runs while the context is
+// being refreshed, before the web server starts, so no request can meet a string balance; a failed migration fails
+// the startup.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountBalanceMigration implements SmartInitializingSingleton {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrateStringBalancesToDecimal128().block();
+    }
+
+    public Mono<Long> migrateStringBalancesToDecimal128() {
+        Query query = Query.query(Criteria.where("balance").type(JsonSchemaObject.Type.STRING));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("balance").toValue(ConvertOperators.valueOf("balance").convertToDecimal());
+
+        return reactiveMongoTemplate.updateMulti(query, update, Account.class)
+                .map(UpdateResult::getModifiedCount)
+                .doOnNext(modified -> {
+                    if (modified > 0) {
+                        log.info("Migrated {} account balances to Decimal128", modified);
+                    }
+                })
+                .doOnError(throwable -> log.error("Error migrating account balances to Decimal128: {}", throwable.getMessage()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.jorge.accounts.config;
+
+import com.jorge.accounts.listener.BootCoinListener;
+import com.jorge.accounts.listener.CreditStatusListener;
+import com.jorge.accounts.listener.YankiOperationListener;
+import com.jorge.accounts.listener.consumer.ReactiveKafkaConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.MicrometerConsumerListener;
+import reactor.kafka.receiver.ReceiverOptions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Topics consumed by this service. Broker and client settings come from spring.kafka.*; the Kafka client metrics
+// (records-lag, fetch rate...) are published through Micrometer next to the consumer's own in-flight gauge. Records
+// whose handler fails go to <topic><dead-letter-suffix>. Handlers that move money also take the record id and
+// deduplicate redeliveries on it.
+@Configuration
+public class KafkaConsumerConfig {
+    private final Map<String, Object> consumerProperties;
+    private final MeterRegistry meterRegistry;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final int concurrency;
+    private final int maxDeferredCommits;
+    private final Duration commitInterval;
+    private final String deadLetterSuffix;
+
+    public KafkaConsumerConfig(KafkaProperties kafkaProperties, SslBundles sslBundles, MeterRegistry meterRegistry,
+                               KafkaTemplate<String, String> kafkaTemplate,
+                               @Value("${accounts.kafka.consumer.concurrency:16}") int concurrency,
+                               @Value("${accounts.kafka.consumer.max-deferred-commits:1000}") int maxDeferredCommits,
+                               @Value("${accounts.kafka.consumer.commit-interval:1s}") Duration commitInterval,
+                               @Value("${accounts.kafka.consumer.dead-letter-suffix:-dlt}") String deadLetterSuffix) {
+        this.consumerProperties = kafkaProperties.buildConsumerProperties(sslBundles);
+        this.meterRegistry = meterRegistry;
+        this.kafkaTemplate = kafkaTemplate;
+        this.concurrency = concurrency;
+        this.maxDeferredCommits = maxDeferredCommits;
+        this.commitInterval = commitInterval;
+        this.deadLetterSuffix = deadLetterSuffix;
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer yankiPaymentConsumer(YankiOperationListener listener) {
+        return consumer("yanki-payment-request", "accounts-yanki-payment-group", listener::listenYankiPayment);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer debitCardAssociationConsumer(YankiOperationListener listener) {
+        return consumer("yanki-debit-card-association-checking-card", "accounts-debit-card-association-group",
+                listener::listenDebitCardAssociation);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer bootCoinPurchaseConsumer(BootCoinListener listener) {
+        return consumer("bootcoin-purchase-request", "accounts-bootcoin-purchase-group", listener::listenBootCoinPurchase);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer yankiBootCoinPurchaseConsumer(BootCoinListener listener) {
+        return consumer("bootcoin-purchase-yanki-validation-success", "accounts-yanki-bootcoin-yanki-purchase-group",
+                listener::listenYankiBootCoinPurchase);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer bootCoinExchangeConsumer(BootCoinListener listener) {
+        return consumer("bootcoin-exchange-request", "accounts-bootcoin-exchange-group",
+                listener::listenBootCoinExchangeRequest);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer yankiBootCoinExchangeConsumer(BootCoinListener listener) {
+        return consumer("bootcoin-exchange-yanki-validation-success", "accounts-yanki-bootcoin-exchange-group",
+                listener::listenBootCoinYankiExchangeRequest);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer bootCoinAccountAssociationConsumer(BootCoinListener listener) {
+        return consumer("bootcoin-account-association-request", "accounts-bootcoin-association-group",
+                listener::listenBootCoinAccountAssociation);
+    }
+
+    @Bean
+    public ReactiveKafkaConsumer creditStatusConsumer(CreditStatusListener listener) {
+        return consumer("credit-status-changed", "accounts-credit-status-group", listener::listenCreditStatusChanged);
+    }
+
+    private ReactiveKafkaConsumer consumer(String topic, String groupId, Function<String, Mono<Void>> handler) {
+        return consumer(topic, groupId, (message, recordId) -> handler.apply(message));
+    }
+
+    private ReactiveKafkaConsumer consumer(String topic, String groupId, BiFunction<String, String, Mono<Void>> handler) {
+        ReceiverOptions<String, String> receiverOptions = ReceiverOptions.<String, String>create(consumerProperties)
+                .consumerProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId)
+                .consumerProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)
+                .consumerProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)
+                // Offsets are only committed once every earlier record of the partition has been handled
+                .maxDeferredCommits(maxDeferredCommits)
+                .commitInterval(commitInterval)
+                .consumerListener(new MicrometerConsumerListener(meterRegistry))
+                .subscription(List.of(topic));
+        return new ReactiveKafkaConsumer(topic, receiverOptions, handler, concurrency, kafkaTemplate,
+                topic + deadLetterSuffix, meterRegistry);
+    }
+}
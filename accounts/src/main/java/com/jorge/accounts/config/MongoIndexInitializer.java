@@ -0,0 +1,43 @@
+package com.jorge.accounts.config;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountDailyBalance;
+import com.jorge.accounts.model.DebitCard;
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+// Creates the indexes declared with @Indexed/@CompoundIndex. Automatic index creation is disabled by default in Spring Boot.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Account.class, AccountDailyBalance.class,
+            DebitCard.class, TransactionOutboxEntry.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver =
+                new MongoPersistentEntityIndexResolver(reactiveMongoTemplate.getConverter().getMappingContext());
+
+        Flux.fromIterable(INDEXED_DOCUMENTS)
+                .flatMap(documentClass -> {
+                    ReactiveIndexOperations indexOperations = reactiveMongoTemplate.indexOps(documentClass);
+                    return Flux.fromIterable(indexResolver.resolveIndexFor(documentClass))
+                            .flatMap(indexOperations::ensureIndex);
+                })
+                .subscribe(indexName -> log.info("Ensured index {}", indexName),
+                        throwable -> log.error("Error creating indexes: {}", throwable.getMessage()));
+    }
+}
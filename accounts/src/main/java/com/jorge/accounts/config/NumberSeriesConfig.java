@@ -0,0 +1,23 @@
+package com.jorge.accounts.config;
+
+import com.jorge.accounts.repository.NumberSequenceRepository;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Number series handed out by this service. Card numbers can get their own series with a different name, prefix
+// (issuer identification number) and length
+@Configuration
+public class NumberSeriesConfig {
+    private static final String ACCOUNT_NUMBER_SEQUENCE = "account-number";
+    private static final int ACCOUNT_NUMBER_LENGTH = 14;
+
+    @Bean
+    public BlockNumberAllocator accountNumberAllocator(NumberSequenceRepository numberSequenceRepository,
+                                                       @Value("${accounts.numbering.account.prefix:100}") String prefix,
+                                                       @Value("${accounts.numbering.block-size:100}") int blockSize) {
+        return new BlockNumberAllocator(numberSequenceRepository, ACCOUNT_NUMBER_SEQUENCE, prefix,
+                ACCOUNT_NUMBER_LENGTH, blockSize);
+    }
+}
@@ -0,0 +1,10 @@
+package com.jorge.accounts.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Calendar based batch jobs (see MonthlyRolloverJob). Continuous background work uses Flux.interval instead
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -6,12 +6,15 @@ import com.jorge.accounts.service.AccountService;
 import com.jorge.accounts.service.CheckingAccountService;
 import com.jorge.accounts.service.FixedTermAccountService;
 import com.jorge.accounts.service.SavingsAccountService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import java.time.LocalDateTime;
 
 @Component
@@ -21,10 +24,17 @@ public class AccountApiDelegateImpl implements AccountsApiDelegate {
     private final SavingsAccountService savingsAccountService;
     private final CheckingAccountService checkingAccountService;
     private final FixedTermAccountService fixedTermAccountService;
+    private final IdempotentExecutor idempotentExecutor;
 
     @Override
-    public Flux<AccountResponse> getAccountsByCustomerId(String customerId, ServerWebExchange exchange) {
-        return accountService.getAccountsByCustomerId(customerId);
+    public Flux<AccountResponse> getAccountsByCustomerId(String customerId, Integer limit, String pageToken,
+                                                         ServerWebExchange exchange) {
+        // Without paging parameters the whole listing is streamed, as NDJSON when the client accepts it
+        if (limit == null && pageToken == null) {
+            return accountService.getAccountsByCustomerId(customerId);
+        }
+        return accountService.getAccountsByCustomerId(customerId, limit, pageToken)
+                .flatMapMany(page -> page.toResponse(exchange));
     }
 
     @Override
@@ -33,14 +43,24 @@ public class AccountApiDelegateImpl implements AccountsApiDelegate {
                 request -> accountService.calculateAverageMonthlyDailyBalance(accountNumber, request));
     }
 
+    @Override
+    public Flux<FeeSummaryResponse> generateFeeSummaryBetweenDateByAccountNumber(String accountNumber, LocalDateTime startDate,
+                                                                                 LocalDateTime endDate, String groupBy,
+                                                                                 ServerWebExchange exchange) {
+        return accountService.generateFeeSummaryBetweenDate(accountNumber, startDate, endDate, groupBy);
+    }
+
     @Override
     public Flux<FeeReportResponse> generateFeeReportBetweenDateByAccountNumber(String accountNumber, LocalDateTime startDate, LocalDateTime endDate, ServerWebExchange exchange) {
         return accountService.generateFeeReportBetweenDate(accountNumber, startDate, endDate);
     }
 
     @Override
-    public Mono<TransactionResponse> transferByAccountNumber(String accountNumber, Mono<TransferRequest> transferRequest, ServerWebExchange exchange) {
-        return transferRequest.flatMap(request -> accountService.transfer(accountNumber, request));
+    public Mono<TransactionResponse> transferByAccountNumber(String accountNumber, Mono<TransferRequest> transferRequest,
+                                                           String idempotencyKey, ServerWebExchange exchange) {
+        return transferRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey, "accounts.transfer",
+                List.of(accountNumber, request), TransactionResponse.class,
+                () -> accountService.transfer(accountNumber, request)));
     }
 
     @Override
@@ -64,8 +84,11 @@ public class AccountApiDelegateImpl implements AccountsApiDelegate {
     }
 
     @Override
-    public Mono<AccountResponse> depositByAccountNumber(String accountNumber, Mono<DepositRequest> depositRequest, ServerWebExchange exchange) {
-        return depositRequest.flatMap(request -> accountService.depositByAccountNumber(accountNumber, request));
+    public Mono<AccountResponse> depositByAccountNumber(String accountNumber, Mono<DepositRequest> depositRequest,
+                                                        String idempotencyKey, ServerWebExchange exchange) {
+        return depositRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey, "accounts.deposit",
+                List.of(accountNumber, request), AccountResponse.class,
+                () -> accountService.depositByAccountNumber(accountNumber, request)));
     }
 
     @Override
@@ -74,8 +97,12 @@ public class AccountApiDelegateImpl implements AccountsApiDelegate {
     }
 
     @Override
-    public Flux<AccountResponse> getAllAccounts(ServerWebExchange exchange) {
-        return accountService.getAllAccounts();
+    public Flux<AccountResponse> getAllAccounts(Integer limit, String pageToken, ServerWebExchange exchange) {
+        if (limit == null && pageToken == null) {
+            return accountService.getAllAccounts();
+        }
+        return accountService.getAllAccounts(limit, pageToken)
+                .flatMapMany(page -> page.toResponse(exchange));
     }
 
     @Override
@@ -114,7 +141,10 @@ public class AccountApiDelegateImpl implements AccountsApiDelegate {
     }
 
     @Override
-    public Mono<AccountResponse> withdrawByAccountNumber(String accountNumber, Mono<WithdrawalRequest> withdrawalRequest, ServerWebExchange exchange) {
-        return withdrawalRequest.flatMap(request -> accountService.withdrawByAccountNumber(accountNumber, request));
+    public Mono<AccountResponse> withdrawByAccountNumber(String accountNumber, Mono<WithdrawalRequest> withdrawalRequest,
+                                                         String idempotencyKey, ServerWebExchange exchange) {
+        return withdrawalRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey, "accounts.withdrawal",
+                List.of(accountNumber, request), AccountResponse.class,
+                () -> accountService.withdrawByAccountNumber(accountNumber, request)));
     }
 }
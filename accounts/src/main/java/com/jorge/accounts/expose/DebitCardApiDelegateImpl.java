@@ -3,20 +3,30 @@ package com.jorge.accounts.expose;
 import com.jorge.accounts.api.DebitCardsApiDelegate;
 import com.jorge.accounts.model.*;
 import com.jorge.accounts.service.DebitCardService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class DebitCardApiDelegateImpl implements DebitCardsApiDelegate {
     private final DebitCardService debitCardService;
+    private final IdempotentExecutor idempotentExecutor;
 
     @Override
-    public Flux<DebitCardResponse> getDebitCardsByCardHolderId(String cardHolderId, ServerWebExchange exchange) {
-        return debitCardService.getDebitCardsByCardHolderId(cardHolderId);
+    public Flux<DebitCardResponse> getDebitCardsByCardHolderId(String cardHolderId, Integer limit, String pageToken,
+                                                               ServerWebExchange exchange) {
+        // Without paging parameters the whole listing is streamed, as NDJSON when the client accepts it
+        if (limit == null && pageToken == null) {
+            return debitCardService.getDebitCardsByCardHolderId(cardHolderId);
+        }
+        return debitCardService.getDebitCardsByCardHolderId(cardHolderId, limit, pageToken)
+                .flatMapMany(page -> page.toResponse(exchange));
     }
 
     @Override
@@ -45,8 +55,12 @@ public class DebitCardApiDelegateImpl implements DebitCardsApiDelegate {
     }
 
     @Override
-    public Flux<DebitCardResponse> getAllDebitCards(ServerWebExchange exchange) {
-        return debitCardService.getAllDebitCards();
+    public Flux<DebitCardResponse> getAllDebitCards(Integer limit, String pageToken, ServerWebExchange exchange) {
+        if (limit == null && pageToken == null) {
+            return debitCardService.getAllDebitCards();
+        }
+        return debitCardService.getAllDebitCards(limit, pageToken)
+                .flatMapMany(page -> page.toResponse(exchange));
     }
 
     @Override
@@ -60,7 +74,10 @@ public class DebitCardApiDelegateImpl implements DebitCardsApiDelegate {
     }
 
     @Override
-    public Mono<BalanceResponse> withdrawByDebitCardNumber(String debitCardNumber, Mono<WithdrawalRequest> withdrawalRequest, ServerWebExchange exchange) {
-        return withdrawalRequest.flatMap(request -> debitCardService.withdrawByDebitCardNumber(debitCardNumber, request));
+    public Mono<BalanceResponse> withdrawByDebitCardNumber(String debitCardNumber, Mono<WithdrawalRequest> withdrawalRequest,
+                                                           String idempotencyKey, ServerWebExchange exchange) {
+        return withdrawalRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey, "accounts.debit-card-withdrawal",
+                List.of(debitCardNumber, request), BalanceResponse.class,
+                () -> debitCardService.withdrawByDebitCardNumber(debitCardNumber, request)));
     }
 }
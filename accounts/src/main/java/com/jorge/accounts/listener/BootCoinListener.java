@@ -4,17 +4,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jorge.accounts.listener.dto.AccountNumberAssociationKafkaMessage;
 import com.jorge.accounts.listener.dto.BootCoinExchangeKafkaMessage;
 import com.jorge.accounts.listener.dto.BootCoinPurchaseKafkaMessage;
+import com.jorge.accounts.model.AccountResponse;
 import com.jorge.accounts.model.DebitCard;
+import com.jorge.accounts.model.TransactionResponse;
 import com.jorge.accounts.model.TransferRequest;
 import com.jorge.accounts.repository.DebitCardRepository;
 import com.jorge.accounts.service.AccountService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
+// Subscribed to their topics in KafkaConsumerConfig. Records are delivered at least once, so every purchase and exchange
+// runs through the IdempotentExecutor: exchanges are keyed by their petition, purchases by the record they came in
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -23,14 +29,14 @@ public class BootCoinListener {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final AccountService accountService;
     private final DebitCardRepository debitCardRepository;
+    private final IdempotentExecutor idempotentExecutor;
 
-    @KafkaListener(topics = "bootcoin-purchase-request", groupId = "accounts-bootcoin-purchase-group")
-    public void listenBootCoinPurchase(String message) {
+    public Mono<Void> listenBootCoinPurchase(String message, String recordId) {
         try {
             BootCoinPurchaseKafkaMessage bootCoinPurchaseKafkaMessage = objectMapper.readValue(message, BootCoinPurchaseKafkaMessage.class);
             log.info("Received BootCoin purchase message: {}", bootCoinPurchaseKafkaMessage);
 
-            accountService.purchaseBootCoin(bootCoinPurchaseKafkaMessage)
+            return purchaseOnce(recordId, "accounts.bootcoin-purchase", bootCoinPurchaseKafkaMessage)
                     .doOnSuccess(response -> {
                         log.info("BootCoin purchase successful: {}", response);
                         sendPurchaseSuccessfulMessage(bootCoinPurchaseKafkaMessage);
@@ -40,26 +46,26 @@ public class BootCoinListener {
                         sendPurchaseFailedMessage(bootCoinPurchaseKafkaMessage);
                         return Mono.empty();
                     })
-                    .subscribe();
+                    .then();
         } catch (Exception e) {
             log.error("Error processing BootCoin purchase message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
-    @KafkaListener(topics = "bootcoin-purchase-yanki-validation-success", groupId = "accounts-yanki-bootcoin-yanki-purchase-group")
-    public void listenYankiBootCoinPurchase(String message) {
+    public Mono<Void> listenYankiBootCoinPurchase(String message, String recordId) {
         try {
             BootCoinPurchaseKafkaMessage bootCoinPurchaseKafkaMessage = objectMapper.readValue(message, BootCoinPurchaseKafkaMessage.class);
             log.info("Received Yanki BootCoin purchase message: {}", bootCoinPurchaseKafkaMessage);
             String debitCardNumber = bootCoinPurchaseKafkaMessage.getPaymentMethodId();
 
             log.info("Finding debit card for number: {}", debitCardNumber);
-            debitCardRepository.findByDebitCardNumber(debitCardNumber)
+            return debitCardRepository.findByDebitCardNumber(debitCardNumber)
                     .switchIfEmpty(Mono.error(new RuntimeException("Debit card not found for number: " + debitCardNumber)))
                     .flatMap(debitCard -> {
                         String accountNumber = debitCard.getMainLinkedAccountNumber();
                         bootCoinPurchaseKafkaMessage.setPaymentMethodId(accountNumber);
-                        return accountService.purchaseBootCoin(bootCoinPurchaseKafkaMessage);
+                        return purchaseOnce(recordId, "accounts.yanki-bootcoin-purchase", bootCoinPurchaseKafkaMessage);
                     })
                     .doOnSuccess(response -> {
                         log.info("Yanki BootCoin purchase successful: {}", response);
@@ -70,14 +76,14 @@ public class BootCoinListener {
                         sendPurchaseFailedMessage(bootCoinPurchaseKafkaMessage);
                         return Mono.empty();
                     })
-                    .subscribe();
+                    .then();
         } catch (Exception e) {
             log.error("Error processing Yanki BootCoin purchase message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
-    @KafkaListener(topics = "bootcoin-exchange-request", groupId = "accounts-bootcoin-exchange-group")
-    public void listenBootCoinExchangeRequest(String message) {
+    public Mono<Void> listenBootCoinExchangeRequest(String message, String recordId) {
         // This one assumes that both buyer and seller accounts have already account numbers to make the transfer with
         try {
             BootCoinExchangeKafkaMessage bootCoinPurchaseKafkaMessage = objectMapper.readValue(message, BootCoinExchangeKafkaMessage.class);
@@ -89,7 +95,7 @@ public class BootCoinListener {
             TransferRequest transferRequest = new TransferRequest();
                     transferRequest.setAmount(bootCoinPurchaseKafkaMessage.getPaymentAmount());
                     transferRequest.setReceiverAccountNumber(receiverAccountNumber);
-            accountService.transfer(senderAccountNumber, transferRequest)
+            return exchangeOnce(recordId, bootCoinPurchaseKafkaMessage, senderAccountNumber, transferRequest)
                     .doOnSuccess(response -> {
                         log.info("BootCoin exchange request successful: {}", response);
                         sendExchangeSuccessfulMessage(bootCoinPurchaseKafkaMessage);
@@ -99,15 +105,15 @@ public class BootCoinListener {
                         sendExchangeFailedMessage(bootCoinPurchaseKafkaMessage);
                         return Mono.empty();
                     })
-                    .subscribe();
+                    .then();
 
         } catch (Exception e) {
             log.error("Error processing BootCoin exchange request message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
-    @KafkaListener(topics = "bootcoin-exchange-yanki-validation-success", groupId = "accounts-yanki-bootcoin-exchange-group")
-    public void listenBootCoinYankiExchangeRequest(String message) {
+    public Mono<Void> listenBootCoinYankiExchangeRequest(String message, String recordId) {
         try {
             BootCoinExchangeKafkaMessage bootCoinExchangeKafkaMessage = objectMapper.readValue(message, BootCoinExchangeKafkaMessage.class);
             log.info("Received Yanki BootCoin exchange message: {}", bootCoinExchangeKafkaMessage);
@@ -137,7 +143,7 @@ public class BootCoinListener {
             }
 
             // COMBINE AND EXECUTE THE TRANSFER
-            Mono.zip(buyerAccountNumberMono, sellerAccountNumberMono)
+            return Mono.zip(buyerAccountNumberMono, sellerAccountNumberMono)
                     .flatMap(tuple -> {
                         String buyerAccountNumber = tuple.getT1();
                         String sellerAccountNumber = tuple.getT2();
@@ -146,7 +152,7 @@ public class BootCoinListener {
                         transferRequest.setAmount(bootCoinExchangeKafkaMessage.getPaymentAmount());
                         transferRequest.setReceiverAccountNumber(sellerAccountNumber);
 
-                        return accountService.transfer(buyerAccountNumber, transferRequest)
+                        return exchangeOnce(recordId, bootCoinExchangeKafkaMessage, buyerAccountNumber, transferRequest)
                                 .thenReturn(bootCoinExchangeKafkaMessage);
                     })
                     .doOnSuccess(this::sendExchangeSuccessfulMessage)
@@ -155,19 +161,19 @@ public class BootCoinListener {
                         sendExchangeFailedMessage(bootCoinExchangeKafkaMessage);
                         return Mono.empty();
                     })
-                    .subscribe();
+                    .then();
 
         } catch (Exception e) {
             log.error("Error processing Yanki BootCoin exchange message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
-    @KafkaListener(topics = "bootcoin-account-association-request", groupId = "accounts-bootcoin-association-group")
-    public void listenBootCoinAccountAssociation(String message) {
+    public Mono<Void> listenBootCoinAccountAssociation(String message) {
         log.info("Received message from Kafka topic 'bootcoin-account-association-request'");
         try {
             AccountNumberAssociationKafkaMessage associationMessage = objectMapper.readValue(message, AccountNumberAssociationKafkaMessage.class);
-            accountService.getAccountByAccountNumber(associationMessage.getAccountNumber())
+            return accountService.getAccountByAccountNumber(associationMessage.getAccountNumber())
                     .switchIfEmpty(Mono.defer(() -> {
                         log.error("Account not found for number: {}", associationMessage.getAccountNumber());
                         return Mono.fromRunnable(() -> sendAccountAssociationFailedMessage(associationMessage));
@@ -180,12 +186,27 @@ public class BootCoinListener {
                         log.error("Error during account association: {}", e.getMessage(), e);
                         return Mono.fromRunnable(() -> sendAccountAssociationFailedMessage(associationMessage));
                     })
-                    .subscribe();
+                    .then();
         } catch (Exception e) {
             log.error("Error processing AccountNumberAssociationKafkaMessage: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
+    // A redelivered purchase gets the stored response back instead of debiting the account again
+    private Mono<AccountResponse> purchaseOnce(String recordId, String operation, BootCoinPurchaseKafkaMessage purchase) {
+        return idempotentExecutor.execute(recordId, operation, purchase, AccountResponse.class,
+                () -> accountService.purchaseBootCoin(purchase));
+    }
+
+    // One transfer per petition, whichever topic it arrives on; a message without petition falls back to its record
+    private Mono<TransactionResponse> exchangeOnce(String recordId, BootCoinExchangeKafkaMessage exchange,
+                                                   String buyerAccountNumber, TransferRequest transferRequest) {
+        String key = exchange.getPetitionId() == null ? recordId : exchange.getPetitionId();
+        return idempotentExecutor.execute(key, "accounts.bootcoin-exchange", List.of(buyerAccountNumber, transferRequest),
+                TransactionResponse.class, () -> accountService.transfer(buyerAccountNumber, transferRequest));
+    }
+
     private void sendAccountAssociationSuccessfulMessage(AccountNumberAssociationKafkaMessage message) {
         try {
             String successMessage = objectMapper.writeValueAsString(message);
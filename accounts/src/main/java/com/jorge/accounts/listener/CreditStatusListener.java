@@ -0,0 +1,42 @@
+package com.jorge.accounts.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jorge.accounts.listener.dto.CreditStatusKafkaMessage;
+import com.jorge.accounts.model.CustomerCreditStatus;
+import com.jorge.accounts.repository.CustomerCreditStatusRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Keeps the CustomerCreditStatus read model in sync with the credits service
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditStatusListener {
+    private final ObjectMapper objectMapper;
+    private final CustomerCreditStatusRepository customerCreditStatusRepository;
+
+    public Mono<Void> listenCreditStatusChanged(String message) {
+        try {
+            CreditStatusKafkaMessage creditStatusKafkaMessage = objectMapper.readValue(message, CreditStatusKafkaMessage.class);
+            log.info("Received credit status message: {}", creditStatusKafkaMessage);
+
+            return customerCreditStatusRepository.saveIfNewer(CustomerCreditStatus.builder()
+                            .customerId(creditStatusKafkaMessage.getCustomerId())
+                            .hasCreditCard(creditStatusKafkaMessage.isHasCreditCard())
+                            .earliestDueDate(creditStatusKafkaMessage.getEarliestDueDate())
+                            .computedAt(creditStatusKafkaMessage.getComputedAt())
+                            .build())
+                    .doOnNext(saved -> {
+                        if (!saved) {
+                            log.info("Ignored stale credit status of customer {}", creditStatusKafkaMessage.getCustomerId());
+                        }
+                    })
+                    .then();
+        } catch (Exception e) {
+            log.error("Error processing credit status message: {}", e.getMessage(), e);
+            return Mono.empty();
+        }
+    }
+}
@@ -4,18 +4,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jorge.accounts.listener.dto.DebitCardAssociationKafkaMessage;
 import com.jorge.accounts.listener.dto.YankiPaymentKafkaMessage;
 import com.jorge.accounts.model.DebitCard;
+import com.jorge.accounts.model.TransactionResponse;
 import com.jorge.accounts.model.TransferRequest;
 import com.jorge.accounts.repository.DebitCardRepository;
 import com.jorge.accounts.service.AccountService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.List;
 
+// Message handlers subscribed to their topics in KafkaConsumerConfig; the offset is committed once the returned Mono completes.
+// A payment record may be delivered again, so its transfer runs through the IdempotentExecutor keyed by the record
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -24,9 +28,9 @@ public class YankiOperationListener {
     private final DebitCardRepository debitCardRepository;
     private final AccountService accountService;
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final IdempotentExecutor idempotentExecutor;
 
-    @KafkaListener(topics = "yanki-payment-request", groupId = "accounts-yanki-payment-group")
-    public void listenYankiPayment(String message) {
+    public Mono<Void> listenYankiPayment(String message, String recordId) {
         log.info("Received message from Kafka topic 'yanki-payment-request'");
         try {
             YankiPaymentKafkaMessage yankiPaymentMessage = objectMapper.readValue(message, YankiPaymentKafkaMessage.class);
@@ -35,7 +39,7 @@ public class YankiOperationListener {
             Mono<DebitCard> receiverDebitCardMono = debitCardRepository.findByDebitCardNumber(yankiPaymentMessage.getReceiverDebitCardNumber())
                     .switchIfEmpty(Mono.error(new RuntimeException("Receiver debit card not found")));
 
-            Mono.zip(senderDebitCardMono, receiverDebitCardMono)
+            return Mono.zip(senderDebitCardMono, receiverDebitCardMono)
                     .flatMap(tuple -> { // Use flatMap here!
                         DebitCard senderCard = tuple.getT1();
                         DebitCard receiverCard = tuple.getT2();
@@ -51,7 +55,9 @@ public class YankiOperationListener {
                         transferRequest.setReceiverAccountNumber(receiverAccountNumber);
                         transferRequest.setAmount(amount);
 
-                        return accountService.transfer(senderAccountNumber, transferRequest)
+                        return idempotentExecutor.execute(recordId, "accounts.yanki-payment",
+                                        List.of(senderAccountNumber, transferRequest), TransactionResponse.class,
+                                        () -> accountService.transfer(senderAccountNumber, transferRequest))
                                 .doOnSuccess(transferResponse -> {
                                     log.info("Transfer successful: {}", transferResponse);
                                     sendPaymentSuccessfulMessage(yankiPaymentMessage);
@@ -66,18 +72,18 @@ public class YankiOperationListener {
                         sendPaymentFailedMessage(yankiPaymentMessage);
                         return Mono.empty();
                     })
-                    .subscribe();
+                    .then();
         } catch (Exception e) {
             log.error("Error parsing Yanki payment message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
     }
 
-    @KafkaListener(topics = "yanki-debit-card-association-checking-card", groupId = "accounts-debit-card-association-group")
-    public void listenDebitCardAssociation(String message) {
+    public Mono<Void> listenDebitCardAssociation(String message) {
         log.info("Received message from Kafka topic 'yanki-debit-card-association-checking-card");
         try {
             DebitCardAssociationKafkaMessage debitCardAssociationMessage = objectMapper.readValue(message, DebitCardAssociationKafkaMessage.class);
-            debitCardRepository.findByDebitCardNumber(debitCardAssociationMessage.getDebitCardNumber())
+            return debitCardRepository.findByDebitCardNumber(debitCardAssociationMessage.getDebitCardNumber())
                     .switchIfEmpty(Mono.defer(() -> {
                         log.error("Debit card not found for number: {}", debitCardAssociationMessage.getDebitCardNumber());
                         return Mono.fromRunnable(() -> sendDebitCardDoesNotExistMessage(debitCardAssociationMessage));
@@ -90,10 +96,11 @@ public class YankiOperationListener {
                         log.error("Error finding debit card: {}", e.getMessage(), e);
                         return Mono.fromRunnable(() -> sendDebitCardDoesNotExistMessage(debitCardAssociationMessage));
                     })
-                    .subscribe();
+                    .then();
         }
         catch (Exception e) {
             log.error("Error parsing debit card association message: {}", e.getMessage(), e);
+            return Mono.empty();
         }
 
     }
@@ -0,0 +1,138 @@
+package com.jorge.accounts.listener.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+// Consumes one topic with reactor-kafka and hands each message to a reactive handler.
+// Records are spread over a fixed number of lanes by partition and key: each lane handles one record at a time, so
+// records with the same key keep their partition order and at most `concurrency` handlers run at once. The offset of
+// a record is acknowledged once its handler completes and committed when every offset before it is acknowledged
+// too; when too many acknowledged offsets are waiting for an earlier one the receiver stops fetching. A record whose
+// handler fails is moved to the dead letter topic before its offset is acknowledged.
+// Delivery is at-least-once: a record whose offset was not committed before a restart or a rebalance is handled again.
+// Each handler gets the record's id (<topic>-<partition>@<offset>), the same on every delivery, to deduplicate on.
+@Slf4j
+public class ReactiveKafkaConsumer {
+    private final String topic;
+    private final ReceiverOptions<String, String> receiverOptions;
+    private final BiFunction<String, String, Mono<Void>> handler;
+    private final int concurrency;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String deadLetterTopic;
+
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private Disposable subscription;
+
+    public ReactiveKafkaConsumer(String topic, ReceiverOptions<String, String> receiverOptions,
+                                 BiFunction<String, String, Mono<Void>> handler, int concurrency,
+                                 KafkaTemplate<String, String> kafkaTemplate, String deadLetterTopic,
+                                 MeterRegistry meterRegistry) {
+        this.topic = topic;
+        this.receiverOptions = receiverOptions;
+        this.handler = handler;
+        this.concurrency = concurrency;
+        this.kafkaTemplate = kafkaTemplate;
+        this.deadLetterTopic = deadLetterTopic;
+
+        this.processedCounter = Counter.builder("accounts.kafka.consumer.processed")
+                .description("Kafka records handled and acknowledged")
+                .tag("topic", topic)
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("accounts.kafka.consumer.failed")
+                .description("Kafka records whose handler failed, moved to the dead letter topic")
+                .tag("topic", topic)
+                .register(meterRegistry);
+        Gauge.builder("accounts.kafka.consumer.in.flight", inFlight, AtomicInteger::get)
+                .description("Kafka records being handled")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Starting reactive consumer of topic {} with {} lanes", topic, concurrency);
+        subscription = consume(Flux.defer(() -> KafkaReceiver.create(receiverOptions).receive()))
+                // A failed poll or commit closes the receiver; unacknowledged records are received again
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.error("Consumer of topic {} failed, restarting: {}",
+                                topic, signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Flux<ReceiverRecord<String, String>> consume(Flux<ReceiverRecord<String, String>> records) {
+        return records
+                .groupBy(this::lane)
+                .flatMap(lane -> lane.concatMap(this::handle), concurrency);
+    }
+
+    private int lane(ReceiverRecord<String, String> record) {
+        return Math.floorMod(Objects.hash(record.partition(), record.key()), concurrency);
+    }
+
+    private Mono<ReceiverRecord<String, String>> handle(ReceiverRecord<String, String> record) {
+        return Mono.defer(() -> {
+                    inFlight.incrementAndGet();
+                    return handler.apply(record.value(), recordId(record));
+                })
+                // Handlers report their own business failures; anything left is parked on the dead letter topic so one
+                // record can not block its lane. If that publish fails too the receiver restarts and the record comes back
+                .onErrorResume(e -> {
+                    failedCounter.increment();
+                    log.error("Error handling record {}-{}@{}: {}", topic, record.partition(), record.offset(), e.getMessage(), e);
+                    return sendToDeadLetterTopic(record, e);
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then(Mono.fromCallable(() -> {
+                    record.receiverOffset().acknowledge();
+                    processedCounter.increment();
+                    return record;
+                }));
+    }
+
+    static String recordId(ReceiverRecord<String, String> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private Mono<Void> sendToDeadLetterTopic(ReceiverRecord<String, String> record, Throwable error) {
+        ProducerRecord<String, String> deadLetter = new ProducerRecord<>(deadLetterTopic, record.key(), record.value());
+        deadLetter.headers()
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array())
+                .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(error.getMessage()).getBytes(StandardCharsets.UTF_8));
+        return Mono.fromFuture(() -> kafkaTemplate.send(deadLetter)).then();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jorge.accounts.listener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditStatusKafkaMessage {
+    private String customerId;
+    private boolean hasCreditCard;
+    private LocalDate earliestDueDate;
+    private LocalDateTime computedAt;
+}
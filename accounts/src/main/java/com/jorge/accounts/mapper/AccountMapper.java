@@ -31,4 +31,12 @@ public class AccountMapper {
 
         return accountResponse;
     }
+
+    public BalanceResponse mapToBalanceResponse(AccountBalance accountBalance) {
+        BalanceResponse balanceResponse = new BalanceResponse();
+        balanceResponse.setAccountNumber(accountBalance.getAccountNumber());
+        balanceResponse.setAccountType(BalanceResponse.AccountTypeEnum.valueOf(accountBalance.getAccountType().name()));
+        balanceResponse.setBalance(accountBalance.getBalance());
+        return balanceResponse;
+    }
 }
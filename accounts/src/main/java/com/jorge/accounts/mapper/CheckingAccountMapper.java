@@ -4,7 +4,6 @@ import com.jorge.accounts.model.Account;
 import com.jorge.accounts.model.CheckingAccount;
 import com.jorge.accounts.model.CheckingAccountRequest;
 import com.jorge.accounts.model.CheckingAccountResponse;
-import com.jorge.accounts.utils.AccountUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +12,8 @@ import java.time.LocalDateTime;
 @Component
 @RequiredArgsConstructor
 public class CheckingAccountMapper {
-    private final AccountUtils accountUtils;
-
     public CheckingAccount mapToCheckingAccount(CheckingAccountRequest checkingAccountRequest) {
         CheckingAccount checkingAccount = new CheckingAccount();
-        checkingAccount.setAccountNumber(accountUtils.generateAccountNumber());
         checkingAccount.setBalance(checkingAccountRequest.getBalance());
         checkingAccount.setCustomerId(checkingAccountRequest.getCustomerId());
         checkingAccount.setAccountType(Account.AccountType.CHECKING);
@@ -4,7 +4,6 @@ import com.jorge.accounts.model.Account;
 import com.jorge.accounts.model.FixedTermAccount;
 import com.jorge.accounts.model.FixedTermAccountRequest;
 import com.jorge.accounts.model.FixedTermAccountResponse;
-import com.jorge.accounts.utils.AccountUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +12,8 @@ import java.time.LocalDateTime;
 @Component
 @RequiredArgsConstructor
 public class FixedTermAccountMapper {
-    private final AccountUtils accountUtils;
-
     public FixedTermAccount mapToFixedTermAccount(FixedTermAccountRequest fixedTermAccountRequest) {
         FixedTermAccount fixedTermAccount = new FixedTermAccount();
-        fixedTermAccount.setAccountNumber(accountUtils.generateAccountNumber());
         fixedTermAccount.setBalance(fixedTermAccountRequest.getBalance());
         fixedTermAccount.setCustomerId(fixedTermAccountRequest.getCustomerId());
         fixedTermAccount.setAccountType(Account.AccountType.FIXED_TERM);
@@ -4,7 +4,6 @@ import com.jorge.accounts.model.Account;
 import com.jorge.accounts.model.SavingsAccount;
 import com.jorge.accounts.model.SavingsAccountRequest;
 import com.jorge.accounts.model.SavingsAccountResponse;
-import com.jorge.accounts.utils.AccountUtils;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -15,11 +14,8 @@ import java.time.LocalDateTime;
 @Component
 @RequiredArgsConstructor
 public class SavingsAccountMapper {
-    private final AccountUtils accountUtils;
-
     public SavingsAccount mapToSavingsAccount(SavingsAccountRequest savingsAccountRequest) {
         SavingsAccount account = new SavingsAccount();
-        account.setAccountNumber(accountUtils.generateAccountNumber()); // Generate AccountNumber
         account.setBalance(savingsAccountRequest.getBalance());
         account.setCustomerId(savingsAccountRequest.getCustomerId());
         account.setAccountType(Account.AccountType.SAVINGS); // Set the account type
@@ -5,7 +5,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,10 +19,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "accounts")
+// Keyset pages of one customer's accounts
+@CompoundIndex(name = "customerId_id", def = "{'customerId': 1, '_id': 1}")
 public abstract class Account {
     @Id
     private String id;
+    // Allocated from a number series, the index makes a duplicate fail loudly instead of creating a second account
+    @Indexed(unique = true)
     private String accountNumber;
+    // Stored as Decimal128 so balance can be mutated server-side with $inc
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal balance;
     private String customerId;
     private AccountType accountType;
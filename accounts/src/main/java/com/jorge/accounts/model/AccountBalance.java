@@ -0,0 +1,23 @@
+package com.jorge.accounts.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
+// Read model of the balance endpoints. Read from the accounts collection with only these fields, so neither the
+// polymorphic Account nor its holders, signers and fee settings are decoded
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+    private String accountNumber;
+    private Account.AccountType accountType;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal balance;
+}
@@ -0,0 +1,31 @@
+package com.jorge.accounts.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// End-of-day balance of an account. One document per account and day with at least one movement;
+// days without a document keep the closing balance of the previous snapshot.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "account-daily-balances")
+@CompoundIndex(name = "accountNumber_date", def = "{'accountNumber': 1, 'date': 1}", unique = true)
+public class AccountDailyBalance {
+    @Id
+    private String id;
+    private String accountNumber;
+    private LocalDate date;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal closingBalance;
+    private LocalDateTime updatedAt;
+}
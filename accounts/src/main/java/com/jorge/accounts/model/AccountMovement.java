@@ -0,0 +1,29 @@
+package com.jorge.accounts.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// A deposit or withdrawal together with the rules the account must still satisfy when it is applied.
+// Everything the rules need from the account itself (balance, counters, fee flag) is evaluated by Mongo.
+@Getter
+@Builder
+public class AccountMovement {
+    private final String accountNumber;
+    private final Direction direction;
+    private final BigDecimal amount;
+    // Charged on top of a withdrawal, or taken from a deposit, when the commission fee is active
+    private final BigDecimal commissionFee;
+    // Counted movements activate the commission fee once maxMovementsFeeFreeThisMonth is reached
+    private final boolean countMovement;
+    private final Integer maxMovementsFeeFreeThisMonth;
+    // Rejects the movement once movementsThisMonth reaches it. Null means no limit
+    private final Integer monthlyMovementsLimit;
+    // Rejects the movement if the account already holds a balance (single deposit of fixed term accounts)
+    private final boolean requireEmptyBalance;
+
+    public enum Direction {
+        CREDIT, DEBIT
+    }
+}
@@ -0,0 +1,36 @@
+package com.jorge.accounts.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Progress of the monthly rollover of one period. It is advanced in the same Mongo transaction as each page of
+// accounts, so a restarted job continues after the last page that was actually applied.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "account-rollover-checkpoints")
+public class AccountRolloverCheckpoint {
+    // Month being opened, e.g. 2026-10
+    @Id
+    private String period;
+    private RolloverStatus status;
+    // Id of the last account rolled over, the next page starts after it
+    private String lastAccountId;
+    private Long processedAccounts;
+    private Long chargedMaintenanceFees;
+    // Instance that is currently running the rollover, and until when it holds it
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+
+    public enum RolloverStatus {
+        RUNNING, COMPLETED
+    }
+}
@@ -0,0 +1,31 @@
+package com.jorge.accounts.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Local copy of the credit status of a customer, kept up to date from the credit-status-changed topic of the credits
+// service. Account opening validates against it instead of calling the credits service, which is only asked for a
+// customer without an entry; its answer is stored here.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "customer-credit-status")
+public class CustomerCreditStatus {
+    @Id
+    private String customerId;
+    private Boolean hasCreditCard;
+    // Due date of the customer's earliest credit, null without credits
+    private LocalDate earliestDueDate;
+    // When the credits service computed this status, older messages are ignored
+    private LocalDateTime computedAt;
+
+    public boolean hasOverdueDebt(LocalDate today) {
+        return earliestDueDate != null && earliestDueDate.isBefore(today);
+    }
+}
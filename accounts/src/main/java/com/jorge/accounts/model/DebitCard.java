@@ -2,6 +2,8 @@ package com.jorge.accounts.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -14,12 +16,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "debit-cards")
+// Keyset pages of one card holder's debit cards
+@CompoundIndex(name = "cardHolderId_id", def = "{'cardHolderId': 1, '_id': 1}")
 public class DebitCard {
     @Id
     private String id;
     private String cardHolderId;
     private List<String> linkedAccountsNumber;
     private String mainLinkedAccountNumber;
+    @Indexed(unique = true)
     private String debitCardNumber;
     private String cvv;
     private LocalDate expiryDate;
@@ -0,0 +1,20 @@
+package com.jorge.accounts.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// High part of a hi/lo number series: every instance reserves whole blocks of numbers by incrementing nextBlock
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "number-sequences")
+public class NumberSequence {
+    @Id
+    private String name;
+    private Long nextBlock;
+}
@@ -0,0 +1,38 @@
+package com.jorge.accounts.model;
+
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Movement record waiting to be sent to the transaction service. Written in the same Mongo transaction as the
+// balance change and deleted once the transaction service has stored it.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "transaction-outbox")
+@CompoundIndex(name = "status_nextAttemptAt_createdAt", def = "{'status': 1, 'nextAttemptAt': 1, 'createdAt': 1}")
+public class TransactionOutboxEntry {
+    @Id
+    private String id;
+    private TransactionRequest transaction;
+    private OutboxStatus status;
+    private Integer attempts;
+    private LocalDateTime nextAttemptAt;
+    // Instance that is currently relaying the entry, and until when it holds it
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+    private String lastError;
+    private LocalDateTime createdAt;
+
+    public enum OutboxStatus {
+        PENDING,
+        // Gave up after the maximum number of attempts, needs manual review
+        FAILED
+    }
+}
@@ -0,0 +1,34 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.Account;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+// Keeps the daily balance snapshot in sync for every full-document save of an account
+// (creation, update, deposit, withdrawal, ...). Conditional $inc updates record their snapshot explicitly.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountDailyBalanceCallback implements ReactiveAfterSaveCallback<Account> {
+    private final AccountDailyBalanceRepository accountDailyBalanceRepository;
+
+    @Override
+    public Publisher<Account> onAfterSave(Account account, Document document, String collection) {
+        if (account.getAccountNumber() == null || account.getBalance() == null) {
+            return Mono.just(account);
+        }
+        return accountDailyBalanceRepository.recordClosingBalance(account.getAccountNumber(), LocalDate.now(), account.getBalance())
+                .onErrorResume(e -> {
+                    log.warn("Could not record daily balance for account {}: {}", account.getAccountNumber(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(account);
+    }
+}
@@ -0,0 +1,18 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.AccountDailyBalance;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Repository
+public interface AccountDailyBalanceRepository extends ReactiveMongoRepository<AccountDailyBalance, String>,
+        AccountDailyBalanceRepositoryCustom {
+    Mono<AccountDailyBalance> findFirstByAccountNumberAndDateBeforeOrderByDateDesc(String accountNumber, LocalDate date);
+
+    Flux<AccountDailyBalance> findByAccountNumberAndDateBetweenOrderByDateAsc(String accountNumber, Range<LocalDate> dateRange);
+}
@@ -0,0 +1,15 @@
+package com.jorge.accounts.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface AccountDailyBalanceRepositoryCustom {
+    // Upserts the closing balance of the given day. Concurrent movements on the same day are last-writer-wins
+    Mono<Void> recordClosingBalance(String accountNumber, LocalDate date, BigDecimal closingBalance);
+
+    // Same as recordClosingBalance for many accounts, keyed by account number, in one bulk write
+    Mono<Void> recordClosingBalances(LocalDate date, Map<String, BigDecimal> closingBalances);
+}
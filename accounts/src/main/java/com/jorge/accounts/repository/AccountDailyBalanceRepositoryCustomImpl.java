@@ -0,0 +1,50 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.AccountDailyBalance;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AccountDailyBalanceRepositoryCustomImpl implements AccountDailyBalanceRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Void> recordClosingBalance(String accountNumber, LocalDate date, BigDecimal closingBalance) {
+        return reactiveMongoTemplate.upsert(byAccountAndDate(accountNumber, date),
+                closingBalanceUpdate(closingBalance), AccountDailyBalance.class).then();
+    }
+
+    @Override
+    public Mono<Void> recordClosingBalances(LocalDate date, Map<String, BigDecimal> closingBalances) {
+        if (closingBalances.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations =
+                reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountDailyBalance.class);
+        closingBalances.forEach((accountNumber, closingBalance) ->
+                bulkOperations.upsert(byAccountAndDate(accountNumber, date), closingBalanceUpdate(closingBalance)));
+        return bulkOperations.execute().then();
+    }
+
+    private Query byAccountAndDate(String accountNumber, LocalDate date) {
+        return Query.query(Criteria.where("accountNumber").is(accountNumber).and("date").is(date));
+    }
+
+    private Update closingBalanceUpdate(BigDecimal closingBalance) {
+        return new Update()
+                .set("closingBalance", new Decimal128(closingBalance))
+                .set("updatedAt", LocalDateTime.now());
+    }
+}
@@ -7,10 +7,11 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface AccountRepository extends ReactiveMongoRepository<Account, String> {
+public interface AccountRepository extends ReactiveMongoRepository<Account, String>, AccountRepositoryCustom {
     Mono<Account> findByAccountNumber(String accountNumber);
-    Mono<Account> findByCustomerIdAndAccountType(String customerId, Account.AccountType accountType);
+    Mono<Boolean> existsByCustomerIdAndAccountType(String customerId, Account.AccountType accountType);
     Mono<Void> deleteByAccountNumber(String accountNumber);
+    Mono<Boolean> existsByAccountNumber(String accountNumber);
 
     Flux<Account> findByCustomerId(String customerId);
 }
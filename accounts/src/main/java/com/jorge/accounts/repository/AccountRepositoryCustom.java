@@ -0,0 +1,47 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountBalance;
+import com.jorge.accounts.model.AccountMovement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AccountRepositoryCustom {
+    // Atomically adds the amount to the balance. Empty if the account does not exist
+    Mono<Account> increaseBalance(String accountNumber, BigDecimal amount);
+
+    // Atomically subtracts the amount only if balance >= amount. Empty if the account does not exist or has insufficient balance
+    Mono<Account> decreaseBalance(String accountNumber, BigDecimal amount);
+
+    // Same as decreaseBalance but also requires movementsThisMonth < monthlyMovementsLimit and counts the movement
+    Mono<Account> decreaseBalanceCountingMovement(String accountNumber, BigDecimal amount, Integer monthlyMovementsLimit);
+
+    // Applies the movement in one conditional update: balance guard, movement limit, commission fee and movement count.
+    // Empty if the account does not exist or one of the movement rules rejected it
+    Mono<Account> applyMovement(AccountMovement movement);
+
+    // Number, type and balance of the account, the only fields returned by Mongo. Empty if the account does not exist
+    Mono<AccountBalance> findBalanceByAccountNumber(String accountNumber);
+
+    // Accounts among accountNumbers whose balance covers the amount, in one query backed by the accountNumber index.
+    // Only the fields needed to pick the account to withdraw from are loaded
+    Flux<Account> findWithdrawalCandidates(Collection<String> accountNumbers, BigDecimal amount);
+
+    // Accounts ordered by _id after lastAccountId (null from the start), optionally of one customer. A limit of 0 reads
+    // them all; the cursor fetches accounts.listing.cursor-batch-size documents per round trip, so a full export is
+    // streamed with flat memory
+    Flux<Account> findPage(String customerId, String lastAccountId, int limit);
+
+    // Next page of accounts ordered by _id, starting after lastAccountId (null for the first page). Only the fields
+    // the monthly rollover needs are loaded
+    Flux<Account> findRolloverPage(String lastAccountId, int pageSize);
+
+    // Resets the monthly movement counters of the given accounts and charges the maintenance fees, keyed by account id,
+    // in one bulk write. A fee is only charged while the balance covers it
+    Mono<Void> rollOverAccounts(List<String> accountIds, Map<String, BigDecimal> maintenanceFees);
+}
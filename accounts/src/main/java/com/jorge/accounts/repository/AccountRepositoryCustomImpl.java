@@ -0,0 +1,178 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountBalance;
+import com.jorge.accounts.model.AccountMovement;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int cursorBatchSize;
+
+    public AccountRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+              @Value("${accounts.listing.cursor-batch-size:500}") int cursorBatchSize) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public Mono<Account> increaseBalance(String accountNumber, BigDecimal amount) {
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber));
+        Update update = new Update().inc("balance", new Decimal128(amount));
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    @Override
+    public Mono<Account> decreaseBalance(String accountNumber, BigDecimal amount) {
+        // The balance guard is part of the filter, so the check and the update happen in the same server-side operation
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber)
+                .and("balance").gte(new Decimal128(amount)));
+        Update update = new Update().inc("balance", new Decimal128(amount.negate()));
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    @Override
+    public Mono<Account> decreaseBalanceCountingMovement(String accountNumber, BigDecimal amount,
+                                                         Integer monthlyMovementsLimit) {
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber)
+                .and("balance").gte(new Decimal128(amount))
+                .and("movementsThisMonth").lt(monthlyMovementsLimit));
+        Update update = new Update()
+                .inc("balance", new Decimal128(amount.negate()))
+                .inc("movementsThisMonth", 1);
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    @Override
+    public Mono<Account> applyMovement(AccountMovement movement) {
+        boolean debit = movement.getDirection() == AccountMovement.Direction.DEBIT;
+        BigDecimal amount = movement.getAmount();
+        BigDecimal commissionFee = movement.getCommissionFee() == null ? BigDecimal.ZERO : movement.getCommissionFee();
+        BigDecimal amountWithFee = debit ? amount.add(commissionFee) : amount.subtract(commissionFee);
+        Document feeApplies = feeApplies(movement);
+
+        Criteria criteria = Criteria.where("accountNumber").is(movement.getAccountNumber());
+        if (movement.getMonthlyMovementsLimit() != null) {
+            criteria = criteria.and("movementsThisMonth").lt(movement.getMonthlyMovementsLimit());
+        }
+        if (movement.isRequireEmptyBalance()) {
+            criteria = criteria.and("balance").lte(new Decimal128(BigDecimal.ZERO));
+        }
+        if (debit) {
+            Document requiredBalance = new Document("$cond",
+                    List.of(feeApplies, new Decimal128(amountWithFee), new Decimal128(amount)));
+            criteria = criteria.and("$expr").is(new Document("$gte", List.of("$balance", requiredBalance)));
+        } else if (amountWithFee.signum() < 0) {
+            // A deposit can not be smaller than the commission fee it pays
+            criteria = criteria.and("$expr").is(new Document("$not", List.of(feeApplies)));
+        }
+
+        // Expressions inside one $set all read the stored document, so the fee flag is decided on the previous count
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (movement.isCountMovement()) {
+            stages.add(context -> new Document("$set", new Document("isCommissionFeeActive", feeApplies)
+                    .append("movementsThisMonth", new Document("$add", List.of("$movementsThisMonth", 1)))));
+        }
+        Decimal128 signedAmount = new Decimal128(debit ? amount.negate() : amount);
+        Decimal128 signedAmountWithFee = new Decimal128(debit ? amountWithFee.negate() : amountWithFee);
+        stages.add(context -> new Document("$set", new Document("balance", new Document("$add", List.of("$balance",
+                new Document("$cond", List.of(new Document("$eq", List.of("$isCommissionFeeActive", true)),
+                        signedAmountWithFee, signedAmount)))))));
+
+        return reactiveMongoTemplate.findAndModify(Query.query(criteria), AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    @Override
+    public Mono<AccountBalance> findBalanceByAccountNumber(String accountNumber) {
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber));
+        query.fields().include("accountNumber", "accountType", "balance").exclude("_id");
+        return reactiveMongoTemplate.findOne(query, AccountBalance.class,
+                reactiveMongoTemplate.getCollectionName(Account.class));
+    }
+
+    @Override
+    public Flux<Account> findWithdrawalCandidates(Collection<String> accountNumbers, BigDecimal amount) {
+        Query query = Query.query(Criteria.where("accountNumber").in(accountNumbers)
+                .and("balance").gte(new Decimal128(amount)));
+        query.fields().include("_class", "accountNumber", "accountType", "balance", "isCommissionFeeActive",
+                "movementCommissionFee");
+        return reactiveMongoTemplate.find(query, Account.class);
+    }
+
+    @Override
+    public Flux<Account> findPage(String customerId, String lastAccountId, int limit) {
+        Criteria criteria = customerId == null ? new Criteria() : Criteria.where("customerId").is(customerId);
+        if (lastAccountId != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(lastAccountId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit)
+                .cursorBatchSize(cursorBatchSize);
+        return reactiveMongoTemplate.find(query, Account.class);
+    }
+
+    @Override
+    public Flux<Account> findRolloverPage(String lastAccountId, int pageSize) {
+        Criteria criteria = lastAccountId == null ? new Criteria() : Criteria.where("_id").gt(new ObjectId(lastAccountId));
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize);
+        // _class is needed to instantiate the right account subtype
+        query.fields().include("_class", "accountNumber", "accountType", "balance", "maintenanceFee");
+        return reactiveMongoTemplate.find(query, Account.class);
+    }
+
+    @Override
+    public Mono<Void> rollOverAccounts(List<String> accountIds, Map<String, BigDecimal> maintenanceFees) {
+        if (accountIds.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        bulkOperations.updateMulti(Query.query(Criteria.where("_id").in(accountIds)), new Update()
+                .set("movementsThisMonth", 0)
+                .set("isCommissionFeeActive", false));
+        maintenanceFees.forEach((accountId, maintenanceFee) -> bulkOperations.updateOne(
+                Query.query(Criteria.where("_id").is(accountId).and("balance").gte(new Decimal128(maintenanceFee))),
+                new Update().inc("balance", new Decimal128(maintenanceFee.negate()))));
+        return bulkOperations.execute().then();
+    }
+
+    // The fee applies when it is already active or, for counted movements, when this movement reaches the fee-free limit
+    private Document feeApplies(AccountMovement movement) {
+        Document feeActive = new Document("$eq", List.of("$isCommissionFeeActive", true));
+        if (!movement.isCountMovement()) {
+            return feeActive;
+        }
+        // Arrays.asList because an account without a fee-free limit (null) never reaches it
+        Document reachesFeeFreeLimit = new Document("$eq", Arrays.asList(
+                new Document("$add", List.of("$movementsThisMonth", 1)), movement.getMaxMovementsFeeFreeThisMonth()));
+        return new Document("$or", List.of(feeActive, reachesFeeFreeLimit));
+    }
+}
@@ -0,0 +1,12 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.AccountRolloverCheckpoint;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface AccountRolloverCheckpointRepository extends ReactiveMongoRepository<AccountRolloverCheckpoint, String>,
+        AccountRolloverCheckpointRepositoryCustom {
+    Flux<AccountRolloverCheckpoint> findByStatus(AccountRolloverCheckpoint.RolloverStatus status);
+}
@@ -0,0 +1,17 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.AccountRolloverCheckpoint;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+public interface AccountRolloverCheckpointRepositoryCustom {
+    // Starts the period or takes over an abandoned one. Empty if it is completed or another instance holds the lease
+    Mono<AccountRolloverCheckpoint> claim(String period, String owner, Duration lease);
+
+    // Records an applied page and renews the lease. Empty if the lease was lost to another instance
+    Mono<AccountRolloverCheckpoint> advance(String period, String owner, String lastAccountId,
+                                            int processedAccounts, int chargedMaintenanceFees, Duration lease);
+
+    Mono<AccountRolloverCheckpoint> complete(String period, String owner);
+}
@@ -0,0 +1,72 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.AccountRolloverCheckpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class AccountRolloverCheckpointRepositoryCustomImpl implements AccountRolloverCheckpointRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<AccountRolloverCheckpoint> claim(String period, String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = Query.query(Criteria.where("_id").is(period)
+                .and("status").ne(AccountRolloverCheckpoint.RolloverStatus.COMPLETED)
+                .orOperator(
+                        Criteria.where("leaseOwner").is(owner),
+                        Criteria.where("leaseUntil").is(null),
+                        Criteria.where("leaseUntil").lt(now)));
+        Update claim = new Update()
+                .set("status", AccountRolloverCheckpoint.RolloverStatus.RUNNING)
+                .set("leaseOwner", owner)
+                .set("leaseUntil", now.plus(lease))
+                .set("updatedAt", now)
+                .setOnInsert("processedAccounts", 0L)
+                .setOnInsert("chargedMaintenanceFees", 0L)
+                .setOnInsert("startedAt", now);
+
+        // When the period exists but is not claimable the upsert tries to insert it again and hits the _id index
+        return reactiveMongoTemplate.findAndModify(claimable, claim,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), AccountRolloverCheckpoint.class)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+    }
+
+    @Override
+    public Mono<AccountRolloverCheckpoint> advance(String period, String owner, String lastAccountId,
+                                                   int processedAccounts, int chargedMaintenanceFees, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query ownedBy = Query.query(Criteria.where("_id").is(period).and("leaseOwner").is(owner));
+        Update advance = new Update()
+                .set("lastAccountId", lastAccountId)
+                .inc("processedAccounts", processedAccounts)
+                .inc("chargedMaintenanceFees", chargedMaintenanceFees)
+                .set("leaseUntil", now.plus(lease))
+                .set("updatedAt", now);
+        return reactiveMongoTemplate.findAndModify(ownedBy, advance,
+                FindAndModifyOptions.options().returnNew(true), AccountRolloverCheckpoint.class);
+    }
+
+    @Override
+    public Mono<AccountRolloverCheckpoint> complete(String period, String owner) {
+        LocalDateTime now = LocalDateTime.now();
+        Query ownedBy = Query.query(Criteria.where("_id").is(period).and("leaseOwner").is(owner));
+        Update complete = new Update()
+                .set("status", AccountRolloverCheckpoint.RolloverStatus.COMPLETED)
+                .set("completedAt", now)
+                .set("updatedAt", now)
+                .unset("leaseOwner")
+                .unset("leaseUntil");
+        return reactiveMongoTemplate.findAndModify(ownedBy, complete,
+                FindAndModifyOptions.options().returnNew(true), AccountRolloverCheckpoint.class);
+    }
+}
@@ -0,0 +1,10 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.CustomerCreditStatus;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomerCreditStatusRepository extends ReactiveMongoRepository<CustomerCreditStatus, String>,
+        CustomerCreditStatusRepositoryCustom {
+}
@@ -0,0 +1,9 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.CustomerCreditStatus;
+import reactor.core.publisher.Mono;
+
+public interface CustomerCreditStatusRepositoryCustom {
+    // Stores the status unless a newer one is already stored. Emits false when it was ignored as stale
+    Mono<Boolean> saveIfNewer(CustomerCreditStatus status);
+}
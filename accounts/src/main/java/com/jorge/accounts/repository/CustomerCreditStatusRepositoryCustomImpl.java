@@ -0,0 +1,32 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.CustomerCreditStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class CustomerCreditStatusRepositoryCustomImpl implements CustomerCreditStatusRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Boolean> saveIfNewer(CustomerCreditStatus status) {
+        Query olderOrMissing = Query.query(Criteria.where("_id").is(status.getCustomerId())
+                .orOperator(
+                        Criteria.where("computedAt").lt(status.getComputedAt()),
+                        Criteria.where("computedAt").is(null)));
+        Update update = new Update()
+                .set("hasCreditCard", status.getHasCreditCard())
+                .set("earliestDueDate", status.getEarliestDueDate())
+                .set("computedAt", status.getComputedAt());
+
+        // A newer status makes the upsert try to insert the customer again and hit the _id index
+        return reactiveMongoTemplate.upsert(olderOrMissing, update, CustomerCreditStatus.class)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+}
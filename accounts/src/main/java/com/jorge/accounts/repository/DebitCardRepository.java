@@ -7,7 +7,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard, String> {
+public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard, String>, DebitCardRepositoryCustom {
     Mono<DebitCard> findByDebitCardNumber(String debitCardNumber);
     Mono<Void> deleteByDebitCardNumber(String debitCardNumber);
 
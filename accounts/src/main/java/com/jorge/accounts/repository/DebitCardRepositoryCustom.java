@@ -0,0 +1,14 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.DebitCard;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface DebitCardRepositoryCustom {
+    // Debit cards ordered by _id after lastDebitCardId (null from the start), optionally of one card holder.
+    // A limit of 0 reads them all, a cursor batch at a time
+    Flux<DebitCard> findPage(String cardHolderId, String lastDebitCardId, int limit);
+
+    // Only the main linked account number of the card. Empty if the card does not exist
+    Mono<String> findMainLinkedAccountNumber(String debitCardNumber);
+}
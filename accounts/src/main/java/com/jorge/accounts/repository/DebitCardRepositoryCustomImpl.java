@@ -0,0 +1,43 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.DebitCard;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class DebitCardRepositoryCustomImpl implements DebitCardRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int cursorBatchSize;
+
+    public DebitCardRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+              @Value("${accounts.listing.cursor-batch-size:500}") int cursorBatchSize) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public Flux<DebitCard> findPage(String cardHolderId, String lastDebitCardId, int limit) {
+        Criteria criteria = cardHolderId == null ? new Criteria() : Criteria.where("cardHolderId").is(cardHolderId);
+        if (lastDebitCardId != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(lastDebitCardId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit)
+                .cursorBatchSize(cursorBatchSize);
+        return reactiveMongoTemplate.find(query, DebitCard.class);
+    }
+
+    @Override
+    public Mono<String> findMainLinkedAccountNumber(String debitCardNumber) {
+        Query query = Query.query(Criteria.where("debitCardNumber").is(debitCardNumber));
+        query.fields().include("mainLinkedAccountNumber");
+        return reactiveMongoTemplate.findOne(query, DebitCard.class)
+                .mapNotNull(DebitCard::getMainLinkedAccountNumber);
+    }
+}
@@ -0,0 +1,9 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.NumberSequence;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NumberSequenceRepository extends ReactiveMongoRepository<NumberSequence, String>, NumberSequenceRepositoryCustom {
+}
@@ -0,0 +1,8 @@
+package com.jorge.accounts.repository;
+
+import reactor.core.publisher.Mono;
+
+public interface NumberSequenceRepositoryCustom {
+    // Atomically reserves the next block of the series, creating the series on first use. Blocks start at 0
+    Mono<Long> reserveBlock(String sequenceName);
+}
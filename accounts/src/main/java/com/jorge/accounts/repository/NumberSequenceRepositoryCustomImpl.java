@@ -0,0 +1,24 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.NumberSequence;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class NumberSequenceRepositoryCustomImpl implements NumberSequenceRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Long> reserveBlock(String sequenceName) {
+        Query query = Query.query(Criteria.where("_id").is(sequenceName));
+        Update update = new Update().inc("nextBlock", 1L);
+        return reactiveMongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), NumberSequence.class)
+                .map(sequence -> sequence.getNextBlock() - 1);
+    }
+}
@@ -0,0 +1,14 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface TransactionOutboxRepository extends ReactiveMongoRepository<TransactionOutboxEntry, String>,
+        TransactionOutboxRepositoryCustom {
+    Mono<Long> countByStatus(TransactionOutboxEntry.OutboxStatus status);
+
+    Mono<TransactionOutboxEntry> findFirstByStatusOrderByCreatedAtAsc(TransactionOutboxEntry.OutboxStatus status);
+}
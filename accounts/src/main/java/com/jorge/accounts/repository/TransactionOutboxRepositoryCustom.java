@@ -0,0 +1,11 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+public interface TransactionOutboxRepositoryCustom {
+    // Leases up to batchSize due entries (oldest first) to the given owner. Entries leased by another live owner are skipped
+    Flux<TransactionOutboxEntry> claimBatch(String owner, int batchSize, Duration lease);
+}
@@ -0,0 +1,55 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TransactionOutboxRepositoryCustomImpl implements TransactionOutboxRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<TransactionOutboxEntry> claimBatch(String owner, int batchSize, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query dueEntries = Query.query(Criteria.where("status").is(TransactionOutboxEntry.OutboxStatus.PENDING)
+                        .and("nextAttemptAt").lte(now)
+                        .andOperator(leaseExpired(now)))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(batchSize);
+        dueEntries.fields().include("_id");
+
+        return reactiveMongoTemplate.find(dueEntries, TransactionOutboxEntry.class)
+                .map(TransactionOutboxEntry::getId)
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .flatMapMany(ids -> {
+                    // Only entries whose lease is still free are taken, so two relays never get the same entry
+                    Query claimable = Query.query(Criteria.where("_id").in(ids).andOperator(leaseExpired(now)));
+                    Update claim = new Update()
+                            .set("leaseOwner", owner)
+                            .set("leaseUntil", now.plus(lease));
+                    return reactiveMongoTemplate.updateMulti(claimable, claim, TransactionOutboxEntry.class)
+                            .thenMany(reactiveMongoTemplate.find(claimedBy(owner, ids), TransactionOutboxEntry.class));
+                });
+    }
+
+    private Criteria leaseExpired(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("leaseUntil").is(null),
+                Criteria.where("leaseUntil").lt(now));
+    }
+
+    private Query claimedBy(String owner, List<String> ids) {
+        return Query.query(Criteria.where("_id").in(ids).and("leaseOwner").is(owner))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+    }
+}
@@ -2,6 +2,7 @@ package com.jorge.accounts.service;
 
 import com.jorge.accounts.listener.dto.BootCoinPurchaseKafkaMessage;
 import com.jorge.accounts.model.*;
+import com.jorge.accounts.utils.KeysetPage;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -15,6 +16,8 @@ public interface AccountService {
     Mono<Void> deleteAccountByAccountNumber(String accountNumber);
     Mono<BalanceResponse> getBalanceByAccountNumber(String accountNumber);
     Flux<AccountResponse> getAccountsByCustomerId(String customerId);
+    Mono<KeysetPage<AccountResponse>> getAllAccounts(Integer limit, String pageToken);
+    Mono<KeysetPage<AccountResponse>> getAccountsByCustomerId(String customerId, Integer limit, String pageToken);
 
     // BUSINESS LOGIC
     Mono<BalanceResponse> increaseBalanceByAccountNumber(String accountNumber, BigDecimal balance);
@@ -26,6 +29,7 @@ public interface AccountService {
     Mono<AverageMonthlyDailyBalanceResponse> calculateAverageMonthlyDailyBalance(String accountNumber, AverageMonthlyDailyBalanceRequest averageMonthlyDailyBalanceRequest);
     Mono<TransactionResponse> transfer (String accountNumber, TransferRequest transferRequest);
     Flux<FeeReportResponse> generateFeeReportBetweenDate(String accountNumber, LocalDateTime startDate, LocalDateTime endDate);
+    Flux<FeeSummaryResponse> generateFeeSummaryBetweenDate(String accountNumber, LocalDateTime startDate, LocalDateTime endDate, String groupBy);
 
     Mono<AccountResponse> purchaseBootCoin(BootCoinPurchaseKafkaMessage bootCoinPurchaseKafkaMessage);
 }
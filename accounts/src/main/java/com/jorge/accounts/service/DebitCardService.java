@@ -1,6 +1,7 @@
 package com.jorge.accounts.service;
 
 import com.jorge.accounts.model.*;
+import com.jorge.accounts.utils.KeysetPage;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -9,6 +10,8 @@ public interface DebitCardService {
     Mono<DebitCardResponse> getDebitCardById(String id);
     Mono<DebitCardResponse> getDebitCardByDebitCardNumber(String debitCardNumber);
     Flux<DebitCardResponse> getDebitCardsByCardHolderId(String cardHolderId);
+    Mono<KeysetPage<DebitCardResponse>> getAllDebitCards(Integer limit, String pageToken);
+    Mono<KeysetPage<DebitCardResponse>> getDebitCardsByCardHolderId(String cardHolderId, Integer limit, String pageToken);
     Mono<DebitCardResponse> createDebitCard(DebitCardRequest debitCardRequest);
     Mono<DebitCardResponse> updateDebitCardByDebitCardNumber(String debitCardNumber, DebitCardRequest debitCardRequest);
     Mono<Void> deleteDebitCardByDebitCardNumber(String debitCardNumber);
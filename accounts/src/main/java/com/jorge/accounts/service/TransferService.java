@@ -0,0 +1,9 @@
+package com.jorge.accounts.service;
+
+import com.jorge.accounts.model.TransactionResponse;
+import com.jorge.accounts.model.TransferRequest;
+import reactor.core.publisher.Mono;
+
+public interface TransferService {
+    Mono<TransactionResponse> transfer(String accountNumber, TransferRequest transferRequest);
+}
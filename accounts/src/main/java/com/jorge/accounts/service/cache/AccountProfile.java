@@ -0,0 +1,41 @@
+package com.jorge.accounts.service.cache;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.FixedTermAccount;
+import com.jorge.accounts.model.SavingsAccount;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Attributes of an account that only change through the account update endpoints. Balance, movement counter and
+// commission fee flag change with every movement and are deliberately left out.
+@Getter
+@Builder
+public class AccountProfile {
+    private final String accountNumber;
+    private final Account.AccountType accountType;
+    private final String customerId;
+    private final Integer maxMovementsFeeFreeThisMonth;
+    private final BigDecimal movementCommissionFee;
+    // Savings accounts only
+    private final Integer monthlyMovementsLimit;
+    // Fixed term accounts only
+    private final LocalDate allowedWithdrawal;
+
+    public static AccountProfile from(Account account) {
+        AccountProfileBuilder builder = AccountProfile.builder()
+                .accountNumber(account.getAccountNumber())
+                .accountType(account.getAccountType())
+                .customerId(account.getCustomerId())
+                .maxMovementsFeeFreeThisMonth(account.getMaxMovementsFeeFreeThisMonth())
+                .movementCommissionFee(account.getMovementCommissionFee());
+        if (account instanceof SavingsAccount savingsAccount) {
+            builder.monthlyMovementsLimit(savingsAccount.getMonthlyMovementsLimit());
+        } else if (account instanceof FixedTermAccount fixedTermAccount) {
+            builder.allowedWithdrawal(fixedTermAccount.getAllowedWithdrawal());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.jorge.accounts.service.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jorge.accounts.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-process cache of {@link AccountProfile}s keyed by account number.
+ * Entries are dropped by the update and delete paths of this instance; the TTL bounds how long
+ * a change made through another instance can go unnoticed. Hit/miss metrics are published as cache.gets{cache=accountProfiles}.
+ */
+@Component
+@Slf4j
+public class AccountProfileCache {
+    static final String CACHE_NAME = "accountProfiles";
+
+    private final AccountRepository accountRepository;
+    private final AsyncCache<String, AccountProfile> profiles;
+
+    public AccountProfileCache(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                               @Value("${accounts.profile-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${accounts.profile-cache.ttl:5m}") Duration ttl) {
+        this.accountRepository = accountRepository;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, CACHE_NAME);
+    }
+
+    // Empty if the account does not exist. Missing accounts are not cached
+    public Mono<AccountProfile> get(String accountNumber) {
+        // Concurrent misses share one load; a cancelled caller must not cancel it for the others
+        return Mono.fromFuture(() -> profiles.get(accountNumber, (key, executor) -> accountRepository.findByAccountNumber(key)
+                        .map(AccountProfile::from)
+                        .toFuture()), true);
+    }
+
+    public void invalidate(String accountNumber) {
+        log.debug("Invalidating cached profile of account number: {}", accountNumber);
+        profiles.synchronous().invalidate(accountNumber);
+    }
+}
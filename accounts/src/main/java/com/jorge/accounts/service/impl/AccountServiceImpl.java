@@ -3,28 +3,38 @@ package com.jorge.accounts.service.impl;
 import com.jorge.accounts.listener.dto.BootCoinPurchaseKafkaMessage;
 import com.jorge.accounts.mapper.AccountMapper;
 import com.jorge.accounts.model.*;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
 import com.jorge.accounts.repository.AccountRepository;
 import com.jorge.accounts.service.AccountService;
+import com.jorge.accounts.service.TransferService;
+import com.jorge.accounts.service.cache.AccountProfile;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
 import com.jorge.accounts.service.strategy.business.AccountMovementProcessStrategy;
+import com.jorge.accounts.utils.KeysetPage;
 import com.jorge.accounts.webclient.client.TransactionClient;
 import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import com.jorge.accounts.webclient.dto.response.AccountBalanceResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,16 +42,27 @@ import java.util.Map;
 public class AccountServiceImpl implements AccountService {
     private final AccountMapper accountMapper;
     private final AccountRepository accountRepository;
+    private final AccountDailyBalanceRepository accountDailyBalanceRepository;
     private final TransactionClient transactionClient;
+    private final TransactionOutbox transactionOutbox;
+    private final TransferService transferService;
+    private final AccountLaneExecutor accountLaneExecutor;
+    private final AccountProfileCache accountProfileCache;
     private final Map<Account.AccountType, AccountMovementProcessStrategy> movementProcessStrategies;
 
     @Override
     public Flux<AccountResponse> getAllAccounts() {
         log.info("Fetching all accounts");
-        return accountRepository.findAll()
+        return accountRepository.findPage(null, null, 0)
                 .map(accountMapper::mapToAccountResponse);
     }
 
+    @Override
+    public Mono<KeysetPage<AccountResponse>> getAllAccounts(Integer limit, String pageToken) {
+        log.info("Fetching page of accounts with limit: {}", limit);
+        return findAccountsPage(null, limit, pageToken);
+    }
+
     @Override
     public Mono<AccountResponse> getAccountByAccountNumber(String accountNumber) {
         log.info("Fetching account by account number: {}", accountNumber);
@@ -54,61 +75,70 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Mono<Void> deleteAccountByAccountNumber(String accountNumber) {
         log.info("Deleting account with account number: {}", accountNumber);
-        return accountRepository.deleteByAccountNumber(accountNumber);
+        return accountRepository.deleteByAccountNumber(accountNumber)
+                .doOnSuccess(unused -> accountProfileCache.invalidate(accountNumber));
     }
 
     @Override
     public Mono<BalanceResponse> getBalanceByAccountNumber(String accountNumber) {
         log.info("Fetching balance for account number: {}", accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber)
+        return accountRepository.findBalanceByAccountNumber(accountNumber)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Account with account number: " + accountNumber + " not found")))
-                .map(account -> {
-                    BalanceResponse balanceResponse = new BalanceResponse();
-                    balanceResponse.setAccountNumber(account.getAccountNumber());
-                    balanceResponse.setBalance(account.getBalance());
-                    balanceResponse.setAccountType(BalanceResponse.AccountTypeEnum.valueOf(account.getAccountType().name()));
-                    return balanceResponse;
-                });
+                .map(accountMapper::mapToBalanceResponse);
     }
 
     @Override
     public Flux<AccountResponse> getAccountsByCustomerId(String customerId) {
         log.info("Fetching accounts for customer id: {}", customerId);
-        return accountRepository.findByCustomerId(customerId)
+        return accountRepository.findPage(customerId, null, 0)
                 .map(accountMapper::mapToAccountResponse);
     }
 
+    @Override
+    public Mono<KeysetPage<AccountResponse>> getAccountsByCustomerId(String customerId, Integer limit, String pageToken) {
+        log.info("Fetching page of accounts for customer id: {} with limit: {}", customerId, limit);
+        return findAccountsPage(customerId, limit, pageToken);
+    }
+
+    private Mono<KeysetPage<AccountResponse>> findAccountsPage(String customerId, Integer limit, String pageToken) {
+        return Mono.fromCallable(() -> KeysetPage.Request.of(limit, pageToken))
+                .flatMap(page -> accountRepository
+                        .findPage(customerId, page.lastId(), page.size() + 1)
+                        .collectList()
+                        .map(accounts -> KeysetPage.of(accounts, page.size(), Account::getId,
+                                accountMapper::mapToAccountResponse)));
+    }
+
     @Override
     public Mono<BalanceResponse> increaseBalanceByAccountNumber(String accountNumber, BigDecimal balance) {
         log.info("Increasing balance by {} for account number: {}", balance, accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber)
-                .flatMap(account -> {
-                    account.setBalance(account.getBalance().add(balance));
-                    return accountRepository.save(account);
-                })
-                .map(this::mapToBalanceResponse)
-                .doOnSuccess(balanceResponse -> log.info("Successfully increased balance for account number: {}", accountNumber))
+        return validatePositiveAmount(balance)
+                .then(accountLaneExecutor.execute(accountNumber, () -> accountRepository.increaseBalance(accountNumber, balance)
+                        .flatMap(this::recordDailyBalance)))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account with account number: " + accountNumber + " not found")));
+                        "Account with account number: " + accountNumber + " not found")))
+                .map(this::mapToBalanceResponse)
+                .doOnSuccess(balanceResponse -> log.info("Successfully increased balance for account number: {}", accountNumber));
     }
 
     @Override
     public Mono<BalanceResponse> decreaseBalanceByAccountNumber(String accountNumber, BigDecimal balance) {
         log.info("Decreasing balance by {} for account number: {}", balance, accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account with account number: " + accountNumber + " not found")))
-                .flatMap(account -> {
-                    BigDecimal amount = account.getBalance().subtract(balance);
-                    if(account.getBalance().compareTo(amount) < 0) {
-                        log.warn("Insufficient balance for account number: {}", accountNumber);
-                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Insufficient balance for the decrease account"));
-                    }
-                    account.setBalance(amount);
-                    return accountRepository.save(account);
-                })
+        return validatePositiveAmount(balance)
+                .then(accountLaneExecutor.execute(accountNumber, () -> accountRepository.decreaseBalance(accountNumber, balance)
+                        .flatMap(this::recordDailyBalance)))
+                // Nothing was modified: either the account does not exist or the balance guard rejected the update
+                .switchIfEmpty(Mono.defer(() -> accountRepository.existsByAccountNumber(accountNumber)
+                        .flatMap(exists -> {
+                            if (exists) {
+                                log.warn("Insufficient balance for account number: {}", accountNumber);
+                                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "Insufficient balance for the decrease account"));
+                            }
+                            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                    "Account with account number: " + accountNumber + " not found"));
+                        })))
                 .map(this::mapToBalanceResponse)
                 .doOnSuccess(balanceResponse -> log.info("Successfully decreased balance for account number: {}", accountNumber));
     }
@@ -116,46 +146,19 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Mono<AccountResponse> depositByAccountNumber(String accountNumber, DepositRequest depositRequest) {
         log.info("Depositing {} to account number: {}", depositRequest.getAmount(), accountNumber);
-        // Process Movements limit and Update fee status if applicable
-        return accountRepository.findByAccountNumber(accountNumber)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account with account number: " + accountNumber + " not found")))
-                .flatMap(this::processAccountMovement)  // Check movement limits and fee
-                .flatMap(this::validateFixedAccountDeposit)
-                .flatMap(account -> {
-                    BigDecimal depositAmount = depositRequest.getAmount();
-
-                    // Apply commission fee if active
-                    if (account.getIsCommissionFeeActive()) {
-                        log.info("Applying commission fee of {} for account number: {}", account.getMovementCommissionFee(), accountNumber);
-                        depositAmount = depositAmount.subtract(account.getMovementCommissionFee());
-                        if (depositAmount.compareTo(BigDecimal.ZERO) < 0) {
-                            log.warn("Commission fee is higher than deposit amount for account number: {}", accountNumber);
-                            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                    "Commission fee is higher than deposit amount"));
-                        }
-                    }
-                    // Update balance
-                    account.setBalance(account.getBalance().add(depositAmount));
-                    // Saving changes
-                    return accountRepository.save(account)
-                            .flatMap(savedAccount -> {
-                                TransactionRequest transactionRequest = createTransactionRequest(savedAccount,
-                                        depositRequest.getAmount(),
-                                        TransactionRequest.TransactionType.DEPOSIT,
-                                        "Deposit to Account " + accountNumber);
-                                // Creating Transaction
-                                return transactionClient.createTransaction(transactionRequest)
-                                        .doOnSuccess(transactionResponse ->
-                                                log.info("Deposit Transaction created for account number: {}, transaction ID: {}",
-                                                        accountNumber, transactionResponse.getId()))
-                                        .doOnError(e ->
-                                                log.error("Error creating transaction for " +
-                                                        "deposit to account number: {}", accountNumber, e))
-                                        .thenReturn(savedAccount);
-                            })
-                            .doOnSuccess(savedAccount -> log.info("Successfully updated balance for account number: {}", accountNumber));
-                })
+        BigDecimal depositAmount = depositRequest.getAmount();
+        // Validated on the cached profile; balance, movement limit and commission fee are checked by the conditional update
+        return accountLaneExecutor.execute(accountNumber, () -> getAccountProfile(accountNumber)
+                .flatMap(this::validateMovementStrategy)
+                .flatMap(accountProfile -> transactionOutbox.applyWithTransaction(
+                                movementFor(accountProfile, AccountMovement.Direction.CREDIT, depositAmount)
+                                        .requireEmptyBalance(accountProfile.getAccountType() == Account.AccountType.FIXED_TERM)
+                                        .build(),
+                                updatedAccount -> createTransactionRequest(updatedAccount, depositAmount,
+                                        TransactionRequest.TransactionType.DEPOSIT, "Deposit to Account " + accountNumber))
+                        .switchIfEmpty(Mono.defer(() -> explainRejectedMovement(accountNumber,
+                                account -> validateDeposit(account, depositAmount)))))
+                .doOnSuccess(updatedAccount -> log.info("Successfully updated balance for account number: {}", accountNumber)))
                 .map(accountMapper::mapToAccountResponse)
                 .doOnError(e -> log.error("Error depositing to account number: {}", accountNumber, e));
 
@@ -164,46 +167,18 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Mono<AccountResponse> withdrawByAccountNumber(String accountNumber, WithdrawalRequest withdrawalRequest) {
         log.info("Withdrawing {} from account number: {}", withdrawalRequest.getAmount(), accountNumber);
-        // Process Movements limit and Update fee status if applicable
-        return accountRepository.findByAccountNumber(accountNumber)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account with account number: " + accountNumber + " not found")))
-                .flatMap(this::processAccountMovement) // Check movement limits and fee
-                .flatMap(this::validateFixedAccountWithdraw)
-                .flatMap(account -> {
-                    BigDecimal withdrawalAmount = withdrawalRequest.getAmount();
-
-                    // Apply commission fee if active
-                    if (account.getIsCommissionFeeActive()) {
-                        // Add to withdrawal, since it's taken from balance
-                        withdrawalAmount = withdrawalAmount.add(account.getMovementCommissionFee());
-                        log.info("Applying commission fee of {} for account number: {}", account.getMovementCommissionFee(), accountNumber);
-                    }
-                    // Check if balance is less than the withdrawal
-                    if(account.getBalance().compareTo(withdrawalAmount) < 0){
-                        log.warn("Insufficient balance for withdrawal from account number: {}", accountNumber);
-                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Insufficient balance for withdrawal"));
-                    }
-                    // Update balance
-                    account.setBalance(account.getBalance().subtract(withdrawalAmount));
-
-                    return accountRepository.save(account)
-                            .flatMap(savedAccount -> {
-                                TransactionRequest transactionRequest = createTransactionRequest(savedAccount,
-                                        withdrawalRequest.getAmount(),
-                                        TransactionRequest.TransactionType.WITHDRAWAL,
-                                        "Withdrawal from Account " + accountNumber);
-                                return transactionClient.createTransaction(transactionRequest)
-                                        .doOnSuccess(transactionResponse ->
-                                                log.info("Withdrawl Transaction created for account number: {}, transaction ID: {}",
-                                                        accountNumber, transactionResponse.getId()))
-                                        .doOnError(e -> log.error("Error creating transaction for " +
-                                                "withdrawal from account number: {}", accountNumber, e))
-                                        .thenReturn(savedAccount);
-                            })
-                            .doOnSuccess(savedAccount -> log.info("Successfully updated balance for account number: {}", accountNumber));
-                })
+        BigDecimal withdrawalAmount = withdrawalRequest.getAmount();
+        // Validated on the cached profile; balance, movement limit and commission fee are checked by the conditional update
+        return accountLaneExecutor.execute(accountNumber, () -> getAccountProfile(accountNumber)
+                .flatMap(this::validateMovementStrategy)
+                .flatMap(this::validateFixedTermWithdrawalDate)
+                .flatMap(accountProfile -> transactionOutbox.applyWithTransaction(
+                                movementFor(accountProfile, AccountMovement.Direction.DEBIT, withdrawalAmount).build(),
+                                updatedAccount -> createTransactionRequest(updatedAccount, withdrawalAmount,
+                                        TransactionRequest.TransactionType.WITHDRAWAL, "Withdrawal from Account " + accountNumber))
+                        .switchIfEmpty(Mono.defer(() -> explainRejectedMovement(accountNumber,
+                                account -> validateWithdrawal(account, withdrawalAmount)))))
+                .doOnSuccess(updatedAccount -> log.info("Successfully updated balance for account number: {}", accountNumber)))
                 .map(accountMapper::mapToAccountResponse)
                 .doOnError(e -> log.error("Error withdrawing from account number: {}", accountNumber, e));
     }
@@ -226,11 +201,13 @@ public class AccountServiceImpl implements AccountService {
 
         log.info("Calculating average monthly daily balance for account number: {}, year: {}, month: {}",
                 accountNumber, yearMonth.getYear(), yearMonth.getMonthValue());
-        // Obtener las transacciones del mes y calcular el saldo promedio
-        return transactionClient.getTransactionsByAccountNumberAndDateRange(accountNumber, startOfMonth, endOfMonth)
-                .collectList()
-                .flatMap(transactions -> calculateAverageBalance(accountNumber,
-                        transactions, firstDayOfMonth, lastDayOfMonth))
+        return calculateAverageBalanceFromSnapshots(accountNumber, firstDayOfMonth, lastDayOfMonth)
+                // Accounts without a snapshot before the month (created before snapshots existed) replay their transactions
+                .switchIfEmpty(Mono.defer(() -> transactionClient
+                        .getTransactionsByAccountNumberAndDateRange(accountNumber, startOfMonth, endOfMonth)
+                        .collectList()
+                        .flatMap(transactions -> calculateAverageBalance(accountNumber,
+                                transactions, firstDayOfMonth, lastDayOfMonth))))
                 .map(averageBalance -> { // Construir el objeto de respuesta
                     AverageMonthlyDailyBalanceResponse response = new AverageMonthlyDailyBalanceResponse();
                     response.setAccountNumber(accountNumber);
@@ -245,9 +222,40 @@ public class AccountServiceImpl implements AccountService {
                         log.error("Error calculating average monthly daily balance for account number: {}", accountNumber, e));
     }
 
+    // Opening balance is the last snapshot before the month; each day then takes its own snapshot or carries the previous one
+    private Mono<BigDecimal> calculateAverageBalanceFromSnapshots(String accountNumber, LocalDate firstDayOfMonth,
+                                                                  LocalDate lastDayOfMonth) {
+        Mono<AccountDailyBalance> openingSnapshot = accountDailyBalanceRepository
+                .findFirstByAccountNumberAndDateBeforeOrderByDateDesc(accountNumber, firstDayOfMonth);
+        Mono<List<AccountDailyBalance>> monthSnapshots = accountDailyBalanceRepository
+                .findByAccountNumberAndDateBetweenOrderByDateAsc(accountNumber, Range.closed(firstDayOfMonth, lastDayOfMonth))
+                .collectList();
+
+        return Mono.zip(openingSnapshot, monthSnapshots)
+                .map(snapshots -> {
+                    Iterator<AccountDailyBalance> monthIterator = snapshots.getT2().iterator();
+                    AccountDailyBalance nextSnapshot = monthIterator.hasNext() ? monthIterator.next() : null;
+                    BigDecimal closingBalance = snapshots.getT1().getClosingBalance();
+                    BigDecimal dailyBalanceTotal = BigDecimal.ZERO;
+
+                    for (LocalDate day = firstDayOfMonth; !day.isAfter(lastDayOfMonth); day = day.plusDays(1)) {
+                        if (nextSnapshot != null && nextSnapshot.getDate().isEqual(day)) {
+                            closingBalance = nextSnapshot.getClosingBalance();
+                            nextSnapshot = monthIterator.hasNext() ? monthIterator.next() : null;
+                        }
+                        dailyBalanceTotal = dailyBalanceTotal.add(closingBalance);
+                    }
+                    return dailyBalanceTotal.divide(BigDecimal.valueOf(lastDayOfMonth.getDayOfMonth()), 2, RoundingMode.HALF_UP);
+                });
+    }
 
     private Mono<BigDecimal> calculateAverageBalance(String accountNumber, List<TransactionResponse> transactions,
                                                      LocalDate firstDayOfMonth, LocalDate lastDayOfMonth) {
+        // Agrupar las transacciones por dia para recorrer el mes una sola vez
+        Map<LocalDate, List<TransactionResponse>> transactionsByDay = transactions.stream()
+                .filter(transaction -> transaction.getCreatedAt() != null)
+                .collect(Collectors.groupingBy(transaction -> transaction.getCreatedAt().toLocalDate()));
+
         return getInitialBalance(accountNumber, firstDayOfMonth)
                 .flatMap(saldoInicial -> {
                     BigDecimal saldoDiarioTotal = BigDecimal.ZERO;
@@ -255,15 +263,13 @@ public class AccountServiceImpl implements AccountService {
                     BigDecimal saldoActual = saldoInicial;
 
                     while (!fechaActual.isAfter(lastDayOfMonth)) {
-                        BigDecimal saldoFinalDelDia = saldoActual;
-                        for (TransactionResponse transaction : transactions) {
-                            LocalDateTime transactionCreatedAt = transaction.getCreatedAt();
-                            if (transactionCreatedAt != null && transactionCreatedAt.toLocalDate().isEqual(fechaActual)) {
-                                saldoFinalDelDia = calculateBalanceAfterTransaction(saldoFinalDelDia, transaction); // To know if we sum or subtract
-                            }
+                        for (TransactionResponse transaction : transactionsByDay.getOrDefault(fechaActual, List.of())) {
+                            // Records stamped with their balance are read as is; older ones are replayed
+                            saldoActual = transaction.getBalanceAfter() != null
+                                    ? transaction.getBalanceAfter()
+                                    : calculateBalanceAfterTransaction(saldoActual, transaction); // To know if we sum or subtract
                         }
-                        saldoDiarioTotal = saldoDiarioTotal.add(saldoFinalDelDia);
-                        saldoActual = saldoFinalDelDia;
+                        saldoDiarioTotal = saldoDiarioTotal.add(saldoActual);
                         fechaActual = fechaActual.plusDays(1);
                     }
 
@@ -288,155 +294,37 @@ public class AccountServiceImpl implements AccountService {
     }
 
     // Obtener el saldo inicial de la cuenta al inicio del mes.  Si no hay historial, devuelve 0.
+    // The transaction service reads it from the last record before the month instead of sending the whole history
     private Mono<BigDecimal> getInitialBalance(String accountNumber, LocalDate firstDayOfMonth) {
-        LocalDateTime startOfMonth = firstDayOfMonth.atStartOfDay();
-        return transactionClient.getTransactionsByAccountNumberAndDateRange(accountNumber,
-                        LocalDateTime.of(1970, 1, 1, 0, 0, 0), startOfMonth)
-                .collectList()
-                .map(transactions -> {
-                    BigDecimal saldoInicial = BigDecimal.ZERO;
-                    for (TransactionResponse transaction : transactions) {
-                        saldoInicial = calculateBalanceAfterTransaction(saldoInicial, transaction);
-                    }
-                    return saldoInicial;
-                });
+        return transactionClient.getAccountBalanceAt(accountNumber, firstDayOfMonth.atStartOfDay())
+                .map(AccountBalanceResponse::getBalance)
+                .defaultIfEmpty(BigDecimal.ZERO);
     }
 
     public Mono<AccountResponse> purchaseBootCoin(BootCoinPurchaseKafkaMessage bootCoinPurchaseKafkaMessage) {
         log.info("Processing BootCoin purchase for wallet ID: {}", bootCoinPurchaseKafkaMessage.getBootCoinWalletId());
-        return accountRepository.findByAccountNumber(bootCoinPurchaseKafkaMessage.getPaymentMethodId())
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account with account number: " + bootCoinPurchaseKafkaMessage.getPaymentMethodId() + " not found")))
-                .flatMap(this::processAccountMovement) // Validate account movement
-                .flatMap(account -> {
-                    BigDecimal paymentAmount = bootCoinPurchaseKafkaMessage.getPaymentAmount();
-
-                    // Check if balance is enough
-                    if (account.getBalance().compareTo(paymentAmount) < 0) {
-                        log.warn("Insufficient balance for BootCoin purchase for account number: {}", account.getAccountNumber());
-                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Insufficient balance for BootCoin purchase"));
-                    }
-
-                    // Decrease balance
-                    account.setBalance(account.getBalance().subtract(paymentAmount));
-
-                    // Save account and create transaction
-                    return accountRepository.save(account)
-                            .flatMap(savedAccount -> {
-                                TransactionRequest transactionRequest = createTransactionRequest(
-                                        savedAccount,
-                                        paymentAmount,
+        String accountNumber = bootCoinPurchaseKafkaMessage.getPaymentMethodId();
+        BigDecimal paymentAmount = bootCoinPurchaseKafkaMessage.getPaymentAmount();
+        return accountLaneExecutor.execute(accountNumber, () -> getAccountProfile(accountNumber)
+                .flatMap(this::validateMovementStrategy)
+                // The purchase counts as a movement but is not charged the commission fee
+                .flatMap(accountProfile -> transactionOutbox.applyWithTransaction(
+                                movementFor(accountProfile, AccountMovement.Direction.DEBIT, paymentAmount)
+                                        .commissionFee(BigDecimal.ZERO)
+                                        .build(),
+                                updatedAccount -> createTransactionRequest(updatedAccount, paymentAmount,
                                         TransactionRequest.TransactionType.DEBIT,
-                                        "BootCoin purchase for wallet ID: " + bootCoinPurchaseKafkaMessage.getBootCoinWalletId()
-                                );
-
-                                return transactionClient.createTransaction(transactionRequest)
-                                        .doOnSuccess(transactionResponse ->
-                                                log.info("BootCoin purchase transaction created for account number: {}, transaction ID: {}",
-                                                        savedAccount.getAccountNumber(), transactionResponse.getId()))
-                                        .doOnError(e ->
-                                                log.error("Error creating transaction for BootCoin purchase for account number: {}", savedAccount.getAccountNumber(), e))
-                                        .thenReturn(savedAccount);
-                            })
-                            .doOnSuccess(savedAccount -> log.info("Successfully processed BootCoin purchase for account number: {}", savedAccount.getAccountNumber()));
-                })
+                                        "BootCoin purchase for wallet ID: " + bootCoinPurchaseKafkaMessage.getBootCoinWalletId()))
+                        .switchIfEmpty(Mono.defer(() -> explainRejectedMovement(accountNumber,
+                                account -> validateBootCoinPurchase(account, paymentAmount)))))
+                .doOnSuccess(updatedAccount -> log.info("Successfully processed BootCoin purchase for account number: {}", accountNumber)))
                 .map(accountMapper::mapToAccountResponse)
                 .doOnError(e -> log.error("Error processing BootCoin purchase: {}", e.getMessage()));
     }
 
     @Override
     public Mono<TransactionResponse> transfer(String accountNumber, TransferRequest transferRequest){
-        String receiverAccountNumber = transferRequest.getReceiverAccountNumber();
-        BigDecimal transferAmount = transferRequest.getAmount();
-
-        log.info("Initiating transfer of {} from account {} to account {}", transferAmount, accountNumber, receiverAccountNumber);
-
-        // Fetch and Validate Sender ---
-        Mono<Account> validatedSender = accountRepository.findByAccountNumber(accountNumber)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Sender account not found: " + accountNumber)))
-                .flatMap(account -> {
-                    // Sender Validations
-                    if (account instanceof SavingsAccount savingsAccount) {
-                        if (savingsAccount.getMovementsThisMonth() >= savingsAccount.getMonthlyMovementsLimit()) {
-                            log.warn("Savings account {} has reached max movements limit", accountNumber);
-                            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                    "Savings account " + accountNumber + " has reached max movements limit ("
-                                            + savingsAccount.getMonthlyMovementsLimit() + ") this month."));
-                        }
-                    } else if (account instanceof FixedTermAccount) {
-                        log.warn("Fixed Term accounts cannot initiate transfers for account {}", accountNumber);
-                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Fixed Term accounts cannot initiate transfers."));
-                    }
-                    // Basic validation passed
-                    return Mono.just(account);
-                })
-                .doOnSuccess(account -> log.debug("Sender account {} validation passed", accountNumber))
-                .doOnError(e -> log.error("Sender account {} validation failed: {}", accountNumber, e.getMessage()));
-
-        // Fetch and Validate Receiver ---
-        Mono<Account> validatedReceiver = accountRepository.findByAccountNumber(receiverAccountNumber)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Receiver account not found: " +
-                        receiverAccountNumber)))
-                .flatMap(account -> {
-                    // Receiver Type Validation
-                    if (account.getAccountType() == Account.AccountType.FIXED_TERM) {
-                        log.warn("Cannot transfer to Fixed Term account {}", receiverAccountNumber);
-                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Cannot transfer to a Fixed Term account."));
-                    }
-                    return Mono.just(account);
-                })
-                .doOnSuccess(account -> log.debug("Receiver account {} validation passed", receiverAccountNumber))
-                .doOnError(e -> log.error("Receiver account {} validation failed: {}", receiverAccountNumber, e.getMessage()));
-
-        return Mono.zip(validatedSender, validatedReceiver)
-                .flatMap(accountsTuple ->
-                        processTransferBetweenAccounts(accountsTuple, transferAmount))
-                .flatMap(savedSenderAndFeeTuple -> {
-                    Account senderAccount = savedSenderAndFeeTuple.getT1();
-                    BigDecimal fee = savedSenderAndFeeTuple.getT2(); // Retrieve the fee calculated earlier
-
-                    // Create Sender Transaction
-                    log.info("Creating transaction for sender account {}", senderAccount.getAccountNumber());
-                    TransactionRequest debitRequest = createTransferTransactionRequest(
-                            senderAccount.getAccountNumber(), // Sender account
-                            transferAmount,
-                            TransactionRequest.TransactionType.DEBIT,
-                            "Transfer to account " + receiverAccountNumber,
-                            fee
-                    );
-
-                    // Create Receiver Transaction
-                    log.info("Creating transaction for receiver account {}", receiverAccountNumber);
-                    TransactionRequest creditRequest = createTransferTransactionRequest(
-                            accountNumber, // Receiver account
-                            transferAmount,
-                            TransactionRequest.TransactionType.CREDIT,
-                            "Transfer from account " + accountNumber,
-                            BigDecimal.ZERO // Receiver does not get a fee
-                    );
-
-                    // Call Transaction Client for Both
-                    Mono<TransactionResponse> debitTransactionMono = transactionClient.createTransaction(debitRequest)
-                            .doOnSuccess(transactionResponse ->
-                                    log.info("Debit transaction created for account {}, transaction ID: {}",
-                                    accountNumber, transactionResponse.getId()))
-                            .doOnError(e ->
-                                    log.error("Failed to create debit transaction for account {}: {}", accountNumber, e.getMessage()));
-
-                    Mono<TransactionResponse> creditTransactionMono = transactionClient.createTransaction(creditRequest)
-                            .doOnSuccess(transactionResponse ->
-                                    log.info("Credit transaction created for account {}, transaction ID: {}",
-                                    receiverAccountNumber, transactionResponse.getId()))
-                            .doOnError(e ->
-                                    log.error("Failed to create credit transaction for account {}: {}", receiverAccountNumber, e.getMessage()));
-
-                    // Returning the response from the DEBIT transaction
-                    return Mono.zip(debitTransactionMono, creditTransactionMono)
-                            .map(Tuple2::getT1);
-                });
+        return transferService.transfer(accountNumber, transferRequest);
     }
 
     @Override
@@ -446,49 +334,13 @@ public class AccountServiceImpl implements AccountService {
         return transactionClient.getTransactionsFeesByAccountNumberAndDateRange(accountNumber, startDate, endDate);
     }
 
-    public Mono<Tuple2<Account, BigDecimal>> processTransferBetweenAccounts(Tuple2<Account, Account> accountsTuple,
-                                                                            BigDecimal transferAmount) {
-        Account senderAccount = accountsTuple.getT1();
-        Account receiverAccount = accountsTuple.getT2();
-
-        BigDecimal fee;
-        // Check if Commission Fee for Sender is applicable
-        if (senderAccount.getIsCommissionFeeActive()) {
-            fee = senderAccount.getMovementCommissionFee();
-            log.info("Applying commission fee of {} for sender account {}", fee, senderAccount.getAccountNumber());
-        } else {
-            fee = BigDecimal.ZERO;
-        }
-
-        BigDecimal totalDeduction = transferAmount.add(fee);
-
-        if (senderAccount.getBalance().compareTo(totalDeduction) < 0) {
-            log.warn("Insufficient funds in sender account {}. Required: {}", senderAccount.getAccountNumber(), totalDeduction);
-            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Insufficient funds in sender account " +
-                            senderAccount.getAccountNumber() +
-                            " (Required: " + totalDeduction + ")"));
-        }
-
-        //  Update Account Balances
-        senderAccount.setBalance(senderAccount.getBalance().subtract(totalDeduction));
-        receiverAccount.setBalance(receiverAccount.getBalance().add(transferAmount));
-
-        // Update movements for Savings Account
-        if (senderAccount instanceof SavingsAccount savingsAccount) {
-            log.info("Incrementeding movements for sender savings account {}", senderAccount.getAccountNumber());
-            savingsAccount.setMovementsThisMonth(savingsAccount.getMovementsThisMonth() + 1);
-        }
-
-        return accountRepository.save(senderAccount)
-                .flatMap(savedSender -> accountRepository.save(receiverAccount)
-                        .map(savedReceiver -> {
-                            log.info("Successfully transferred {} from account {} to account {}",
-                                    transferAmount, senderAccount.getAccountNumber(), receiverAccount.getAccountNumber());
-                            return Tuples.of(savedSender, fee);
-                        })
-                )
-                .doOnError(e -> log.error("Error processing transfer between accounts: {}", e.getMessage()));
+    @Override
+    public Flux<FeeSummaryResponse> generateFeeSummaryBetweenDate(String accountNumber,
+                                                                  LocalDateTime startDate,
+                                                                  LocalDateTime endDate,
+                                                                  String groupBy) {
+        log.info("Generating fee summary by {} for account number: {}", groupBy, accountNumber);
+        return transactionClient.getFeeSummaryByAccountNumberAndDateRange(accountNumber, startDate, endDate, groupBy);
     }
 
     public BalanceResponse mapToBalanceResponse(Account account){
@@ -499,6 +351,87 @@ public class AccountServiceImpl implements AccountService {
         return balanceResponse;
     }
 
+    private Mono<AccountProfile> getAccountProfile(String accountNumber) {
+        return accountProfileCache.get(accountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account with account number: " + accountNumber + " not found")));
+    }
+
+    // The account type strategy sets the limit and fee rules; callers check the strategy exists with validateMovementStrategy
+    private AccountMovement.AccountMovementBuilder movementFor(AccountProfile accountProfile, AccountMovement.Direction direction,
+                                                               BigDecimal amount) {
+        AccountMovement.AccountMovementBuilder movement = AccountMovement.builder()
+                .accountNumber(accountProfile.getAccountNumber())
+                .direction(direction)
+                .amount(amount);
+        return movementProcessStrategies.get(accountProfile.getAccountType()).applyMovementRules(movement, accountProfile);
+    }
+
+    // The conditional update matched nothing: the account is read again and the movement rules tell why.
+    // If every rule passes now, the account changed between the update and this read
+    private Mono<Account> explainRejectedMovement(String accountNumber, Function<Account, Mono<Account>> movementRules) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account with account number: " + accountNumber + " not found")))
+                .flatMap(movementRules)
+                .then(Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Account " + accountNumber + " changed during the movement, please retry")));
+    }
+
+    private Mono<Account> validateDeposit(Account account, BigDecimal depositAmount) {
+        return processAccountMovement(account)  // Check movement limits and fee
+                .flatMap(this::validateFixedAccountDeposit)
+                .flatMap(processedAccount -> {
+                    // Apply commission fee if active
+                    if (processedAccount.getIsCommissionFeeActive() &&
+                            depositAmount.subtract(processedAccount.getMovementCommissionFee()).compareTo(BigDecimal.ZERO) < 0) {
+                        log.warn("Commission fee is higher than deposit amount for account number: {}", processedAccount.getAccountNumber());
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Commission fee is higher than deposit amount"));
+                    }
+                    return Mono.just(processedAccount);
+                });
+    }
+
+    private Mono<Account> validateWithdrawal(Account account, BigDecimal withdrawalAmount) {
+        return processAccountMovement(account) // Check movement limits and fee
+                .flatMap(this::validateFixedAccountWithdraw)
+                .flatMap(processedAccount -> {
+                    // Add to withdrawal, since it's taken from balance
+                    BigDecimal totalWithdrawal = processedAccount.getIsCommissionFeeActive()
+                            ? withdrawalAmount.add(processedAccount.getMovementCommissionFee()) : withdrawalAmount;
+                    // Check if balance is less than the withdrawal
+                    if (processedAccount.getBalance().compareTo(totalWithdrawal) < 0) {
+                        log.warn("Insufficient balance for withdrawal from account number: {}", processedAccount.getAccountNumber());
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Insufficient balance for withdrawal"));
+                    }
+                    return Mono.just(processedAccount);
+                });
+    }
+
+    private Mono<Account> validateBootCoinPurchase(Account account, BigDecimal paymentAmount) {
+        return processAccountMovement(account) // Validate account movement
+                .flatMap(processedAccount -> {
+                    // Check if balance is enough
+                    if (processedAccount.getBalance().compareTo(paymentAmount) < 0) {
+                        log.warn("Insufficient balance for BootCoin purchase for account number: {}", processedAccount.getAccountNumber());
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Insufficient balance for BootCoin purchase"));
+                    }
+                    return Mono.just(processedAccount);
+                });
+    }
+
+    private Mono<AccountProfile> validateMovementStrategy(AccountProfile accountProfile) {
+        if (!movementProcessStrategies.containsKey(accountProfile.getAccountType())) {
+            log.error("No movement process strategy found for account type: {}", accountProfile.getAccountType());
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No movement process strategy found for account type: " + accountProfile.getAccountType()));
+        }
+        return Mono.just(accountProfile);
+    }
+
     private Mono<Account> processAccountMovement(Account account) {
         log.info("Processing account movement for account number: {}", account.getAccountNumber());
         // Specific validations based on account type
@@ -525,6 +458,24 @@ public class AccountServiceImpl implements AccountService {
                 });
     }
 
+    // $inc updates bypass the save callbacks, so their snapshot is recorded here. A failed snapshot does not undo the movement
+    private Mono<Account> recordDailyBalance(Account account) {
+        return accountDailyBalanceRepository.recordClosingBalance(account.getAccountNumber(), LocalDate.now(), account.getBalance())
+                .onErrorResume(e -> {
+                    log.warn("Could not record daily balance for account {}: {}", account.getAccountNumber(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(account);
+    }
+
+    private Mono<Void> validatePositiveAmount(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Amount must be greater than zero"));
+        }
+        return Mono.empty();
+    }
+
     private Mono<Account> validateFixedAccountDeposit(Account account) {
         log.info("Validating Fixed Term account deposit for account number: {}", account.getAccountNumber());
 
@@ -552,6 +503,17 @@ public class AccountServiceImpl implements AccountService {
         return Mono.just(account);
     }
 
+    private Mono<AccountProfile> validateFixedTermWithdrawalDate(AccountProfile accountProfile) {
+        if (accountProfile.getAccountType() == Account.AccountType.FIXED_TERM
+                && accountProfile.getAllowedWithdrawal().isAfter(LocalDate.now())) {
+            log.warn("Withdrawal not allowed until {} for Fixed Term account number: {}",
+                    accountProfile.getAllowedWithdrawal(), accountProfile.getAccountNumber());
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Withdrawal not allowed until " + accountProfile.getAllowedWithdrawal()));
+        }
+        return Mono.just(accountProfile);
+    }
+
     private TransactionRequest createTransactionRequest(Account savedAccount,
                                                         BigDecimal amount,
                                                         TransactionRequest.TransactionType transactionType,
@@ -563,20 +525,7 @@ public class AccountServiceImpl implements AccountService {
         transactionRequest.setDescription(description);
         transactionRequest.setFee(savedAccount.getIsCommissionFeeActive()
                 ? savedAccount.getMovementCommissionFee() : BigDecimal.ZERO);
-        return transactionRequest;
-    }
-
-    private TransactionRequest createTransferTransactionRequest(String accountNumber,
-                                                        BigDecimal amount,
-                                                        TransactionRequest.TransactionType transactionType,
-                                                        String description, BigDecimal fee) {
-        TransactionRequest transactionRequest = new TransactionRequest();
-        transactionRequest.setAccountNumber(accountNumber);
-        transactionRequest.setAmount(amount);
-        transactionRequest.setTransactionType(transactionType);
-        transactionRequest.setDescription(description);
-        transactionRequest.setFee(fee);
-        return transactionRequest;
+        return transactionRequest.withBalanceAfter(savedAccount.getBalance());
     }
 
 }
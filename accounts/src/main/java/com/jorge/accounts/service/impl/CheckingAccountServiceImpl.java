@@ -7,6 +7,8 @@ import com.jorge.accounts.model.CheckingAccountRequest;
 import com.jorge.accounts.model.CheckingAccountResponse;
 import com.jorge.accounts.repository.CheckingAccountRepository;
 import com.jorge.accounts.service.CheckingAccountService;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -28,6 +30,8 @@ public class CheckingAccountServiceImpl implements CheckingAccountService {
     private final CheckingAccountMapper checkingAccountMapper;
     private final CustomerValidation customerValidation;
     private final AccountUtils accountUtils;
+    private final AccountProfileCache accountProfileCache;
+    private final BlockNumberAllocator accountNumberAllocator;
 
     @Override
     public Mono<CheckingAccountResponse> createCheckingAccount(CheckingAccountRequest checkingAccountRequest) {
@@ -46,17 +50,17 @@ public class CheckingAccountServiceImpl implements CheckingAccountService {
                     case BUSINESS -> customerValidation.businessCustomerValidation(Account.AccountType.CHECKING)
                             .then(Mono.just(customer));
                 })
-                .flatMap(customer ->{
+                .flatMap(customer -> accountNumberAllocator.next().flatMap(accountNumber -> {
                     CheckingAccount checkingAccount = checkingAccountMapper.mapToCheckingAccount(checkingAccountRequest);
+                    checkingAccount.setAccountNumber(accountNumber);
                     // If Customer is PYME, Checking Account has no maintenance fee
                     if(customer.getIsPYME()) {
                         log.info("Customer is PYME, setting maintenance fee to 0");
                         checkingAccount.setMaintenanceFee(BigDecimal.ZERO);
                     };
-                    return checkingAccountRepository.save(checkingAccount);
-                })
-                .flatMap(checkingAccount ->
-                        accountUtils.handleInitialDeposit(checkingAccount, checkingAccountRequest.getBalance()))
+                    return accountUtils.saveWithInitialDeposit(checkingAccountRepository.save(checkingAccount),
+                            checkingAccountRequest.getBalance());
+                }))
                 .map(checkingAccountMapper::mapToCheckingAccountResponse)
                 .doOnSuccess(checkingAccountResponse ->
                         log.info("Checking account created successfully: {}", checkingAccountResponse))
@@ -72,6 +76,7 @@ public class CheckingAccountServiceImpl implements CheckingAccountService {
                         "Checking Account with account number: " + accountNumber + " not found")))
                 .flatMap(existingCheckingAccount -> checkingAccountRepository.save(
                         updateCheckingAccountFromRequest(existingCheckingAccount, checkingAccountRequest)))
+                .doOnNext(updatedAccount -> accountProfileCache.invalidate(accountNumber))
                 .map(checkingAccountMapper::mapToCheckingAccountResponse)
                 .doOnSuccess(checkingAccountResponse ->
                         log.info("Checking account updated successfully: {}", checkingAccountResponse))
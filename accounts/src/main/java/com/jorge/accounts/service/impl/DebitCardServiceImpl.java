@@ -1,10 +1,15 @@
 package com.jorge.accounts.service.impl;
 
+import com.jorge.accounts.mapper.AccountMapper;
 import com.jorge.accounts.mapper.DebitCardMapper;
 import com.jorge.accounts.model.*;
 import com.jorge.accounts.repository.AccountRepository;
 import com.jorge.accounts.repository.DebitCardRepository;
 import com.jorge.accounts.service.DebitCardService;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import com.jorge.accounts.utils.KeysetPage;
 import com.jorge.accounts.webclient.client.TransactionClient;
 import com.jorge.accounts.webclient.dto.request.TransactionRequest;
 import lombok.RequiredArgsConstructor;
@@ -17,23 +22,38 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DebitCardServiceImpl implements DebitCardService {
+    private static final int LAST_TRANSACTIONS_LIMIT = 10;
+
     private final DebitCardRepository debitCardRepository;
     private final AccountRepository accountRepository;
     private final DebitCardMapper debitCardMapper;
+    private final AccountMapper accountMapper;
     private final TransactionClient transactionClient;
+    private final AccountLaneExecutor accountLaneExecutor;
+    private final TransactionOutbox transactionOutbox;
+    private final AccountProfileCache accountProfileCache;
 
     @Override
     public Flux<DebitCardResponse> getAllDebitCards() {
         log.info("Fetching all debit cards");
-        return debitCardRepository.findAll()
+        return debitCardRepository.findPage(null, null, 0)
                 .map(debitCardMapper::mapToDebitCardResponse);
     }
 
+    @Override
+    public Mono<KeysetPage<DebitCardResponse>> getAllDebitCards(Integer limit, String pageToken) {
+        log.info("Fetching page of debit cards with limit: {}", limit);
+        return findDebitCardsPage(null, limit, pageToken);
+    }
+
     @Override
     public Mono<DebitCardResponse> getDebitCardById(String id) {
         log.info("Fetching debit card with id: {}", id);
@@ -55,10 +75,25 @@ public class DebitCardServiceImpl implements DebitCardService {
     @Override
     public Flux<DebitCardResponse> getDebitCardsByCardHolderId(String cardHolderId) {
         log.info("Fetching debit cards with card holder id: {}", cardHolderId);
-        return debitCardRepository.findByCardHolderId(cardHolderId)
+        return debitCardRepository.findPage(cardHolderId, null, 0)
                 .map(debitCardMapper::mapToDebitCardResponse);
     }
 
+    @Override
+    public Mono<KeysetPage<DebitCardResponse>> getDebitCardsByCardHolderId(String cardHolderId, Integer limit, String pageToken) {
+        log.info("Fetching page of debit cards with card holder id: {} with limit: {}", cardHolderId, limit);
+        return findDebitCardsPage(cardHolderId, limit, pageToken);
+    }
+
+    private Mono<KeysetPage<DebitCardResponse>> findDebitCardsPage(String cardHolderId, Integer limit, String pageToken) {
+        return Mono.fromCallable(() -> KeysetPage.Request.of(limit, pageToken))
+                .flatMap(page -> debitCardRepository
+                        .findPage(cardHolderId, page.lastId(), page.size() + 1)
+                        .collectList()
+                        .map(debitCards -> KeysetPage.of(debitCards, page.size(), DebitCard::getId,
+                                debitCardMapper::mapToDebitCardResponse)));
+    }
+
     @Override
     public Mono<DebitCardResponse> createDebitCard(DebitCardRequest debitCardRequest) {
         log.info("Creating a new debit card for customer Id: {}", debitCardRequest.getCardHolderId());
@@ -89,25 +124,19 @@ public class DebitCardServiceImpl implements DebitCardService {
         return debitCardRepository.findByDebitCardNumber(debitCardNumber)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Debit Card with debit card number: " + debitCardNumber + " not found")))
-                .flatMap(debitCard -> accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                                "Account with account number: " + debitCard.getMainLinkedAccountNumber() + " not found")))
-                        .flatMap(mainAccount -> {
-                            if (mainAccount.getBalance().compareTo(withdrawalRequest.getAmount()) > 0) {
-                                log.info("Main account balance is sufficient, proceeding with withdrawal");
-                                return withdrawFromAccount(mainAccount, withdrawalRequest);
-                            } else {
-                                log.info("Main account balance is insufficient, checking linked accounts");
-                                return Flux.fromIterable(debitCard.getLinkedAccountsNumber())
-                                        .filter(accountNumber -> !accountNumber.equals(debitCard.getMainLinkedAccountNumber()))
-                                        .flatMap(accountRepository::findByAccountNumber)
-                                        .filter(account -> account.getBalance().compareTo(withdrawalRequest.getAmount()) >= 0)
-                                        .next()
-                                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                                "Debit Card does not have enough balance in any of its linked accounts")))
-                                        .flatMap(accountWithSufficientBalance ->
-                                                withdrawFromAccount(accountWithSufficientBalance, withdrawalRequest));
+                .flatMap(debitCard -> accountRepository.findWithdrawalCandidates(linkedAccountNumbers(debitCard),
+                                withdrawalRequest.getAmount())
+                        .filter(account -> account.getBalance().compareTo(totalWithdrawal(account, withdrawalRequest.getAmount())) >= 0)
+                        .sort(withdrawalPriority(debitCard))
+                        .collectList()
+                        .flatMap(candidates -> {
+                            if (candidates.isEmpty()) {
+                                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "Debit Card does not have enough balance in any of its linked accounts"));
                             }
+                            log.info("Withdrawing from account {} of {} accounts with enough balance",
+                                    candidates.get(0).getAccountNumber(), candidates.size());
+                            return withdrawFromCandidates(candidates, 0, withdrawalRequest);
                         })
                         .map(accountDebited -> {
                             log.info("Withdrawal successful, returning balance response");
@@ -122,19 +151,16 @@ public class DebitCardServiceImpl implements DebitCardService {
     @Override
     public Mono<BalanceResponse> getBalanceByDebitCardNumber(String debitCardNumber) {
         log.info("Getting balance by debit card number: {}", debitCardNumber);
-        return debitCardRepository.findByDebitCardNumber(debitCardNumber)
+        // Both reads are projections: the card's main account number, then the account's balance fields
+        return debitCardRepository.findMainLinkedAccountNumber(debitCardNumber)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Debit Card with debit card number: " + debitCardNumber + " not found")))
-                .flatMap(debitCard -> accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())
+                .flatMap(mainLinkedAccountNumber -> accountRepository.findBalanceByAccountNumber(mainLinkedAccountNumber)
                         .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-                                "Account with account number: " + debitCard.getMainLinkedAccountNumber() + " not found")))
-                        .map(account -> {
-                            log.info("Returning balance response for account number: {}", account.getAccountNumber());
-                            BalanceResponse balanceResponse = new BalanceResponse();
-                            balanceResponse.setAccountNumber(account.getAccountNumber());
-                            balanceResponse.setAccountType(BalanceResponse.AccountTypeEnum.valueOf(account.getAccountType().name()));
-                            balanceResponse.setBalance(account.getBalance());
-                            return balanceResponse;
+                                "Account with account number: " + mainLinkedAccountNumber + " not found")))
+                        .map(accountBalance -> {
+                            log.info("Returning balance response for account number: {}", accountBalance.getAccountNumber());
+                            return accountMapper.mapToBalanceResponse(accountBalance);
                         }));
     }
 
@@ -147,45 +173,97 @@ public class DebitCardServiceImpl implements DebitCardService {
                 .flatMapMany(debitCard -> accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())
                         .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                                 "Account with account number: " + debitCard.getMainLinkedAccountNumber() + " not found")))
-                        .flatMapMany(account -> transactionClient.getTransactionsByAccountNumber(account.getAccountNumber()))
-                        .sort(Comparator.comparing(TransactionResponse::getCreatedAt).reversed())
-                        .take(10));
+                        .flatMapMany(account -> transactionClient.getLatestTransactionsByAccountNumber(account.getAccountNumber(),
+                                LAST_TRANSACTIONS_LIMIT)));
     }
 
-    private Mono<Account> withdrawFromAccount(Account account, WithdrawalRequest withdrawalRequest) {
-        log.info("Withdrawing amount: {} from account with account number: {}", withdrawalRequest.getAmount(), account.getAccountNumber());
-        BigDecimal withdrawalAmount = withdrawalRequest.getAmount();
-        if(account.getIsCommissionFeeActive()) {
-            log.info("Account has commission fee active, adding commission fee to withdrawal amount");
-            withdrawalAmount = withdrawalAmount.add(account.getMovementCommissionFee());
-        }
+    private Set<String> linkedAccountNumbers(DebitCard debitCard) {
+        Set<String> accountNumbers = new LinkedHashSet<>(debitCard.getLinkedAccountsNumber());
+        accountNumbers.add(debitCard.getMainLinkedAccountNumber());
+        return accountNumbers;
+    }
+
+    // Main account first, then the linked accounts in the order they were linked
+    private Comparator<Account> withdrawalPriority(DebitCard debitCard) {
+        List<String> linkedAccountsNumber = debitCard.getLinkedAccountsNumber();
+        return Comparator.comparing((Account account) -> !account.getAccountNumber().equals(debitCard.getMainLinkedAccountNumber()))
+                .thenComparingInt(account -> linkedAccountsNumber.indexOf(account.getAccountNumber()));
+    }
 
-        if(account.getBalance().compareTo(withdrawalAmount) < 0) {
-            log.warn("Account does not have enough balance");
-            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account does not have enough balance"));
+    // The selection read may be stale: when the conditional debit rejects a candidate, the next one is tried.
+    // The last candidate's rejection is returned as is
+    private Mono<Account> withdrawFromCandidates(List<Account> candidates, int index, WithdrawalRequest withdrawalRequest) {
+        String accountNumber = candidates.get(index).getAccountNumber();
+        Mono<Account> withdrawal = withdrawInAccountLane(accountNumber, withdrawalRequest);
+        if (index == candidates.size() - 1) {
+            return withdrawal;
         }
+        return withdrawal.onErrorResume(this::isRejectedWithdrawal, throwable -> {
+            log.info("Withdrawal from account {} rejected, trying the next linked account", accountNumber);
+            return withdrawFromCandidates(candidates, index + 1, withdrawalRequest);
+        });
+    }
+
+    private boolean isRejectedWithdrawal(Throwable throwable) {
+        return throwable instanceof ResponseStatusException e
+                && (e.getStatusCode() == HttpStatus.BAD_REQUEST || e.getStatusCode() == HttpStatus.CONFLICT);
+    }
+
+    private BigDecimal totalWithdrawal(Account account, BigDecimal withdrawalAmount) {
+        return Boolean.TRUE.equals(account.getIsCommissionFeeActive()) && account.getMovementCommissionFee() != null
+                ? withdrawalAmount.add(account.getMovementCommissionFee()) : withdrawalAmount;
+    }
 
-        account.setBalance(account.getBalance().subtract(withdrawalAmount));
-        return accountRepository.save(account)
-                .flatMap(savedAccount -> {
-                    TransactionRequest transactionRequest = new TransactionRequest();
-                    transactionRequest.setAccountNumber(savedAccount.getAccountNumber());
-                    transactionRequest.setAmount(withdrawalRequest.getAmount());
-                    transactionRequest.setTransactionType(TransactionRequest.TransactionType.WITHDRAWAL);
-                    transactionRequest.setDescription("Withdrawal from debit card");
-                    if (savedAccount.getIsCommissionFeeActive()) {
-                        transactionRequest.setFee(savedAccount.getMovementCommissionFee());
-                    } else {
-                        transactionRequest.setFee(BigDecimal.ZERO);
+    // Runs in the account lane as a conditional update, the account may have changed since it was selected for the withdrawal.
+    // Debit card withdrawals pay the commission fee when it is active but are not counted as movements
+    private Mono<Account> withdrawInAccountLane(String accountNumber, WithdrawalRequest withdrawalRequest) {
+        log.info("Withdrawing amount: {} from account with account number: {}", withdrawalRequest.getAmount(), accountNumber);
+        BigDecimal withdrawalAmount = withdrawalRequest.getAmount();
+        return accountLaneExecutor.execute(accountNumber, () -> accountProfileCache.get(accountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account with account number: " + accountNumber + " not found")))
+                .flatMap(accountProfile -> transactionOutbox.applyWithTransaction(AccountMovement.builder()
+                                        .accountNumber(accountNumber)
+                                        .direction(AccountMovement.Direction.DEBIT)
+                                        .amount(withdrawalAmount)
+                                        .commissionFee(accountProfile.getMovementCommissionFee())
+                                        .build(),
+                                updatedAccount -> createWithdrawalTransactionRequest(updatedAccount, withdrawalAmount))
+                        .switchIfEmpty(Mono.defer(() -> explainRejectedWithdrawal(accountNumber, withdrawalAmount))))
+                .doOnError(throwable -> log.error("Error saving withdrawal: {}", throwable.getMessage())));
+    }
+
+    // The conditional update matched nothing: read the account again to tell why
+    private Mono<Account> explainRejectedWithdrawal(String accountNumber, BigDecimal withdrawalAmount) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account with account number: " + accountNumber + " not found")))
+                .flatMap(account -> {
+                    BigDecimal totalWithdrawal = account.getIsCommissionFeeActive()
+                            ? withdrawalAmount.add(account.getMovementCommissionFee()) : withdrawalAmount;
+                    if (account.getBalance().compareTo(totalWithdrawal) < 0) {
+                        log.warn("Account does not have enough balance");
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account does not have enough balance"));
                     }
-                    return transactionClient.createTransaction(transactionRequest)
-                            .doOnSuccess(transactionResponse ->
-                                    log.info("Withdrawal transaction created successfully for account number: {}", savedAccount.getAccountNumber()))
-                            .doOnError(throwable -> log.error("Error creating transaction: {}", throwable.getMessage()))
-                            .thenReturn(savedAccount);
+                    return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Account " + accountNumber + " changed during the withdrawal, please retry"));
                 });
     }
 
+    private TransactionRequest createWithdrawalTransactionRequest(Account account, BigDecimal withdrawalAmount) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setAccountNumber(account.getAccountNumber());
+        transactionRequest.setAmount(withdrawalAmount);
+        transactionRequest.setTransactionType(TransactionRequest.TransactionType.WITHDRAWAL);
+        transactionRequest.setDescription("Withdrawal from debit card");
+        if (account.getIsCommissionFeeActive()) {
+            transactionRequest.setFee(account.getMovementCommissionFee());
+        } else {
+            transactionRequest.setFee(BigDecimal.ZERO);
+        }
+        return transactionRequest.withBalanceAfter(account.getBalance());
+    }
+
     private DebitCard updateDebitCardFromRequest(DebitCard existingCreditCard, DebitCardRequest debitCardRequest) {
         log.info("Updating debit card from request");
         DebitCard updatedDebitCard = debitCardMapper.mapToDebitCard(debitCardRequest);
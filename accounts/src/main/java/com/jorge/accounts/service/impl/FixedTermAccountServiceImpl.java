@@ -7,6 +7,8 @@ import com.jorge.accounts.model.FixedTermAccountRequest;
 import com.jorge.accounts.model.FixedTermAccountResponse;
 import com.jorge.accounts.repository.FixedTermAccountRepository;
 import com.jorge.accounts.service.FixedTermAccountService;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -26,6 +28,8 @@ public class FixedTermAccountServiceImpl implements FixedTermAccountService {
     private final FixedTermAccountRepository fixedTermAccountRepository;
     private final FixedTermAccountMapper fixedTermAccountMapper;
     private final CustomerValidation customerValidation;
+    private final AccountProfileCache accountProfileCache;
+    private final BlockNumberAllocator accountNumberAllocator;
 
     @Override
     public Mono<FixedTermAccountResponse> createFixedTermAccount(FixedTermAccountRequest fixedTermAccountRequest) {
@@ -44,11 +48,13 @@ public class FixedTermAccountServiceImpl implements FixedTermAccountService {
                     case BUSINESS -> customerValidation.businessCustomerValidation(Account.AccountType.FIXED_TERM)
                             .then(Mono.just(customer));
                 })
-                .flatMap(customer ->
-                        fixedTermAccountRepository.save(fixedTermAccountMapper.
-                                mapToFixedTermAccount(fixedTermAccountRequest)))
-                .flatMap(fixedTermAccount ->
-                        accountUtils.handleInitialDeposit(fixedTermAccount, fixedTermAccountRequest.getBalance()))
+                .flatMap(customer -> accountNumberAllocator.next())
+                .flatMap(accountNumber -> {
+                    FixedTermAccount fixedTermAccount = fixedTermAccountMapper.mapToFixedTermAccount(fixedTermAccountRequest);
+                    fixedTermAccount.setAccountNumber(accountNumber);
+                    return accountUtils.saveWithInitialDeposit(fixedTermAccountRepository.save(fixedTermAccount),
+                            fixedTermAccountRequest.getBalance());
+                })
                 .map(fixedTermAccountMapper::mapToFixedTermAccountResponse)
                 .doOnSuccess(fixedTermAccountResponse ->
                         log.info("Fixed Term Account created successfully: {}", fixedTermAccountResponse))
@@ -65,6 +71,7 @@ public class FixedTermAccountServiceImpl implements FixedTermAccountService {
                         "Fixed Term Account with account number: " + accountNumber + " not found")))
                 .flatMap(existingFixedTermAccount -> fixedTermAccountRepository.save(
                         updateFixedTermAccountFromRequest(existingFixedTermAccount, fixedTermAccountRequest)))
+                .doOnNext(updatedAccount -> accountProfileCache.invalidate(accountNumber))
                 .map(fixedTermAccountMapper::mapToFixedTermAccountResponse)
                 .doOnSuccess(fixedTermAccountResponse ->
                         log.info("Fixed Term Account updated successfully: {}", fixedTermAccountResponse))
@@ -7,6 +7,8 @@ import com.jorge.accounts.model.SavingsAccountRequest;
 import com.jorge.accounts.model.SavingsAccountResponse;
 import com.jorge.accounts.repository.SavingsAccountRepository;
 import com.jorge.accounts.service.SavingsAccountService;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -26,6 +28,8 @@ public class SavingsAccountServiceImpl implements SavingsAccountService {
     private final SavingsAccountRepository savingsAccountRepository;
     private final SavingsAccountMapper savingsAccountMapper;
     private final CustomerValidation customerValidation;
+    private final AccountProfileCache accountProfileCache;
+    private final BlockNumberAllocator accountNumberAllocator;
 
     @Override
     public Mono<SavingsAccountResponse> createSavingsAccount(SavingsAccountRequest savingsAccountRequest) {
@@ -44,10 +48,13 @@ public class SavingsAccountServiceImpl implements SavingsAccountService {
                     case BUSINESS -> customerValidation.businessCustomerValidation(Account.AccountType.SAVINGS)
                             .then(Mono.just(customer));
                 })
-                .flatMap(customer ->
-                        savingsAccountRepository.save(savingsAccountMapper.mapToSavingsAccount(savingsAccountRequest)))
-                .flatMap(savingsAccount ->
-                        accountUtils.handleInitialDeposit(savingsAccount, savingsAccountRequest.getBalance()))
+                .flatMap(customer -> accountNumberAllocator.next())
+                .flatMap(accountNumber -> {
+                    SavingsAccount savingsAccount = savingsAccountMapper.mapToSavingsAccount(savingsAccountRequest);
+                    savingsAccount.setAccountNumber(accountNumber);
+                    return accountUtils.saveWithInitialDeposit(savingsAccountRepository.save(savingsAccount),
+                            savingsAccountRequest.getBalance());
+                })
                 .map(savingsAccountMapper::mapToSavingsAccountResponse)
                 .doOnSuccess(savingsAccountResponse ->
                         log.info("Savings account created successfully with account number: {}", savingsAccountResponse.getAccountNumber()))
@@ -62,6 +69,7 @@ public class SavingsAccountServiceImpl implements SavingsAccountService {
                         "Savings Account with account number: " + accountNumber + " not found")))
                 .flatMap(existingSavingsAccount -> savingsAccountRepository.save(
                         updateSavingsAccountFromRequest(existingSavingsAccount, savingsAccountRequest)))
+                .doOnNext(updatedAccount -> accountProfileCache.invalidate(accountNumber))
                 .map(savingsAccountMapper::mapToSavingsAccountResponse)
                 .doOnSuccess(savingsAccountResponse ->
                         log.info("Savings account updated successfully with account number: {}", savingsAccountResponse.getAccountNumber()))
@@ -0,0 +1,228 @@
+package com.jorge.accounts.service.impl;
+
+import com.jorge.accounts.model.*;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.service.TransferService;
+import com.jorge.accounts.service.cache.AccountProfile;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import com.jorge.accounts.utils.MongoTransactions;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferServiceImpl implements TransferService {
+    private static final int MAX_TRANSIENT_RETRIES = 3;
+
+    private final AccountRepository accountRepository;
+    private final AccountDailyBalanceRepository accountDailyBalanceRepository;
+    private final TransactionOutbox transactionOutbox;
+    private final AccountLaneExecutor accountLaneExecutor;
+    private final AccountProfileCache accountProfileCache;
+    private final TransactionalOperator transactionalOperator;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<TransactionResponse> transfer(String accountNumber, TransferRequest transferRequest) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // Serialized with every other movement of the sender. The receiver is only credited through an atomic $inc
+            return accountLaneExecutor.execute(accountNumber, () -> executeTransfer(accountNumber, transferRequest))
+                    .doOnSuccess(transactionResponse -> sample.stop(transferTimer("accounts.transfer", "success")))
+                    .doOnError(e -> sample.stop(transferTimer("accounts.transfer", "failure")));
+        });
+    }
+
+    private Mono<TransactionResponse> executeTransfer(String accountNumber, TransferRequest transferRequest) {
+        String receiverAccountNumber = transferRequest.getReceiverAccountNumber();
+        BigDecimal transferAmount = transferRequest.getAmount();
+
+        log.info("Initiating transfer of {} from account {} to account {}", transferAmount, accountNumber, receiverAccountNumber);
+
+        if (transferAmount == null || transferAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Amount must be greater than zero"));
+        }
+        if (accountNumber.equals(receiverAccountNumber)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Sender and receiver accounts must be different"));
+        }
+
+        return Mono.zip(validateSender(accountNumber), validateReceiver(receiverAccountNumber))
+                .flatMap(accountsTuple -> {
+                    Account senderAccount = accountsTuple.getT1();
+                    BigDecimal fee = senderAccount.getIsCommissionFeeActive()
+                            ? senderAccount.getMovementCommissionFee() : BigDecimal.ZERO;
+                    BigDecimal totalDeduction = transferAmount.add(fee);
+
+                    // Fast path for a clear error message. The conditional debit below is what actually guards the balance
+                    if (senderAccount.getBalance().compareTo(totalDeduction) < 0) {
+                        log.warn("Insufficient funds in sender account {}. Required: {}", accountNumber, totalDeduction);
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Insufficient funds in sender account " + accountNumber +
+                                        " (Required: " + totalDeduction + ")"));
+                    }
+
+                    return applyTransfer(senderAccount, receiverAccountNumber, transferAmount, fee);
+                });
+    }
+
+    private Mono<Account> validateSender(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Sender account not found: " + accountNumber)))
+                .flatMap(account -> {
+                    if (account instanceof SavingsAccount savingsAccount) {
+                        if (savingsAccount.getMovementsThisMonth() >= savingsAccount.getMonthlyMovementsLimit()) {
+                            log.warn("Savings account {} has reached max movements limit", accountNumber);
+                            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    "Savings account " + accountNumber + " has reached max movements limit ("
+                                            + savingsAccount.getMonthlyMovementsLimit() + ") this month."));
+                        }
+                    } else if (account instanceof FixedTermAccount) {
+                        log.warn("Fixed Term accounts cannot initiate transfers for account {}", accountNumber);
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Fixed Term accounts cannot initiate transfers."));
+                    }
+                    return Mono.just(account);
+                })
+                .doOnSuccess(account -> log.debug("Sender account {} validation passed", accountNumber))
+                .doOnError(e -> log.error("Sender account {} validation failed: {}", accountNumber, e.getMessage()));
+    }
+
+    // Only the account type matters for the receiver, so it is read from the cached profile
+    private Mono<AccountProfile> validateReceiver(String receiverAccountNumber) {
+        return accountProfileCache.get(receiverAccountNumber)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Receiver account not found: " +
+                        receiverAccountNumber)))
+                .flatMap(accountProfile -> {
+                    if (accountProfile.getAccountType() == Account.AccountType.FIXED_TERM) {
+                        log.warn("Cannot transfer to Fixed Term account {}", receiverAccountNumber);
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Cannot transfer to a Fixed Term account."));
+                    }
+                    return Mono.just(accountProfile);
+                })
+                .doOnSuccess(account -> log.debug("Receiver account {} validation passed", receiverAccountNumber))
+                .doOnError(e -> log.error("Receiver account {} validation failed: {}", receiverAccountNumber, e.getMessage()));
+    }
+
+    // Debit, credit and the records of both legs are written inside one Mongo transaction, so either the whole transfer
+    // applies or none of it does; the records reach the transaction service through the outbox. Transfers are only
+    // serialized on the sender's lane, so two of them crediting the same receiver can write-conflict; the aborted
+    // transaction is run again from the start. Emits the debit leg as it was queued
+    private Mono<TransactionResponse> applyTransfer(Account senderAccount, String receiverAccountNumber,
+                                                    BigDecimal transferAmount, BigDecimal fee) {
+        String senderAccountNumber = senderAccount.getAccountNumber();
+        BigDecimal totalDeduction = transferAmount.add(fee);
+        Mono<Account> debit = senderAccount instanceof SavingsAccount savingsAccount
+                ? accountRepository.decreaseBalanceCountingMovement(senderAccountNumber, totalDeduction,
+                        savingsAccount.getMonthlyMovementsLimit())
+                : accountRepository.decreaseBalance(senderAccountNumber, totalDeduction);
+
+        Mono<TransactionResponse> transfer = debit
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Sender account " + senderAccountNumber + " changed during the transfer, no funds were moved")))
+                .flatMap(this::recordDailyBalance)
+                .flatMap(debitedSender -> accountRepository.increaseBalance(receiverAccountNumber, transferAmount)
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Receiver account not found: " + receiverAccountNumber)))
+                        .flatMap(this::recordDailyBalance)
+                        .flatMap(creditedReceiver -> recordTransferLegs(debitedSender, creditedReceiver, transferAmount, fee)));
+
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return transactionalOperator.transactional(transfer)
+                    .retryWhen(Retry.backoff(MAX_TRANSIENT_RETRIES, Duration.ofMillis(20))
+                            .filter(MongoTransactions::isTransientTransactionError)
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doOnSuccess(transactionResponse -> {
+                        sample.stop(transferTimer("accounts.transfer.commit", "success"));
+                        log.info("Successfully transferred {} from account {} to account {}",
+                                transferAmount, senderAccountNumber, receiverAccountNumber);
+                    })
+                    .doOnError(e -> {
+                        sample.stop(transferTimer("accounts.transfer.commit", "failure"));
+                        log.error("Error processing transfer between accounts: {}", e.getMessage());
+                    });
+        });
+    }
+
+    // Both legs are queued together, each stamped with the balance the transfer left its account with. The debit leg
+    // is answered from its outbox entry, whose id the transaction service stores the transaction under
+    private Mono<TransactionResponse> recordTransferLegs(Account debitedSender, Account creditedReceiver,
+                                                         BigDecimal transferAmount, BigDecimal fee) {
+        String senderAccountNumber = debitedSender.getAccountNumber();
+        String receiverAccountNumber = creditedReceiver.getAccountNumber();
+        TransactionRequest debitRequest = createTransferTransactionRequest(senderAccountNumber, transferAmount,
+                TransactionRequest.TransactionType.DEBIT, "Transfer to account " + receiverAccountNumber, fee)
+                .withBalanceAfter(debitedSender.getBalance());
+        TransactionRequest creditRequest = createTransferTransactionRequest(receiverAccountNumber, transferAmount,
+                TransactionRequest.TransactionType.CREDIT, "Transfer from account " + senderAccountNumber, BigDecimal.ZERO)
+                .withBalanceAfter(creditedReceiver.getBalance());
+
+        return transactionOutbox.enqueueAll(List.of(debitRequest, creditRequest))
+                .next()
+                .map(this::mapToTransactionResponse)
+                .doOnSuccess(transactionResponse ->
+                        log.info("Transfer transactions queued for accounts {} and {}", senderAccountNumber, receiverAccountNumber));
+    }
+
+    private TransactionResponse mapToTransactionResponse(TransactionOutboxEntry entry) {
+        TransactionRequest transactionRequest = entry.getTransaction();
+        TransactionResponse transactionResponse = new TransactionResponse();
+        transactionResponse.setId(entry.getId());
+        transactionResponse.setAccountNumber(transactionRequest.getAccountNumber());
+        transactionResponse.setFee(transactionRequest.getFee());
+        transactionResponse.setTransactionType(TransactionResponse.TransactionTypeEnum.valueOf(transactionRequest.getTransactionType().name()));
+        transactionResponse.setAmount(transactionRequest.getAmount());
+        transactionResponse.setDescription(transactionRequest.getDescription());
+        transactionResponse.setCreatedAt(entry.getCreatedAt());
+        transactionResponse.setBalanceBefore(transactionRequest.getBalanceBefore());
+        transactionResponse.setBalanceAfter(transactionRequest.getBalanceAfter());
+        return transactionResponse;
+    }
+
+    // Part of the Mongo transaction, so the snapshots commit or roll back together with the balances
+    private Mono<Account> recordDailyBalance(Account account) {
+        return accountDailyBalanceRepository.recordClosingBalance(account.getAccountNumber(), LocalDate.now(), account.getBalance())
+                .thenReturn(account);
+    }
+
+    private Timer transferTimer(String name, String outcome) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private TransactionRequest createTransferTransactionRequest(String accountNumber,
+                                                                BigDecimal amount,
+                                                                TransactionRequest.TransactionType transactionType,
+                                                                String description, BigDecimal fee) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setAccountNumber(accountNumber);
+        transactionRequest.setAmount(amount);
+        transactionRequest.setTransactionType(transactionType);
+        transactionRequest.setDescription(description);
+        transactionRequest.setFee(fee);
+        return transactionRequest;
+    }
+}
@@ -0,0 +1,147 @@
+package com.jorge.accounts.service.lane;
+
+import com.jorge.idempotency.NotAppliedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Serializes the operations of each account number while different accounts run in parallel.
+// Account numbers are hashed onto a fixed number of lanes; every lane runs its queued operations one at a time.
+// An operation must never wait on another lane (it could be queued behind itself), so multi-account work
+// such as a transfer only runs on the lane of the account it reads and rewrites.
+@Component
+@Slf4j
+public class AccountLaneExecutor {
+    private final List<Lane> lanes;
+    private final Duration taskTimeout;
+    private final int maxDepth;
+    private final Timer queueWaitTimer;
+
+    public AccountLaneExecutor(MeterRegistry meterRegistry,
+                               @Value("${accounts.lanes.count:64}") int laneCount,
+                               @Value("${accounts.lanes.task-timeout:10s}") Duration taskTimeout,
+                               @Value("${accounts.lanes.max-depth:500}") int maxDepth) {
+        this.taskTimeout = taskTimeout;
+        this.maxDepth = maxDepth;
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane();
+            Gauge.builder("accounts.lane.depth", lane.depth, AtomicInteger::get)
+                    .description("Operations queued or running on the lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+            lanes.add(lane);
+        }
+        this.queueWaitTimer = Timer.builder("accounts.lane.wait")
+                .description("Time an operation waits in its lane before it starts")
+                .register(meterRegistry);
+    }
+
+    // An operation that was already queued still runs if the caller cancels, and once started it is never cancelled:
+    // a movement may have committed by the time it is slow, so it always runs to completion and its caller gets the
+    // real outcome. The lane holds the next operation until then, so operations of one account never overlap.
+    // A lane whose running operation is past the task timeout, or that already holds max-depth operations, rejects
+    // new ones instead of queueing them behind it
+    public <T> Mono<T> execute(String accountNumber, Supplier<Mono<T>> operation) {
+        return Mono.defer(() -> {
+            Lane lane = laneFor(accountNumber);
+            if (lane.isStuck(taskTimeout)) {
+                log.warn("Operation on account lane still running after {}, rejecting account {}", taskTimeout, accountNumber);
+                return Mono.error(new NotAppliedException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Operations on the account are delayed, try again later"));
+            }
+            if (lane.depth.incrementAndGet() > maxDepth) {
+                lane.depth.decrementAndGet();
+                return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many operations pending on the account, try again later"));
+            }
+            Sinks.One<T> result = Sinks.one();
+            long enqueuedAt = System.nanoTime();
+
+            Mono<Void> task = Mono.defer(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                lane.start();
+                return Mono.defer(operation)
+                        // The lane is released before the caller is signalled, so a completed caller never sees its own work queued
+                        .doOnSuccess(value -> {
+                            lane.finish();
+                            if (value == null) {
+                                result.tryEmitEmpty();
+                            } else {
+                                result.tryEmitValue(value);
+                            }
+                        })
+                        .doOnError(e -> {
+                            lane.finish();
+                            result.tryEmitError(e);
+                        })
+                        .then()
+                        .onErrorResume(e -> Mono.empty());
+            });
+
+            lane.submit(task);
+            return result.asMono();
+        });
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    int depth(String accountNumber) {
+        return laneFor(accountNumber).depth.get();
+    }
+
+    private Lane laneFor(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return lanes.get(Math.floorMod(hash ^ (hash >>> 16), lanes.size()));
+    }
+
+    private static final class Lane {
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private final AtomicInteger depth = new AtomicInteger();
+        private volatile long runningSince = IDLE;
+        private final Sinks.Many<Mono<Void>> tasks = Sinks.many().unicast().onBackpressureBuffer();
+
+        private Lane() {
+            // Tasks never error (see execute), so the lane stays subscribed for the life of the application
+            tasks.asFlux()
+                    .concatMap(task -> task)
+                    .subscribe();
+        }
+
+        private void start() {
+            runningSince = System.nanoTime();
+        }
+
+        private void finish() {
+            runningSince = IDLE;
+            depth.decrementAndGet();
+        }
+
+        private boolean isStuck(Duration taskTimeout) {
+            long since = runningSince;
+            return since != IDLE && System.nanoTime() - since > taskTimeout.toNanos();
+        }
+
+        // Sinks reject concurrent emissions, callers from different threads are serialized here
+        private synchronized void submit(Mono<Void> task) {
+            tasks.emitNext(task, Sinks.EmitFailureHandler.FAIL_FAST);
+        }
+    }
+}
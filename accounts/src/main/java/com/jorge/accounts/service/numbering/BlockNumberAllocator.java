@@ -0,0 +1,103 @@
+package com.jorge.accounts.service.numbering;
+
+import com.jorge.accounts.repository.NumberSequenceRepository;
+import com.jorge.accounts.utils.Luhn;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out unique numbers of one series (account numbers, card numbers...) as
+ * {@code prefix + zero padded sequence value + Luhn check digit}.
+ * Values are reserved from Mongo a block at a time (hi/lo), so every instance allocates from its own block without
+ * coordination and only goes to the database once per block. Numbers left in a block when the instance stops are
+ * skipped, never reused.
+ */
+@Slf4j
+public class BlockNumberAllocator {
+    private final NumberSequenceRepository numberSequenceRepository;
+    private final String sequenceName;
+    private final String prefix;
+    private final int sequenceDigits;
+    private final long capacity;
+    private final int blockSize;
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(new Block(0, 0));
+
+    public BlockNumberAllocator(NumberSequenceRepository numberSequenceRepository, String sequenceName,
+                                String prefix, int length, int blockSize) {
+        this.numberSequenceRepository = numberSequenceRepository;
+        this.sequenceName = sequenceName;
+        this.prefix = prefix;
+        // The last digit is the check digit
+        this.sequenceDigits = length - prefix.length() - 1;
+        if (sequenceDigits < 1 || sequenceDigits > 18 || !prefix.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Invalid number series " + sequenceName + ": prefix '" + prefix
+                    + "' and length " + length);
+        }
+        this.capacity = (long) Math.pow(10, sequenceDigits);
+        this.blockSize = blockSize;
+    }
+
+    public Mono<String> next() {
+        return Mono.defer(() -> {
+            Block block = currentBlock.get();
+            long value = block.cursor.getAndIncrement();
+            if (value < block.end) {
+                return Mono.just(format(value));
+            }
+            return refill(block).then(next());
+        });
+    }
+
+    // Callers that find the same block exhausted wait for a single reservation
+    private Mono<Void> refill(Block exhausted) {
+        Sinks.Empty<Void> refilled = Sinks.empty();
+        if (!exhausted.refill.compareAndSet(null, refilled)) {
+            return exhausted.refill.get().asMono();
+        }
+        Mono.defer(() -> numberSequenceRepository.reserveBlock(sequenceName))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Could not reserve a block of number series " + sequenceName)))
+                .map(this::toBlock)
+                .subscribe(block -> {
+                            currentBlock.set(block);
+                            refilled.tryEmitEmpty();
+                        },
+                        error -> {
+                            // Waiting callers get the error, the next caller tries a new reservation
+                            exhausted.refill.set(null);
+                            refilled.tryEmitError(error);
+                        });
+        return refilled.asMono();
+    }
+
+    private Block toBlock(long blockIndex) {
+        long start = blockIndex * blockSize;
+        if (start + blockSize > capacity) {
+            throw new IllegalStateException("Number series " + sequenceName + " is exhausted");
+        }
+        log.debug("Reserved block {} of number series {}", blockIndex, sequenceName);
+        return new Block(start, start + blockSize);
+    }
+
+    private String format(long value) {
+        String digits = Long.toString(value);
+        StringBuilder number = new StringBuilder(prefix.length() + sequenceDigits + 1).append(prefix);
+        number.append("0".repeat(sequenceDigits - digits.length())).append(digits);
+        return number.append(Luhn.checkDigit(number)).toString();
+    }
+
+    private static final class Block {
+        private final AtomicLong cursor;
+        private final long end;
+        private final AtomicReference<Sinks.Empty<Void>> refill = new AtomicReference<>();
+
+        private Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
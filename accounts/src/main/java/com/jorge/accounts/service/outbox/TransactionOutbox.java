@@ -0,0 +1,69 @@
+package com.jorge.accounts.service.outbox;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.TransactionOutboxRepository;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+// Persists an account change and the record of its movement atomically. The record reaches the transaction
+// service later through TransactionOutboxRelay, so callers only wait for the local write.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionOutbox {
+    private final AccountRepository accountRepository;
+    private final AccountDailyBalanceRepository accountDailyBalanceRepository;
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    // Empty, with nothing queued, when the movement rules reject the movement. The record is built from the updated
+    // account, so it carries the commission fee actually charged
+    public Mono<Account> applyWithTransaction(AccountMovement movement,
+                                              Function<Account, TransactionRequest> transactionRequestFactory) {
+        return transactionalOperator.transactional(accountRepository.applyMovement(movement)
+                        .flatMap(updatedAccount -> {
+                            TransactionRequest transactionRequest = transactionRequestFactory.apply(updatedAccount);
+                            // Conditional updates bypass the after-save callback, so the daily snapshot is written here
+                            return transactionOutboxRepository.save(newEntry(transactionRequest))
+                                    .then(Mono.defer(() -> accountDailyBalanceRepository.recordClosingBalance(
+                                            updatedAccount.getAccountNumber(), LocalDate.now(), updatedAccount.getBalance())))
+                                    .doOnSuccess(v -> log.info("{} transaction queued in outbox for account number: {}",
+                                            transactionRequest.getTransactionType(), updatedAccount.getAccountNumber()))
+                                    .thenReturn(updatedAccount);
+                        }));
+    }
+
+    // Queues records for changes the caller already applied and emits the queued entries in order. Joins the
+    // caller's transaction, if any
+    public Flux<TransactionOutboxEntry> enqueueAll(List<TransactionRequest> transactionRequests) {
+        if (transactionRequests.isEmpty()) {
+            return Flux.empty();
+        }
+        return transactionOutboxRepository.saveAll(transactionRequests.stream().map(this::newEntry).toList());
+    }
+
+    private TransactionOutboxEntry newEntry(TransactionRequest transactionRequest) {
+        LocalDateTime now = LocalDateTime.now();
+        return TransactionOutboxEntry.builder()
+                .transaction(transactionRequest)
+                .status(TransactionOutboxEntry.OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.jorge.accounts.service.outbox;
+
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import com.jorge.accounts.repository.TransactionOutboxRepository;
+import com.jorge.accounts.webclient.client.TransactionClient;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the transaction outbox to the transaction service in batches. Delivery is at-least-once: a batch that
+// was stored but whose response was lost is sent again after its lease expires. Each record carries its entry id,
+// so the transaction service skips the ones it already stored, and
+// its commit time, so late deliveries keep their place in the account history.
+@Component
+@Slf4j
+public class TransactionOutboxRelay {
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final TransactionClient transactionClient;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration maxBackoff;
+
+    private final Counter relayedCounter;
+    private final Counter failedAttemptsCounter;
+    private final Counter deadCounter;
+    private final AtomicLong pendingEntries = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+
+    private Disposable relaySubscription;
+
+    public TransactionOutboxRelay(TransactionOutboxRepository transactionOutboxRepository,
+                                  TransactionClient transactionClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${accounts.outbox.poll-interval:1s}") Duration pollInterval,
+                                  @Value("${accounts.outbox.batch-size:100}") int batchSize,
+                                  @Value("${accounts.outbox.max-attempts:10}") int maxAttempts,
+                                  @Value("${accounts.outbox.lease:30s}") Duration lease,
+                                  @Value("${accounts.outbox.max-backoff:5m}") Duration maxBackoff) {
+        this.transactionOutboxRepository = transactionOutboxRepository;
+        this.transactionClient = transactionClient;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.maxBackoff = maxBackoff;
+
+        this.relayedCounter = Counter.builder("accounts.outbox.relayed")
+                .description("Outbox entries delivered to the transaction service")
+                .register(meterRegistry);
+        this.failedAttemptsCounter = Counter.builder("accounts.outbox.failed.attempts")
+                .description("Outbox entries whose delivery attempt failed and will be retried")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("accounts.outbox.dead")
+                .description("Outbox entries that exhausted their attempts")
+                .register(meterRegistry);
+        Gauge.builder("accounts.outbox.pending", pendingEntries, AtomicLong::get)
+                .description("Outbox entries waiting to be delivered")
+                .register(meterRegistry);
+        Gauge.builder("accounts.outbox.lag.seconds", oldestPendingAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest outbox entry waiting to be delivered")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Starting transaction outbox relay {} every {}", instanceId, pollInterval);
+        relaySubscription = Flux.interval(pollInterval)
+                // A tick that arrives while the previous drain is still running is skipped
+                .onBackpressureDrop()
+                .concatMap(tick -> drain(), 0)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (relaySubscription != null) {
+            relaySubscription.dispose();
+        }
+    }
+
+    // Relays full batches back to back until the outbox is drained, then refreshes the lag metrics
+    public Mono<Long> drain() {
+        return relayBatch()
+                .expand(relayed -> relayed == batchSize ? relayBatch() : Mono.empty())
+                .reduce(0L, Long::sum)
+                .flatMap(relayed -> refreshLagMetrics().thenReturn(relayed))
+                .onErrorResume(e -> {
+                    log.error("Error draining transaction outbox: {}", e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    Mono<Integer> relayBatch() {
+        return transactionOutboxRepository.claimBatch(instanceId, batchSize, lease)
+                .collectList()
+                .flatMap(entries -> entries.isEmpty() ? Mono.just(0) : deliver(entries));
+    }
+
+    private Mono<Integer> deliver(List<TransactionOutboxEntry> entries) {
+        return transactionClient.createTransactions(entries.stream().map(TransactionOutboxRelay::withProducerId).toList())
+                .then(Mono.defer(() -> transactionOutboxRepository.deleteAllById(
+                        entries.stream().map(TransactionOutboxEntry::getId).toList())))
+                .then(Mono.fromCallable(() -> {
+                    relayedCounter.increment(entries.size());
+                    log.debug("Relayed {} outbox entries", entries.size());
+                    return entries.size();
+                }))
+                .onErrorResume(e -> scheduleRetry(entries, e).thenReturn(0));
+    }
+
+    private static TransactionRequest withProducerId(TransactionOutboxEntry entry) {
+        TransactionRequest transactionRequest = entry.getTransaction();
+        transactionRequest.setId(entry.getId());
+        // A delivery that waited on backoff or an outage still lands on the day the movement happened
+        transactionRequest.setCreatedAt(entry.getCreatedAt());
+        return transactionRequest;
+    }
+
+    private Mono<Void> scheduleRetry(List<TransactionOutboxEntry> entries, Throwable error) {
+        log.warn("Could not relay {} outbox entries, scheduling retry: {}", entries.size(), error.getMessage());
+        LocalDateTime now = LocalDateTime.now();
+        entries.forEach(entry -> {
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(error.getMessage());
+            entry.setLeaseOwner(null);
+            entry.setLeaseUntil(null);
+            if (attempts >= maxAttempts) {
+                entry.setStatus(TransactionOutboxEntry.OutboxStatus.FAILED);
+                deadCounter.increment();
+                log.error("Outbox entry {} for account number {} failed after {} attempts",
+                        entry.getId(), entry.getTransaction().getAccountNumber(), attempts);
+            } else {
+                entry.setNextAttemptAt(now.plus(backoff(attempts)));
+                failedAttemptsCounter.increment();
+            }
+        });
+        return transactionOutboxRepository.saveAll(entries).then();
+    }
+
+    // Exponential backoff starting at the poll interval, capped at maxBackoff
+    Duration backoff(int attempts) {
+        Duration delay = pollInterval.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private Mono<Void> refreshLagMetrics() {
+        Mono<Long> pending = transactionOutboxRepository.countByStatus(TransactionOutboxEntry.OutboxStatus.PENDING)
+                .doOnNext(pendingEntries::set);
+        Mono<Long> lag = transactionOutboxRepository.findFirstByStatusOrderByCreatedAtAsc(TransactionOutboxEntry.OutboxStatus.PENDING)
+                .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toSeconds())
+                .defaultIfEmpty(0L)
+                .doOnNext(oldestPendingAgeSeconds::set);
+        return Mono.when(pending, lag);
+    }
+}
@@ -0,0 +1,202 @@
+package com.jorge.accounts.service.rollover;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountRolloverCheckpoint;
+import com.jorge.accounts.model.CheckingAccount;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.AccountRolloverCheckpointRepository;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import com.jorge.accounts.utils.MongoTransactions;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Opens a new month: resets the movement counters and the commission fee flag of every account and charges the
+// maintenance fee of checking accounts. Accounts are walked in _id order one page at a time; each page is applied,
+// recorded in the outbox and checkpointed in a single Mongo transaction, so a crash never charges a fee twice.
+@Component
+@Slf4j
+public class MonthlyRolloverJob {
+    private static final int MAX_TRANSIENT_RETRIES = 3;
+
+    private final AccountRepository accountRepository;
+    private final AccountDailyBalanceRepository accountDailyBalanceRepository;
+    private final AccountRolloverCheckpointRepository accountRolloverCheckpointRepository;
+    private final TransactionOutbox transactionOutbox;
+    private final TransactionalOperator transactionalOperator;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final int pageSize;
+    private final Duration lease;
+
+    private final Counter rolledOverCounter;
+    private final Counter chargedFeesCounter;
+    private final Counter skippedFeesCounter;
+    private final AtomicLong accountsPerSecond = new AtomicLong();
+
+    public MonthlyRolloverJob(AccountRepository accountRepository,
+                              AccountDailyBalanceRepository accountDailyBalanceRepository,
+                              AccountRolloverCheckpointRepository accountRolloverCheckpointRepository,
+                              TransactionOutbox transactionOutbox,
+                              TransactionalOperator transactionalOperator,
+                              MeterRegistry meterRegistry,
+                              @Value("${accounts.rollover.page-size:1000}") int pageSize,
+                              @Value("${accounts.rollover.lease:2m}") Duration lease) {
+        this.accountRepository = accountRepository;
+        this.accountDailyBalanceRepository = accountDailyBalanceRepository;
+        this.accountRolloverCheckpointRepository = accountRolloverCheckpointRepository;
+        this.transactionOutbox = transactionOutbox;
+        this.transactionalOperator = transactionalOperator;
+        this.pageSize = pageSize;
+        this.lease = lease;
+
+        this.rolledOverCounter = Counter.builder("accounts.rollover.accounts")
+                .description("Accounts whose monthly counters were reset")
+                .register(meterRegistry);
+        this.chargedFeesCounter = Counter.builder("accounts.rollover.maintenance.fees.charged")
+                .description("Maintenance fees charged by the monthly rollover")
+                .register(meterRegistry);
+        this.skippedFeesCounter = Counter.builder("accounts.rollover.maintenance.fees.skipped")
+                .description("Maintenance fees not charged because the balance did not cover them")
+                .register(meterRegistry);
+        Gauge.builder("accounts.rollover.throughput", accountsPerSecond, AtomicLong::get)
+                .description("Accounts per second rolled over by the current or last run")
+                .baseUnit("accounts/s")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${accounts.rollover.cron:0 0 0 1 * *}")
+    public void rollOverCurrentMonth() {
+        rollOver(YearMonth.now()).subscribe();
+    }
+
+    // Picks up a rollover left behind by a crashed or redeployed instance once its lease has expired
+    @Scheduled(initialDelayString = "${accounts.rollover.lease:2m}", fixedDelayString = "${accounts.rollover.lease:2m}")
+    public void resumeInterruptedRollovers() {
+        accountRolloverCheckpointRepository.findByStatus(AccountRolloverCheckpoint.RolloverStatus.RUNNING)
+                .concatMap(checkpoint -> rollOver(YearMonth.parse(checkpoint.getPeriod())))
+                .subscribe();
+    }
+
+    // Empty when the period is already completed or being rolled over elsewhere
+    public Mono<AccountRolloverCheckpoint> rollOver(YearMonth period) {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                log.debug("Monthly rollover already running on this instance, skipping {}", period);
+                return Mono.empty();
+            }
+            return accountRolloverCheckpointRepository.claim(period.toString(), instanceId, lease)
+                    .flatMap(this::rollOverPages)
+                    .doOnError(e -> log.error("Monthly rollover of {} stopped, it will be resumed: {}", period, e.getMessage()))
+                    .onErrorResume(e -> Mono.empty())
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<AccountRolloverCheckpoint> rollOverPages(AccountRolloverCheckpoint claimed) {
+        log.info("Monthly rollover of {} started after account {} ({} accounts already rolled over)",
+                claimed.getPeriod(), claimed.getLastAccountId(), claimed.getProcessedAccounts());
+        long startedAt = System.nanoTime();
+        long alreadyProcessed = claimed.getProcessedAccounts();
+
+        return Mono.just(claimed)
+                .expand(checkpoint -> rollOverPage(checkpoint)
+                        .doOnNext(next -> accountsPerSecond.set(
+                                throughput(next.getProcessedAccounts() - alreadyProcessed, startedAt))))
+                .last()
+                .flatMap(last -> accountRolloverCheckpointRepository.complete(last.getPeriod(), instanceId))
+                .doOnNext(completed -> {
+                    long processed = completed.getProcessedAccounts() - alreadyProcessed;
+                    log.info("Monthly rollover of {} completed: {} accounts in {} ms ({} accounts/s), {} maintenance fees charged",
+                            completed.getPeriod(), processed, Duration.ofNanos(System.nanoTime() - startedAt).toMillis(),
+                            throughput(processed, startedAt), completed.getChargedMaintenanceFees());
+                });
+    }
+
+    // Empty once there are no accounts left after the checkpoint
+    Mono<AccountRolloverCheckpoint> rollOverPage(AccountRolloverCheckpoint checkpoint) {
+        return transactionalOperator.transactional(accountRepository.findRolloverPage(checkpoint.getLastAccountId(), pageSize)
+                        .collectList()
+                        .filter(page -> !page.isEmpty())
+                        .flatMap(page -> applyPage(checkpoint.getPeriod(), page)))
+                // A write conflict with a concurrent movement aborts the whole page, which is then read and applied again
+                .retryWhen(Retry.backoff(MAX_TRANSIENT_RETRIES, Duration.ofMillis(50)).filter(MongoTransactions::isTransientTransactionError))
+                .doOnNext(next -> {
+                    rolledOverCounter.increment(next.getProcessedAccounts() - checkpoint.getProcessedAccounts());
+                    chargedFeesCounter.increment(next.getChargedMaintenanceFees() - checkpoint.getChargedMaintenanceFees());
+                    log.debug("Rolled over {} accounts of {} up to account {}",
+                            next.getProcessedAccounts(), next.getPeriod(), next.getLastAccountId());
+                });
+    }
+
+    private Mono<AccountRolloverCheckpoint> applyPage(String period, List<Account> page) {
+        Map<String, BigDecimal> maintenanceFees = new HashMap<>();
+        Map<String, BigDecimal> closingBalances = new HashMap<>();
+        List<TransactionRequest> feeTransactions = new ArrayList<>();
+
+        page.forEach(account -> {
+            BigDecimal maintenanceFee = account instanceof CheckingAccount checkingAccount
+                    ? checkingAccount.getMaintenanceFee() : null;
+            if (maintenanceFee == null || maintenanceFee.signum() <= 0) {
+                return;
+            }
+            // The balance was read inside the transaction, so it is still the one the fee is charged from
+            if (account.getBalance().compareTo(maintenanceFee) < 0) {
+                skippedFeesCounter.increment();
+                log.warn("Account number {} can not cover its maintenance fee of {} for {}",
+                        account.getAccountNumber(), maintenanceFee, period);
+                return;
+            }
+            BigDecimal closingBalance = account.getBalance().subtract(maintenanceFee);
+            maintenanceFees.put(account.getId(), maintenanceFee);
+            closingBalances.put(account.getAccountNumber(), closingBalance);
+            feeTransactions.add(maintenanceFeeTransaction(account, maintenanceFee, period).withBalanceAfter(closingBalance));
+        });
+
+        String lastAccountId = page.get(page.size() - 1).getId();
+        return accountRepository.rollOverAccounts(page.stream().map(Account::getId).toList(), maintenanceFees)
+                .then(Mono.defer(() -> transactionOutbox.enqueueAll(feeTransactions).then()))
+                .then(Mono.defer(() -> accountDailyBalanceRepository.recordClosingBalances(LocalDate.now(), closingBalances)))
+                .then(Mono.defer(() -> accountRolloverCheckpointRepository.advance(period, instanceId, lastAccountId,
+                        page.size(), maintenanceFees.size(), lease)))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Lost the lease of the monthly rollover of " + period)));
+    }
+
+    // The whole movement is the fee, so it is reported as fee and not as amount
+    private TransactionRequest maintenanceFeeTransaction(Account account, BigDecimal maintenanceFee, String period) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setAccountNumber(account.getAccountNumber());
+        transactionRequest.setTransactionType(TransactionRequest.TransactionType.MAINTENANCE_FEE);
+        transactionRequest.setAmount(BigDecimal.ZERO);
+        transactionRequest.setFee(maintenanceFee);
+        transactionRequest.setDescription("Maintenance fee for " + YearMonth.parse(period).minusMonths(1));
+        return transactionRequest;
+    }
+
+    private long throughput(long processed, long startedAt) {
+        return processed * 1_000L / Math.max(1, Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+}
@@ -1,6 +1,8 @@
 package com.jorge.accounts.service.strategy;
 
 import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
+import com.jorge.accounts.service.cache.AccountProfile;
 import com.jorge.accounts.service.strategy.business.AccountMovementProcessStrategy;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -16,4 +18,13 @@ public class CheckingAccountMovementProcessingStrategy implements AccountMovemen
     public Account.AccountType getAccountType() {
         return Account.AccountType.CHECKING;
     }
+
+    @Override
+    public AccountMovement.AccountMovementBuilder applyMovementRules(AccountMovement.AccountMovementBuilder movement,
+                                                                     AccountProfile accountProfile) {
+        return movement
+                .commissionFee(accountProfile.getMovementCommissionFee())
+                .countMovement(true)
+                .maxMovementsFeeFreeThisMonth(accountProfile.getMaxMovementsFeeFreeThisMonth());
+    }
 }
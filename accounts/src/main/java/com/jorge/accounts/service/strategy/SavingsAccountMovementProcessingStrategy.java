@@ -1,7 +1,9 @@
 package com.jorge.accounts.service.strategy;
 
 import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
 import com.jorge.accounts.model.SavingsAccount;
+import com.jorge.accounts.service.cache.AccountProfile;
 import com.jorge.accounts.service.strategy.business.AccountMovementProcessStrategy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -24,4 +26,15 @@ public class SavingsAccountMovementProcessingStrategy implements AccountMovement
     public Account.AccountType getAccountType() {
         return Account.AccountType.SAVINGS;
     }
+
+    @Override
+    public AccountMovement.AccountMovementBuilder applyMovementRules(AccountMovement.AccountMovementBuilder movement,
+                                                                     AccountProfile accountProfile) {
+        return movement
+                .commissionFee(accountProfile.getMovementCommissionFee())
+                .countMovement(true)
+                .maxMovementsFeeFreeThisMonth(accountProfile.getMaxMovementsFeeFreeThisMonth())
+                // Same limit as processMovement
+                .monthlyMovementsLimit(accountProfile.getMonthlyMovementsLimit());
+    }
 }
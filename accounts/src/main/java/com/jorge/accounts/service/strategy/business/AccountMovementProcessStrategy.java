@@ -1,9 +1,15 @@
 package com.jorge.accounts.service.strategy.business;
 
 import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
+import com.jorge.accounts.service.cache.AccountProfile;
 import reactor.core.publisher.Mono;
 
 public interface AccountMovementProcessStrategy {
     Mono<Account> processMovement(Account account);
     Account.AccountType getAccountType();
+
+    // Limit and fee rules of the account type for the conditional update; must enforce what processMovement checks
+    AccountMovement.AccountMovementBuilder applyMovementRules(AccountMovement.AccountMovementBuilder movement,
+                                                              AccountProfile accountProfile);
 }
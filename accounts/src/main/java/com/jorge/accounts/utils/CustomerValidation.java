@@ -1,8 +1,11 @@
 package com.jorge.accounts.utils;
 
 import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.CustomerCreditStatus;
 import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.CustomerCreditStatusRepository;
 import com.jorge.accounts.webclient.client.CreditClient;
+import com.jorge.accounts.webclient.dto.response.CreditResponse;
 import com.jorge.accounts.webclient.dto.response.CustomerResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,23 +15,29 @@ import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class CustomerValidation {
     private final AccountRepository accountRepository;
+    private final CustomerCreditStatusRepository customerCreditStatusRepository;
     private final CreditClient creditClient;
 
     public Mono<Account> personalCustomerValidation(CustomerResponse customer, Account.AccountType accountType) {
         log.info("Validating personal customer account creation for Id: {}, Account Type: {}", customer.getId(), accountType);
-        return accountRepository.findByCustomerIdAndAccountType(customer.getId(), accountType)
-                .flatMap(account -> {
+        // An existence check: Mongo returns at most one _id instead of the whole account
+        return accountRepository.existsByCustomerIdAndAccountType(customer.getId(), accountType)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.empty();
+                    }
                     log.warn("Conflict: Customer with Id: {} already has a {} account", customer.getId(), accountType);
                     return Mono.<Account>error(new ResponseStatusException(HttpStatus.CONFLICT,
                             "Customer with dni: " + customer.getId() + " already has a " + accountType.name() + " account"));
-                })
-                .switchIfEmpty(Mono.empty());
+                });
     }
 
     public Mono<Void> businessCustomerValidation(Account.AccountType accountType) {
@@ -43,8 +52,8 @@ public class CustomerValidation {
 
     public Mono<CustomerResponse> validateCreditCardExists(CustomerResponse customerResponse){
         log.info("Validating if customer with Id: {} has credit cards", customerResponse.getId());
-        return creditClient.getCreditCardsByCardHolderId(customerResponse.getId())
-                .hasElements()
+        return creditStatusOf(customerResponse.getId())
+                .map(status -> Boolean.TRUE.equals(status.getHasCreditCard()))
                 .flatMap(hasCards -> {
                     if (hasCards) {
                         log.info("Customer with Id: {} has credit cards", customerResponse.getId());
@@ -59,8 +68,8 @@ public class CustomerValidation {
 
     public Mono<CustomerResponse> validateIfCustomerHasOverDueDebt(CustomerResponse customerResponse) {
         log.info("Validating if customer with Id: {} has overdue debts", customerResponse.getId());
-        return creditClient.getCreditsByCreditHolderId(customerResponse.getId())
-                .any(credit -> credit.getDueDate().isBefore(LocalDate.now()))
+        return creditStatusOf(customerResponse.getId())
+                .map(status -> status.hasOverdueDebt(LocalDate.now()))
                 .flatMap(hasOverdueDebt -> {
                     if (hasOverdueDebt) {
                         log.warn("Customer with Id: {} has overdue debt", customerResponse.getId());
@@ -73,4 +82,33 @@ public class CustomerValidation {
                 });
     }
 
+    // Read from the local copy fed by the credits service. A customer without an entry may have credits the copy has not
+    // received yet (created before the topic existed, or still in flight), so the credits service is asked and its
+    // answer stored. It is stamped with the time the reads started: a status the credits service computes afterwards
+    // still replaces it
+    private Mono<CustomerCreditStatus> creditStatusOf(String customerId) {
+        return customerCreditStatusRepository.findById(customerId)
+                .switchIfEmpty(Mono.defer(() -> {
+                    LocalDateTime readAt = LocalDateTime.now();
+                    log.info("No local credit status for customer {}, reading it from the credits service", customerId);
+                    return Mono.zip(creditClient.getCreditCardsByCardHolderId(customerId).hasElements(),
+                                    creditClient.getCreditsByCreditHolderId(customerId)
+                                            .mapNotNull(CreditResponse::getDueDate)
+                                            .reduce((first, second) -> first.isBefore(second) ? first : second)
+                                            .map(Optional::of)
+                                            .defaultIfEmpty(Optional.empty()))
+                            .map(tuple -> CustomerCreditStatus.builder()
+                                    .customerId(customerId)
+                                    .hasCreditCard(tuple.getT1())
+                                    .earliestDueDate(tuple.getT2().orElse(null))
+                                    .computedAt(readAt)
+                                    .build())
+                            .flatMap(status -> customerCreditStatusRepository.saveIfNewer(status)
+                                    .onErrorResume(e -> {
+                                        log.warn("Could not store the credit status of customer {}: {}", customerId, e.getMessage());
+                                        return Mono.just(false);
+                                    })
+                                    .thenReturn(status));
+                }));
+    }
 }
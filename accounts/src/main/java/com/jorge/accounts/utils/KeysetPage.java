@@ -0,0 +1,71 @@
+package com.jorge.accounts.utils;
+
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a listing ordered by _id. The next page token is the opaque form of the last _id of this page: ObjectIds
+// grow with their creation time, so pages follow creation order and the next one seeks past it on the _id index
+public record KeysetPage<T>(List<T> items, String nextPageToken) {
+    public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Page size and last _id of the previous page asked by a client; invalid values are a bad request
+    public record Request(int size, String lastId) {
+        public static Request of(Integer limit, String pageToken) {
+            return new Request(pageSize(limit), decodeToken(pageToken));
+        }
+    }
+
+    // Documents are fetched one past the page size to know whether there is a next page
+    public static <D, T> KeysetPage<T> of(List<D> documents, int pageSize, Function<D, String> idOf, Function<D, T> mapper) {
+        boolean hasNext = documents.size() > pageSize;
+        List<D> pageDocuments = hasNext ? documents.subList(0, pageSize) : documents;
+        String nextPageToken = hasNext ? encodeToken(idOf.apply(pageDocuments.get(pageSize - 1))) : null;
+        return new KeysetPage<>(pageDocuments.stream().map(mapper).toList(), nextPageToken);
+    }
+
+    public static int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    public static String encodeToken(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null for the first page
+    public static String decodeToken(String pageToken) {
+        if (pageToken == null) {
+            return null;
+        }
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (ObjectId.isValid(id)) {
+                return id;
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below as an invalid token
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token");
+    }
+
+    // Sets the next page token header before the items are written
+    public Flux<T> toResponse(ServerWebExchange exchange) {
+        if (nextPageToken != null) {
+            exchange.getResponse().getHeaders().set(NEXT_PAGE_TOKEN_HEADER, nextPageToken);
+        }
+        return Flux.fromIterable(items);
+    }
+}
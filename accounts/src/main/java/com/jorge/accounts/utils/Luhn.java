@@ -0,0 +1,36 @@
+package com.jorge.accounts.utils;
+
+// Luhn (mod 10) check digit, as used by card and account numbers to catch mistyped digits
+public final class Luhn {
+    private Luhn() {
+    }
+
+    public static int checkDigit(CharSequence digits) {
+        int sum = 0;
+        // Starting from the right, every other digit of the payload is doubled
+        boolean doubled = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = Character.digit(digits.charAt(i), 10);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a number: " + digits);
+            }
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(String number) {
+        if (number == null || number.length() < 2 || !number.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        int lastDigit = Character.digit(number.charAt(number.length() - 1), 10);
+        return checkDigit(number.substring(0, number.length() - 1)) == lastDigit;
+    }
+}
@@ -0,0 +1,20 @@
+package com.jorge.accounts.utils;
+
+import com.mongodb.MongoException;
+
+public final class MongoTransactions {
+    private MongoTransactions() {
+    }
+
+    // Write conflicts and other errors labelled TransientTransactionError abort the whole Mongo transaction, which
+    // is then safe to run again from the start
+    public static boolean isTransientTransactionError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
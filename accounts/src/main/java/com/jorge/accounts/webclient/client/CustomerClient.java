@@ -1,8 +1,8 @@
 package com.jorge.accounts.webclient.client;
 
 import com.jorge.accounts.webclient.dto.response.CustomerResponse;
+import com.jorge.webclient.DownstreamGuard;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -12,22 +12,22 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class CustomerClient {
     private final WebClient webClient;
-    private final ReactiveCircuitBreakerFactory circuitBreakerFactory;
+    private final DownstreamGuard downstreamGuard;
 
-    public CustomerClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory, String baseUrl) {
-        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
-        this.circuitBreakerFactory = circuitBreakerFactory;
+    public CustomerClient(WebClient webClient, DownstreamGuard downstreamGuard) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
     }
 
     public Mono<CustomerResponse> getCustomerById(String id) {
         Mono<CustomerResponse> customerResponseMono = webClient.get()
-                .uri("/" + id)
+                .uri("/{id}", id)
                 .retrieve()
                 .bodyToMono(CustomerResponse.class)
                 .onErrorResume(WebClientResponseException.NotFound.class, ex ->
                         Mono.empty());
 
-        return circuitBreakerFactory.create("customerClient").run(customerResponseMono,
+        return downstreamGuard.run(customerResponseMono,
                 throwable ->{
                     log.error(throwable.getMessage());
                         return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
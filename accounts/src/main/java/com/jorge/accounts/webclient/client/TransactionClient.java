@@ -1,9 +1,11 @@
 package com.jorge.accounts.webclient.client;
 
 import com.jorge.accounts.model.FeeReportResponse;
+import com.jorge.accounts.model.FeeSummaryResponse;
 import com.jorge.accounts.model.TransactionResponse;
 import com.jorge.accounts.webclient.dto.request.TransactionRequest;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import com.jorge.accounts.webclient.dto.response.AccountBalanceResponse;
+import com.jorge.webclient.DownstreamGuard;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
@@ -11,19 +13,30 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class TransactionClient {
     private final WebClient webClient;
-    private final ReactiveCircuitBreakerFactory circuitBreakerFactory;
+    private final DownstreamGuard downstreamGuard;
 
-    public TransactionClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory, String baseUrl) {
-        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
-        this.circuitBreakerFactory = circuitBreakerFactory;
+    public TransactionClient(WebClient webClient, DownstreamGuard downstreamGuard) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
     }
 
     public Flux<TransactionResponse> getTransactionsByAccountNumber(String accountNumber) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                        .uri("/account-number/" + accountNumber)
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}", accountNumber)
+                        .retrieve()
+                        .bodyToFlux(TransactionResponse.class),
+                throwable -> Flux.error(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
+    }
+
+    // Newest first, sorted and limited by the transaction service
+    public Flux<TransactionResponse> getLatestTransactionsByAccountNumber(String accountNumber, int limit) {
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}/latest?limit={limit}", accountNumber, limit)
                         .retrieve()
                         .bodyToFlux(TransactionResponse.class),
                 throwable -> Flux.error(
@@ -31,7 +44,7 @@ public class TransactionClient {
     }
 
     public Mono<TransactionResponse> createTransaction(TransactionRequest transactionRequest) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.post()
+        return downstreamGuard.run(webClient.post()
                         .bodyValue(transactionRequest)
                         .retrieve()
                         .bodyToMono(TransactionResponse.class),
@@ -39,15 +52,22 @@ public class TransactionClient {
                         new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
 
+    public Flux<TransactionResponse> createTransactions(List<TransactionRequest> transactionRequests) {
+        return downstreamGuard.run(webClient.post()
+                        .uri("/batch")
+                        .bodyValue(transactionRequests)
+                        .retrieve()
+                        .bodyToFlux(TransactionResponse.class),
+                throwable -> Flux.error(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
+    }
+
     public Flux<TransactionResponse> getTransactionsByAccountNumberAndDateRange(String accountNumber,
                                                                                 LocalDateTime startOfMonth,
                                                                                 LocalDateTime endOfMonth) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                        .uri(uriBuilder -> uriBuilder
-                                .path("/account-number/" + accountNumber + "/by-date-range")
-                                .queryParam("firstDayOfMonth", startOfMonth)
-                                .queryParam("lastDayOfMonth", endOfMonth)
-                                .build())
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}/by-date-range?firstDayOfMonth={startOfMonth}&lastDayOfMonth={endOfMonth}",
+                                accountNumber, startOfMonth, endOfMonth)
                         .retrieve()
                         .bodyToFlux(TransactionResponse.class),
                 throwable -> Flux.error(
@@ -57,15 +77,36 @@ public class TransactionClient {
     public Flux<FeeReportResponse> getTransactionsFeesByAccountNumberAndDateRange(String accountNumber,
                                                                                   LocalDateTime startDate,
                                                                                   LocalDateTime endDate) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                        .uri(uriBuilder -> uriBuilder
-                                .path("/account-number/" + accountNumber + "/fees-by-date-range")
-                                .queryParam("startDate", startDate)
-                                .queryParam("endDate", endDate)
-                                .build())
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}/fees-by-date-range?startDate={startDate}&endDate={endDate}",
+                                accountNumber, startDate, endDate)
                         .retrieve()
                         .bodyToFlux(FeeReportResponse.class),
                 throwable -> Flux.error(
                         new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
+
+    // Balance left by the last transaction before the given time, looked up by the transaction service
+    public Mono<AccountBalanceResponse> getAccountBalanceAt(String accountNumber, LocalDateTime at) {
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}/balance?at={at}", accountNumber, at)
+                        .retrieve()
+                        .bodyToMono(AccountBalanceResponse.class),
+                throwable -> Mono.error(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
+    }
+
+    // Totals per fee type and day or month, grouped by the transaction service
+    public Flux<FeeSummaryResponse> getFeeSummaryByAccountNumberAndDateRange(String accountNumber,
+                                                                             LocalDateTime startDate,
+                                                                             LocalDateTime endDate,
+                                                                             String groupBy) {
+        return downstreamGuard.run(webClient.get()
+                        .uri("/account-number/{accountNumber}/fees-summary-by-date-range?startDate={startDate}&endDate={endDate}&groupBy={groupBy}",
+                                accountNumber, startDate, endDate, groupBy)
+                        .retrieve()
+                        .bodyToFlux(FeeSummaryResponse.class),
+                throwable -> Flux.error(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
+    }
 }
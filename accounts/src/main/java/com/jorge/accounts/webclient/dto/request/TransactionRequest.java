@@ -5,11 +5,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class TransactionRequest {
+    // Producer id the transaction service stores the transaction under; a redelivery with the same id is skipped
+    private String id;
     private String accountNumber;
     private BigDecimal fee;
     private TransactionType transactionType;
@@ -17,6 +20,22 @@ public class TransactionRequest {
     private String description;
 
     private String relatedCreditId;
+    // Time the movement was committed; the transaction service stores it instead of the time the record arrives
+    private LocalDateTime createdAt;
+
+    // Balance of the account around the movement, read from the account the movement updated
+    private BigDecimal balanceBefore;
+    private BigDecimal balanceAfter;
+
+    // Stamps the balance the movement left and derives the one it found, undoing amount and fee as they were applied
+    public TransactionRequest withBalanceAfter(BigDecimal balanceAfter) {
+        BigDecimal movementFee = fee == null ? BigDecimal.ZERO : fee;
+        this.balanceAfter = balanceAfter;
+        this.balanceBefore = transactionType.isDebit()
+                ? balanceAfter.add(amount.add(movementFee))
+                : balanceAfter.subtract(amount.subtract(movementFee));
+        return this;
+    }
 
     public enum TransactionType {
         DEBIT,
@@ -26,6 +45,14 @@ public class TransactionRequest {
         CREDIT_PAYMENT,
         CREDIT_DEPOSIT,
         CREDIT_CARD_PAYMENT,
-        MAINTENANCE_FEE
+        MAINTENANCE_FEE;
+
+        // Same split as the transaction service: debits take amount and fee out of the account
+        public boolean isDebit() {
+            return switch (this) {
+                case DEBIT, WITHDRAWAL, MAINTENANCE_FEE, CREDIT_PAYMENT, CREDIT_CARD_PAYMENT -> true;
+                case CREDIT, DEPOSIT, CREDIT_DEPOSIT -> false;
+            };
+        }
     }
 }
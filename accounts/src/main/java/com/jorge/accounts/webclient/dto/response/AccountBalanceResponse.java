@@ -0,0 +1,18 @@
+package com.jorge.accounts.webclient.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Balance of an account at a point in time, as recorded by the transaction service
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceResponse {
+    private String accountNumber;
+    private LocalDateTime at;
+    private BigDecimal balance;
+}
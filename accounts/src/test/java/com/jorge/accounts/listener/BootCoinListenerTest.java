@@ -0,0 +1,102 @@
+package com.jorge.accounts.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jorge.accounts.listener.dto.BootCoinExchangeKafkaMessage;
+import com.jorge.accounts.model.TransactionResponse;
+import com.jorge.accounts.model.TransferRequest;
+import com.jorge.accounts.repository.DebitCardRepository;
+import com.jorge.accounts.service.AccountService;
+import com.jorge.idempotency.IdempotencyProperties;
+import com.jorge.idempotency.IdempotencyRecord;
+import com.jorge.idempotency.IdempotencyStore;
+import com.jorge.idempotency.IdempotentExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BootCoinListenerTest {
+    @Mock
+    private DebitCardRepository debitCardRepository;
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BootCoinListener bootCoinListener;
+
+    @BeforeEach
+    void setUp() {
+        // Keeps the idempotency keys in memory the way the Mongo store does
+        Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+        lenient().when(idempotencyStore.acquire(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            IdempotencyRecord stored = records.putIfAbsent(id, IdempotencyRecord.builder()
+                    .id(id)
+                    .fingerprint(invocation.getArgument(1))
+                    .status(IdempotencyRecord.Status.IN_PROGRESS)
+                    .leaseUntil(invocation.getArgument(2))
+                    .build());
+            return Mono.justOrEmpty(stored);
+        });
+        lenient().when(idempotencyStore.complete(anyString(), anyString(), any())).thenAnswer(invocation -> Mono.fromRunnable(() -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponse(invocation.getArgument(1));
+            record.setLeaseUntil(null);
+        }));
+        IdempotentExecutor idempotentExecutor = new IdempotentExecutor(idempotencyStore, objectMapper,
+                new IdempotencyProperties(), new SimpleMeterRegistry(), Clock.systemUTC());
+        bootCoinListener = new BootCoinListener(objectMapper, kafkaTemplate, accountService, debitCardRepository,
+                idempotentExecutor);
+
+        lenient().when(kafkaTemplate.send(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void whenExchangePetitionArrivesInTwoRecords_ThenTransferRunsOnce() throws Exception {
+        TransactionResponse transactionResponse = new TransactionResponse();
+        transactionResponse.setId("tx-1");
+        when(accountService.transfer(eq("ACC-1"), any(TransferRequest.class))).thenReturn(Mono.just(transactionResponse));
+        String message = objectMapper.writeValueAsString(BootCoinExchangeKafkaMessage.builder()
+                .petitionId("petition-1")
+                .paymentAmount(BigDecimal.TEN)
+                .paymentType(BootCoinExchangeKafkaMessage.PaymentType.BANK_ACCOUNT)
+                .paymentMethodId("ACC-1")
+                .sellerPaymentType(BootCoinExchangeKafkaMessage.PaymentType.BANK_ACCOUNT)
+                .sellerPaymentMethodId("ACC-2")
+                .build());
+
+        // The petition is the key, so a copy published again at another offset is not paid twice either
+        StepVerifier.create(bootCoinListener.listenBootCoinExchangeRequest(message, "bootcoin-exchange-request-0@3"))
+                .verifyComplete();
+        StepVerifier.create(bootCoinListener.listenBootCoinExchangeRequest(message, "bootcoin-exchange-request-0@9"))
+                .verifyComplete();
+
+        verify(accountService, times(1)).transfer(eq("ACC-1"), any(TransferRequest.class));
+        verify(kafkaTemplate, times(2)).send(eq("bootcoin-exchange-success"), anyString());
+    }
+}
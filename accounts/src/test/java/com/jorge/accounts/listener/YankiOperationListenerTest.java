@@ -0,0 +1,104 @@
+package com.jorge.accounts.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jorge.accounts.listener.dto.YankiPaymentKafkaMessage;
+import com.jorge.accounts.model.DebitCard;
+import com.jorge.accounts.model.TransactionResponse;
+import com.jorge.accounts.model.TransferRequest;
+import com.jorge.accounts.repository.DebitCardRepository;
+import com.jorge.accounts.service.AccountService;
+import com.jorge.idempotency.IdempotencyProperties;
+import com.jorge.idempotency.IdempotencyRecord;
+import com.jorge.idempotency.IdempotencyStore;
+import com.jorge.idempotency.IdempotentExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class YankiOperationListenerTest {
+    @Mock
+    private DebitCardRepository debitCardRepository;
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private YankiOperationListener yankiOperationListener;
+
+    @BeforeEach
+    void setUp() {
+        // Keeps the idempotency keys in memory the way the Mongo store does
+        Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+        lenient().when(idempotencyStore.acquire(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            IdempotencyRecord stored = records.putIfAbsent(id, IdempotencyRecord.builder()
+                    .id(id)
+                    .fingerprint(invocation.getArgument(1))
+                    .status(IdempotencyRecord.Status.IN_PROGRESS)
+                    .leaseUntil(invocation.getArgument(2))
+                    .build());
+            return Mono.justOrEmpty(stored);
+        });
+        lenient().when(idempotencyStore.complete(anyString(), anyString(), any())).thenAnswer(invocation -> Mono.fromRunnable(() -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponse(invocation.getArgument(1));
+            record.setLeaseUntil(null);
+        }));
+        IdempotentExecutor idempotentExecutor = new IdempotentExecutor(idempotencyStore, objectMapper,
+                new IdempotencyProperties(), new SimpleMeterRegistry(), Clock.systemUTC());
+        yankiOperationListener = new YankiOperationListener(objectMapper, debitCardRepository, accountService,
+                kafkaTemplate, idempotentExecutor);
+
+        lenient().when(kafkaTemplate.send(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void whenPaymentRecordIsDeliveredTwice_ThenTransferRunsOnce() throws Exception {
+        DebitCard sender = DebitCard.builder().mainLinkedAccountNumber("ACC-1").build();
+        DebitCard receiver = DebitCard.builder().mainLinkedAccountNumber("ACC-2").build();
+        when(debitCardRepository.findByDebitCardNumber("CARD-1")).thenReturn(Mono.just(sender));
+        when(debitCardRepository.findByDebitCardNumber("CARD-2")).thenReturn(Mono.just(receiver));
+        TransactionResponse transactionResponse = new TransactionResponse();
+        transactionResponse.setId("tx-1");
+        when(accountService.transfer(eq("ACC-1"), any(TransferRequest.class))).thenReturn(Mono.just(transactionResponse));
+        String message = objectMapper.writeValueAsString(YankiPaymentKafkaMessage.builder()
+                .senderDebitCardNumber("CARD-1")
+                .receiverDebitCardNumber("CARD-2")
+                .amount(BigDecimal.TEN)
+                .build());
+
+        // Redelivered after a rebalance before its offset was committed
+        StepVerifier.create(yankiOperationListener.listenYankiPayment(message, "yanki-payment-request-0@7"))
+                .verifyComplete();
+        StepVerifier.create(yankiOperationListener.listenYankiPayment(message, "yanki-payment-request-0@7"))
+                .verifyComplete();
+
+        verify(accountService, times(1)).transfer(eq("ACC-1"), any(TransferRequest.class));
+        verify(kafkaTemplate, times(2)).send(eq("yanki-wallet-payment-success"), anyString());
+    }
+}
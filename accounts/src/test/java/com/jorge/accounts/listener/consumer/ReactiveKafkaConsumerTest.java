@@ -0,0 +1,167 @@
+package com.jorge.accounts.listener.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveKafkaConsumerTest {
+    private static final String TOPIC = "yanki-payment-request";
+    private static final int CONCURRENCY = 4;
+
+    private MeterRegistry meterRegistry;
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void whenHandlerIsStillRunning_ThenOffsetIsNotAcknowledged() {
+        Sinks.Empty<Void> handled = Sinks.empty();
+        ReactiveKafkaConsumer consumer = consumer(message -> handled.asMono());
+        ReceiverRecord<String, String> record = record(0, 0, "card-1");
+
+        StepVerifier.create(consumer.consume(Flux.just(record)))
+                .then(() -> {
+                    verify(record.receiverOffset(), never()).acknowledge();
+                    assertEquals(1.0, meterRegistry.get("accounts.kafka.consumer.in.flight").gauge().value());
+                    handled.tryEmitEmpty();
+                })
+                .expectNext(record)
+                .verifyComplete();
+
+        verify(record.receiverOffset()).acknowledge();
+        assertEquals(0.0, meterRegistry.get("accounts.kafka.consumer.in.flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("accounts.kafka.consumer.processed").counter().count());
+    }
+
+    @Test
+    void whenHandlerFails_ThenRecordIsMovedToDeadLetterTopicAndLaneKeepsGoing() {
+        ReactiveKafkaConsumer consumer = consumer(message -> message.equals("poison")
+                ? Mono.error(new IllegalStateException("Mongo unavailable"))
+                : Mono.empty());
+        ReceiverRecord<String, String> poison = new ReceiverRecord<>(
+                new ConsumerRecord<>(TOPIC, 0, 0, "card-1", "poison"), mock(ReceiverOffset.class));
+        ReceiverRecord<String, String> next = record(0, 1, "card-1");
+
+        StepVerifier.create(consumer.consume(Flux.just(poison, next)))
+                .expectNext(poison, next)
+                .verifyComplete();
+
+        verify(poison.receiverOffset()).acknowledge();
+        verify(next.receiverOffset()).acknowledge();
+        verify(kafkaTemplate).send(argThat((ProducerRecord<String, String> deadLetter) ->
+                deadLetter.topic().equals(TOPIC + "-dlt") && deadLetter.value().equals("poison")
+                        && deadLetter.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) != null));
+        assertEquals(1.0, meterRegistry.get("accounts.kafka.consumer.failed").counter().count());
+        assertEquals(2.0, meterRegistry.get("accounts.kafka.consumer.processed").counter().count());
+    }
+
+    @Test
+    void whenHandlerAndDeadLetterPublishFail_ThenRecordIsNotAcknowledged() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker unavailable")));
+        ReactiveKafkaConsumer consumer = consumer(message -> Mono.error(new IllegalStateException("Mongo unavailable")));
+        ReceiverRecord<String, String> record = record(0, 0, "card-1");
+
+        // The error restarts the receiver, which hands the record out again
+        StepVerifier.create(consumer.consume(Flux.just(record)))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(record.receiverOffset(), never()).acknowledge();
+    }
+
+    @Test
+    void whenRecordIsHandled_ThenHandlerGetsItsRecordId() {
+        List<String> recordIds = new ArrayList<>();
+        ReactiveKafkaConsumer consumer = new ReactiveKafkaConsumer(TOPIC, ReceiverOptions.create(),
+                (message, recordId) -> Mono.fromRunnable(() -> recordIds.add(recordId)),
+                CONCURRENCY, kafkaTemplate, TOPIC + "-dlt", meterRegistry);
+
+        StepVerifier.create(consumer.consume(Flux.just(record(1, 42, "card-1"))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(List.of(TOPIC + "-1@42"), recordIds);
+    }
+
+    @Test
+    void whenBurstOfRecords_ThenConcurrencyIsBoundedAndEachKeyKeepsPartitionOrder() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Map<String, List<Long>> handledOffsets = new ConcurrentHashMap<>();
+        ReactiveKafkaConsumer consumer = consumer(message -> Mono.defer(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    String[] keyAndOffset = message.split("@");
+                    handledOffsets.computeIfAbsent(keyAndOffset[0], key -> new ArrayList<>())
+                            .add(Long.parseLong(keyAndOffset[1]));
+                    return Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(3)), Schedulers.parallel());
+                })
+                // Before completion is signalled, so the lane's next record can not overlap it
+                .doOnTerminate(running::decrementAndGet)
+                .then());
+
+        List<ReceiverRecord<String, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < 500; offset++) {
+            int partition = offset % 2;
+            records.add(record(partition, offset, "card-" + partition + "-" + offset % 10));
+        }
+
+        StepVerifier.create(consumer.consume(Flux.fromIterable(records)))
+                .expectNextCount(records.size())
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+
+        assertTrue(maxRunning.get() <= CONCURRENCY, "At most " + CONCURRENCY + " handlers run at once");
+        handledOffsets.values().forEach(offsets ->
+                assertEquals(offsets.stream().sorted().toList(), offsets));
+        records.forEach(record -> verify(record.receiverOffset()).acknowledge());
+    }
+
+    private ReactiveKafkaConsumer consumer(Function<String, Mono<Void>> handler) {
+        return new ReactiveKafkaConsumer(TOPIC, ReceiverOptions.create(), (message, recordId) -> handler.apply(message),
+                CONCURRENCY, kafkaTemplate, TOPIC + "-dlt", meterRegistry);
+    }
+
+    // The value carries key and offset so the handler can check ordering
+    private ReceiverRecord<String, String> record(int partition, long offset, String key) {
+        return new ReceiverRecord<>(new ConsumerRecord<>(TOPIC, partition, offset, key, key + "@" + offset),
+                mock(ReceiverOffset.class));
+    }
+}
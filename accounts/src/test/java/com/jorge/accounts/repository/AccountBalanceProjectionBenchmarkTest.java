@@ -0,0 +1,124 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountBalance;
+import com.jorge.accounts.model.CheckingAccount;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Allocation of decoding one balance read: the BSON the driver receives is decoded and mapped by the converter, as
+// findByAccountNumber does for the whole account and findBalanceByAccountNumber does for the projected fields
+@Slf4j
+public class AccountBalanceProjectionBenchmarkTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        // Wired like the auto-configured converter
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void whenReadingBalanceProjection_ThenDecodeAllocatesLessThanFullAccount() {
+        RawBsonDocument fullAccount = new RawBsonDocument(checkingAccountDocument(), documentCodec);
+        RawBsonDocument projectedAccount = new RawBsonDocument(new Document("accountNumber", "1000000000001")
+                .append("accountType", "CHECKING")
+                .append("balance", new Decimal128(new BigDecimal("1520.75"))), documentCodec);
+
+        Supplier<Object> readAccount = () -> converter.read(Account.class, decode(fullAccount));
+        Supplier<Object> readBalance = () -> converter.read(AccountBalance.class, decode(projectedAccount));
+        assertInstanceOf(CheckingAccount.class, readAccount.get());
+        AccountBalance accountBalance = (AccountBalance) readBalance.get();
+        assertEquals(new BigDecimal("1520.75"), accountBalance.getBalance());
+        assertEquals(Account.AccountType.CHECKING, accountBalance.getAccountType());
+
+        long accountBytes = allocatedBytesPerRead(readAccount);
+        long balanceBytes = allocatedBytesPerRead(readBalance);
+
+        log.info("Balance read decode: full account {} bytes on the wire, {} bytes allocated per read; "
+                        + "projection {} bytes on the wire, {} bytes allocated per read ({}% less)",
+                fullAccount.getByteBuffer().remaining(), accountBytes,
+                projectedAccount.getByteBuffer().remaining(), balanceBytes,
+                100 - balanceBytes * 100 / accountBytes);
+        assertTrue(balanceBytes * 2 < accountBytes, "The projection should allocate less than half of the full account");
+    }
+
+    private Document decode(RawBsonDocument bson) {
+        ByteBuffer byteBuffer = bson.getByteBuffer().asNIO();
+        try (BsonBinaryReader reader = new BsonBinaryReader(byteBuffer)) {
+            return documentCodec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    // Allocated bytes of the current thread, so other threads of the test JVM are not counted
+    private long allocatedBytesPerRead(Supplier<Object> read) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = read.get();
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = read.get();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(sink != null);
+        return allocated / ITERATIONS;
+    }
+
+    // A checking account of a business customer as stored: holders, signers and fee settings included
+    private Document checkingAccountDocument() {
+        return new Document("_id", new ObjectId())
+                .append("_class", CheckingAccount.class.getName())
+                .append("accountNumber", "1000000000001")
+                .append("balance", new Decimal128(new BigDecimal("1520.75")))
+                .append("customerId", new ObjectId().toHexString())
+                .append("accountType", "CHECKING")
+                .append("createdAt", new Date())
+                .append("movementsThisMonth", 12)
+                .append("maxMovementsFeeFreeThisMonth", 20)
+                .append("isCommissionFeeActive", false)
+                .append("movementCommissionFee", "1.50")
+                .append("maintenanceFee", "10.00")
+                .append("holders", idList(3))
+                .append("authorizedSigners", idList(4));
+    }
+
+    private List<String> idList(int size) {
+        return IntStream.range(0, size).mapToObj(i -> new ObjectId().toHexString()).toList();
+    }
+}
@@ -0,0 +1,173 @@
+package com.jorge.accounts.repository;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
+import com.jorge.accounts.model.SavingsAccount;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs against a real MongoDB (docker-compose-dependencies.yml): mvn test -Pintegration [-Dmongodb.uri=...]
+@Tag("integration")
+@Slf4j
+class AccountRepositoryCustomImplConcurrencyTest {
+    private static final String MONGODB_URI = System.getProperty("mongodb.uri", "mongodb://localhost:27017");
+    private static final int OPERATIONS = 2_000;
+    private static final int CONCURRENCY = 64;
+
+    private static MongoClient mongoClient;
+    private static ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private AccountRepositoryCustomImpl accountRepositoryCustom;
+    private String accountNumber;
+
+    @BeforeAll
+    static void connect() {
+        mongoClient = MongoClients.create(MONGODB_URI);
+        reactiveMongoTemplate = new ReactiveMongoTemplate(mongoClient, "accounts-concurrency-test");
+    }
+
+    @AfterAll
+    static void disconnect() {
+        reactiveMongoTemplate.getMongoDatabase().flatMap(database -> Mono.from(database.drop())).block();
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        accountRepositoryCustom = new AccountRepositoryCustomImpl(reactiveMongoTemplate, 500);
+        accountNumber = "12345678901234";
+        reactiveMongoTemplate.dropCollection(Account.class).block();
+    }
+
+    @Test
+    void whenConcurrentIncreases_ThenNoUpdateIsLost() {
+        seedAccount(BigDecimal.ZERO);
+
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountRepositoryCustom.increaseBalance(accountNumber, BigDecimal.ONE), CONCURRENCY)
+                .then()
+                .block();
+
+        assertEquals(0, BigDecimal.valueOf(OPERATIONS).compareTo(currentBalance()));
+    }
+
+    @Test
+    void whenConcurrentDecreasesExceedBalance_ThenBalanceNeverGoesNegative() {
+        int initialBalance = OPERATIONS / 2;
+        seedAccount(BigDecimal.valueOf(initialBalance));
+
+        Long successfulDecreases = Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountRepositoryCustom.decreaseBalance(accountNumber, BigDecimal.ONE), CONCURRENCY)
+                .count()
+                .block();
+
+        assertEquals(initialBalance, successfulDecreases);
+        assertEquals(0, BigDecimal.ZERO.compareTo(currentBalance()));
+    }
+
+    @Test
+    void whenConcurrentCountedWithdrawals_ThenLimitAndFeeAreAppliedServerSide() {
+        // The seeded account allows 10 fee-free movements and 20 in total; the fee of 1 starts with the 10th movement
+        seedAccount(BigDecimal.valueOf(1_000));
+        AccountMovement withdrawal = AccountMovement.builder()
+                .accountNumber(accountNumber)
+                .direction(AccountMovement.Direction.DEBIT)
+                .amount(BigDecimal.TEN)
+                .commissionFee(BigDecimal.ONE)
+                .countMovement(true)
+                .maxMovementsFeeFreeThisMonth(10)
+                .monthlyMovementsLimit(20)
+                .build();
+
+        Long appliedWithdrawals = Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountRepositoryCustom.applyMovement(withdrawal), CONCURRENCY)
+                .count()
+                .block();
+
+        assertEquals(20, appliedWithdrawals);
+        // 9 fee-free withdrawals of 10 and 11 charged ones of 11
+        assertEquals(0, BigDecimal.valueOf(1_000 - 9 * 10 - 11 * 11).compareTo(currentBalance()));
+    }
+
+    @Test
+    void whenComparingAtomicAndReadModifyWrite_ThenAtomicPathLosesNoUpdates() {
+        seedAccount(BigDecimal.ZERO);
+        Duration readModifyWrite = timed(i -> readModifyWriteIncrease());
+        BigDecimal readModifyWriteBalance = currentBalance();
+
+        reactiveMongoTemplate.dropCollection(Account.class).block();
+        seedAccount(BigDecimal.ZERO);
+        Duration atomic = timed(i -> accountRepositoryCustom.increaseBalance(accountNumber, BigDecimal.ONE));
+        BigDecimal atomicBalance = currentBalance();
+
+        log.info("Read-modify-write: {} ops in {} ms ({} ops/s), lost updates: {}",
+                OPERATIONS, readModifyWrite.toMillis(), opsPerSecond(readModifyWrite),
+                OPERATIONS - readModifyWriteBalance.intValue());
+        log.info("Atomic $inc: {} ops in {} ms ({} ops/s), lost updates: {}",
+                OPERATIONS, atomic.toMillis(), opsPerSecond(atomic),
+                OPERATIONS - atomicBalance.intValue());
+
+        assertEquals(0, BigDecimal.valueOf(OPERATIONS).compareTo(atomicBalance));
+    }
+
+    // The mutation path used before the atomic update: load the whole document, change it in Java and save it back
+    private Mono<Account> readModifyWriteIncrease() {
+        return reactiveMongoTemplate.findOne(Query.query(Criteria.where("accountNumber").is(accountNumber)), Account.class)
+                .flatMap(account -> {
+                    account.setBalance(account.getBalance().add(BigDecimal.ONE));
+                    return reactiveMongoTemplate.save(account);
+                });
+    }
+
+    private Duration timed(Function<Integer, Mono<Account>> operation) {
+        long start = System.nanoTime();
+        Flux.range(0, OPERATIONS)
+                .flatMap(operation, CONCURRENCY)
+                .then()
+                .block();
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private long opsPerSecond(Duration duration) {
+        return OPERATIONS * 1_000L / Math.max(1, duration.toMillis());
+    }
+
+    private void seedAccount(BigDecimal balance) {
+        SavingsAccount account = new SavingsAccount();
+        account.setAccountNumber(accountNumber);
+        account.setCustomerId("customer123");
+        account.setBalance(balance);
+        account.setAccountType(Account.AccountType.SAVINGS);
+        account.setCreatedAt(LocalDateTime.now());
+        account.setMovementsThisMonth(0);
+        account.setMaxMovementsFeeFreeThisMonth(10);
+        account.setIsCommissionFeeActive(false);
+        account.setMovementCommissionFee(BigDecimal.ZERO);
+        account.setMonthlyMovementsLimit(20);
+        reactiveMongoTemplate.save(account).block();
+    }
+
+    private BigDecimal currentBalance() {
+        return reactiveMongoTemplate.findOne(Query.query(Criteria.where("accountNumber").is(accountNumber)), Account.class)
+                .map(Account::getBalance)
+                .block();
+    }
+}
@@ -0,0 +1,121 @@
+package com.jorge.accounts.service.cache;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.FixedTermAccount;
+import com.jorge.accounts.model.SavingsAccount;
+import com.jorge.accounts.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountProfileCacheTest {
+    private static final String ACCOUNT_NUMBER = "12345678901234";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private MeterRegistry meterRegistry;
+    private AccountProfileCache accountProfileCache;
+    private SavingsAccount savingsAccount;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountProfileCache = new AccountProfileCache(accountRepository, meterRegistry, 100, Duration.ofMinutes(1));
+
+        savingsAccount = new SavingsAccount();
+        savingsAccount.setAccountNumber(ACCOUNT_NUMBER);
+        savingsAccount.setAccountType(Account.AccountType.SAVINGS);
+        savingsAccount.setCustomerId("customer123");
+        savingsAccount.setBalance(BigDecimal.valueOf(1000));
+        savingsAccount.setMaxMovementsFeeFreeThisMonth(10);
+        savingsAccount.setMovementCommissionFee(BigDecimal.valueOf(2));
+        savingsAccount.setMonthlyMovementsLimit(20);
+    }
+
+    @Test
+    void whenGet_Twice_ThenLoadOnceAndRecordMissAndHit() {
+        when(accountRepository.findByAccountNumber(ACCOUNT_NUMBER)).thenReturn(Mono.just(savingsAccount));
+
+        StepVerifier.create(accountProfileCache.get(ACCOUNT_NUMBER).then(accountProfileCache.get(ACCOUNT_NUMBER)))
+                .assertNext(accountProfile -> {
+                    assertEquals(Account.AccountType.SAVINGS, accountProfile.getAccountType());
+                    assertEquals("customer123", accountProfile.getCustomerId());
+                    assertEquals(BigDecimal.valueOf(2), accountProfile.getMovementCommissionFee());
+                    assertEquals(20, accountProfile.getMonthlyMovementsLimit());
+                })
+                .verifyComplete();
+
+        verify(accountRepository, times(1)).findByAccountNumber(ACCOUNT_NUMBER);
+        assertEquals(1.0, cacheGets("hit"));
+        assertEquals(1.0, cacheGets("miss"));
+    }
+
+    @Test
+    void whenGet_ConcurrentMisses_ThenShareOneLoad() {
+        when(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .thenReturn(Mono.<Account>just(savingsAccount).delayElement(Duration.ofMillis(50)));
+
+        StepVerifier.create(Flux.range(0, 10).flatMap(i -> accountProfileCache.get(ACCOUNT_NUMBER)))
+                .expectNextCount(10)
+                .verifyComplete();
+
+        verify(accountRepository, times(1)).findByAccountNumber(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    void whenInvalidate_ThenNextGetReloadsTheProfile() {
+        FixedTermAccount updatedAccount = new FixedTermAccount();
+        updatedAccount.setAccountNumber(ACCOUNT_NUMBER);
+        updatedAccount.setAccountType(Account.AccountType.FIXED_TERM);
+        updatedAccount.setAllowedWithdrawal(LocalDate.of(2030, 1, 1));
+        when(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .thenReturn(Mono.just(savingsAccount), Mono.<Account>just(updatedAccount));
+
+        accountProfileCache.get(ACCOUNT_NUMBER).block();
+        accountProfileCache.invalidate(ACCOUNT_NUMBER);
+
+        StepVerifier.create(accountProfileCache.get(ACCOUNT_NUMBER))
+                .assertNext(accountProfile -> {
+                    assertEquals(Account.AccountType.FIXED_TERM, accountProfile.getAccountType());
+                    assertEquals(LocalDate.of(2030, 1, 1), accountProfile.getAllowedWithdrawal());
+                })
+                .verifyComplete();
+        verify(accountRepository, times(2)).findByAccountNumber(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    void whenGet_WithNonExistingAccount_ThenReturnEmptyAndDoNotCacheIt() {
+        when(accountRepository.findByAccountNumber(ACCOUNT_NUMBER)).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountProfileCache.get(ACCOUNT_NUMBER)).verifyComplete();
+        StepVerifier.create(accountProfileCache.get(ACCOUNT_NUMBER)).verifyComplete();
+
+        verify(accountRepository, times(2)).findByAccountNumber(ACCOUNT_NUMBER);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", AccountProfileCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -2,19 +2,30 @@ package com.jorge.accounts.service.impl;
 
 import com.jorge.accounts.mapper.AccountMapper;
 import com.jorge.accounts.model.*;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
 import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.service.TransferService;
+import com.jorge.accounts.service.cache.AccountProfile;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
 import com.jorge.accounts.service.strategy.CheckingAccountMovementProcessingStrategy;
 import com.jorge.accounts.service.strategy.FixedAccountMovementProcessingStrategy;
 import com.jorge.accounts.service.strategy.SavingsAccountMovementProcessingStrategy;
 import com.jorge.accounts.service.strategy.business.AccountMovementProcessStrategy;
+import com.jorge.accounts.utils.KeysetPage;
 import com.jorge.accounts.webclient.client.TransactionClient;
 import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import com.jorge.accounts.webclient.dto.response.AccountBalanceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -28,16 +39,25 @@ import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +66,12 @@ public class AccountServiceImplTest {
     private AccountRepository accountRepository;
     @Mock
     private TransactionClient transactionClient;
+    @Mock
+    private TransferService transferService;
+    @Mock
+    private TransactionOutbox transactionOutbox;
+    @Mock
+    private AccountDailyBalanceRepository accountDailyBalanceRepository;
     @Spy // Spy the mapper to use the real implementation
     private AccountMapper accountMapper;
 
@@ -73,8 +99,13 @@ public class AccountServiceImplTest {
         movementProcessStrategies.put(Account.AccountType.CHECKING, new CheckingAccountMovementProcessingStrategy());
         movementProcessStrategies.put(Account.AccountType.FIXED_TERM, new FixedAccountMovementProcessingStrategy());
 
+        lenient().when(accountDailyBalanceRepository.recordClosingBalance(any(), any(), any())).thenReturn(Mono.empty());
+
         // Inject the manually created map into the service
-        accountServiceImpl = new AccountServiceImpl(accountMapper, accountRepository, transactionClient, movementProcessStrategies);
+        accountServiceImpl = new AccountServiceImpl(accountMapper, accountRepository, accountDailyBalanceRepository, transactionClient, transactionOutbox, transferService,
+                new AccountLaneExecutor(new SimpleMeterRegistry(), 4, Duration.ofSeconds(5), 500),
+                new AccountProfileCache(accountRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)),
+                movementProcessStrategies);
 
         // Setup common account objects
         savingsAccount = new SavingsAccount();
@@ -126,14 +157,11 @@ public class AccountServiceImplTest {
         transactionResponse.setTransactionType(TransactionResponse.TransactionTypeEnum.DEPOSIT);
         transactionResponse.setDescription("Test Deposit");
         transactionResponse.setCreatedAt(LocalDateTime.now());
-
-        // Lenient stubbing for general mocks that might be called in different tests
-        lenient().when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(transactionResponse));
     }
 
     @Test
     void whenGetAllAccounts_ThenReturnFluxOfAccountResponse() {
-        when(accountRepository.findAll()).thenReturn(Flux.just(savingsAccount, checkingAccount));
+        when(accountRepository.findPage(null, null, 0)).thenReturn(Flux.just(savingsAccount, checkingAccount));
 
         StepVerifier.create(accountServiceImpl.getAllAccounts())
                 .expectNextCount(2)
@@ -170,7 +198,8 @@ public class AccountServiceImplTest {
 
     @Test
     void whenGetBalanceByAccountNumber_WithExistingAccount_ThenReturnBalanceResponse() {
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
+        when(accountRepository.findBalanceByAccountNumber(accountNumber)).thenReturn(Mono.just(
+                new AccountBalance(accountNumber, Account.AccountType.SAVINGS, BigDecimal.valueOf(1000.0))));
 
         StepVerifier.create(accountServiceImpl.getBalanceByAccountNumber(accountNumber))
                 .expectNextMatches(response -> response.getAccountNumber().equals(accountNumber) &&
@@ -181,7 +210,7 @@ public class AccountServiceImplTest {
 
     @Test
     void whenGetBalanceByAccountNumber_WithNonExistingAccount_ThenThrowNotFoundException() {
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.empty());
+        when(accountRepository.findBalanceByAccountNumber(accountNumber)).thenReturn(Mono.empty());
 
         StepVerifier.create(accountServiceImpl.getBalanceByAccountNumber(accountNumber))
                 .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
@@ -192,13 +221,51 @@ public class AccountServiceImplTest {
 
     @Test
     void whenGetAccountsByCustomerId_ThenReturnFluxOfAccountResponse() {
-        when(accountRepository.findByCustomerId(customerId)).thenReturn(Flux.just(savingsAccount, checkingAccount));
+        when(accountRepository.findPage(customerId, null, 0)).thenReturn(Flux.just(savingsAccount, checkingAccount));
 
         StepVerifier.create(accountServiceImpl.getAccountsByCustomerId(customerId))
                 .expectNextCount(2)
                 .verifyComplete();
     }
 
+    @Test
+    void whenGetAccountsPageByCustomerId_WithMoreAccounts_ThenReturnNextPageTokenOfLastAccount() {
+        String lastAccountId = new ObjectId().toHexString();
+        savingsAccount.setId(lastAccountId);
+        checkingAccount.setId(new ObjectId().toHexString());
+        // One account past the page is what tells there is a next page
+        when(accountRepository.findPage(customerId, null, 2)).thenReturn(Flux.just(savingsAccount, checkingAccount));
+
+        StepVerifier.create(accountServiceImpl.getAccountsByCustomerId(customerId, 1, null))
+                .assertNext(page -> {
+                    assertEquals(1, page.items().size());
+                    assertEquals(KeysetPage.encodeToken(lastAccountId), page.nextPageToken());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetAccountsPage_WithPageToken_ThenSeekPastTokenAndReturnLastPage() {
+        String lastAccountId = new ObjectId().toHexString();
+        when(accountRepository.findPage(null, lastAccountId, 101)).thenReturn(Flux.just(checkingAccount));
+
+        StepVerifier.create(accountServiceImpl.getAllAccounts(null, KeysetPage.encodeToken(lastAccountId)))
+                .assertNext(page -> {
+                    assertEquals(1, page.items().size());
+                    assertNull(page.nextPageToken());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetAccountsPage_WithInvalidPageToken_ThenThrowBadRequestException() {
+        StepVerifier.create(accountServiceImpl.getAllAccounts(10, "not-a-token"))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        ((ResponseStatusException) throwable).getReason().equals("Invalid page token"))
+                .verify();
+    }
+
     @Test
     void whenIncreaseBalanceByAccountNumber_WithExistingAccount_ThenReturnBalanceResponse() {
         BigDecimal increaseAmount = BigDecimal.valueOf(500.0);
@@ -207,8 +274,7 @@ public class AccountServiceImplTest {
         accountAfterIncrease.setBalance(savingsAccount.getBalance().add(increaseAmount));
         accountAfterIncrease.setAccountType(Account.AccountType.SAVINGS); // Ensure type is set for mapping
 
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(accountAfterIncrease));
+        when(accountRepository.increaseBalance(accountNumber, increaseAmount)).thenReturn(Mono.just(accountAfterIncrease));
 
         StepVerifier.create(accountServiceImpl.increaseBalanceByAccountNumber(accountNumber, increaseAmount))
                 .expectNextMatches(response -> response.getAccountNumber().equals(accountNumber) &&
@@ -216,6 +282,25 @@ public class AccountServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void whenIncreaseBalanceByAccountNumber_WithNonExistingAccount_ThenThrowNotFoundException() {
+        BigDecimal increaseAmount = BigDecimal.valueOf(500.0);
+        when(accountRepository.increaseBalance(accountNumber, increaseAmount)).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountServiceImpl.increaseBalanceByAccountNumber(accountNumber, increaseAmount))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.NOT_FOUND)
+                .verify();
+    }
+
+    @Test
+    void whenIncreaseBalanceByAccountNumber_WithNonPositiveAmount_ThenThrowBadRequestException() {
+        StepVerifier.create(accountServiceImpl.increaseBalanceByAccountNumber(accountNumber, BigDecimal.valueOf(-10.0)))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
     @Test
     void whenDecreaseBalanceByAccountNumber_WithSufficientBalance_ThenReturnBalanceResponse() {
         BigDecimal decreaseAmount = BigDecimal.valueOf(200.0);
@@ -224,9 +309,7 @@ public class AccountServiceImplTest {
         accountAfterDecrease.setBalance(savingsAccount.getBalance().subtract(decreaseAmount));
         accountAfterDecrease.setAccountType(Account.AccountType.SAVINGS); // Ensure type is set for mapping
 
-
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(accountAfterDecrease));
+        when(accountRepository.decreaseBalance(accountNumber, decreaseAmount)).thenReturn(Mono.just(accountAfterDecrease));
 
         StepVerifier.create(accountServiceImpl.decreaseBalanceByAccountNumber(accountNumber, decreaseAmount))
                 .expectNextMatches(response -> response.getAccountNumber().equals(accountNumber) &&
@@ -234,6 +317,31 @@ public class AccountServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void whenDecreaseBalanceByAccountNumber_WithInsufficientBalance_ThenThrowBadRequestException() {
+        BigDecimal decreaseAmount = BigDecimal.valueOf(2000.0);
+        when(accountRepository.decreaseBalance(accountNumber, decreaseAmount)).thenReturn(Mono.empty());
+        when(accountRepository.existsByAccountNumber(accountNumber)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(accountServiceImpl.decreaseBalanceByAccountNumber(accountNumber, decreaseAmount))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        ((ResponseStatusException) throwable).getReason().equals("Insufficient balance for the decrease account"))
+                .verify();
+    }
+
+    @Test
+    void whenDecreaseBalanceByAccountNumber_WithNonExistingAccount_ThenThrowNotFoundException() {
+        BigDecimal decreaseAmount = BigDecimal.valueOf(200.0);
+        when(accountRepository.decreaseBalance(accountNumber, decreaseAmount)).thenReturn(Mono.empty());
+        when(accountRepository.existsByAccountNumber(accountNumber)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(accountServiceImpl.decreaseBalanceByAccountNumber(accountNumber, decreaseAmount))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.NOT_FOUND)
+                .verify();
+    }
+
     @Test
     void whenDepositByAccountNumber_WithSavingsAccountAndNoFee_ThenReturnAccountResponse() {
         BigDecimal depositAmount = BigDecimal.valueOf(500.0);
@@ -269,8 +377,9 @@ public class AccountServiceImplTest {
 
 
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
-        // Simulate the behavior after processAccountMovement (which increments movements)
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(accountAfterDeposit));
+        // The conditional update returns the account after the movement (balance and movement count increased)
+        ArgumentCaptor<AccountMovement> movementCaptor = ArgumentCaptor.forClass(AccountMovement.class);
+        when(transactionOutbox.applyWithTransaction(movementCaptor.capture(), any())).thenReturn(Mono.just(accountAfterDeposit));
 
 
         StepVerifier.create(accountServiceImpl.depositByAccountNumber(accountNumber, depositRequest))
@@ -278,6 +387,63 @@ public class AccountServiceImplTest {
                         response.getBalance().compareTo(BigDecimal.valueOf(1500.0)) == 0 &&
                         response.getMovementsThisMonth() == 1) // Verify movement count increased
                 .verifyComplete();
+
+        AccountMovement movement = movementCaptor.getValue();
+        assertEquals(AccountMovement.Direction.CREDIT, movement.getDirection());
+        assertEquals(depositAmount, movement.getAmount());
+        assertEquals(20, movement.getMonthlyMovementsLimit());
+        assertEquals(10, movement.getMaxMovementsFeeFreeThisMonth());
+        assertTrue(movement.isCountMovement());
+        assertFalse(movement.isRequireEmptyBalance());
+    }
+
+    @Test
+    void whenDepositByAccountNumber_WithFixedTermAccountAlreadyFunded_ThenThrowBadRequestException() {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(BigDecimal.valueOf(100.0));
+        String fixedTermAccountNumber = fixedTermAccount.getAccountNumber();
+
+        when(accountRepository.findByAccountNumber(fixedTermAccountNumber)).thenReturn(Mono.just(fixedTermAccount));
+        ArgumentCaptor<AccountMovement> movementCaptor = ArgumentCaptor.forClass(AccountMovement.class);
+        when(transactionOutbox.applyWithTransaction(movementCaptor.capture(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountServiceImpl.depositByAccountNumber(fixedTermAccountNumber, depositRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException e &&
+                        e.getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        e.getReason().equals("One deposit has already been performed for this Fixed Term account"))
+                .verify();
+
+        assertTrue(movementCaptor.getValue().isRequireEmptyBalance());
+        assertNull(movementCaptor.getValue().getMonthlyMovementsLimit());
+    }
+
+    @Test
+    void whenDepositByAccountNumber_WithNonExistingAccount_ThenThrowNotFoundWithoutUpdating() {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(BigDecimal.valueOf(100.0));
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountServiceImpl.depositByAccountNumber(accountNumber, depositRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException e &&
+                        e.getStatusCode() == HttpStatus.NOT_FOUND)
+                .verify();
+
+        verify(transactionOutbox, never()).applyWithTransaction(any(AccountMovement.class), any());
+    }
+
+    @Test
+    void whenDepositByAccountNumber_RejectedButRulesPassOnReread_ThenThrowConflictException() {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(BigDecimal.valueOf(100.0));
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
+        when(transactionOutbox.applyWithTransaction(any(AccountMovement.class), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountServiceImpl.depositByAccountNumber(accountNumber, depositRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException e &&
+                        e.getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
     }
 
     @Test
@@ -300,6 +466,8 @@ public class AccountServiceImplTest {
         accountAfterMovementProcess.setMonthlyMovementsLimit(savingsAccount.getMonthlyMovementsLimit());
 
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(savingsAccount));
+        // The balance guard of the conditional update rejects the withdrawal
+        when(transactionOutbox.applyWithTransaction(any(AccountMovement.class), any())).thenReturn(Mono.empty());
 
         StepVerifier.create(accountServiceImpl.withdrawByAccountNumber(accountNumber, withdrawalRequest))
                 .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
@@ -344,152 +512,97 @@ public class AccountServiceImplTest {
         accountAfterWithdrawalAndFee.setMonthlyMovementsLimit(accountWithFee.getMonthlyMovementsLimit());
 
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(accountWithFee));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(accountAfterWithdrawalAndFee));
-        when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse())); // Mock transaction creation
+        ArgumentCaptor<AccountMovement> movementCaptor = ArgumentCaptor.forClass(AccountMovement.class);
+        ArgumentCaptor<Function<Account, TransactionRequest>> requestFactoryCaptor = ArgumentCaptor.forClass(Function.class);
+        when(transactionOutbox.applyWithTransaction(movementCaptor.capture(), requestFactoryCaptor.capture()))
+                .thenReturn(Mono.just(accountAfterWithdrawalAndFee));
 
         StepVerifier.create(accountServiceImpl.withdrawByAccountNumber(accountNumber, withdrawalRequest))
                 .expectNextMatches(response -> response.getAccountNumber().equals(accountNumber) &&
                         response.getBalance().compareTo(BigDecimal.valueOf(500.0).subtract(BigDecimal.valueOf(100.0)).subtract(BigDecimal.valueOf(5.0))) == 0)
                 .verifyComplete();
+
+        assertEquals(AccountMovement.Direction.DEBIT, movementCaptor.getValue().getDirection());
+        assertEquals(fee, movementCaptor.getValue().getCommissionFee());
+        // The movement record takes the fee from the account the update returned
+        TransactionRequest transactionRequest = requestFactoryCaptor.getValue().apply(accountAfterWithdrawalAndFee);
+        assertEquals(TransactionRequest.TransactionType.WITHDRAWAL, transactionRequest.getTransactionType());
+        assertEquals(fee, transactionRequest.getFee());
     }
 
 
     @Test
-    void whenTransfer_WithValidSavingsAccounts_ThenCreateTransactions() {
-        String receiverAccountNumber = "98765432109876";
-        BigDecimal transferAmount = BigDecimal.valueOf(100.0);
-        TransferRequest transferRequest = new TransferRequest();
-        transferRequest.setReceiverAccountNumber(receiverAccountNumber);
-        transferRequest.setAmount(transferAmount);
-
-        SavingsAccount senderAccount = new SavingsAccount();
-        senderAccount.setId(UUID.randomUUID().toString());
-        senderAccount.setAccountNumber(accountNumber);
-        senderAccount.setCustomerId(customerId);
-        senderAccount.setBalance(BigDecimal.valueOf(1000.0));
-        senderAccount.setAccountType(Account.AccountType.SAVINGS);
-        senderAccount.setMovementsThisMonth(0);
-        senderAccount.setMonthlyMovementsLimit(20);
-        senderAccount.setIsCommissionFeeActive(false); // No fee for sender
-        senderAccount.setMovementCommissionFee(BigDecimal.ZERO);
-
-        Account receiverAccount = new SavingsAccount(); // Receiver can be Savings
-        receiverAccount.setId(UUID.randomUUID().toString());
-        receiverAccount.setAccountNumber(receiverAccountNumber);
-        receiverAccount.setCustomerId("receiverCustomer");
-        receiverAccount.setBalance(BigDecimal.valueOf(500.0));
-        receiverAccount.setAccountType(Account.AccountType.SAVINGS);
-
-
-        SavingsAccount senderAccountAfterTransfer = new SavingsAccount();
-        senderAccountAfterTransfer.setId(senderAccount.getId());
-        senderAccountAfterTransfer.setAccountNumber(accountNumber);
-        senderAccountAfterTransfer.setCustomerId(customerId);
-        senderAccountAfterTransfer.setBalance(senderAccount.getBalance().subtract(transferAmount)); // Balance after transfer
-        senderAccountAfterTransfer.setAccountType(Account.AccountType.SAVINGS);
-        senderAccountAfterTransfer.setMovementsThisMonth(senderAccount.getMovementsThisMonth() + 1); // Movements incremented
-        senderAccountAfterTransfer.setMonthlyMovementsLimit(senderAccount.getMonthlyMovementsLimit());
-        senderAccountAfterTransfer.setIsCommissionFeeActive(senderAccount.getIsCommissionFeeActive());
-        senderAccountAfterTransfer.setMovementCommissionFee(senderAccount.getMovementCommissionFee());
-
-        Account receiverAccountAfterTransfer = new SavingsAccount();
-        receiverAccountAfterTransfer.setId(receiverAccount.getId());
-        receiverAccountAfterTransfer.setAccountNumber(receiverAccountNumber);
-        receiverAccountAfterTransfer.setCustomerId("receiverCustomer");
-        receiverAccountAfterTransfer.setBalance(receiverAccount.getBalance().add(transferAmount)); // Balance after transfer
-        receiverAccountAfterTransfer.setAccountType(Account.AccountType.SAVINGS);
-
-
-        TransactionResponse debitTransactionResponse = new TransactionResponse();
-        debitTransactionResponse.setId("debitTxn");
-        debitTransactionResponse.setAccountNumber(accountNumber);
-        debitTransactionResponse.setAmount(transferAmount);
-        debitTransactionResponse.setTransactionType(TransactionResponse.TransactionTypeEnum.DEBIT);
-
-        TransactionResponse creditTransactionResponse = new TransactionResponse();
-        creditTransactionResponse.setId("creditTxn");
-        creditTransactionResponse.setAccountNumber(receiverAccountNumber);
-        creditTransactionResponse.setAmount(transferAmount);
-        creditTransactionResponse.setTransactionType(TransactionResponse.TransactionTypeEnum.CREDIT);
-
-
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
-        when(accountRepository.save(senderAccount)).thenReturn(Mono.just(senderAccountAfterTransfer));
-        when(accountRepository.save(receiverAccount)).thenReturn(Mono.just(receiverAccountAfterTransfer));
-
-        // Mock transaction creation for both debit and credit
-        when(transactionClient.createTransaction(any(TransactionRequest.class)))
-                .thenAnswer(invocation -> {
-                    TransactionRequest req = invocation.getArgument(0);
-                    if (req.getTransactionType() == TransactionRequest.TransactionType.DEBIT) {
-                        return Mono.just(debitTransactionResponse);
-                    } else if (req.getTransactionType() == TransactionRequest.TransactionType.CREDIT) {
-                        return Mono.just(creditTransactionResponse);
-                    }
-                    return Mono.error(new RuntimeException("Unexpected transaction type"));
-                });
+    void whenWithdrawByAccountNumber_WithSavingsAccount_ThenMovementTakesLimitAndFeeRulesFromStrategy() {
+        AccountMovement movement = captureWithdrawalMovement(savingsAccount);
 
+        assertEquals(20, movement.getMonthlyMovementsLimit());
+        assertEquals(10, movement.getMaxMovementsFeeFreeThisMonth());
+        assertEquals(BigDecimal.ZERO, movement.getCommissionFee());
+        assertTrue(movement.isCountMovement());
+    }
 
-        StepVerifier.create(accountServiceImpl.transfer(accountNumber, transferRequest))
-                .expectNextMatches(response -> response.getId().equals("debitTxn") && // The method returns the debit transaction response
-                        response.getAccountNumber().equals(accountNumber) &&
-                        response.getAmount().compareTo(transferAmount) == 0 &&
-                        response.getTransactionType() == TransactionResponse.TransactionTypeEnum.DEBIT)
-                .verifyComplete();
+    @Test
+    void whenWithdrawByAccountNumber_WithCheckingAccount_ThenMovementTakesLimitAndFeeRulesFromStrategy() {
+        AccountMovement movement = captureWithdrawalMovement(checkingAccount);
+
+        assertNull(movement.getMonthlyMovementsLimit());
+        assertEquals(Integer.MAX_VALUE, movement.getMaxMovementsFeeFreeThisMonth());
+        assertEquals(BigDecimal.ZERO, movement.getCommissionFee());
+        assertTrue(movement.isCountMovement());
     }
 
     @Test
-    void whenTransfer_WithFixedTermSender_ThenThrowBadRequestException() {
-        String receiverAccountNumber = "98765432109876";
-        BigDecimal transferAmount = BigDecimal.valueOf(100.0);
-        TransferRequest transferRequest = new TransferRequest();
-        transferRequest.setReceiverAccountNumber(receiverAccountNumber);
-        transferRequest.setAmount(transferAmount);
+    void whenWithdrawByAccountNumber_WithFixedTermAccount_ThenMovementTakesLimitAndFeeRulesFromStrategy() {
+        AccountMovement movement = captureWithdrawalMovement(fixedTermAccount);
 
-        fixedTermAccount.setAllowedWithdrawal(LocalDate.now().minusDays(1));
+        assertNull(movement.getMonthlyMovementsLimit());
+        assertEquals(1, movement.getMaxMovementsFeeFreeThisMonth());
+        assertEquals(BigDecimal.ZERO, movement.getCommissionFee());
+        assertTrue(movement.isCountMovement());
+    }
 
-        Account dummyReceiverAccount = new SavingsAccount();
-        dummyReceiverAccount.setAccountNumber(receiverAccountNumber);
-        dummyReceiverAccount.setAccountType(Account.AccountType.SAVINGS);
+    @Test
+    void whenWithdrawByAccountNumber_WithChangedCheckingStrategy_ThenConditionalUpdateFollowsIt() {
+        movementProcessStrategies.put(Account.AccountType.CHECKING, new CheckingAccountMovementProcessingStrategy() {
+            @Override
+            public AccountMovement.AccountMovementBuilder applyMovementRules(AccountMovement.AccountMovementBuilder movement,
+                                                                             AccountProfile accountProfile) {
+                return super.applyMovementRules(movement, accountProfile).monthlyMovementsLimit(5);
+            }
+        });
+
+        AccountMovement movement = captureWithdrawalMovement(checkingAccount);
+
+        assertEquals(5, movement.getMonthlyMovementsLimit());
+    }
 
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(fixedTermAccount));
+    private AccountMovement captureWithdrawalMovement(Account account) {
+        WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
+        withdrawalRequest.setAmount(BigDecimal.valueOf(100.0));
+        when(accountRepository.findByAccountNumber(account.getAccountNumber())).thenReturn(Mono.just(account));
+        ArgumentCaptor<AccountMovement> movementCaptor = ArgumentCaptor.forClass(AccountMovement.class);
+        when(transactionOutbox.applyWithTransaction(movementCaptor.capture(), any())).thenReturn(Mono.just(account));
 
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(dummyReceiverAccount));
+        StepVerifier.create(accountServiceImpl.withdrawByAccountNumber(account.getAccountNumber(), withdrawalRequest))
+                .expectNextCount(1)
+                .verifyComplete();
 
-        StepVerifier.create(accountServiceImpl.transfer(accountNumber, transferRequest))
-                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
-                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
-                        ((ResponseStatusException) throwable).getReason().equals("Fixed Term accounts cannot initiate transfers."))
-                .verify();
+        return movementCaptor.getValue();
     }
 
     @Test
-    void whenTransfer_ToFixedTermReceiver_ThenThrowBadRequestException() {
-        String receiverAccountNumber = "45678901234567"; // Fixed Term Account number
-        BigDecimal transferAmount = BigDecimal.valueOf(100.0);
+    void whenTransfer_ThenDelegateToTransferService() {
         TransferRequest transferRequest = new TransferRequest();
-        transferRequest.setReceiverAccountNumber(receiverAccountNumber);
-        transferRequest.setAmount(transferAmount);
+        transferRequest.setReceiverAccountNumber("98765432109876");
+        transferRequest.setAmount(BigDecimal.valueOf(100.0));
 
-        SavingsAccount senderAccount = new SavingsAccount();
-        senderAccount.setAccountNumber(accountNumber);
-        senderAccount.setBalance(BigDecimal.valueOf(1000.0));
-        senderAccount.setAccountType(Account.AccountType.SAVINGS);
-        senderAccount.setMovementsThisMonth(0);
-        senderAccount.setMonthlyMovementsLimit(20);
-
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(fixedTermAccount)); // Receiver is Fixed Term
+        when(transferService.transfer(accountNumber, transferRequest)).thenReturn(Mono.just(transactionResponse));
 
         StepVerifier.create(accountServiceImpl.transfer(accountNumber, transferRequest))
-                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
-                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
-                        ((ResponseStatusException) throwable).getReason().equals("Cannot transfer to a Fixed Term account."))
-                .verify();
+                .expectNext(transactionResponse)
+                .verifyComplete();
     }
 
-
     @Test
     void whenGetTransactionsByAccountNumber_ThenReturnFluxOfTransactionResponse() {
         when(transactionClient.getTransactionsByAccountNumber(accountNumber)).thenReturn(Flux.just(transactionResponse, new TransactionResponse()));
@@ -499,16 +612,91 @@ public class AccountServiceImplTest {
                 .verifyComplete();
     }
 
-    // Note: AverageMonthlyDailyBalance calculation is complex and involves date logic and transaction processing.
-    // Testing this thoroughly would require mocking the transactionClient.getTransactionsByAccountNumberAndDateRange
-    // with various scenarios (transactions before and after the month, multiple transactions in a day, etc.).
-    // Due to the complexity and the request for limited tests, we'll skip a detailed test for this method.
-    // A full test would involve:
-    // 1. Mocking transactionClient.getTransactionsByAccountNumberAndDateRange for transactions *before* the start date to calculate initial balance.
-    // 2. Mocking transactionClient.getTransactionsByAccountNumberAndDateRange for transactions *within* the date range.
-    // 3. Carefully constructing TransactionResponse objects with specific amounts and dates.
-    // 4. Asserting the calculated average daily balance.
+    @Test
+    void whenCalculateAverageMonthlyDailyBalance_WithSnapshots_ThenCarryClosingBalancesAcrossDays() {
+        AverageMonthlyDailyBalanceRequest request = new AverageMonthlyDailyBalanceRequest();
+        request.setYear(2025);
+        request.setMonth(4);
+
+        AccountDailyBalance openingSnapshot = AccountDailyBalance.builder()
+                .accountNumber(accountNumber).date(LocalDate.of(2025, 3, 20)).closingBalance(BigDecimal.valueOf(100)).build();
+        AccountDailyBalance snapshotDay11 = AccountDailyBalance.builder()
+                .accountNumber(accountNumber).date(LocalDate.of(2025, 4, 11)).closingBalance(BigDecimal.valueOf(200)).build();
+        AccountDailyBalance snapshotDay21 = AccountDailyBalance.builder()
+                .accountNumber(accountNumber).date(LocalDate.of(2025, 4, 21)).closingBalance(BigDecimal.valueOf(400)).build();
+
+        when(accountDailyBalanceRepository.findFirstByAccountNumberAndDateBeforeOrderByDateDesc(accountNumber, LocalDate.of(2025, 4, 1)))
+                .thenReturn(Mono.just(openingSnapshot));
+        when(accountDailyBalanceRepository.findByAccountNumberAndDateBetweenOrderByDateAsc(eq(accountNumber), any()))
+                .thenReturn(Flux.just(snapshotDay11, snapshotDay21));
+
+        // (10 days * 100 + 10 days * 200 + 10 days * 400) / 30
+        StepVerifier.create(accountServiceImpl.calculateAverageMonthlyDailyBalance(accountNumber, request))
+                .expectNextMatches(response -> response.getAverageDailyBalance().compareTo(new BigDecimal("233.33")) == 0)
+                .verifyComplete();
+
+        verify(transactionClient, never()).getTransactionsByAccountNumberAndDateRange(any(), any(), any());
+    }
+
+    @Test
+    void whenCalculateAverageMonthlyDailyBalance_WithoutOpeningSnapshot_ThenReplayTransactions() {
+        AverageMonthlyDailyBalanceRequest request = new AverageMonthlyDailyBalanceRequest();
+        request.setYear(2025);
+        request.setMonth(4);
+        LocalDateTime startOfMonth = LocalDate.of(2025, 4, 1).atStartOfDay();
+
+        TransactionResponse deposit = new TransactionResponse();
+        deposit.setAccountNumber(accountNumber);
+        deposit.setTransactionType(TransactionResponse.TransactionTypeEnum.DEPOSIT);
+        deposit.setAmount(BigDecimal.valueOf(300));
+        deposit.setFee(BigDecimal.ZERO);
+        deposit.setCreatedAt(LocalDateTime.of(2025, 4, 16, 10, 0));
+
+        when(accountDailyBalanceRepository.findFirstByAccountNumberAndDateBeforeOrderByDateDesc(accountNumber, LocalDate.of(2025, 4, 1)))
+                .thenReturn(Mono.empty());
+        when(accountDailyBalanceRepository.findByAccountNumberAndDateBetweenOrderByDateAsc(eq(accountNumber), any()))
+                .thenReturn(Flux.empty());
+        when(transactionClient.getTransactionsByAccountNumberAndDateRange(eq(accountNumber), eq(startOfMonth), any()))
+                .thenReturn(Flux.just(deposit));
+        when(transactionClient.getAccountBalanceAt(accountNumber, startOfMonth))
+                .thenReturn(Mono.just(new AccountBalanceResponse(accountNumber, startOfMonth, BigDecimal.ZERO)));
+
+        // 15 days * 300 / 30
+        StepVerifier.create(accountServiceImpl.calculateAverageMonthlyDailyBalance(accountNumber, request))
+                .expectNextMatches(response -> response.getAverageDailyBalance().compareTo(new BigDecimal("150.00")) == 0)
+                .verifyComplete();
+    }
 
+    @Test
+    void whenCalculateAverageMonthlyDailyBalance_WithStampedTransactions_ThenReadBalancesFromThem() {
+        AverageMonthlyDailyBalanceRequest request = new AverageMonthlyDailyBalanceRequest();
+        request.setYear(2025);
+        request.setMonth(4);
+        LocalDateTime startOfMonth = LocalDate.of(2025, 4, 1).atStartOfDay();
+
+        TransactionResponse deposit = new TransactionResponse();
+        deposit.setAccountNumber(accountNumber);
+        deposit.setTransactionType(TransactionResponse.TransactionTypeEnum.DEPOSIT);
+        deposit.setAmount(BigDecimal.valueOf(300));
+        deposit.setFee(BigDecimal.ZERO);
+        deposit.setBalanceBefore(BigDecimal.valueOf(100));
+        deposit.setBalanceAfter(BigDecimal.valueOf(400));
+        deposit.setCreatedAt(LocalDateTime.of(2025, 4, 16, 10, 0));
+
+        when(accountDailyBalanceRepository.findFirstByAccountNumberAndDateBeforeOrderByDateDesc(accountNumber, LocalDate.of(2025, 4, 1)))
+                .thenReturn(Mono.empty());
+        when(accountDailyBalanceRepository.findByAccountNumberAndDateBetweenOrderByDateAsc(eq(accountNumber), any()))
+                .thenReturn(Flux.empty());
+        when(transactionClient.getTransactionsByAccountNumberAndDateRange(eq(accountNumber), eq(startOfMonth), any()))
+                .thenReturn(Flux.just(deposit));
+        when(transactionClient.getAccountBalanceAt(accountNumber, startOfMonth))
+                .thenReturn(Mono.just(new AccountBalanceResponse(accountNumber, startOfMonth, BigDecimal.valueOf(100))));
+
+        // (15 days * 100 + 15 days * 400) / 30
+        StepVerifier.create(accountServiceImpl.calculateAverageMonthlyDailyBalance(accountNumber, request))
+                .expectNextMatches(response -> response.getAverageDailyBalance().compareTo(new BigDecimal("250.00")) == 0)
+                .verifyComplete();
+    }
 
     @Test
     void whenGenerateFeeReportBetweenDate_ThenReturnFluxOfFeeReportResponse() {
@@ -6,6 +6,8 @@ import com.jorge.accounts.model.CheckingAccount;
 import com.jorge.accounts.model.CheckingAccountRequest;
 import com.jorge.accounts.model.CheckingAccountResponse;
 import com.jorge.accounts.repository.CheckingAccountRepository;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -32,6 +34,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +51,10 @@ public class CheckingAccountServiceImplTest {
     private AccountUtils accountUtils; // We'll use a real instance of AccountUtils with mocked TransactionClient later
     @Mock
     private TransactionClient transactionClient; // Mock the dependency for AccountUtils
+    @Mock
+    private AccountProfileCache accountProfileCache;
+    @Mock
+    private BlockNumberAllocator accountNumberAllocator;
 
     @InjectMocks
     private CheckingAccountServiceImpl checkingAccountServiceImpl;
@@ -109,9 +116,9 @@ public class CheckingAccountServiceImplTest {
         checkingAccount.setAuthorizedSigners(List.of("signer1"));
 
 
-        checkingAccountMapper = new CheckingAccountMapper(accountUtils);
+        checkingAccountMapper = new CheckingAccountMapper();
 
-        checkingAccountServiceImpl = new CheckingAccountServiceImpl(customerClient, checkingAccountRepository, checkingAccountMapper, customerValidation, accountUtils);
+        checkingAccountServiceImpl = new CheckingAccountServiceImpl(customerClient, checkingAccountRepository, checkingAccountMapper, customerValidation, accountUtils, accountProfileCache, accountNumberAllocator);
     }
 
     @Test
@@ -119,9 +126,9 @@ public class CheckingAccountServiceImplTest {
         when(customerClient.getCustomerById(customerId)).thenReturn(Mono.just(personalCustomer));
         when(customerValidation.validateIfCustomerHasOverDueDebt(personalCustomer)).thenReturn(Mono.just(personalCustomer));
         when(customerValidation.personalCustomerValidation(personalCustomer, Account.AccountType.CHECKING)).thenReturn(Mono.empty());
-        when(accountUtils.generateAccountNumber()).thenReturn("11223344556677"); // Mock generateAccountNumber
+        when(accountNumberAllocator.next()).thenReturn(Mono.just("11223344556677"));
         when(checkingAccountRepository.save(any(CheckingAccount.class))).thenReturn(Mono.just(checkingAccount));
-        when(accountUtils.handleInitialDeposit(any(CheckingAccount.class), any(BigDecimal.class))).thenReturn(Mono.just(checkingAccount));
+        when(accountUtils.saveWithInitialDeposit(any(), any(BigDecimal.class))).thenReturn(Mono.just(checkingAccount));
 
 
         StepVerifier.create(checkingAccountServiceImpl.createCheckingAccount(checkingAccountRequest))
@@ -139,9 +146,9 @@ public class CheckingAccountServiceImplTest {
         when(customerClient.getCustomerById(customerId)).thenReturn(Mono.just(businessCustomer));
         when(customerValidation.validateIfCustomerHasOverDueDebt(businessCustomer)).thenReturn(Mono.just(businessCustomer));
         when(customerValidation.businessCustomerValidation(Account.AccountType.CHECKING)).thenReturn(Mono.empty());
-        when(accountUtils.generateAccountNumber()).thenReturn("11223344556677"); // Mock generateAccountNumber
+        when(accountNumberAllocator.next()).thenReturn(Mono.just("11223344556677"));
         when(checkingAccountRepository.save(any(CheckingAccount.class))).thenReturn(Mono.just(checkingAccount));
-        when(accountUtils.handleInitialDeposit(any(CheckingAccount.class), any(BigDecimal.class))).thenReturn(Mono.just(checkingAccount));
+        when(accountUtils.saveWithInitialDeposit(any(), any(BigDecimal.class))).thenReturn(Mono.just(checkingAccount));
 
         StepVerifier.create(checkingAccountServiceImpl.createCheckingAccount(checkingAccountRequest))
                 .expectNextMatches(response -> response != null &&
@@ -175,10 +182,10 @@ public class CheckingAccountServiceImplTest {
         when(customerClient.getCustomerById(customerId)).thenReturn(Mono.just(pymeCustomer));
         when(customerValidation.validateCreditCardExists(pymeCustomer)).thenReturn(Mono.just(pymeCustomer)); // PYME validation
         when(customerValidation.businessCustomerValidation(Account.AccountType.CHECKING)).thenReturn(Mono.empty());
-        when(accountUtils.generateAccountNumber()).thenReturn("11223344556677"); // Mock generateAccountNumber
+        when(accountNumberAllocator.next()).thenReturn(Mono.just("11223344556677"));
         // When the service saves the account, return the PYME specific checking account
         when(checkingAccountRepository.save(any(CheckingAccount.class))).thenReturn(Mono.just(pymeCheckingAccount));
-        when(accountUtils.handleInitialDeposit(any(CheckingAccount.class), any(BigDecimal.class))).thenReturn(Mono.just(pymeCheckingAccount));
+        when(accountUtils.saveWithInitialDeposit(any(), any(BigDecimal.class))).thenReturn(Mono.just(pymeCheckingAccount));
 
         StepVerifier.create(checkingAccountServiceImpl.createCheckingAccount(checkingAccountRequest))
                 .expectNextMatches(response -> response != null &&
@@ -311,6 +318,8 @@ public class CheckingAccountServiceImplTest {
                         response.getAuthorizedSigners().containsAll(List.of("signer1", "signer2")) &&
                         response.getAuthorizedSigners().size() == 2)
                 .verifyComplete();
+
+        verify(accountProfileCache).invalidate(accountNumber);
     }
 
     @Test
@@ -1,14 +1,21 @@
 package com.jorge.accounts.service.impl;
 
+import com.jorge.accounts.mapper.AccountMapper;
 import com.jorge.accounts.mapper.DebitCardMapper;
 import com.jorge.accounts.model.*;
 import com.jorge.accounts.repository.AccountRepository;
 import com.jorge.accounts.repository.DebitCardRepository;
 import com.jorge.accounts.webclient.client.TransactionClient;
-import com.jorge.accounts.webclient.dto.request.TransactionRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import com.jorge.accounts.service.cache.AccountProfile;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -20,14 +27,22 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,8 +53,16 @@ public class DebitCardServiceImplTest {
     private AccountRepository accountRepository;
     @Spy
     private DebitCardMapper debitCardMapper;
+    @Spy
+    private AccountMapper accountMapper;
     @Mock
     private TransactionClient transactionClient;
+    @Mock
+    private TransactionOutbox transactionOutbox;
+    @Mock
+    private AccountProfileCache accountProfileCache;
+    @Spy
+    private AccountLaneExecutor accountLaneExecutor = new AccountLaneExecutor(new SimpleMeterRegistry(), 4, Duration.ofSeconds(5), 500);
     @InjectMocks
     private DebitCardServiceImpl debitCardServiceImpl;
 
@@ -73,14 +96,16 @@ public class DebitCardServiceImplTest {
 
     @Test
     void whenGetBalanceByDebitCardNumber_WithExistingDebitCard_ThenReturnBalance() {
-        when(debitCardRepository.findByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCard));
+        when(debitCardRepository.findMainLinkedAccountNumber(debitCardNumber))
+                .thenReturn(Mono.just(debitCard.getMainLinkedAccountNumber()));
 
         account = new SavingsAccount();
         account.setAccountNumber(debitCard.getMainLinkedAccountNumber());
         account.setBalance(BigDecimal.valueOf(1000.0));
         account.setAccountType(Account.AccountType.SAVINGS);
 
-        when(accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(account));
+        when(accountRepository.findBalanceByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(
+                new AccountBalance(account.getAccountNumber(), account.getAccountType(), account.getBalance())));
 
         Mono<BalanceResponse> balanceMono = debitCardServiceImpl.getBalanceByDebitCardNumber(debitCardNumber);
 
@@ -104,9 +129,10 @@ public class DebitCardServiceImplTest {
         account.setIsCommissionFeeActive(true);
         account.setMovementCommissionFee(BigDecimal.valueOf(0.50));
 
-        when(accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(account));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(account));
-        when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
+        when(accountRepository.findWithdrawalCandidates(anyCollection(), any(BigDecimal.class))).thenReturn(Flux.just(account));
+        when(accountProfileCache.get(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(AccountProfile.from(account)));
+        ArgumentCaptor<AccountMovement> movementCaptor = ArgumentCaptor.forClass(AccountMovement.class);
+        when(transactionOutbox.applyWithTransaction(movementCaptor.capture(), any())).thenReturn(Mono.just(account));
 
         WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
         withdrawalRequest.setAmount(BigDecimal.valueOf(500.0));
@@ -120,6 +146,44 @@ public class DebitCardServiceImplTest {
                     assertEquals(account.getAccountType().name(), balanceResponse.getAccountType().name());
                 })
                 .verifyComplete();
+
+        // Debit card withdrawals pay the active fee but are not counted as movements
+        AccountMovement movement = movementCaptor.getValue();
+        assertEquals(AccountMovement.Direction.DEBIT, movement.getDirection());
+        assertEquals(BigDecimal.valueOf(0.50), movement.getCommissionFee());
+        assertFalse(movement.isCountMovement());
+    }
+
+    @Test
+    void whenWithdrawalByDebitCard_AndBalanceGuardRejects_ThenReturnBadRequest() {
+        when(debitCardRepository.findByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCard));
+
+        account = new SavingsAccount();
+        account.setAccountNumber(debitCard.getMainLinkedAccountNumber());
+        account.setBalance(BigDecimal.valueOf(1000.0));
+        account.setAccountType(Account.AccountType.SAVINGS);
+        account.setIsCommissionFeeActive(false);
+
+        Account drainedAccount = new SavingsAccount();
+        drainedAccount.setAccountNumber(debitCard.getMainLinkedAccountNumber());
+        drainedAccount.setBalance(BigDecimal.valueOf(10.0));
+        drainedAccount.setAccountType(Account.AccountType.SAVINGS);
+        drainedAccount.setIsCommissionFeeActive(false);
+
+        // Selected with enough balance, drained by another movement before the update ran
+        when(accountRepository.findWithdrawalCandidates(anyCollection(), any(BigDecimal.class))).thenReturn(Flux.just(account));
+        when(accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(drainedAccount));
+        when(accountProfileCache.get(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(AccountProfile.from(account)));
+        when(transactionOutbox.applyWithTransaction(any(AccountMovement.class), any())).thenReturn(Mono.empty());
+
+        WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
+        withdrawalRequest.setAmount(BigDecimal.valueOf(500.0));
+
+        StepVerifier.create(debitCardServiceImpl.withdrawByDebitCardNumber(debitCardNumber, withdrawalRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException e &&
+                        e.getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        e.getReason().equals("Account does not have enough balance"))
+                .verify();
     }
 
     @Test
@@ -133,16 +197,16 @@ public class DebitCardServiceImplTest {
         account.setIsCommissionFeeActive(false);
 
         secondAccount = new SavingsAccount();
-        secondAccount.setAccountNumber(debitCard.getMainLinkedAccountNumber());
+        secondAccount.setAccountNumber(secondAccountNumber);
         secondAccount.setBalance(BigDecimal.valueOf(1000.0));
         secondAccount.setAccountType(Account.AccountType.SAVINGS);
         secondAccount.setIsCommissionFeeActive(false);
 
-        when(accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.just(account));
-
-        when(accountRepository.findByAccountNumber(secondAccountNumber)).thenReturn(Mono.just(secondAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(secondAccount));
-        when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
+        // The main account does not cover the amount, so the selection query only returns the second one
+        when(accountRepository.findWithdrawalCandidates(Set.of(mainAccountNumber, secondAccountNumber), BigDecimal.valueOf(100.0)))
+                .thenReturn(Flux.just(secondAccount));
+        when(accountProfileCache.get(secondAccountNumber)).thenReturn(Mono.just(AccountProfile.from(secondAccount)));
+        when(transactionOutbox.applyWithTransaction(any(AccountMovement.class), any())).thenReturn(Mono.just(secondAccount));
 
         WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
         withdrawalRequest.setAmount(BigDecimal.valueOf(100.0));
@@ -151,7 +215,7 @@ public class DebitCardServiceImplTest {
 
         StepVerifier.create(balanceMono)
                 .assertNext(balanceResponse -> {
-                    assertEquals(debitCard.getMainLinkedAccountNumber(), balanceResponse.getAccountNumber());
+                    assertEquals(secondAccountNumber, balanceResponse.getAccountNumber());
                     assertEquals(secondAccount.getBalance(), balanceResponse.getBalance());
                     assertEquals(secondAccount.getAccountType().name(), balanceResponse.getAccountType().name());
                 })
@@ -178,7 +242,7 @@ public class DebitCardServiceImplTest {
         transactionResponse.setAccountNumber(debitCard.getMainLinkedAccountNumber());
         transactions.add(transactionResponse);
 
-        when(transactionClient.getTransactionsByAccountNumber(account.getAccountNumber())).thenReturn(Flux.fromIterable(transactions));
+        when(transactionClient.getLatestTransactionsByAccountNumber(account.getAccountNumber(), 10)).thenReturn(Flux.fromIterable(transactions));
 
         Flux<TransactionResponse> transactionsFlux = debitCardServiceImpl.getTransactionsByDebitCardNumberLast10(debitCardNumber);
 
@@ -196,7 +260,7 @@ public class DebitCardServiceImplTest {
     void whenGetAllDebitCards_thenReturnDebitCardList() {
         List<DebitCard> debitCardList = new ArrayList<>();
         debitCardList.add(debitCard);
-        when(debitCardRepository.findAll()).thenReturn(Flux.fromIterable(debitCardList));
+        when(debitCardRepository.findPage(null, null, 0)).thenReturn(Flux.fromIterable(debitCardList));
 
         Flux<DebitCardResponse> debitCardResponseFlux = debitCardServiceImpl.getAllDebitCards();
 
@@ -271,7 +335,7 @@ public class DebitCardServiceImplTest {
         String cardHolderId = "100";
         List<DebitCard> debitCardList = new ArrayList<>();
         debitCardList.add(debitCard);
-        when(debitCardRepository.findByCardHolderId(cardHolderId)).thenReturn(Flux.fromIterable(debitCardList));
+        when(debitCardRepository.findPage(cardHolderId, null, 0)).thenReturn(Flux.fromIterable(debitCardList));
 
         Flux<DebitCardResponse> debitCardResponseFlux = debitCardServiceImpl.getDebitCardsByCardHolderId(cardHolderId);
 
@@ -380,9 +444,9 @@ public class DebitCardServiceImplTest {
     }
 
     @Test
-    void whenWithdrawalByDebitCard_AccountNotFound_ThenReturnError() {
+    void whenWithdrawalByDebitCard_NoLinkedAccountCoversAmount_ThenReturnBadRequest() {
         when(debitCardRepository.findByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCard));
-        when(accountRepository.findByAccountNumber(debitCard.getMainLinkedAccountNumber())).thenReturn(Mono.empty());
+        when(accountRepository.findWithdrawalCandidates(anyCollection(), any(BigDecimal.class))).thenReturn(Flux.empty());
 
         WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
         withdrawalRequest.setAmount(BigDecimal.valueOf(100.0));
@@ -390,9 +454,57 @@ public class DebitCardServiceImplTest {
         Mono<BalanceResponse> balanceMono = debitCardServiceImpl.withdrawByDebitCardNumber(debitCardNumber, withdrawalRequest);
 
         StepVerifier.create(balanceMono)
-                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
-                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.NOT_FOUND)
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException e &&
+                        e.getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        e.getReason().equals("Debit Card does not have enough balance in any of its linked accounts"))
                 .verify();
+        verify(transactionOutbox, never()).applyWithTransaction(any(AccountMovement.class), any());
+    }
+
+    @Test
+    void whenWithdrawalByDebitCard_WithSeveralCandidates_ThenMainAccountFirstAndFallBackWhenRejected() {
+        when(debitCardRepository.findByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCard));
+
+        account = new SavingsAccount();
+        account.setAccountNumber(mainAccountNumber);
+        account.setBalance(BigDecimal.valueOf(1000.0));
+        account.setAccountType(Account.AccountType.SAVINGS);
+        account.setIsCommissionFeeActive(false);
+
+        secondAccount = new SavingsAccount();
+        secondAccount.setAccountNumber(secondAccountNumber);
+        secondAccount.setBalance(BigDecimal.valueOf(1000.0));
+        secondAccount.setAccountType(Account.AccountType.SAVINGS);
+        secondAccount.setIsCommissionFeeActive(false);
+
+        Account drainedAccount = new SavingsAccount();
+        drainedAccount.setAccountNumber(mainAccountNumber);
+        drainedAccount.setBalance(BigDecimal.valueOf(10.0));
+        drainedAccount.setAccountType(Account.AccountType.SAVINGS);
+        drainedAccount.setIsCommissionFeeActive(false);
+
+        // Returned in storage order, the main account is still tried first
+        when(accountRepository.findWithdrawalCandidates(anyCollection(), any(BigDecimal.class)))
+                .thenReturn(Flux.just(secondAccount, account));
+        when(accountProfileCache.get(mainAccountNumber)).thenReturn(Mono.just(AccountProfile.from(account)));
+        when(accountProfileCache.get(secondAccountNumber)).thenReturn(Mono.just(AccountProfile.from(secondAccount)));
+        // The main account is drained between the selection and the debit
+        when(transactionOutbox.applyWithTransaction(argThat(movement -> movement != null
+                && mainAccountNumber.equals(movement.getAccountNumber())), any())).thenReturn(Mono.empty());
+        when(transactionOutbox.applyWithTransaction(argThat(movement -> movement != null
+                && secondAccountNumber.equals(movement.getAccountNumber())), any())).thenReturn(Mono.just(secondAccount));
+        when(accountRepository.findByAccountNumber(mainAccountNumber)).thenReturn(Mono.just(drainedAccount));
+
+        WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
+        withdrawalRequest.setAmount(BigDecimal.valueOf(500.0));
+
+        StepVerifier.create(debitCardServiceImpl.withdrawByDebitCardNumber(debitCardNumber, withdrawalRequest))
+                .assertNext(balanceResponse -> assertEquals(secondAccountNumber, balanceResponse.getAccountNumber()))
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(accountProfileCache);
+        inOrder.verify(accountProfileCache).get(mainAccountNumber);
+        inOrder.verify(accountProfileCache).get(secondAccountNumber);
     }
 
     @Test
@@ -6,6 +6,8 @@ import com.jorge.accounts.model.FixedTermAccount;
 import com.jorge.accounts.model.FixedTermAccountRequest;
 import com.jorge.accounts.model.FixedTermAccountResponse;
 import com.jorge.accounts.repository.FixedTermAccountRepository;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -31,6 +33,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +50,10 @@ public class FixedTermAccountServiceImplTest {
     private CustomerValidation customerValidation;
     @Mock
     private TransactionClient transactionClient; // Mock the dependency for AccountUtils
+    @Mock
+    private AccountProfileCache accountProfileCache;
+    @Mock
+    private BlockNumberAllocator accountNumberAllocator;
 
     @InjectMocks
     private FixedTermAccountServiceImpl fixedTermAccountServiceImpl;
@@ -95,23 +102,23 @@ public class FixedTermAccountServiceImplTest {
         fixedTermAccount.setMovementCommissionFee(BigDecimal.ZERO);
         fixedTermAccount.setAllowedWithdrawal(LocalDate.now().plusMonths(6));
 
-        // Create the real FixedTermAccountMapper instance with the mocked AccountUtils
-        fixedTermAccountMapper = new FixedTermAccountMapper(accountUtils); // Pass the @Mocked accountUtils here
+        // Create the real FixedTermAccountMapper instance
+        fixedTermAccountMapper = new FixedTermAccountMapper();
 
         // Inject the dependencies into the service implementation
         // @InjectMocks would usually handle this if the fields were annotated.
         // Since we are manually creating the mapper, we need to ensure all dependencies are provided.
         // Also, ensure the *mocked* accountUtils is injected into the service.
-        fixedTermAccountServiceImpl = new FixedTermAccountServiceImpl(customerClient, accountUtils, fixedTermAccountRepository, fixedTermAccountMapper, customerValidation);}
+        fixedTermAccountServiceImpl = new FixedTermAccountServiceImpl(customerClient, accountUtils, fixedTermAccountRepository, fixedTermAccountMapper, customerValidation, accountProfileCache, accountNumberAllocator);}
 
     @Test
     void whenCreateFixedTermAccount_WithPersonalCustomer_ThenReturnFixedTermAccountResponse() {
         when(customerClient.getCustomerById(customerId)).thenReturn(Mono.just(personalCustomer));
         when(customerValidation.validateIfCustomerHasOverDueDebt(personalCustomer)).thenReturn(Mono.just(personalCustomer));
         when(customerValidation.personalCustomerValidation(personalCustomer, Account.AccountType.FIXED_TERM)).thenReturn(Mono.empty());
-        when(accountUtils.generateAccountNumber()).thenReturn("98765432109876"); // Mock generateAccountNumber
+        when(accountNumberAllocator.next()).thenReturn(Mono.just("98765432109876"));
         when(fixedTermAccountRepository.save(any(FixedTermAccount.class))).thenReturn(Mono.just(fixedTermAccount));
-        when(accountUtils.handleInitialDeposit(any(FixedTermAccount.class), any(BigDecimal.class))).thenReturn(Mono.just(fixedTermAccount));
+        when(accountUtils.saveWithInitialDeposit(any(), any(BigDecimal.class))).thenReturn(Mono.just(fixedTermAccount));
 
         StepVerifier.create(fixedTermAccountServiceImpl.createFixedTermAccount(fixedTermAccountRequest))
                 .expectNextMatches(response -> response != null &&
@@ -127,9 +134,9 @@ public class FixedTermAccountServiceImplTest {
         when(customerClient.getCustomerById(customerId)).thenReturn(Mono.just(vipCustomer));
         when(customerValidation.validateCreditCardExists(vipCustomer)).thenReturn(Mono.just(vipCustomer));
         when(customerValidation.personalCustomerValidation(vipCustomer, Account.AccountType.FIXED_TERM)).thenReturn(Mono.empty());
-        when(accountUtils.generateAccountNumber()).thenReturn("98765432109876"); // Mock generateAccountNumber
+        when(accountNumberAllocator.next()).thenReturn(Mono.just("98765432109876"));
         when(fixedTermAccountRepository.save(any(FixedTermAccount.class))).thenReturn(Mono.just(fixedTermAccount));
-        when(accountUtils.handleInitialDeposit(any(FixedTermAccount.class), any(BigDecimal.class))).thenReturn(Mono.just(fixedTermAccount));
+        when(accountUtils.saveWithInitialDeposit(any(), any(BigDecimal.class))).thenReturn(Mono.just(fixedTermAccount));
         // No need to mock mapToFixedTermAccountResponse if you expect the real one to be called
 
         StepVerifier.create(fixedTermAccountServiceImpl.createFixedTermAccount(fixedTermAccountRequest))
@@ -256,6 +263,8 @@ public class FixedTermAccountServiceImplTest {
                         response.getMovementCommissionFee().compareTo(BigDecimal.valueOf(0.75)) == 0 &&
                         response.getAllowedWithdrawal().isEqual(LocalDate.now().plusMonths(12)))
                 .verifyComplete();
+
+        verify(accountProfileCache).invalidate(accountNumber);
     }
 
     @Test
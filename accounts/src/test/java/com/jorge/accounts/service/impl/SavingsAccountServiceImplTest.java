@@ -6,6 +6,8 @@ import com.jorge.accounts.model.SavingsAccount;
 import com.jorge.accounts.model.SavingsAccountRequest;
 import com.jorge.accounts.model.SavingsAccountResponse;
 import com.jorge.accounts.repository.SavingsAccountRepository;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.numbering.BlockNumberAllocator;
 import com.jorge.accounts.utils.AccountUtils;
 import com.jorge.accounts.utils.CustomerValidation;
 import com.jorge.accounts.webclient.client.CustomerClient;
@@ -29,6 +31,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +48,10 @@ public class SavingsAccountServiceImplTest {
     private CustomerValidation customerValidation;
     @Mock
     private TransactionClient transactionClient; // Mock the dependency for AccountUtils
+    @Mock
+    private AccountProfileCache accountProfileCache;
+    @Mock
+    private BlockNumberAllocator accountNumberAllocator;
 
     @InjectMocks
     private SavingsAccountServiceImpl savingsAccountServiceImpl;
@@ -93,15 +100,13 @@ public class SavingsAccountServiceImplTest {
         savingsAccount.setMovementCommissionFee(BigDecimal.ZERO);
         savingsAccount.setMonthlyMovementsLimit(20);
 
-        // **Crucial Change:** Create a real instance of SavingsAccountMapper and its dependency
-        // Provide the mocked AccountUtils to the real SavingsAccountMapper constructor
-        AccountUtils realAccountUtils = new AccountUtils(transactionClient); // Create a real AccountUtils with the mocked TransactionClient
-        savingsAccountMapper = new SavingsAccountMapper(realAccountUtils); // Create the real SavingsAccountMapper instance
+        // **Crucial Change:** Create a real instance of SavingsAccountMapper
+        savingsAccountMapper = new SavingsAccountMapper(); // Create the real SavingsAccountMapper instance
 
         // Inject the real (now spied) SavingsAccountMapper into the service
         // Note: @InjectMocks will now inject this manually created instance if the field already exists
         // If we didn't manually create it, @InjectMocks would fail due to the lack of a no-arg constructor.
-        savingsAccountServiceImpl = new SavingsAccountServiceImpl(customerClient, accountUtils, savingsAccountRepository, savingsAccountMapper, customerValidation);
+        savingsAccountServiceImpl = new SavingsAccountServiceImpl(customerClient, accountUtils, savingsAccountRepository, savingsAccountMapper, customerValidation, accountProfileCache, accountNumberAllocator);
     }
 
     @Test
@@ -226,6 +231,8 @@ public class SavingsAccountServiceImplTest {
                         response.getIsCommissionFeeActive() == true &&
                         response.getMovementCommissionFee().compareTo(BigDecimal.valueOf(1.0)) == 0)
                 .verifyComplete();
+
+        verify(accountProfileCache).invalidate(accountNumber);
     }
 
     @Test
@@ -0,0 +1,255 @@
+package com.jorge.accounts.service.impl;
+
+import com.jorge.accounts.model.*;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.service.cache.AccountProfileCache;
+import com.jorge.accounts.service.lane.AccountLaneExecutor;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransferServiceImplTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountDailyBalanceRepository accountDailyBalanceRepository;
+    @Mock
+    private TransactionOutbox transactionOutbox;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private MeterRegistry meterRegistry;
+
+    private TransferServiceImpl transferServiceImpl;
+
+    private String accountNumber;
+    private String receiverAccountNumber;
+    private BigDecimal transferAmount;
+    private TransferRequest transferRequest;
+    private SavingsAccount senderAccount;
+    private SavingsAccount receiverAccount;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transferServiceImpl = new TransferServiceImpl(accountRepository, accountDailyBalanceRepository, transactionOutbox,
+                new AccountLaneExecutor(meterRegistry, 4, Duration.ofSeconds(5), 500),
+                new AccountProfileCache(accountRepository, meterRegistry, 100, Duration.ofMinutes(1)),
+                transactionalOperator, meterRegistry);
+
+        // The operator is a pass-through in unit tests; the atomicity itself is covered by MongoDB
+        lenient().when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(accountDailyBalanceRepository.recordClosingBalance(any(), any(), any())).thenReturn(Mono.empty());
+
+        accountNumber = "12345678901234";
+        receiverAccountNumber = "98765432109876";
+        transferAmount = BigDecimal.valueOf(100.0);
+
+        transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountNumber(receiverAccountNumber);
+        transferRequest.setAmount(transferAmount);
+
+        senderAccount = new SavingsAccount();
+        senderAccount.setId(UUID.randomUUID().toString());
+        senderAccount.setAccountNumber(accountNumber);
+        senderAccount.setCustomerId("customer123");
+        senderAccount.setBalance(BigDecimal.valueOf(1000.0));
+        senderAccount.setAccountType(Account.AccountType.SAVINGS);
+        senderAccount.setMovementsThisMonth(0);
+        senderAccount.setMonthlyMovementsLimit(20);
+        senderAccount.setIsCommissionFeeActive(false);
+        senderAccount.setMovementCommissionFee(BigDecimal.ZERO);
+
+        receiverAccount = new SavingsAccount();
+        receiverAccount.setId(UUID.randomUUID().toString());
+        receiverAccount.setAccountNumber(receiverAccountNumber);
+        receiverAccount.setCustomerId("receiverCustomer");
+        receiverAccount.setBalance(BigDecimal.valueOf(500.0));
+        receiverAccount.setAccountType(Account.AccountType.SAVINGS);
+    }
+
+    @Test
+    void whenTransfer_WithValidSavingsAccounts_ThenApplyBothLegsAndQueueThemTogether() {
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+        when(accountRepository.decreaseBalanceCountingMovement(accountNumber, transferAmount, 20))
+                .thenReturn(Mono.just(senderAccount));
+        when(accountRepository.increaseBalance(receiverAccountNumber, transferAmount))
+                .thenReturn(Mono.just(receiverAccount));
+        when(transactionOutbox.enqueueAll(anyList())).thenAnswer(invocation -> queued(invocation.getArgument(0)));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectNextMatches(response -> response.getId().equals("entry-0") &&
+                        response.getAccountNumber().equals(accountNumber) &&
+                        response.getTransactionType() == TransactionResponse.TransactionTypeEnum.DEBIT)
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionOutbox).enqueueAll(captor.capture());
+        List<TransactionRequest> legs = captor.getValue();
+        assertEquals(2, legs.size());
+        assertEquals(accountNumber, legs.get(0).getAccountNumber());
+        assertEquals(TransactionRequest.TransactionType.DEBIT, legs.get(0).getTransactionType());
+        assertEquals(receiverAccountNumber, legs.get(1).getAccountNumber());
+        assertEquals(TransactionRequest.TransactionType.CREDIT, legs.get(1).getTransactionType());
+        // Each leg carries the balance the transfer left its account with
+        assertEquals(senderAccount.getBalance(), legs.get(0).getBalanceAfter());
+        assertEquals(receiverAccount.getBalance(), legs.get(1).getBalanceAfter());
+        assertEquals(0, receiverAccount.getBalance().subtract(transferAmount).compareTo(legs.get(1).getBalanceBefore()));
+
+        assertEquals(1, meterRegistry.get("accounts.transfer").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("accounts.transfer.commit").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void whenTransfer_WithCheckingSenderAndActiveFee_ThenDebitAmountPlusFee() {
+        CheckingAccount checkingSender = new CheckingAccount();
+        checkingSender.setAccountNumber(accountNumber);
+        checkingSender.setBalance(BigDecimal.valueOf(1000.0));
+        checkingSender.setAccountType(Account.AccountType.CHECKING);
+        checkingSender.setIsCommissionFeeActive(true);
+        checkingSender.setMovementCommissionFee(BigDecimal.valueOf(5));
+
+        BigDecimal totalDeduction = transferAmount.add(BigDecimal.valueOf(5));
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(checkingSender));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+        when(accountRepository.decreaseBalance(accountNumber, totalDeduction)).thenReturn(Mono.just(checkingSender));
+        when(accountRepository.increaseBalance(receiverAccountNumber, transferAmount)).thenReturn(Mono.just(receiverAccount));
+        when(transactionOutbox.enqueueAll(anyList())).thenAnswer(invocation -> queued(invocation.getArgument(0)));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectNextMatches(response -> response.getId().equals("entry-0"))
+                .verifyComplete();
+
+        verify(accountRepository).decreaseBalance(accountNumber, totalDeduction);
+    }
+
+    @Test
+    void whenTransfer_WithWriteConflictOnReceiver_ThenRunTheMongoTransactionAgain() {
+        MongoException writeConflict = new MongoException(112, "WriteConflict");
+        writeConflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+        when(accountRepository.decreaseBalanceCountingMovement(accountNumber, transferAmount, 20))
+                .thenReturn(Mono.just(senderAccount));
+        when(accountRepository.increaseBalance(receiverAccountNumber, transferAmount))
+                .thenReturn(Mono.error(writeConflict), Mono.just(receiverAccount));
+        when(transactionOutbox.enqueueAll(anyList())).thenAnswer(invocation -> queued(invocation.getArgument(0)));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectNextMatches(response -> response.getId().equals("entry-0"))
+                .verifyComplete();
+
+        verify(accountRepository, times(2)).increaseBalance(receiverAccountNumber, transferAmount);
+    }
+
+    @Test
+    void whenTransfer_WithConcurrentDebitLost_ThenThrowConflictAndDoNotCredit() {
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+        when(accountRepository.decreaseBalanceCountingMovement(accountNumber, transferAmount, 20))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+
+        verify(accountRepository, never()).increaseBalance(any(), any());
+        verify(transactionOutbox, never()).enqueueAll(anyList());
+        assertEquals(1, meterRegistry.get("accounts.transfer").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void whenTransfer_WithInsufficientFunds_ThenThrowBadRequestException() {
+        senderAccount.setBalance(BigDecimal.valueOf(50.0));
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        verify(accountRepository, never()).decreaseBalanceCountingMovement(any(), any(), eq(20));
+    }
+
+    @Test
+    void whenTransfer_WithFixedTermSender_ThenThrowBadRequestException() {
+        FixedTermAccount fixedTermSender = new FixedTermAccount();
+        fixedTermSender.setAccountNumber(accountNumber);
+        fixedTermSender.setAccountType(Account.AccountType.FIXED_TERM);
+        fixedTermSender.setAllowedWithdrawal(LocalDate.now().minusDays(1));
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(fixedTermSender));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(receiverAccount));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        ((ResponseStatusException) throwable).getReason().equals("Fixed Term accounts cannot initiate transfers."))
+                .verify();
+    }
+
+    @Test
+    void whenTransfer_ToFixedTermReceiver_ThenThrowBadRequestException() {
+        FixedTermAccount fixedTermReceiver = new FixedTermAccount();
+        fixedTermReceiver.setAccountNumber(receiverAccountNumber);
+        fixedTermReceiver.setAccountType(Account.AccountType.FIXED_TERM);
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Mono.just(senderAccount));
+        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(Mono.just(fixedTermReceiver));
+
+        StepVerifier.create(transferServiceImpl.transfer(accountNumber, transferRequest))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
+                        ((ResponseStatusException) throwable).getReason().equals("Cannot transfer to a Fixed Term account."))
+                .verify();
+    }
+
+    // The outbox emits the entries it saved, in order
+    private static Flux<TransactionOutboxEntry> queued(List<TransactionRequest> transactionRequests) {
+        return Flux.range(0, transactionRequests.size())
+                .map(i -> TransactionOutboxEntry.builder()
+                        .id("entry-" + i)
+                        .transaction(transactionRequests.get(i))
+                        .createdAt(LocalDateTime.now())
+                        .build());
+    }
+}
@@ -0,0 +1,218 @@
+package com.jorge.accounts.service.lane;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import com.jorge.idempotency.NotAppliedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class AccountLaneExecutorTest {
+    private static final int OPERATIONS = 1000;
+    private static final int CONCURRENCY = 64;
+
+    private MeterRegistry meterRegistry;
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountLaneExecutor = new AccountLaneExecutor(meterRegistry, 16, Duration.ofSeconds(5), 500);
+    }
+
+    @Test
+    void whenExecute_OnSameAccount_ThenOperationsNeverOverlap() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Flux.range(0, 200)
+                .flatMap(i -> accountLaneExecutor.execute("ACC-1", () -> Mono.fromRunnable(() ->
+                                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                                .then(Mono.delay(Duration.ofMillis(1)))
+                                .doOnTerminate(running::decrementAndGet)),
+                        CONCURRENCY)
+                .blockLast(Duration.ofSeconds(30));
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, accountLaneExecutor.depth("ACC-1"));
+    }
+
+    @Test
+    void whenExecute_OnDifferentLanes_ThenOperationsRunInParallel() {
+        String first = "ACC-1";
+        String second = findAccountOnAnotherLane(first);
+
+        long start = System.nanoTime();
+        Mono.zip(
+                accountLaneExecutor.execute(first, () -> Mono.delay(Duration.ofMillis(300))),
+                accountLaneExecutor.execute(second, () -> Mono.delay(Duration.ofMillis(300)))
+        ).block(Duration.ofSeconds(5));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 550, "Lanes did not run in parallel, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void whenExecute_WithFailingOperation_ThenErrorIsPropagatedAndLaneKeepsWorking() {
+        StepVerifier.create(accountLaneExecutor.execute("ACC-1", () -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(accountLaneExecutor.execute("ACC-1", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    void whenExecute_WithEmptyOperation_ThenCompleteEmpty() {
+        StepVerifier.create(accountLaneExecutor.execute("ACC-1", Mono::empty))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenExecute_WithStuckOperation_ThenLaneIsHeldAndNewOperationsAreRejected() {
+        AccountLaneExecutor shortTimeoutExecutor = new AccountLaneExecutor(meterRegistry, 1, Duration.ofMillis(100), 500);
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Sinks.Empty<Void> release = Sinks.empty();
+
+        Mono<String> slow = shortTimeoutExecutor.execute("ACC-1", () -> Mono.fromRunnable(() ->
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                .then(release.asMono())
+                .thenReturn("slow")
+                .doOnCancel(cancelled::incrementAndGet)
+                .doOnTerminate(running::decrementAndGet));
+        Mono<String> queued = shortTimeoutExecutor.execute("ACC-2", () -> Mono.fromRunnable(() ->
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                .thenReturn("queued")
+                .doOnTerminate(running::decrementAndGet));
+        Mono<String> both = Mono.zip(slow, queued, (first, second) -> first + "," + second).cache();
+        both.subscribe();
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(200))
+                        .then(shortTimeoutExecutor.execute("ACC-3", () -> Mono.just("late"))))
+                .expectErrorMatches(e -> e instanceof NotAppliedException ex
+                        && ex.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+
+        release.tryEmitEmpty();
+        StepVerifier.create(both)
+                .expectNext("slow,queued")
+                .verifyComplete();
+        StepVerifier.create(shortTimeoutExecutor.execute("ACC-3", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertEquals(0, cancelled.get());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void whenExecute_OnFullLane_ThenRejectWithTooManyRequests() {
+        AccountLaneExecutor boundedExecutor = new AccountLaneExecutor(meterRegistry, 1, Duration.ofSeconds(5), 1);
+        Sinks.Empty<Void> release = Sinks.empty();
+        boundedExecutor.execute("ACC-1", release::asMono).subscribe();
+
+        StepVerifier.create(boundedExecutor.execute("ACC-1", () -> Mono.just("ok")))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+                .verify();
+
+        release.tryEmitEmpty();
+        StepVerifier.create(boundedExecutor.execute("ACC-1", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    void whenExecute_ThenLaneDepthGaugesAreRegistered() {
+        assertEquals(16, meterRegistry.find("accounts.lane.depth").gauges().size());
+
+        accountLaneExecutor.execute("ACC-1", () -> Mono.just(1)).block(Duration.ofSeconds(5));
+
+        double totalDepth = meterRegistry.find("accounts.lane.depth").gauges().stream()
+                .mapToDouble(gauge -> gauge.value())
+                .sum();
+        assertEquals(0.0, totalDepth);
+        assertEquals(1, meterRegistry.get("accounts.lane.wait").timer().count());
+    }
+
+    // Contention benchmark: a read-modify-write with an async gap between the read and the write, the same shape as
+    // findByAccountNumber -> validate -> save. Without lanes concurrent movements overwrite each other.
+    @Test
+    void benchmarkReadModifyWrite_WithAndWithoutLanes() {
+        Result unordered = runReadModifyWrite(1, (accountNumber, operation) -> operation.get());
+        Result hotAccount = runReadModifyWrite(1, accountLaneExecutor::execute);
+        Result spreadAccounts = runReadModifyWrite(64, accountLaneExecutor::execute);
+
+        log.info("Read-modify-write without lanes, 1 account: {} ops/s, {} lost updates",
+                unordered.opsPerSecond(), unordered.lostUpdates());
+        log.info("Read-modify-write with lanes, 1 account: {} ops/s, {} lost updates",
+                hotAccount.opsPerSecond(), hotAccount.lostUpdates());
+        log.info("Read-modify-write with lanes, 64 accounts: {} ops/s, {} lost updates",
+                spreadAccounts.opsPerSecond(), spreadAccounts.lostUpdates());
+
+        assertTrue(unordered.lostUpdates() > 0, "Expected lost updates without lanes");
+        assertEquals(0, hotAccount.lostUpdates());
+        assertEquals(0, spreadAccounts.lostUpdates());
+    }
+
+    private Result runReadModifyWrite(int accounts,
+                                      BiFunction<String, java.util.function.Supplier<Mono<Integer>>, Mono<Integer>> executor) {
+        Map<String, Integer> balances = new ConcurrentHashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            balances.put("ACC-" + i, 0);
+        }
+
+        long start = System.nanoTime();
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> {
+                    String accountNumber = "ACC-" + (i % accounts);
+                    return executor.apply(accountNumber, () -> Mono.fromCallable(() -> balances.get(accountNumber))
+                            // Stands in for the round trip between the read and the save
+                            .delayElement(Duration.ofMillis(1))
+                            .map(balance -> {
+                                balances.put(accountNumber, balance + 1);
+                                return balance + 1;
+                            }));
+                }, CONCURRENCY)
+                .blockLast(Duration.ofSeconds(60));
+        long elapsedNanos = System.nanoTime() - start;
+
+        int applied = balances.values().stream().mapToInt(Integer::intValue).sum();
+        return new Result(OPERATIONS * 1_000_000_000L / Math.max(elapsedNanos, 1), OPERATIONS - applied);
+    }
+
+    private String findAccountOnAnotherLane(String accountNumber) {
+        for (int i = 2; ; i++) {
+            String candidate = "ACC-" + i;
+            AtomicInteger probe = new AtomicInteger();
+            // Two accounts share a lane when an operation queued on one shows up in the depth of the other
+            accountLaneExecutor.execute(candidate, () -> Mono.fromRunnable(() -> probe.set(accountLaneExecutor.depth(accountNumber))))
+                    .block(Duration.ofSeconds(5));
+            if (probe.get() == 0) {
+                return candidate;
+            }
+        }
+    }
+
+    private record Result(long opsPerSecond, int lostUpdates) {
+    }
+}
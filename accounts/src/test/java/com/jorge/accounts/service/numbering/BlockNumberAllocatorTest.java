@@ -0,0 +1,122 @@
+package com.jorge.accounts.service.numbering;
+
+import com.jorge.accounts.repository.NumberSequenceRepository;
+import com.jorge.accounts.utils.Luhn;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@Slf4j
+public class BlockNumberAllocatorTest {
+    private static final String SEQUENCE = "account-number";
+    private static final int WORKERS = 8;
+
+    @Mock
+    private NumberSequenceRepository numberSequenceRepository;
+
+    @Test
+    void whenNext_ThenReturnPrefixedSequentialNumbersWithLuhnCheckDigit() {
+        when(numberSequenceRepository.reserveBlock(SEQUENCE)).thenReturn(Mono.just(0L), Mono.just(1L));
+        BlockNumberAllocator allocator = new BlockNumberAllocator(numberSequenceRepository, SEQUENCE, "100", 14, 2);
+
+        List<String> numbers = Flux.range(0, 3).concatMap(i -> allocator.next()).collectList().block();
+
+        assertEquals(List.of("1000000000000" + Luhn.checkDigit("1000000000000"),
+                "1000000000001" + Luhn.checkDigit("1000000000001"),
+                "1000000000002" + Luhn.checkDigit("1000000000002")), numbers);
+        numbers.forEach(number -> {
+            assertEquals(14, number.length());
+            assertTrue(Luhn.isValid(number));
+        });
+        // Block size 2: the third number needs a second block
+        verify(numberSequenceRepository, times(2)).reserveBlock(SEQUENCE);
+    }
+
+    @Test
+    void whenLuhn_ThenMatchKnownCheckDigitsAndDetectTypos() {
+        assertEquals(3, Luhn.checkDigit("7992739871"));
+        assertTrue(Luhn.isValid("79927398713"));
+        assertFalse(Luhn.isValid("79927398718"));
+        assertFalse(Luhn.isValid("79927938713"));
+        assertFalse(Luhn.isValid("7992739871a"));
+    }
+
+    @Test
+    void whenReservationFails_ThenErrorIsNotCachedAndNextCallRetries() {
+        when(numberSequenceRepository.reserveBlock(SEQUENCE))
+                .thenReturn(Mono.error(new IllegalStateException("Mongo unavailable")), Mono.just(0L));
+        BlockNumberAllocator allocator = new BlockNumberAllocator(numberSequenceRepository, SEQUENCE, "100", 14, 10);
+
+        StepVerifier.create(allocator.next())
+                .expectErrorMessage("Mongo unavailable")
+                .verify();
+        StepVerifier.create(allocator.next())
+                .expectNextMatches(Luhn::isValid)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenSeriesIsExhausted_ThenFailInsteadOfReusingNumbers() {
+        when(numberSequenceRepository.reserveBlock(SEQUENCE)).thenReturn(Mono.just(10L));
+        // Two sequence digits hold 100 numbers, block 10 of size 10 would start at 100
+        BlockNumberAllocator allocator = new BlockNumberAllocator(numberSequenceRepository, SEQUENCE, "9", 4, 10);
+
+        StepVerifier.create(allocator.next())
+                .expectErrorMessage("Number series account-number is exhausted")
+                .verify();
+    }
+
+    @Test
+    void whenSeriesDoesNotFitLength_ThenRejectConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BlockNumberAllocator(numberSequenceRepository, SEQUENCE, "12345", 6, 10));
+    }
+
+    @Test
+    void whenAllocatingConcurrently_ThenNumbersAreUniqueAndOneReservationPerBlock() {
+        int numbers = 200_000;
+        int blockSize = 1_000;
+        AtomicLong nextBlock = new AtomicLong();
+        // Simulates the round trip of the findAndModify that reserves a block
+        when(numberSequenceRepository.reserveBlock(SEQUENCE)).thenAnswer(invocation ->
+                Mono.fromCallable(nextBlock::getAndIncrement).delayElement(Duration.ofMillis(1)));
+        BlockNumberAllocator allocator = new BlockNumberAllocator(numberSequenceRepository, SEQUENCE, "100", 14, blockSize);
+        Set<String> allocated = ConcurrentHashMap.newKeySet();
+
+        long start = System.nanoTime();
+        // One allocation loop per worker, all of them drawing from the same blocks
+        Flux.range(0, WORKERS)
+                .flatMap(worker -> Flux.range(0, numbers / WORKERS)
+                        .concatMap(i -> allocator.next())
+                        .subscribeOn(Schedulers.parallel()))
+                .doOnNext(allocated::add)
+                .blockLast(Duration.ofSeconds(30));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        log.info("Allocated {} numbers in {} ms ({} numbers/s) with {} block reservations",
+                numbers, elapsed.toMillis(), numbers * 1_000L / Math.max(1, elapsed.toMillis()), nextBlock.get());
+        assertEquals(numbers, allocated.size());
+        assertEquals(numbers / blockSize, nextBlock.get());
+    }
+}
@@ -0,0 +1,193 @@
+package com.jorge.accounts.service.outbox;
+
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import com.jorge.accounts.model.TransactionResponse;
+import com.jorge.accounts.repository.TransactionOutboxRepository;
+import com.jorge.accounts.webclient.client.TransactionClient;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionOutboxRelayTest {
+    @Mock
+    private TransactionOutboxRepository transactionOutboxRepository;
+    @Mock
+    private TransactionClient transactionClient;
+
+    private MeterRegistry meterRegistry;
+    private TransactionOutboxRelay transactionOutboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionOutboxRelay = new TransactionOutboxRelay(transactionOutboxRepository, transactionClient, meterRegistry,
+                Duration.ofSeconds(1), 2, 3, Duration.ofSeconds(30), Duration.ofMinutes(5));
+
+        lenient().when(transactionOutboxRepository.countByStatus(TransactionOutboxEntry.OutboxStatus.PENDING))
+                .thenReturn(Mono.just(0L));
+        lenient().when(transactionOutboxRepository.findFirstByStatusOrderByCreatedAtAsc(TransactionOutboxEntry.OutboxStatus.PENDING))
+                .thenReturn(Mono.empty());
+    }
+
+    @Test
+    void whenDrain_WithPendingEntries_ThenRelayFullBatchesAndDeleteThem() {
+        TransactionOutboxEntry first = entry("1", 0);
+        TransactionOutboxEntry second = entry("2", 0);
+        TransactionOutboxEntry third = entry("3", 0);
+
+        // Batch size is 2: a full batch triggers another claim, the partial one ends the drain
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any()))
+                .thenReturn(Flux.just(first, second), Flux.just(third));
+        when(transactionClient.createTransactions(anyList())).thenReturn(Flux.just(new TransactionResponse()));
+        when(transactionOutboxRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(transactionOutboxRepository).deleteAllById(List.of("1", "2"));
+        verify(transactionOutboxRepository).deleteAllById(List.of("3"));
+        assertEquals(3.0, meterRegistry.get("accounts.outbox.relayed").counter().count());
+    }
+
+    @Test
+    void whenDrain_ThenEachRecordCarriesItsEntryIdAsProducerId() {
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any()))
+                .thenReturn(Flux.just(entry("1", 0)));
+        when(transactionClient.createTransactions(anyList())).thenReturn(Flux.just(new TransactionResponse()));
+        when(transactionOutboxRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // A redelivery after a lost response repeats the id, so the transaction service skips it
+        verify(transactionClient).createTransactions(argThat(requests -> requests.size() == 1
+                && "1".equals(requests.get(0).getId())));
+    }
+
+    @Test
+    void whenDrain_AfterBackoff_ThenEachRecordKeepsItsCommitTime() {
+        TransactionOutboxEntry entry = entry("1", 3);
+        LocalDateTime committedAt = LocalDateTime.now().minusDays(1);
+        entry.setCreatedAt(committedAt);
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any())).thenReturn(Flux.just(entry));
+        when(transactionClient.createTransactions(anyList())).thenReturn(Flux.just(new TransactionResponse()));
+        when(transactionOutboxRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(transactionClient).createTransactions(argThat(requests -> requests.size() == 1
+                && committedAt.equals(requests.get(0).getCreatedAt())));
+    }
+
+    @Test
+    void whenDrain_WithTransactionServiceDown_ThenScheduleRetryWithBackoff() {
+        TransactionOutboxEntry entry = entry("1", 0);
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any())).thenReturn(Flux.just(entry));
+        when(transactionClient.createTransactions(anyList())).thenReturn(Flux.error(
+                new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable")));
+        when(transactionOutboxRepository.saveAll(anyList())).thenReturn(Flux.just(entry));
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(transactionOutboxRepository, never()).deleteAllById(anyList());
+        assertEquals(1, entry.getAttempts());
+        assertEquals(TransactionOutboxEntry.OutboxStatus.PENDING, entry.getStatus());
+        assertNull(entry.getLeaseOwner());
+        assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(1.0, meterRegistry.get("accounts.outbox.failed.attempts").counter().count());
+    }
+
+    @Test
+    void whenDrain_WithLastAttemptFailing_ThenMarkEntryAsFailed() {
+        TransactionOutboxEntry entry = entry("1", 2);
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any())).thenReturn(Flux.just(entry));
+        when(transactionClient.createTransactions(anyList())).thenReturn(Flux.error(new RuntimeException("boom")));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionOutboxEntry>> captor = ArgumentCaptor.forClass(List.class);
+        when(transactionOutboxRepository.saveAll(captor.capture())).thenReturn(Flux.just(entry));
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertEquals(TransactionOutboxEntry.OutboxStatus.FAILED, captor.getValue().get(0).getStatus());
+        assertEquals(1.0, meterRegistry.get("accounts.outbox.dead").counter().count());
+    }
+
+    @Test
+    void whenDrain_ThenRefreshLagMetrics() {
+        TransactionOutboxEntry oldest = entry("1", 0);
+        oldest.setCreatedAt(LocalDateTime.now().minusSeconds(90));
+        when(transactionOutboxRepository.claimBatch(anyString(), anyInt(), any())).thenReturn(Flux.empty());
+        when(transactionOutboxRepository.countByStatus(TransactionOutboxEntry.OutboxStatus.PENDING)).thenReturn(Mono.just(7L));
+        when(transactionOutboxRepository.findFirstByStatusOrderByCreatedAtAsc(TransactionOutboxEntry.OutboxStatus.PENDING))
+                .thenReturn(Mono.just(oldest));
+
+        StepVerifier.create(transactionOutboxRelay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertEquals(7.0, meterRegistry.get("accounts.outbox.pending").gauge().value());
+        assertTrue(meterRegistry.get("accounts.outbox.lag.seconds").gauge().value() >= 90.0);
+    }
+
+    @Test
+    void whenBackoff_ThenGrowExponentiallyUpToMax() {
+        assertEquals(Duration.ofSeconds(2), transactionOutboxRelay.backoff(1));
+        assertEquals(Duration.ofSeconds(8), transactionOutboxRelay.backoff(3));
+        assertEquals(Duration.ofMinutes(5), transactionOutboxRelay.backoff(15));
+    }
+
+    private TransactionOutboxEntry entry(String id, int attempts) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setAccountNumber("ACC-" + id);
+        transactionRequest.setAmount(BigDecimal.TEN);
+        transactionRequest.setFee(BigDecimal.ZERO);
+        transactionRequest.setTransactionType(TransactionRequest.TransactionType.DEPOSIT);
+        return TransactionOutboxEntry.builder()
+                .id(id)
+                .transaction(transactionRequest)
+                .status(TransactionOutboxEntry.OutboxStatus.PENDING)
+                .attempts(attempts)
+                .leaseOwner("relay")
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
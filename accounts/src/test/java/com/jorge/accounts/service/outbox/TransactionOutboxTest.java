@@ -0,0 +1,104 @@
+package com.jorge.accounts.service.outbox;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountMovement;
+import com.jorge.accounts.model.SavingsAccount;
+import com.jorge.accounts.model.TransactionOutboxEntry;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.TransactionOutboxRepository;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionOutboxTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountDailyBalanceRepository accountDailyBalanceRepository;
+    @Mock
+    private TransactionOutboxRepository transactionOutboxRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @InjectMocks
+    private TransactionOutbox transactionOutbox;
+
+    private AccountMovement movement;
+
+    @BeforeEach
+    void setUp() {
+        movement = AccountMovement.builder()
+                .accountNumber("12345678901234")
+                .direction(AccountMovement.Direction.CREDIT)
+                .amount(BigDecimal.valueOf(100))
+                .commissionFee(BigDecimal.valueOf(5))
+                .countMovement(true)
+                .maxMovementsFeeFreeThisMonth(5)
+                .build();
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void whenApplyWithTransaction_ThenApplyMovementQueueEntryAndSnapshotInOneTransaction() {
+        Account updatedAccount = new SavingsAccount();
+        updatedAccount.setAccountNumber("12345678901234");
+        updatedAccount.setBalance(BigDecimal.valueOf(595));
+        updatedAccount.setIsCommissionFeeActive(true);
+
+        when(accountRepository.applyMovement(movement)).thenReturn(Mono.just(updatedAccount));
+        ArgumentCaptor<TransactionOutboxEntry> captor = ArgumentCaptor.forClass(TransactionOutboxEntry.class);
+        when(transactionOutboxRepository.save(captor.capture())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(accountDailyBalanceRepository.recordClosingBalance("12345678901234", LocalDate.now(), BigDecimal.valueOf(595)))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionOutbox.applyWithTransaction(movement, account -> depositRequest(account)))
+                .expectNext(updatedAccount)
+                .verifyComplete();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        TransactionOutboxEntry entry = captor.getValue();
+        // Built from the updated account, so it carries the fee the update charged
+        assertEquals(BigDecimal.valueOf(5), entry.getTransaction().getFee());
+        assertEquals(TransactionOutboxEntry.OutboxStatus.PENDING, entry.getStatus());
+        assertEquals(0, entry.getAttempts());
+    }
+
+    @Test
+    void whenApplyWithTransaction_WithRejectedMovement_ThenReturnEmptyAndQueueNothing() {
+        when(accountRepository.applyMovement(movement)).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionOutbox.applyWithTransaction(movement, account -> depositRequest(account)))
+                .verifyComplete();
+
+        verify(transactionOutboxRepository, never()).save(any(TransactionOutboxEntry.class));
+        verify(accountDailyBalanceRepository, never()).recordClosingBalance(anyString(), any(LocalDate.class), any(BigDecimal.class));
+    }
+
+    private TransactionRequest depositRequest(Account account) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setAccountNumber(account.getAccountNumber());
+        transactionRequest.setAmount(BigDecimal.valueOf(100));
+        transactionRequest.setTransactionType(TransactionRequest.TransactionType.DEPOSIT);
+        transactionRequest.setFee(account.getIsCommissionFeeActive() ? BigDecimal.valueOf(5) : BigDecimal.ZERO);
+        return transactionRequest;
+    }
+}
@@ -0,0 +1,191 @@
+package com.jorge.accounts.service.rollover;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.AccountRolloverCheckpoint;
+import com.jorge.accounts.model.CheckingAccount;
+import com.jorge.accounts.model.SavingsAccount;
+import com.jorge.accounts.repository.AccountDailyBalanceRepository;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.AccountRolloverCheckpointRepository;
+import com.jorge.accounts.service.outbox.TransactionOutbox;
+import com.jorge.accounts.webclient.dto.request.TransactionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MonthlyRolloverJobTest {
+    private static final YearMonth PERIOD = YearMonth.of(2026, 10);
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountDailyBalanceRepository accountDailyBalanceRepository;
+    @Mock
+    private AccountRolloverCheckpointRepository accountRolloverCheckpointRepository;
+    @Mock
+    private TransactionOutbox transactionOutbox;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private MeterRegistry meterRegistry;
+    private MonthlyRolloverJob monthlyRolloverJob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monthlyRolloverJob = new MonthlyRolloverJob(accountRepository, accountDailyBalanceRepository,
+                accountRolloverCheckpointRepository, transactionOutbox, transactionalOperator, meterRegistry,
+                2, Duration.ofMinutes(2));
+
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(transactionOutbox.enqueueAll(anyList())).thenReturn(Flux.empty());
+        lenient().when(accountDailyBalanceRepository.recordClosingBalances(any(LocalDate.class), anyMap())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void whenRollOver_ThenResetEveryPageChargeMaintenanceFeesAndComplete() {
+        SavingsAccount savingsAccount = savingsAccount("1");
+        CheckingAccount fundedCheckingAccount = checkingAccount("2", BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        CheckingAccount emptyCheckingAccount = checkingAccount("3", BigDecimal.valueOf(5), BigDecimal.valueOf(10));
+
+        when(accountRolloverCheckpointRepository.claim(eq("2026-10"), anyString(), any()))
+                .thenReturn(Mono.just(checkpoint(null, 0, 0)));
+        // Page size is 2: two full pages, then the empty page that ends the rollover
+        when(accountRepository.findRolloverPage(isNull(), eq(2))).thenReturn(Flux.just(savingsAccount, fundedCheckingAccount));
+        when(accountRepository.findRolloverPage(eq("2"), eq(2))).thenReturn(Flux.just(emptyCheckingAccount));
+        when(accountRepository.findRolloverPage(eq("3"), eq(2))).thenReturn(Flux.empty());
+        when(accountRepository.rollOverAccounts(anyList(), anyMap())).thenReturn(Mono.empty());
+        when(accountRolloverCheckpointRepository.advance(eq("2026-10"), anyString(), eq("2"), eq(2), eq(1), any()))
+                .thenReturn(Mono.just(checkpoint("2", 2, 1)));
+        when(accountRolloverCheckpointRepository.advance(eq("2026-10"), anyString(), eq("3"), eq(1), eq(0), any()))
+                .thenReturn(Mono.just(checkpoint("3", 3, 1)));
+        AccountRolloverCheckpoint completed = checkpoint("3", 3, 1);
+        completed.setStatus(AccountRolloverCheckpoint.RolloverStatus.COMPLETED);
+        when(accountRolloverCheckpointRepository.complete(eq("2026-10"), anyString())).thenReturn(Mono.just(completed));
+
+        StepVerifier.create(monthlyRolloverJob.rollOver(PERIOD))
+                .expectNext(completed)
+                .verifyComplete();
+
+        verify(accountRepository).rollOverAccounts(List.of("1", "2"), Map.of("2", BigDecimal.valueOf(10)));
+        verify(accountRepository).rollOverAccounts(List.of("3"), Map.of());
+        verify(accountDailyBalanceRepository).recordClosingBalances(LocalDate.now(), Map.of("acc-2", BigDecimal.valueOf(90)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionOutbox, times(2)).enqueueAll(captor.capture());
+        TransactionRequest feeTransaction = captor.getAllValues().get(0).get(0);
+        assertEquals("acc-2", feeTransaction.getAccountNumber());
+        assertEquals(TransactionRequest.TransactionType.MAINTENANCE_FEE, feeTransaction.getTransactionType());
+        assertEquals(BigDecimal.valueOf(10), feeTransaction.getFee());
+        assertEquals("Maintenance fee for 2026-09", feeTransaction.getDescription());
+        assertTrue(captor.getAllValues().get(1).isEmpty());
+
+        assertEquals(3.0, meterRegistry.get("accounts.rollover.accounts").counter().count());
+        assertEquals(1.0, meterRegistry.get("accounts.rollover.maintenance.fees.charged").counter().count());
+        assertEquals(1.0, meterRegistry.get("accounts.rollover.maintenance.fees.skipped").counter().count());
+    }
+
+    @Test
+    void whenRollOver_WithResumedCheckpoint_ThenContinueAfterLastAccount() {
+        when(accountRolloverCheckpointRepository.claim(eq("2026-10"), anyString(), any()))
+                .thenReturn(Mono.just(checkpoint("2", 2, 1)));
+        when(accountRepository.findRolloverPage(eq("2"), eq(2))).thenReturn(Flux.empty());
+        AccountRolloverCheckpoint completed = checkpoint("2", 2, 1);
+        when(accountRolloverCheckpointRepository.complete(eq("2026-10"), anyString())).thenReturn(Mono.just(completed));
+
+        StepVerifier.create(monthlyRolloverJob.rollOver(PERIOD))
+                .expectNext(completed)
+                .verifyComplete();
+
+        verify(accountRepository, never()).findRolloverPage(isNull(), anyInt());
+        verify(accountRepository, never()).rollOverAccounts(anyList(), anyMap());
+    }
+
+    @Test
+    void whenRollOver_WithPeriodNotClaimable_ThenDoNothing() {
+        when(accountRolloverCheckpointRepository.claim(eq("2026-10"), anyString(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(monthlyRolloverJob.rollOver(PERIOD))
+                .verifyComplete();
+
+        verify(accountRepository, never()).findRolloverPage(any(), anyInt());
+    }
+
+    @Test
+    void whenRollOver_WithLeaseLost_ThenStopWithoutCompleting() {
+        when(accountRolloverCheckpointRepository.claim(eq("2026-10"), anyString(), any()))
+                .thenReturn(Mono.just(checkpoint(null, 0, 0)));
+        when(accountRepository.findRolloverPage(isNull(), eq(2))).thenReturn(Flux.just(savingsAccount("1")));
+        when(accountRepository.rollOverAccounts(anyList(), anyMap())).thenReturn(Mono.empty());
+        when(accountRolloverCheckpointRepository.advance(eq("2026-10"), anyString(), eq("1"), eq(1), eq(0), any()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(monthlyRolloverJob.rollOver(PERIOD))
+                .verifyComplete();
+
+        verify(accountRolloverCheckpointRepository, never()).complete(anyString(), anyString());
+        assertEquals(0.0, meterRegistry.get("accounts.rollover.accounts").counter().count());
+    }
+
+    private AccountRolloverCheckpoint checkpoint(String lastAccountId, long processedAccounts, long chargedMaintenanceFees) {
+        return AccountRolloverCheckpoint.builder()
+                .period("2026-10")
+                .status(AccountRolloverCheckpoint.RolloverStatus.RUNNING)
+                .lastAccountId(lastAccountId)
+                .processedAccounts(processedAccounts)
+                .chargedMaintenanceFees(chargedMaintenanceFees)
+                .build();
+    }
+
+    private SavingsAccount savingsAccount(String id) {
+        SavingsAccount account = new SavingsAccount();
+        account.setId(id);
+        account.setAccountNumber("acc-" + id);
+        account.setAccountType(Account.AccountType.SAVINGS);
+        account.setBalance(BigDecimal.valueOf(500));
+        return account;
+    }
+
+    private CheckingAccount checkingAccount(String id, BigDecimal balance, BigDecimal maintenanceFee) {
+        CheckingAccount account = new CheckingAccount();
+        account.setId(id);
+        account.setAccountNumber("acc-" + id);
+        account.setAccountType(Account.AccountType.CHECKING);
+        account.setBalance(balance);
+        account.setMaintenanceFee(maintenanceFee);
+        return account;
+    }
+}
@@ -0,0 +1,181 @@
+package com.jorge.accounts.utils;
+
+import com.jorge.accounts.model.Account;
+import com.jorge.accounts.model.CustomerCreditStatus;
+import com.jorge.accounts.repository.AccountRepository;
+import com.jorge.accounts.repository.CustomerCreditStatusRepository;
+import com.jorge.accounts.webclient.client.CreditClient;
+import com.jorge.accounts.webclient.dto.response.CreditCardResponse;
+import com.jorge.accounts.webclient.dto.response.CreditResponse;
+import com.jorge.accounts.webclient.dto.response.CustomerResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerValidationTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CustomerCreditStatusRepository customerCreditStatusRepository;
+    @Mock
+    private CreditClient creditClient;
+    @InjectMocks
+    private CustomerValidation customerValidation;
+
+    private CustomerResponse customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new CustomerResponse();
+        customer.setId(UUID.randomUUID().toString());
+        customer.setDni("12345678");
+        customer.setCustomerType(CustomerResponse.CustomerType.PERSONAL);
+        customer.setIsVIP(true);
+    }
+
+    @Test
+    void whenPersonalCustomerValidation_WithAccountOfSameType_ThenReturnConflict() {
+        when(accountRepository.existsByCustomerIdAndAccountType(customer.getId(), Account.AccountType.SAVINGS))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(customerValidation.personalCustomerValidation(customer, Account.AccountType.SAVINGS))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+    }
+
+    @Test
+    void whenPersonalCustomerValidation_WithoutAccountOfSameType_ThenComplete() {
+        when(accountRepository.existsByCustomerIdAndAccountType(customer.getId(), Account.AccountType.SAVINGS))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(customerValidation.personalCustomerValidation(customer, Account.AccountType.SAVINGS))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenValidateCreditCardExists_WithoutCreditStatusNorCreditCards_ThenReturnBadRequest() {
+        when(customerCreditStatusRepository.findById(customer.getId())).thenReturn(Mono.empty());
+        when(creditClient.getCreditCardsByCardHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(creditClient.getCreditsByCreditHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(customerCreditStatusRepository.saveIfNewer(any(CustomerCreditStatus.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(customerValidation.validateCreditCardExists(customer))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    @Test
+    void whenValidateCreditCardExists_WithoutCreditStatusButCreditCardInCreditService_ThenReturnCustomer() {
+        when(customerCreditStatusRepository.findById(customer.getId())).thenReturn(Mono.empty());
+        when(creditClient.getCreditCardsByCardHolderId(customer.getId())).thenReturn(Flux.just(new CreditCardResponse()));
+        when(creditClient.getCreditsByCreditHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(customerCreditStatusRepository.saveIfNewer(any(CustomerCreditStatus.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(customerValidation.validateCreditCardExists(customer))
+                .expectNext(customer)
+                .verifyComplete();
+
+        ArgumentCaptor<CustomerCreditStatus> stored = ArgumentCaptor.forClass(CustomerCreditStatus.class);
+        verify(customerCreditStatusRepository).saveIfNewer(stored.capture());
+        assertEquals(customer.getId(), stored.getValue().getCustomerId());
+        assertTrue(stored.getValue().getHasCreditCard());
+    }
+
+    @Test
+    void whenValidateCreditCardExists_WithCreditCard_ThenReturnCustomer() {
+        when(customerCreditStatusRepository.findById(customer.getId()))
+                .thenReturn(Mono.just(creditStatus(true, LocalDate.now().plusMonths(1))));
+
+        StepVerifier.create(customerValidation.validateCreditCardExists(customer))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenValidateIfCustomerHasOverDueDebt_WithPastEarliestDueDate_ThenReturnBadRequest() {
+        when(customerCreditStatusRepository.findById(customer.getId()))
+                .thenReturn(Mono.just(creditStatus(false, LocalDate.now().minusDays(1))));
+
+        StepVerifier.create(customerValidation.validateIfCustomerHasOverDueDebt(customer))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getReason().equals("Customer with dni: 12345678 has overdue debts"))
+                .verify();
+    }
+
+    @Test
+    void whenValidateIfCustomerHasOverDueDebt_WithoutCreditStatusNorCredits_ThenReturnCustomer() {
+        when(customerCreditStatusRepository.findById(customer.getId())).thenReturn(Mono.empty());
+        when(creditClient.getCreditCardsByCardHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(creditClient.getCreditsByCreditHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(customerCreditStatusRepository.saveIfNewer(any(CustomerCreditStatus.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(customerValidation.validateIfCustomerHasOverDueDebt(customer))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenValidateIfCustomerHasOverDueDebt_WithoutCreditStatusButOverdueCreditInCreditService_ThenReturnBadRequest() {
+        CreditResponse overdue = new CreditResponse();
+        overdue.setDueDate(LocalDate.now().minusDays(1));
+        CreditResponse current = new CreditResponse();
+        current.setDueDate(LocalDate.now().plusMonths(1));
+        when(customerCreditStatusRepository.findById(customer.getId())).thenReturn(Mono.empty());
+        when(creditClient.getCreditCardsByCardHolderId(customer.getId())).thenReturn(Flux.empty());
+        when(creditClient.getCreditsByCreditHolderId(customer.getId())).thenReturn(Flux.just(current, overdue));
+        when(customerCreditStatusRepository.saveIfNewer(any(CustomerCreditStatus.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(customerValidation.validateIfCustomerHasOverDueDebt(customer))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getReason().equals("Customer with dni: 12345678 has overdue debts"))
+                .verify();
+
+        ArgumentCaptor<CustomerCreditStatus> stored = ArgumentCaptor.forClass(CustomerCreditStatus.class);
+        verify(customerCreditStatusRepository).saveIfNewer(stored.capture());
+        assertEquals(overdue.getDueDate(), stored.getValue().getEarliestDueDate());
+    }
+
+    @Test
+    void whenValidateIfCustomerHasOverDueDebt_WithCreditStatus_ThenCreditServiceIsNotAsked() {
+        when(customerCreditStatusRepository.findById(customer.getId()))
+                .thenReturn(Mono.just(creditStatus(false, null)));
+
+        StepVerifier.create(customerValidation.validateIfCustomerHasOverDueDebt(customer))
+                .expectNext(customer)
+                .verifyComplete();
+
+        verifyNoInteractions(creditClient);
+    }
+
+    private CustomerCreditStatus creditStatus(boolean hasCreditCard, LocalDate earliestDueDate) {
+        return CustomerCreditStatus.builder()
+                .customerId(customer.getId())
+                .hasCreditCard(hasCreditCard)
+                .earliestDueDate(earliestDueDate)
+                .computedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.jorge.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import java.time.Clock;
+
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration",
+        "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration"})
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(ReactiveMongoTemplate.class)
+    public IdempotencyStore idempotencyStore(ReactiveMongoTemplate reactiveMongoTemplate, IdempotencyProperties properties) {
+        return new IdempotencyStore(reactiveMongoTemplate, properties.getCollection());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(IdempotencyStore.class)
+    public IdempotentExecutor idempotentExecutor(IdempotencyStore idempotencyStore, ObjectProvider<ObjectMapper> objectMapper,
+                                                 IdempotencyProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new IdempotentExecutor(idempotencyStore, objectMapper.getIfAvailable(ObjectMapper::new), properties,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), Clock.systemUTC());
+    }
+}
@@ -0,0 +1,21 @@
+package com.jorge.idempotency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bank.idempotency")
+public class IdempotencyProperties {
+    private String collection = "idempotency-keys";
+    // How long a completed response is replayed; Mongo's TTL monitor removes the key afterwards
+    private Duration ttl = Duration.ofHours(24);
+    // How long an execution holds its key. A key still in progress after that (its instance died, or its response
+    // could not be stored) is answered with 409: the execution may have applied its changes
+    private Duration lease = Duration.ofSeconds(30);
+    // How often a duplicate of an execution running on another instance looks at the key again
+    private Duration pollInterval = Duration.ofMillis(100);
+}
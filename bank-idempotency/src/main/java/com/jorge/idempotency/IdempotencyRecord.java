@@ -0,0 +1,31 @@
+package com.jorge.idempotency;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+
+// One Idempotency-Key of an operation. The response is stored as JSON once the execution completes.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    // <operation>:<key>
+    @Id
+    private String id;
+    // Hash of the request the key was first used with
+    private String fingerprint;
+    private Status status;
+    private String response;
+    private Instant leaseUntil;
+    private Instant expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        // The execution failed after it may have applied its changes, so it is never run again with this key
+        UNKNOWN
+    }
+}
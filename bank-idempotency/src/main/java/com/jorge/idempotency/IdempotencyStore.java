@@ -0,0 +1,82 @@
+package com.jorge.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Idempotency keys in a Mongo collection, removed by a TTL index once they expire
+@Slf4j
+public class IdempotencyStore {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final String collection;
+
+    public IdempotencyStore(ReactiveMongoTemplate reactiveMongoTemplate, String collection) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.collection = collection;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        reactiveMongoTemplate.indexOps(collection)
+                .ensureIndex(new Index("expiresAt", Sort.Direction.ASC).named("expiresAt_ttl").expire(Duration.ZERO))
+                .subscribe(indexName -> log.info("Ensured index {}", indexName),
+                        throwable -> log.error("Error creating indexes: {}", throwable.getMessage()));
+    }
+
+    // Stores the key as in progress unless it exists, in one round trip. Emits the record that was already stored,
+    // or nothing when the key is now held by the caller
+    public Mono<IdempotencyRecord> acquire(String id, String fingerprint, Instant leaseUntil, Instant expiresAt) {
+        Update insertOnly = new Update()
+                .setOnInsert("fingerprint", fingerprint)
+                .setOnInsert("status", IdempotencyRecord.Status.IN_PROGRESS)
+                .setOnInsert("leaseUntil", leaseUntil)
+                .setOnInsert("expiresAt", expiresAt);
+        return reactiveMongoTemplate.findAndModify(byId(id), insertOnly,
+                        FindAndModifyOptions.options().upsert(true).returnNew(false), IdempotencyRecord.class, collection)
+                // Two upserts of a new key race on the _id index, the one that loses reads the other's record
+                .onErrorResume(DuplicateKeyException.class,
+                        e -> reactiveMongoTemplate.findById(id, IdempotencyRecord.class, collection));
+    }
+
+    // Keeps a key whose execution may have applied its changes before failing, so it is not run again with it
+    public Mono<Void> markUnknown(String id) {
+        Query inProgress = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyRecord.Status.IN_PROGRESS));
+        return reactiveMongoTemplate.updateFirst(inProgress,
+                        new Update().set("status", IdempotencyRecord.Status.UNKNOWN).unset("leaseUntil"),
+                        IdempotencyRecord.class, collection)
+                .then();
+    }
+
+    public Mono<Void> complete(String id, String response, Instant expiresAt) {
+        Update completed = new Update()
+                .set("status", IdempotencyRecord.Status.COMPLETED)
+                .set("response", response)
+                .set("expiresAt", expiresAt)
+                .unset("leaseUntil");
+        return reactiveMongoTemplate.updateFirst(byId(id), completed, IdempotencyRecord.class, collection).then();
+    }
+
+    // Frees a key whose execution was rejected before changing anything, so the request can be sent again with it
+    public Mono<Void> release(String id) {
+        Query inProgress = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyRecord.Status.IN_PROGRESS));
+        return reactiveMongoTemplate.remove(inProgress, IdempotencyRecord.class, collection).then();
+    }
+
+    private Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+}
@@ -0,0 +1,209 @@
+package com.jorge.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Runs an operation at most once per Idempotency-Key. Keys are scoped by operation and tied to the request they were
+// first sent with; using one with a different request is rejected with 422.
+// - A key that completed is answered with the stored response, read in the same round trip that checks the key.
+// - Duplicates arriving on this instance while the key runs join that execution. Duplicates on another instance poll
+//   the key until it completes, and get 409 if it is still running when its lease ends.
+// - An execution rejected with a 4xx, or failing with a NotAppliedException, releases its key, so the client can retry
+//   with it: both come before anything was applied. Any other failure may come after a commit (a lost response, a
+//   downstream call that follows the write), so the key is kept as UNKNOWN and answered with 409 until it expires. A
+//   key whose lease ended without a response is never run again either. Only successful responses are stored.
+@Slf4j
+public class IdempotentExecutor {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final int COMPLETE_RETRIES = 2;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    // Executions running on this instance by record id
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+
+    public IdempotentExecutor(IdempotencyStore store, ObjectMapper objectMapper, IdempotencyProperties properties,
+                              MeterRegistry meterRegistry, Clock clock) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    // Without a key the operation just runs. The request identifies what the key may be reused for: the path
+    // variables and the body of the call
+    public <T> Mono<T> execute(String idempotencyKey, String operation, Object request, Class<T> responseType,
+                               Supplier<Mono<T>> action) {
+        if (idempotencyKey == null) {
+            return Mono.defer(action);
+        }
+        return Mono.defer(() -> {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        IDEMPOTENCY_KEY_HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters"));
+            }
+            String id = operation + ":" + idempotencyKey;
+            String fingerprint = fingerprint(request);
+
+            Execution execution = new Execution(fingerprint);
+            Execution running = executions.putIfAbsent(id, execution);
+            if (running != null) {
+                count(operation, "joined");
+                return running.join(fingerprint, responseType);
+            }
+
+            // Not tied to the caller: a movement that started is finished and stored even if the client goes away
+            resolve(id, operation, fingerprint, responseType, action, clock.instant().plus(properties.getLease()))
+                    .doFinally(signal -> executions.remove(id, execution))
+                    .subscribe(execution.result::tryEmitValue, execution.result::tryEmitError, execution.result::tryEmitEmpty);
+            return execution.join(fingerprint, responseType);
+        });
+    }
+
+    private <T> Mono<T> resolve(String id, String operation, String fingerprint, Class<T> responseType,
+                                Supplier<Mono<T>> action, Instant waitUntil) {
+        Instant now = clock.instant();
+        return store.acquire(id, fingerprint, now.plus(properties.getLease()), now.plus(properties.getTtl()))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(stored -> stored.isEmpty()
+                        ? run(id, operation, responseType, action)
+                        : answer(stored.get(), operation, fingerprint, responseType, action, waitUntil));
+    }
+
+    private <T> Mono<T> answer(IdempotencyRecord stored, String operation, String fingerprint, Class<T> responseType,
+                               Supplier<Mono<T>> action, Instant waitUntil) {
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            return Mono.error(keyReused());
+        }
+        if (stored.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            count(operation, "replayed");
+            return Mono.fromCallable(() -> objectMapper.readValue(stored.getResponse(), responseType));
+        }
+
+        Instant now = clock.instant();
+        if (stored.getStatus() == IdempotencyRecord.Status.UNKNOWN
+                || (stored.getLeaseUntil() != null && stored.getLeaseUntil().isBefore(now))) {
+            count(operation, "unknown");
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                    "The outcome of the request with this " + IDEMPOTENCY_KEY_HEADER
+                            + " is unknown, check the account before sending it again with a new key"));
+        }
+        if (now.isAfter(waitUntil)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress"));
+        }
+        // Running on another instance
+        return Mono.delay(properties.getPollInterval())
+                .then(Mono.defer(() -> resolve(stored.getId(), operation, fingerprint, responseType, action, waitUntil)));
+    }
+
+    private <T> Mono<T> run(String id, String operation, Class<T> responseType, Supplier<Mono<T>> action) {
+        count(operation, "executed");
+        return Mono.defer(action)
+                .onErrorResume(e -> (isRejection(e) ? release(id) : markUnknown(id, e)).then(Mono.error(e)))
+                .switchIfEmpty(Mono.defer(() -> release(id).then(Mono.empty())))
+                .flatMap(response -> Mono.fromCallable(() -> toJson(response))
+                        .flatMap(json -> store.complete(id, json, clock.instant().plus(properties.getTtl()))
+                                .retryWhen(Retry.backoff(COMPLETE_RETRIES, Duration.ofMillis(50))))
+                        // The movement is done either way; the key stays in progress and is answered with 409 once its lease ends
+                        .onErrorResume(e -> {
+                            log.error("Error storing the response of {}: {}", id, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(response));
+    }
+
+    private static boolean isRejection(Throwable error) {
+        return error instanceof NotAppliedException
+                || (error instanceof ResponseStatusException rejection && rejection.getStatusCode().is4xxClientError());
+    }
+
+    private Mono<Void> markUnknown(String id, Throwable error) {
+        log.warn("Execution of {} failed with an unknown outcome, the key is kept: {}", id, error.getMessage());
+        return store.markUnknown(id)
+                .onErrorResume(e -> {
+                    log.error("Error keeping {}: {}", id, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> release(String id) {
+        return store.release(id)
+                .onErrorResume(e -> {
+                    log.error("Error releasing {}: {}", id, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request can not be fingerprinted", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response can not be stored", e);
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("bank.idempotency.requests")
+                .description("Requests with an Idempotency-Key by outcome: executed, replayed from the store, joined to a running execution or unknown")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                IDEMPOTENCY_KEY_HEADER + " was already used with a different request");
+    }
+
+    private static final class Execution {
+        private final String fingerprint;
+        private final Sinks.One<Object> result = Sinks.one();
+
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private <T> Mono<T> join(String fingerprint, Class<T> responseType) {
+            if (!this.fingerprint.equals(fingerprint)) {
+                return Mono.error(keyReused());
+            }
+            return result.asMono().map(responseType::cast);
+        }
+    }
+}
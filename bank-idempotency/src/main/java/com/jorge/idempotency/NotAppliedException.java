@@ -0,0 +1,16 @@
+package com.jorge.idempotency;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+// A failure known to have happened before the operation applied anything, such as a downstream call that was never
+// sent. Its Idempotency-Key is released like a 4xx rejection, so the client can retry with it
+public class NotAppliedException extends ResponseStatusException {
+    public NotAppliedException(HttpStatusCode status, String reason, Throwable cause) {
+        super(status, reason, cause);
+    }
+
+    public NotAppliedException(HttpStatusCode status, String reason) {
+        super(status, reason);
+    }
+}
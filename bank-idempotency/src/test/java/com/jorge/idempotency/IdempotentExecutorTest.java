@@ -0,0 +1,243 @@
+package com.jorge.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class IdempotentExecutorTest {
+    private static final String OPERATION = "accounts.deposit";
+    private static final String KEY = "b7e3c1d0-5a7f-4c59-9d1e-2f9a8c6b4e21";
+    private static final String ID = OPERATION + ":" + KEY;
+    private static final Instant NOW = Instant.parse("2026-10-17T10:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IdempotencyStore store;
+    private MeterRegistry meterRegistry;
+    private IdempotentExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(IdempotencyStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setPollInterval(Duration.ofMillis(10));
+        executor = new IdempotentExecutor(store, objectMapper, properties, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        when(store.complete(anyString(), anyString(), any())).thenReturn(Mono.empty());
+        when(store.release(anyString())).thenReturn(Mono.empty());
+        when(store.markUnknown(anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void whenNoIdempotencyKey_ThenOperationRunsWithoutStore() {
+        StepVerifier.create(executor.execute(null, OPERATION, request("100"), Map.class,
+                        () -> Mono.just(Map.of("balance", 100))))
+                .expectNext(Map.of("balance", 100))
+                .verifyComplete();
+
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void whenNewKey_ThenOperationRunsAndResponseIsStored() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                        () -> Mono.just(Map.of("balance", 100))))
+                .expectNext(Map.of("balance", 100))
+                .verifyComplete();
+
+        verify(store).complete(ID, "{\"balance\":100}", NOW.plus(Duration.ofHours(24)));
+        assertEquals(1.0, outcomeCount("executed"));
+    }
+
+    @Test
+    void whenKeyCompleted_ThenStoredResponseIsReplayed() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.just(IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(executor.fingerprint(request("100")))
+                .status(IdempotencyRecord.Status.COMPLETED)
+                .response("{\"balance\":100}")
+                .build()));
+        AtomicInteger executions = new AtomicInteger();
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class, () -> {
+                    executions.incrementAndGet();
+                    return Mono.just(Map.of("balance", 200));
+                }))
+                .expectNext(Map.of("balance", 100))
+                .verifyComplete();
+
+        assertEquals(0, executions.get());
+        verify(store, never()).complete(anyString(), anyString(), any());
+        assertEquals(1.0, outcomeCount("replayed"));
+    }
+
+    @Test
+    void whenKeyReusedWithDifferentRequest_ThenUnprocessableEntity() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.just(IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(executor.fingerprint(request("100")))
+                .status(IdempotencyRecord.Status.COMPLETED)
+                .response("{\"balance\":100}")
+                .build()));
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("250"), Map.class,
+                        () -> Mono.just(Map.of("balance", 250))))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException responseStatusException
+                        && responseStatusException.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY)
+                .verify();
+    }
+
+    @Test
+    void whenConcurrentDuplicates_ThenTheyJoinTheFirstExecution() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.empty());
+        Sinks.One<Map> movement = Sinks.one();
+        AtomicInteger executions = new AtomicInteger();
+
+        Mono<Map> first = executor.execute(KEY, OPERATION, request("100"), Map.class, () -> {
+            executions.incrementAndGet();
+            return movement.asMono();
+        });
+        Mono<Map> duplicate = executor.execute(KEY, OPERATION, request("100"), Map.class, () -> {
+            executions.incrementAndGet();
+            return Mono.just(Map.of("balance", 200));
+        });
+
+        StepVerifier.create(Mono.zip(first, duplicate))
+                .then(() -> movement.tryEmitValue(Map.of("balance", 100)))
+                .expectNextMatches(responses -> responses.getT1().equals(Map.of("balance", 100))
+                        && responses.getT2().equals(Map.of("balance", 100)))
+                .verifyComplete();
+
+        assertEquals(1, executions.get());
+        verify(store, times(1)).acquire(eq(ID), anyString(), any(), any());
+        assertEquals(1.0, outcomeCount("joined"));
+    }
+
+    @Test
+    void whenKeyInProgressOnAnotherInstance_ThenResponseIsAwaited() {
+        IdempotencyRecord inProgress = IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(executor.fingerprint(request("100")))
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                .leaseUntil(NOW.plusSeconds(20))
+                .build();
+        IdempotencyRecord completed = IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(inProgress.getFingerprint())
+                .status(IdempotencyRecord.Status.COMPLETED)
+                .response("{\"balance\":100}")
+                .build();
+        when(store.acquire(eq(ID), anyString(), any(), any()))
+                .thenReturn(Mono.just(inProgress), Mono.just(inProgress), Mono.just(completed));
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                        () -> Mono.just(Map.of("balance", 200))))
+                .expectNext(Map.of("balance", 100))
+                .verifyComplete();
+
+        verify(store, times(3)).acquire(eq(ID), anyString(), any(), any());
+    }
+
+    @Test
+    void whenOperationFails_ThenKeyIsReleased() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                        () -> Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient balance"))))
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(store).release(ID);
+        verify(store, never()).complete(anyString(), anyString(), any());
+    }
+
+    @Test
+    void whenOperationFailsBeforeApplyingAnything_ThenKeyIsReleased() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                        () -> Mono.error(new NotAppliedException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable"))))
+                .expectError(NotAppliedException.class)
+                .verify();
+
+        verify(store).release(ID);
+        verify(store, never()).markUnknown(anyString());
+    }
+
+    @Test
+    void whenOperationFailsAfterItMayHaveCommitted_ThenKeyIsKeptAsUnknown() {
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                        () -> Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable"))))
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(store).markUnknown(ID);
+        verify(store, never()).release(anyString());
+    }
+
+    @Test
+    void whenKeyUnknownOrLeaseExpired_ThenConflictWithoutRunningAgain() {
+        IdempotencyRecord unknown = IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(executor.fingerprint(request("100")))
+                .status(IdempotencyRecord.Status.UNKNOWN)
+                .build();
+        IdempotencyRecord leaseExpired = IdempotencyRecord.builder()
+                .id(ID)
+                .fingerprint(unknown.getFingerprint())
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                .leaseUntil(NOW.minusSeconds(1))
+                .build();
+        when(store.acquire(eq(ID), anyString(), any(), any())).thenReturn(Mono.just(unknown), Mono.just(leaseExpired));
+        AtomicInteger executions = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(executor.execute(KEY, OPERATION, request("100"), Map.class,
+                            () -> Mono.fromCallable(() -> Map.of("balance", executions.incrementAndGet()))))
+                    .expectErrorMatches(e -> e instanceof ResponseStatusException rse
+                            && rse.getStatusCode() == HttpStatus.CONFLICT)
+                    .verify();
+        }
+
+        assertEquals(0, executions.get());
+        assertEquals(2.0, outcomeCount("unknown"));
+    }
+
+    private List<Object> request(String amount) {
+        return List.of("1000000000001", Map.of("amount", amount));
+    }
+
+    private double outcomeCount(String outcome) {
+        return meterRegistry.get("bank.idempotency.requests").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,134 @@
+package com.jorge.webclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Additive increase, multiplicative decrease limit of the calls in flight to one downstream service.
+ * Calls over the limit are rejected right away with {@link ConcurrencyLimitExceededException}. The limit grows by
+ * about one call per limit's worth of fast calls while it is being used, and is cut by 10% on every call that
+ * overloads the downstream (slower than the latency threshold or failed by {@code isOverload}), so load is shed
+ * before queues build up and latency collapses.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String clientName;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final Predicate<Throwable> isOverload;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(String clientName, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, Predicate<Throwable> isOverload, MeterRegistry meterRegistry) {
+        this.clientName = clientName;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.isOverload = isOverload;
+
+        Gauge.builder("bank.http.client.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent calls")
+                .tag("client", clientName)
+                .register(meterRegistry);
+        Gauge.builder("bank.http.client.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .description("Calls in flight")
+                .tag("client", clientName)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bank.http.client.concurrency.rejected")
+                .description("Calls rejected by the adaptive concurrency limit")
+                .tag("client", clientName)
+                .register(meterRegistry);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public <T> Mono<T> limit(Mono<T> call) {
+        return Mono.defer(() -> {
+            Permit permit = acquire();
+            if (permit == null) {
+                return Mono.error(new ConcurrencyLimitExceededException(clientName, getLimit()));
+            }
+            return call
+                    .doOnSuccess(value -> permit.release(null))
+                    .doOnError(permit::release)
+                    .doOnCancel(permit::ignore);
+        });
+    }
+
+    public <T> Flux<T> limit(Flux<T> call) {
+        return Flux.defer(() -> {
+            Permit permit = acquire();
+            if (permit == null) {
+                return Flux.error(new ConcurrencyLimitExceededException(clientName, getLimit()));
+            }
+            return call
+                    .doOnComplete(() -> permit.release(null))
+                    .doOnError(permit::release)
+                    .doOnCancel(permit::ignore);
+        });
+    }
+
+    private Permit acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejectedCounter.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime());
+            }
+        }
+    }
+
+    private synchronized void onSample(long latencyNanos, boolean overloaded, int inFlightBefore) {
+        if (overloaded || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (inFlightBefore * 2 >= limit) {
+            // Only grows while the limit is actually being used, an idle client keeps its limit
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private final class Permit {
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void release(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                int inFlightBefore = inFlight.getAndDecrement();
+                onSample(System.nanoTime() - startNanos, error != null && isOverload.test(error), inFlightBefore);
+            }
+        }
+
+        // Cancelled calls say nothing about the downstream's latency
+        void ignore() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.jorge.webclient;
+
+// A call was shed because the downstream service already has as many calls in flight as its current limit
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String clientName, int limit) {
+        super("Concurrency limit of " + limit + " calls reached for " + clientName);
+    }
+}
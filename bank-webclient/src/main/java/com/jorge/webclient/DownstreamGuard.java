@@ -0,0 +1,47 @@
+package com.jorge.webclient;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Protects the calls to one downstream service. A call goes through, in order:
+ * the adaptive concurrency limit, which sheds load as the downstream slows down;
+ * the semaphore bulkhead, a fixed ceiling of concurrent calls;
+ * and the circuit breaker with its time limiter.
+ * Rejections of the limit and the bulkhead are not recorded as circuit breaker failures.
+ * Every error, rejections included, goes to the caller's fallback.
+ */
+public class DownstreamGuard {
+    private final ReactiveCircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public DownstreamGuard(ReactiveCircuitBreaker circuitBreaker, Bulkhead bulkhead, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public <T> Mono<T> run(Mono<T> call, Function<Throwable, Mono<T>> fallback) {
+        Mono<T> guarded = circuitBreaker.run(call, Mono::error)
+                .transformDeferred(BulkheadOperator.of(bulkhead));
+        return concurrencyLimiter.limit(guarded)
+                .onErrorResume(fallback);
+    }
+
+    public <T> Flux<T> run(Flux<T> call, Function<Throwable, Flux<T>> fallback) {
+        Flux<T> guarded = circuitBreaker.run(call, Flux::error)
+                .transformDeferred(BulkheadOperator.of(bulkhead));
+        return concurrencyLimiter.limit(guarded)
+                .onErrorResume(fallback);
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jorge.webclient;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the {@link DownstreamGuard} of each client once and hands out the same instance afterwards.
+ * Circuit breakers come from the {@link ReactiveCircuitBreakerFactory}, configured as before under the client name.
+ * Bulkheads come from the resilience4j registry: {@code resilience4j.bulkhead.instances.<clientName>} when it is
+ * configured, otherwise one call per pooled connection without waiting.
+ * Breaker and bulkhead metrics are published by resilience4j. The limiter publishes
+ * {@code bank.http.client.concurrency.*}.
+ */
+@Slf4j
+public class DownstreamGuards {
+    private final ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DownstreamGuard> guards = new ConcurrentHashMap<>();
+
+    public DownstreamGuards(ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory, BulkheadRegistry bulkheadRegistry,
+                            HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public DownstreamGuard forClient(String clientName) {
+        return guards.computeIfAbsent(clientName, this::createGuard);
+    }
+
+    private DownstreamGuard createGuard(String clientName) {
+        HttpClientProperties.Settings settings = properties.settingsFor(clientName);
+        Bulkhead bulkhead = bulkheadRegistry.find(clientName)
+                .orElseGet(() -> bulkheadRegistry.bulkhead(clientName, BulkheadConfig.custom()
+                        .maxConcurrentCalls(settings.getMaxConnections())
+                        .maxWaitDuration(Duration.ZERO)
+                        .build()));
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(clientName,
+                settings.getInitialConcurrencyLimit(), settings.getMinConcurrencyLimit(), settings.getMaxConcurrencyLimit(),
+                settings.getConcurrencyLatencyThreshold(), DownstreamGuards::isOverload, meterRegistry);
+        log.info("Created guard of {}: bulkhead of {} calls, concurrency limit {} ({}-{})", clientName,
+                bulkhead.getBulkheadConfig().getMaxConcurrentCalls(), concurrencyLimiter.getLimit(),
+                settings.getMinConcurrencyLimit(), settings.getMaxConcurrencyLimit());
+        return new DownstreamGuard(circuitBreakerFactory.create(clientName), bulkhead, concurrencyLimiter);
+    }
+
+    // A 4xx answer is a fast, healthy response and an open breaker did not reach the downstream;
+    // timeouts, connection errors and 5xx mean it is struggling
+    static boolean isOverload(Throwable throwable) {
+        if (throwable instanceof CallNotPermittedException) {
+            return false;
+        }
+        return !(throwable instanceof WebClientResponseException responseException)
+                || responseException.getStatusCode().is5xxServerError();
+    }
+
+    // The call never reached the downstream service: shed by the limiter or the bulkhead, refused by an open breaker,
+    // or its connection could not be opened. Any other failure may have been received, and applied, downstream
+    public static boolean wasNotSent(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallNotPermittedException || cause instanceof BulkheadFullException
+                    || cause instanceof ConcurrencyLimitExceededException || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
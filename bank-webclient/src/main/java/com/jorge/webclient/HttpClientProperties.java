@@ -0,0 +1,91 @@
+package com.jorge.webclient;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// web.client.defaults.* applies to every client, web.client.clients.<name>.* overrides it for one client
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "web.client")
+public class HttpClientProperties {
+    private Settings defaults = Settings.defaults();
+    private Map<String, Settings> clients = new HashMap<>();
+
+    public Settings settingsFor(String clientName) {
+        Settings overrides = clients.get(clientName);
+        return overrides == null ? defaults : defaults.overriddenBy(overrides);
+    }
+
+    @Getter
+    @Setter
+    public static class Settings {
+        // Connections kept open to one remote address, and requests allowed to wait for one of them
+        private Integer maxConnections;
+        private Integer pendingAcquireMaxCount;
+        private Duration pendingAcquireTimeout;
+        // Below the idle timeout of the servers and load balancers in between, so a closed connection is not reused
+        private Duration maxIdleTime;
+        private Duration maxLifeTime;
+        private Duration evictInBackground;
+        private Duration connectTimeout;
+        // Until the response headers arrive
+        private Duration responseTimeout;
+        // Accepts gzip responses and decompresses them
+        private Boolean compression;
+        // Upgrades to cleartext HTTP/2 when the server supports it, HTTP/1.1 otherwise
+        private Boolean h2c;
+        // Adaptive limit of concurrent calls: grows while calls are fast, shrinks on failures and slow calls
+        private Integer initialConcurrencyLimit;
+        private Integer minConcurrencyLimit;
+        private Integer maxConcurrencyLimit;
+        // Calls slower than this count as a sign of overload
+        private Duration concurrencyLatencyThreshold;
+
+        static Settings defaults() {
+            Settings settings = new Settings();
+            settings.maxConnections = 100;
+            settings.pendingAcquireMaxCount = 500;
+            settings.pendingAcquireTimeout = Duration.ofSeconds(5);
+            settings.maxIdleTime = Duration.ofSeconds(30);
+            settings.maxLifeTime = Duration.ofMinutes(5);
+            settings.evictInBackground = Duration.ofSeconds(30);
+            settings.connectTimeout = Duration.ofSeconds(2);
+            settings.responseTimeout = Duration.ofSeconds(5);
+            settings.compression = true;
+            settings.h2c = false;
+            settings.initialConcurrencyLimit = 20;
+            settings.minConcurrencyLimit = 5;
+            settings.maxConcurrencyLimit = 100;
+            settings.concurrencyLatencyThreshold = Duration.ofMillis(500);
+            return settings;
+        }
+
+        Settings overriddenBy(Settings overrides) {
+            Settings settings = new Settings();
+            settings.maxConnections = valueOf(overrides.maxConnections, maxConnections);
+            settings.pendingAcquireMaxCount = valueOf(overrides.pendingAcquireMaxCount, pendingAcquireMaxCount);
+            settings.pendingAcquireTimeout = valueOf(overrides.pendingAcquireTimeout, pendingAcquireTimeout);
+            settings.maxIdleTime = valueOf(overrides.maxIdleTime, maxIdleTime);
+            settings.maxLifeTime = valueOf(overrides.maxLifeTime, maxLifeTime);
+            settings.evictInBackground = valueOf(overrides.evictInBackground, evictInBackground);
+            settings.connectTimeout = valueOf(overrides.connectTimeout, connectTimeout);
+            settings.responseTimeout = valueOf(overrides.responseTimeout, responseTimeout);
+            settings.compression = valueOf(overrides.compression, compression);
+            settings.h2c = valueOf(overrides.h2c, h2c);
+            settings.initialConcurrencyLimit = valueOf(overrides.initialConcurrencyLimit, initialConcurrencyLimit);
+            settings.minConcurrencyLimit = valueOf(overrides.minConcurrencyLimit, minConcurrencyLimit);
+            settings.maxConcurrencyLimit = valueOf(overrides.maxConcurrencyLimit, maxConcurrencyLimit);
+            settings.concurrencyLatencyThreshold = valueOf(overrides.concurrencyLatencyThreshold, concurrencyLatencyThreshold);
+            return settings;
+        }
+
+        private static <T> T valueOf(T override, T fallback) {
+            return override != null ? override : fallback;
+        }
+    }
+}
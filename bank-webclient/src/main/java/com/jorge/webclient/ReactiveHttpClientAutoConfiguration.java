@@ -0,0 +1,36 @@
+package com.jorge.webclient;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JAutoConfiguration",
+        "io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration"})
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class ReactiveHttpClientAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveHttpClientFactory reactiveHttpClientFactory(HttpClientProperties properties,
+                                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReactiveHttpClientFactory(properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(ReactiveCircuitBreakerFactory.class)
+    public DownstreamGuards downstreamGuards(ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory,
+                                             ObjectProvider<BulkheadRegistry> bulkheadRegistry,
+                                             HttpClientProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DownstreamGuards(circuitBreakerFactory, bulkheadRegistry.getIfAvailable(BulkheadRegistry::ofDefaults),
+                properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
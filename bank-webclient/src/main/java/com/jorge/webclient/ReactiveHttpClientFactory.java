@@ -0,0 +1,119 @@
+package com.jorge.webclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Builds the {@link WebClient} of each service client with its own connection pool, timeouts and compression taken
+ * from {@link HttpClientProperties}. Every request is timed in {@code bank.http.client.requests}, tagged with the
+ * client name and the URI template, so templated URIs ({@code .uri("/accounts/{id}", id)}) keep one series per
+ * endpoint; requests built without a template are tagged {@code uri=none}.
+ */
+@Slf4j
+public class ReactiveHttpClientFactory implements DisposableBean {
+    public static final String REQUESTS_METRIC = "bank.http.client.requests";
+    private static final String URI_TEMPLATE_ATTRIBUTE = WebClient.class.getName() + ".uriTemplate";
+
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public ReactiveHttpClientFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public WebClient create(String clientName, String baseUrl) {
+        HttpClientProperties.Settings settings = properties.settingsFor(clientName);
+        log.info("Creating HTTP client {} for {} with up to {} connections", clientName, baseUrl, settings.getMaxConnections());
+
+        // Pool metrics (reactor.netty.connection.provider.*) go to the global registry, which Boot binds to its own
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(clientName)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictInBackground())
+                .metrics(true)
+                .build();
+        connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(settings.getConnectTimeout().toMillis()))
+                .responseTimeout(settings.getResponseTimeout())
+                .compress(settings.getCompression());
+        if (settings.getH2c()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .filter(metricsFilter(clientName, baseUrl))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    // Times until the response headers arrive, the body is read by the caller
+    private ExchangeFilterFunction metricsFilter(String clientName, String baseUrl) {
+        return (request, next) -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return next.exchange(request)
+                    .doOnSuccess(response -> sample.stop(timer(clientName, baseUrl, request,
+                            String.valueOf(response.statusCode().value()), outcome(response.statusCode().value()))))
+                    .doOnError(e -> sample.stop(timer(clientName, baseUrl, request, e.getClass().getSimpleName(), "ERROR")))
+                    .doOnCancel(() -> sample.stop(timer(clientName, baseUrl, request, "CANCELLED", "UNKNOWN")));
+        });
+    }
+
+    private Timer timer(String clientName, String baseUrl, ClientRequest request, String status, String outcome) {
+        return Timer.builder(REQUESTS_METRIC)
+                .description("Requests sent by the service clients")
+                .tag("client", clientName)
+                .tag("method", request.method().name())
+                .tag("uri", uriTemplate(baseUrl, request))
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // The template is expanded against the base URL, only the path part is kept
+    private static String uriTemplate(String baseUrl, ClientRequest request) {
+        return request.attribute(URI_TEMPLATE_ATTRIBUTE)
+                .map(String::valueOf)
+                .map(template -> template.startsWith(baseUrl) ? template.substring(baseUrl.length()) : template)
+                .orElse("none");
+    }
+
+    private static String outcome(int statusCode) {
+        if (statusCode >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (statusCode >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return statusCode >= 200 && statusCode < 300 ? "SUCCESS" : "REDIRECTION";
+    }
+}
@@ -0,0 +1,141 @@
+package com.jorge.webclient;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownstreamGuardTest {
+    private static final String CLIENT = "accountClient";
+
+    private MeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private HttpClientProperties properties;
+    private DownstreamGuards downstreamGuards;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        properties = new HttpClientProperties();
+        downstreamGuards = new DownstreamGuards(
+                new ReactiveResilience4JCircuitBreakerFactory(circuitBreakerRegistry, TimeLimiterRegistry.ofDefaults()),
+                BulkheadRegistry.ofDefaults(), properties, meterRegistry);
+    }
+
+    @Test
+    void whenGuardIsRequestedAgain_ThenSameGuardIsReused() {
+        assertSame(downstreamGuards.forClient(CLIENT), downstreamGuards.forClient(CLIENT));
+    }
+
+    @Test
+    void whenBulkheadIsFull_ThenCallGoesToFallbackWithoutCountingAsBreakerFailure() {
+        HttpClientProperties.Settings settings = new HttpClientProperties.Settings();
+        settings.setMaxConnections(1);
+        properties.getClients().put(CLIENT, settings);
+        DownstreamGuard guard = downstreamGuards.forClient(CLIENT);
+        Sinks.One<String> slowResponse = Sinks.one();
+
+        StepVerifier.create(guard.run(slowResponse.asMono(), Mono::error))
+                .then(() -> StepVerifier.create(guard.run(Mono.just("second"),
+                                throwable -> Mono.just(throwable.getClass().getSimpleName())))
+                        .expectNext(BulkheadFullException.class.getSimpleName())
+                        .verifyComplete())
+                .then(() -> slowResponse.tryEmitValue("first"))
+                .expectNext("first")
+                .verifyComplete();
+
+        CircuitBreaker.Metrics breakerMetrics = circuitBreakerRegistry.circuitBreaker(CLIENT).getMetrics();
+        assertEquals(1, breakerMetrics.getNumberOfSuccessfulCalls());
+        assertEquals(0, breakerMetrics.getNumberOfFailedCalls());
+    }
+
+    @Test
+    void whenLimitIsReached_ThenCallIsShedAndCounted() {
+        HttpClientProperties.Settings settings = new HttpClientProperties.Settings();
+        settings.setInitialConcurrencyLimit(1);
+        settings.setMinConcurrencyLimit(1);
+        properties.getClients().put(CLIENT, settings);
+        DownstreamGuard guard = downstreamGuards.forClient(CLIENT);
+        Sinks.Many<String> stream = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(guard.run(stream.asFlux(), Flux::error))
+                .then(() -> StepVerifier.create(guard.run(Flux.just("second"), Flux::error))
+                        .expectError(ConcurrencyLimitExceededException.class)
+                        .verify())
+                .then(() -> {
+                    stream.tryEmitNext("first");
+                    stream.tryEmitComplete();
+                })
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1.0, meterRegistry.get("bank.http.client.concurrency.rejected").counter().count());
+        assertEquals(0.0, meterRegistry.get("bank.http.client.concurrency.in.flight").gauge().value());
+    }
+
+    @Test
+    void whenCallsAreFastAndLimitIsUsed_ThenLimitGrowsAndShrinksOnOverload() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(CLIENT, 10, 5, 12,
+                Duration.ofMillis(500), DownstreamGuards::isOverload, meterRegistry);
+
+        // Ten concurrent fast calls keep the limit in use, the limit grows by about one per round
+        for (int round = 0; round < 30; round++) {
+            Sinks.Empty<Void> release = Sinks.empty();
+            Flux.range(0, limiter.getLimit())
+                    .flatMap(i -> limiter.limit(release.asMono()))
+                    .subscribe();
+            release.tryEmitEmpty();
+        }
+        assertEquals(12, limiter.getLimit());
+
+        StepVerifier.create(limiter.limit(Mono.error(new TimeoutException())))
+                .expectError(TimeoutException.class)
+                .verify();
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void whenClassifyingErrors_ThenOnlyServerFailuresAndTimeoutsAreOverload() {
+        assertTrue(DownstreamGuards.isOverload(new TimeoutException()));
+        assertTrue(DownstreamGuards.isOverload(WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", null, null, null)));
+        assertFalse(DownstreamGuards.isOverload(WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null)));
+    }
+
+    @Test
+    void whenClassifyingErrors_ThenOnlyCallsThatNeverLeftAreNotSent() {
+        assertTrue(DownstreamGuards.wasNotSent(new ConcurrencyLimitExceededException(CLIENT, 1)));
+        assertTrue(DownstreamGuards.wasNotSent(new WebClientRequestException(new ConnectException("Connection refused"),
+                HttpMethod.PATCH, URI.create("http://accounts"), HttpHeaders.EMPTY)));
+        assertFalse(DownstreamGuards.wasNotSent(new TimeoutException()));
+        assertFalse(DownstreamGuards.wasNotSent(WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", null, null, null)));
+    }
+}
@@ -0,0 +1,136 @@
+package com.jorge.webclient;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import io.github.resilience4j.springboot3.timelimiter.autoconfigure.TimeLimiterAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JAutoConfiguration;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReactiveHttpClientFactoryTest {
+    // Long enough for the server to gzip it
+    private static final String ACCOUNT_JSON = "{\"accountNumber\":\"1000000000000\",\"description\":\"" + "x".repeat(2048) + "\"}";
+
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    private DisposableServer server;
+    private MeterRegistry meterRegistry;
+    private HttpClientProperties properties;
+    private ReactiveHttpClientFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .port(0)
+                .compress(true)
+                .route(routes -> routes
+                        .get("/accounts/{id}", (request, response) -> {
+                            acceptEncodings.add(String.valueOf(request.requestHeaders().get("Accept-Encoding")));
+                            return response.header("Content-Type", "application/json").sendString(Mono.just(ACCOUNT_JSON));
+                        })
+                        .get("/slow", (request, response) -> response.sendString(
+                                Mono.delay(Duration.ofSeconds(2)).thenReturn("late"))))
+                .bindNow();
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new HttpClientProperties();
+        factory = new ReactiveHttpClientFactory(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+        server.disposeNow();
+    }
+
+    @Test
+    void whenTemplatedRequest_ThenGzipBodyIsDecodedAndTimedPerUriTemplate() {
+        WebClient webClient = factory.create("accountClient", "http://localhost:" + server.port());
+
+        StepVerifier.create(webClient.get().uri("/accounts/{id}", "1").retrieve().bodyToMono(String.class)
+                        .then(webClient.get().uri("/accounts/{id}", "2").retrieve().bodyToMono(String.class)))
+                .expectNext(ACCOUNT_JSON)
+                .verifyComplete();
+
+        assertTrue(acceptEncodings.stream().allMatch(encoding -> encoding.contains("gzip")));
+        Timer timer = meterRegistry.get(ReactiveHttpClientFactory.REQUESTS_METRIC)
+                .tag("client", "accountClient")
+                .tag("uri", "/accounts/{id}")
+                .tag("status", "200")
+                .tag("outcome", "SUCCESS")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void whenResponseTimeoutIsOverriddenForClient_ThenSlowResponseFailsOnlyForThatClient() {
+        HttpClientProperties.Settings impatient = new HttpClientProperties.Settings();
+        impatient.setResponseTimeout(Duration.ofMillis(200));
+        properties.getClients().put("impatientClient", impatient);
+        WebClient webClient = factory.create("impatientClient", "http://localhost:" + server.port());
+
+        StepVerifier.create(webClient.get().uri("/slow").retrieve().bodyToMono(String.class))
+                .expectError(WebClientRequestException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, meterRegistry.get(ReactiveHttpClientFactory.REQUESTS_METRIC)
+                .tag("client", "impatientClient")
+                .tag("outcome", "ERROR")
+                .timer().count());
+        assertEquals(Duration.ofSeconds(5), properties.settingsFor("otherClient").getResponseTimeout());
+    }
+
+    @Test
+    void whenAutoConfigured_ThenPerClientPropertiesOverrideDefaults() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ReactiveHttpClientAutoConfiguration.class))
+                .withPropertyValues("web.client.defaults.max-connections=50",
+                        "web.client.clients.transactionClient.max-connections=200",
+                        "web.client.clients.transactionClient.h2c=true")
+                .run(context -> {
+                    assertTrue(context.containsBean("reactiveHttpClientFactory"));
+                    HttpClientProperties bound = context.getBean(HttpClientProperties.class);
+                    assertEquals(200, bound.settingsFor("transactionClient").getMaxConnections());
+                    assertTrue(bound.settingsFor("transactionClient").getH2c());
+                    assertEquals(50, bound.settingsFor("customerClient").getMaxConnections());
+                    assertEquals(Duration.ofSeconds(2), bound.settingsFor("transactionClient").getConnectTimeout());
+                    // Guards need a circuit breaker factory
+                    assertFalse(context.containsBean("downstreamGuards"));
+                });
+    }
+
+    @Test
+    void whenCircuitBreakerFactoryIsAutoConfigured_ThenDownstreamGuardsAreAvailable() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CircuitBreakerAutoConfiguration.class,
+                        TimeLimiterAutoConfiguration.class, BulkheadAutoConfiguration.class,
+                        ReactiveResilience4JAutoConfiguration.class, ReactiveHttpClientAutoConfiguration.class))
+                .withPropertyValues("resilience4j.bulkhead.instances.accountClient.max-concurrent-calls=7")
+                .run(context -> {
+                    DownstreamGuards downstreamGuards = context.getBean(DownstreamGuards.class);
+                    assertEquals(20, downstreamGuards.forClient("accountClient").getConcurrencyLimiter().getLimit());
+                    // The configured bulkhead instance is used instead of the pool sized default
+                    assertEquals(7, context.getBean(BulkheadRegistry.class).bulkhead("accountClient")
+                            .getBulkheadConfig().getMaxConcurrentCalls());
+                });
+    }
+}
@@ -3,22 +3,31 @@ package com.jorge.credits.expose;
 import com.jorge.credits.api.CreditsApiDelegate;
 import com.jorge.credits.model.*;
 import com.jorge.credits.service.CreditService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class CreditApiDelegateImpl implements CreditsApiDelegate {
     private final CreditService creditService;
+    private final IdempotentExecutor idempotentExecutor;
 
     @Override
     public Mono<CreditResponse> createCredit(Mono<CreditRequest> creditRequest, ServerWebExchange exchange) {
         return creditRequest.flatMap(creditService::createCredit);
     }
 
+    @Override
+    public Mono<CreditStatusRepublishResponse> republishCreditStatus(ServerWebExchange exchange) {
+        return creditService.republishCreditStatus();
+    }
+
     @Override
     public Mono<Void> deleteCreditById(String id, ServerWebExchange exchange) {
         return creditService.deleteCreditById(id);
@@ -45,9 +54,11 @@ public class CreditApiDelegateImpl implements CreditsApiDelegate {
     }
 
     @Override
-    public Mono<CreditResponse> payCreditById(String id, Mono<CreditPaymentRequest> creditPaymentRequest, ServerWebExchange exchange) {
-        return creditPaymentRequest.flatMap(
-                creditPaymentRequest1 -> creditService.payCreditById(id, creditPaymentRequest1));
+    public Mono<CreditResponse> payCreditById(String id, Mono<CreditPaymentRequest> creditPaymentRequest,
+                                              String idempotencyKey, ServerWebExchange exchange) {
+        return creditPaymentRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey, "credits.payment",
+                List.of(id, request), CreditResponse.class,
+                () -> creditService.payCreditById(id, request)));
     }
 
     @Override
@@ -57,9 +68,10 @@ public class CreditApiDelegateImpl implements CreditsApiDelegate {
     }
 
     @Override
-    public Mono<CreditResponse> payCreditByIdWithDebitCard(String id, Mono<CreditPaymentByDebitCardRequest> creditPaymentByDebitCardRequest, ServerWebExchange exchange) {
-        return creditPaymentByDebitCardRequest.flatMap(
-                request -> creditService.payCreditByIdWithDebitCard(id, request)
-        );
+    public Mono<CreditResponse> payCreditByIdWithDebitCard(String id, Mono<CreditPaymentByDebitCardRequest> creditPaymentByDebitCardRequest,
+                                                           String idempotencyKey, ServerWebExchange exchange) {
+        return creditPaymentByDebitCardRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey,
+                "credits.debit-card-payment", List.of(id, request), CreditResponse.class,
+                () -> creditService.payCreditByIdWithDebitCard(id, request)));
     }
 }
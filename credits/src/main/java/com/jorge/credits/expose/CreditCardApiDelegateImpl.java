@@ -3,16 +3,20 @@ package com.jorge.credits.expose;
 import com.jorge.credits.api.CreditCardsApiDelegate;
 import com.jorge.credits.model.*;
 import com.jorge.credits.service.CreditCardService;
+import com.jorge.idempotency.IdempotentExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class CreditCardApiDelegateImpl implements CreditCardsApiDelegate {
     private final CreditCardService creditCardService;
+    private final IdempotentExecutor idempotentExecutor;
 
     @Override
     public Flux<CreditCardTransactionResponse> getCreditCardTransactionsByCreditCardNumber(String creditCardNumber, ServerWebExchange exchange) {
@@ -61,9 +65,11 @@ public class CreditCardApiDelegateImpl implements CreditCardsApiDelegate {
     }
 
     @Override
-    public Mono<CreditCardResponse> payCreditCardByCreditCardNumber(String creditCardNumber, Mono<CreditPaymentRequest> creditPaymentRequest, ServerWebExchange exchange) {
-        return creditPaymentRequest.flatMap(creditPaymentRequest1 ->
-                creditCardService.payCreditCardByCreditCardNumber(creditCardNumber, creditPaymentRequest1));
+    public Mono<CreditCardResponse> payCreditCardByCreditCardNumber(String creditCardNumber, Mono<CreditPaymentRequest> creditPaymentRequest,
+                                                                    String idempotencyKey, ServerWebExchange exchange) {
+        return creditPaymentRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey,
+                "credits.credit-card-payment", List.of(creditCardNumber, request), CreditCardResponse.class,
+                () -> creditCardService.payCreditCardByCreditCardNumber(creditCardNumber, request)));
     }
 
     @Override
@@ -73,9 +79,10 @@ public class CreditCardApiDelegateImpl implements CreditCardsApiDelegate {
     }
 
     @Override
-    public Mono<CreditCardResponse> payCreditCardWithDebitCard(String creditCardNumber, Mono<CreditPaymentByDebitCardRequest> creditPaymentByDebitCardRequest, ServerWebExchange exchange) {
-        return creditPaymentByDebitCardRequest.flatMap(
-                request -> creditCardService.payCreditCardWithDebitCard(creditCardNumber, request)
-        );
+    public Mono<CreditCardResponse> payCreditCardWithDebitCard(String creditCardNumber, Mono<CreditPaymentByDebitCardRequest> creditPaymentByDebitCardRequest,
+                                                               String idempotencyKey, ServerWebExchange exchange) {
+        return creditPaymentByDebitCardRequest.flatMap(request -> idempotentExecutor.execute(idempotencyKey,
+                "credits.credit-card-debit-card-payment", List.of(creditCardNumber, request), CreditCardResponse.class,
+                () -> creditCardService.payCreditCardWithDebitCard(creditCardNumber, request)));
     }
 }
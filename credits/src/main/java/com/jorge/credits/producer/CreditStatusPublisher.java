@@ -0,0 +1,74 @@
+package com.jorge.credits.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jorge.credits.model.Credit;
+import com.jorge.credits.model.CreditCard;
+import com.jorge.credits.producer.dto.CreditStatusKafkaMessage;
+import com.jorge.credits.repository.CreditCardRepository;
+import com.jorge.credits.repository.CreditRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+// Publishes the credit status of a customer (owns a credit card, earliest credit due date) after every change to
+// their credits or credit cards. Other services keep it as a local read model instead of querying this service.
+// Messages are keyed by customer so a customer's updates stay in order
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditStatusPublisher {
+    public static final String CREDIT_STATUS_TOPIC = "credit-status-changed";
+    private static final int REPUBLISH_CONCURRENCY = 8;
+
+    private final CreditRepository creditRepository;
+    private final CreditCardRepository creditCardRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Never fails the caller: a status that could not be published is corrected by the next change or a republish
+    public Mono<Void> publish(String customerId) {
+        if (customerId == null) {
+            return Mono.empty();
+        }
+        return Mono.zip(creditCardRepository.existsByCardHolderId(customerId),
+                        creditRepository.findFirstByCreditHolderIdOrderByDueDateAsc(customerId)
+                                .map(credit -> Optional.ofNullable(credit.getDueDate()))
+                                .defaultIfEmpty(Optional.empty()))
+                .map(tuple -> CreditStatusKafkaMessage.builder()
+                        .customerId(customerId)
+                        .hasCreditCard(tuple.getT1())
+                        .earliestDueDate(tuple.getT2().orElse(null))
+                        .computedAt(LocalDateTime.now())
+                        .build())
+                .flatMap(message -> Mono.fromCallable(() -> objectMapper.writeValueAsString(message))
+                        .flatMap(json -> Mono.fromFuture(() -> kafkaTemplate.send(CREDIT_STATUS_TOPIC, customerId, json))))
+                .doOnSuccess(result -> log.info("Published credit status of customer {}", customerId))
+                .onErrorResume(e -> {
+                    log.error("Error publishing credit status of customer {}: {}", customerId, e.getMessage(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Full rebuild of the read models: publishes the status of every customer with a credit or a credit card
+    public Mono<Long> republishAll() {
+        log.info("Republishing the credit status of every customer");
+        return Flux.merge(reactiveMongoTemplate.findDistinct(new Query(), "creditHolderId", Credit.class, String.class),
+                        reactiveMongoTemplate.findDistinct(new Query(), "cardHolderId", CreditCard.class, String.class))
+                .filter(Objects::nonNull)
+                .distinct()
+                .flatMap(customerId -> publish(customerId).thenReturn(customerId), REPUBLISH_CONCURRENCY)
+                .count()
+                .doOnSuccess(count -> log.info("Republished the credit status of {} customers", count));
+    }
+}
@@ -0,0 +1,21 @@
+package com.jorge.credits.producer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Credit standing of one customer as seen by the credits service when computedAt was taken
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditStatusKafkaMessage {
+    private String customerId;
+    private boolean hasCreditCard;
+    private LocalDate earliestDueDate;      // Null when the customer has no credits
+    private LocalDateTime computedAt;
+}
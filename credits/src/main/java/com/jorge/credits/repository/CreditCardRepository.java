@@ -9,6 +9,7 @@ import reactor.core.publisher.Mono;
 @Repository
 public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard, String> {
     Flux<CreditCard> findByCardHolderId(String cardHolderId);
+    Mono<Boolean> existsByCardHolderId(String cardHolderId);
 
     Mono<CreditCard> findByCreditCardNumber(String creditCardNumber);
 }
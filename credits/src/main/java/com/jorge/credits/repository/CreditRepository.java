@@ -4,6 +4,7 @@ import com.jorge.credits.model.Credit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.Collection;
 
@@ -11,4 +12,5 @@ import java.util.Collection;
 public interface CreditRepository extends ReactiveMongoRepository<Credit, String> {
     Flux<Credit> findByCreditHolderIdAndCreditTypeIn(String creditHolderId, Collection<Credit.CreditType> creditTypes);
     Flux<Credit> findByCreditHolderId(String creditHolderId);
+    Mono<Credit> findFirstByCreditHolderIdOrderByDueDateAsc(String creditHolderId);
 }
@@ -16,4 +16,5 @@ public interface CreditService {
     Flux<TransactionResponse> getTransactionsByCreditId(String id);
 
     Mono<CreditResponse> payCreditByIdWithDebitCard(String id, CreditPaymentByDebitCardRequest creditPaymentRequest);
+    Mono<CreditStatusRepublishResponse> republishCreditStatus();
 }
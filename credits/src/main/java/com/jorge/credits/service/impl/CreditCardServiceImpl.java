@@ -3,6 +3,7 @@ package com.jorge.credits.service.impl;
 import com.jorge.credits.mapper.CreditCardMapper;
 import com.jorge.credits.mapper.TransactionRequestMapper;
 import com.jorge.credits.model.*;
+import com.jorge.credits.producer.CreditStatusPublisher;
 import com.jorge.credits.repository.CreditCardRepository;
 import com.jorge.credits.service.CreditCardService;
 import com.jorge.credits.webclient.client.AccountClient;
@@ -34,6 +35,7 @@ public class CreditCardServiceImpl implements CreditCardService {
     private final CreditCardRepository creditCardRepository;
     private final CreditCardMapper creditCardMapper;
     private final TransactionRequestMapper transactionRequestMapper;
+    private final CreditStatusPublisher creditStatusPublisher;
 
 
     @Override
@@ -71,6 +73,7 @@ public class CreditCardServiceImpl implements CreditCardService {
                 })
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Customer with Id: " + creditCardRequest.getCardHolderId() + " not found")))
+                .flatMap(savedCreditCard -> creditStatusPublisher.publish(savedCreditCard.getCardHolderId()).thenReturn(savedCreditCard))
                 .doOnSuccess(creditCardResponse ->
                         log.info("Credit card created successfully with number: {}", creditCardResponse.getCreditCardNumber()))
                 .doOnError(throwable -> log.error("Error creating credit card: {}", throwable.getMessage()))
@@ -92,15 +95,20 @@ public class CreditCardServiceImpl implements CreditCardService {
         return creditCardRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Credit card with id: " + id + " not found")))
-                .flatMap(existingCreditCard -> creditCardRepository.save(
-                        updateCreditCardFromRequest(existingCreditCard, creditCardRequest)))
+                .flatMap(existingCreditCard -> creditCardRepository.save(updateCreditCardFromRequest(existingCreditCard, creditCardRequest))
+                        .flatMap(updatedCreditCard -> creditStatusPublisher.publish(existingCreditCard.getCardHolderId())
+                                .then(Mono.defer(() -> updatedCreditCard.getCardHolderId().equals(existingCreditCard.getCardHolderId())
+                                        ? Mono.empty() : creditStatusPublisher.publish(updatedCreditCard.getCardHolderId())))
+                                .thenReturn(updatedCreditCard)))
                 .map(creditCardMapper::mapToCreditCardResponse);
     }
 
     @Override
     public Mono<Void> deleteCreditCardById(String id) {
         log.info("Deleting credit Card with id: {}", id);
-        return creditCardRepository.deleteById(id);
+        return creditCardRepository.findById(id)
+                .flatMap(creditCard -> creditCardRepository.deleteById(id)
+                        .then(Mono.defer(() -> creditStatusPublisher.publish(creditCard.getCardHolderId()))));
     }
 
     @Override
@@ -146,17 +154,19 @@ public class CreditCardServiceImpl implements CreditCardService {
                             AccountBalanceUpdateRequest.builder().balance(creditPaymentRequest.getAmount()).build();
 
                     return accountClient.reduceBalanceByAccountNumber(creditPaymentRequest.getAccountNumber(), accountBalanceUpdateRequest)
-                            .flatMap(accountBalanceResponse -> creditCardRepository.save(creditCard))
-                            .flatMap(savedCreditCard -> {
-                                log.info("Creating Payment Transaction");
-                                TransactionRequest transactionRequest = transactionRequestMapper.mapPaymentRequestToTransactionRequest(
-                                        creditPaymentRequest,
-                                        savedCreditCard.getId(),
-                                        "Credit card payment for credit card: " + creditCard.getCreditCardNumber(),
-                                        BigDecimal.ZERO);
-                                return transactionClient.createTransaction(transactionRequest)
-                                        .thenReturn(savedCreditCard);
-                            })
+                            .flatMap(accountBalanceResponse -> creditCardRepository.save(creditCard)
+                                    .flatMap(savedCreditCard -> {
+                                        log.info("Creating Payment Transaction");
+                                        // Stamped with the balance the payment left the account with
+                                        TransactionRequest transactionRequest = transactionRequestMapper.mapPaymentRequestToTransactionRequest(
+                                                creditPaymentRequest,
+                                                savedCreditCard.getId(),
+                                                "Credit card payment for credit card: " + creditCard.getCreditCardNumber(),
+                                                BigDecimal.ZERO)
+                                                .withBalanceAfter(accountBalanceResponse.getBalance());
+                                        return transactionClient.createTransaction(transactionRequest)
+                                                .thenReturn(savedCreditCard);
+                                    }))
                             .flatMap(savedCreditCard -> {
                                 log.info("Creating Credit Card Transaction");
                                 CreditCardTransactionRequest creditCardTransactionRequest =
@@ -230,18 +240,19 @@ public class CreditCardServiceImpl implements CreditCardService {
                     BigDecimal newOutstandingBalance = creditCard.getOutstandingBalance().subtract(paymentAmount);
                     creditCard.setOutstandingBalance(newOutstandingBalance);
                     creditCard.setAvailableBalance(creditCard.getAvailableBalance().add(paymentAmount));
-                    return creditCardRepository.save(creditCard);
-                })
-                .flatMap(savedCreditCard -> {
-                    log.info("Creating Payment Transaction made by Account number: {}", account.getAccountNumber());
-                    TransactionRequest transactionRequest = transactionRequestMapper.mapDebitCardPaymentRequestToTransactionRequest(
-                            account.getAccountNumber(),
-                            creditPaymentByDebitCardRequest,
-                            savedCreditCard.getId(),
-                            "Credit card payment for credit card: " + savedCreditCard.getCreditCardNumber() + " using debit card.",
-                            BigDecimal.ZERO);
-                    return transactionClient.createTransaction(transactionRequest)
-                            .thenReturn(savedCreditCard);
+                    return creditCardRepository.save(creditCard)
+                            .flatMap(savedCreditCard -> {
+                                log.info("Creating Payment Transaction made by Account number: {}", account.getAccountNumber());
+                                TransactionRequest transactionRequest = transactionRequestMapper.mapDebitCardPaymentRequestToTransactionRequest(
+                                        account.getAccountNumber(),
+                                        creditPaymentByDebitCardRequest,
+                                        savedCreditCard.getId(),
+                                        "Credit card payment for credit card: " + savedCreditCard.getCreditCardNumber() + " using debit card.",
+                                        BigDecimal.ZERO)
+                                        .withBalanceAfter(accountBalanceResponse.getBalance());
+                                return transactionClient.createTransaction(transactionRequest)
+                                        .thenReturn(savedCreditCard);
+                            });
                 })
                 .flatMap(savedCreditCard -> {
                     log.info("Creating Credit Card Transaction for Credit Card with number: {}", savedCreditCard.getCreditCardNumber());
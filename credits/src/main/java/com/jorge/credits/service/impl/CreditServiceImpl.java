@@ -3,6 +3,7 @@ package com.jorge.credits.service.impl;
 import com.jorge.credits.mapper.CreditMapper;
 import com.jorge.credits.mapper.TransactionRequestMapper;
 import com.jorge.credits.model.*;
+import com.jorge.credits.producer.CreditStatusPublisher;
 import com.jorge.credits.repository.CreditRepository;
 import com.jorge.credits.service.CreditService;
 import com.jorge.credits.webclient.client.AccountClient;
@@ -35,6 +36,7 @@ public class CreditServiceImpl implements CreditService {
     private final CreditMapper creditMapper;
     private final CreditRepository creditRepository;
     private final TransactionRequestMapper transactionRequestMapper;
+    private final CreditStatusPublisher creditStatusPublisher;
 
     @Override
     public Flux<CreditResponse> getAllCredits() {
@@ -82,6 +84,7 @@ public class CreditServiceImpl implements CreditService {
                                 });
                     }
                 })
+                .flatMap(savedCredit -> creditStatusPublisher.publish(savedCredit.getCreditHolderId()).thenReturn(savedCredit))
                 .doOnSuccess(creditResponse -> log.info("Credit created successfully: {}", creditResponse))
                 .doOnError(throwable -> log.error("Error creating credit: {}", throwable.getMessage()))
                 .map(creditMapper::mapToCreditResponse);
@@ -102,15 +105,21 @@ public class CreditServiceImpl implements CreditService {
         return creditRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Credit with id: " + id + " not found")))
-                .flatMap(existingCredit -> creditRepository.save(
-                        updateCreditFromRequest(existingCredit, creditRequest)))
+                .flatMap(existingCredit -> creditRepository.save(updateCreditFromRequest(existingCredit, creditRequest))
+                        // The holder may have changed, so both customers get their status refreshed
+                        .flatMap(updatedCredit -> creditStatusPublisher.publish(existingCredit.getCreditHolderId())
+                                .then(Mono.defer(() -> updatedCredit.getCreditHolderId().equals(existingCredit.getCreditHolderId())
+                                        ? Mono.empty() : creditStatusPublisher.publish(updatedCredit.getCreditHolderId())))
+                                .thenReturn(updatedCredit)))
                 .map(creditMapper::mapToCreditResponse);
     }
 
     @Override
     public Mono<Void> deleteCreditById(String id) {
         log.info("Deleting credit with id: {}", id);
-        return creditRepository.deleteById(id);
+        return creditRepository.findById(id)
+                .flatMap(credit -> creditRepository.deleteById(id)
+                        .then(Mono.defer(() -> creditStatusPublisher.publish(credit.getCreditHolderId()))));
     }
 
     @Override
@@ -137,16 +146,18 @@ public class CreditServiceImpl implements CreditService {
 
                             return accountClient.reduceBalanceByAccountNumber(
                                             creditPaymentRequest.getAccountNumber(), accountBalanceUpdateRequest)
-                                    .flatMap(accountBalanceResponse -> creditRepository.save(credit))
-                                    .flatMap(savedCredit -> {
-                                        TransactionRequest transactionRequest = transactionRequestMapper.mapPaymentRequestToTransactionRequest(
-                                                creditPaymentRequest,
-                                                savedCredit.getId(),
-                                                "Credit payment for credit id: " + savedCredit.getId(),
-                                                BigDecimal.ZERO);
-                                        return transactionClient.createTransaction(transactionRequest)
-                                                .thenReturn(savedCredit);
-                                    });
+                                    .flatMap(accountBalanceResponse -> creditRepository.save(credit)
+                                            .flatMap(savedCredit -> {
+                                                // Stamped with the balance the payment left the account with
+                                                TransactionRequest transactionRequest = transactionRequestMapper.mapPaymentRequestToTransactionRequest(
+                                                        creditPaymentRequest,
+                                                        savedCredit.getId(),
+                                                        "Credit payment for credit id: " + savedCredit.getId(),
+                                                        BigDecimal.ZERO)
+                                                        .withBalanceAfter(accountBalanceResponse.getBalance());
+                                                return transactionClient.createTransaction(transactionRequest)
+                                                        .thenReturn(savedCredit);
+                                            }));
                         })
                 )
                 .map(creditMapper::mapToCreditResponse);
@@ -203,17 +214,18 @@ public class CreditServiceImpl implements CreditService {
                 AccountBalanceUpdateRequest.builder().balance(creditPaymentRequest.getAmount()).build();
         return accountClient.reduceBalanceByAccountNumber(
                         mainAccount.getAccountNumber(), accountBalanceUpdateRequest)
-                .flatMap(accountBalanceResponse -> creditRepository.save(credit))
-                .flatMap(savedCredit -> {
-                    TransactionRequest transactionRequest = transactionRequestMapper.mapDebitCardPaymentRequestToTransactionRequest(
-                            mainAccount.getAccountNumber(),
-                            creditPaymentRequest,
-                            savedCredit.getId(),
-                            "Credit payment for credit id: " + savedCredit.getId(),
-                            BigDecimal.ZERO);
-                    return transactionClient.createTransaction(transactionRequest)
-                            .thenReturn(savedCredit);
-                });
+                .flatMap(accountBalanceResponse -> creditRepository.save(credit)
+                        .flatMap(savedCredit -> {
+                            TransactionRequest transactionRequest = transactionRequestMapper.mapDebitCardPaymentRequestToTransactionRequest(
+                                    mainAccount.getAccountNumber(),
+                                    creditPaymentRequest,
+                                    savedCredit.getId(),
+                                    "Credit payment for credit id: " + savedCredit.getId(),
+                                    BigDecimal.ZERO)
+                                    .withBalanceAfter(accountBalanceResponse.getBalance());
+                            return transactionClient.createTransaction(transactionRequest)
+                                    .thenReturn(savedCredit);
+                        }));
     }
 
     private Mono<Credit> validateAndUpdateCredit(Credit credit, BigDecimal paymentAmount) {
@@ -233,6 +245,16 @@ public class CreditServiceImpl implements CreditService {
         return Mono.just(credit);
     }
 
+    @Override
+    public Mono<CreditStatusRepublishResponse> republishCreditStatus() {
+        return creditStatusPublisher.republishAll()
+                .map(customers -> {
+                    CreditStatusRepublishResponse response = new CreditStatusRepublishResponse();
+                    response.setCustomers(customers);
+                    return response;
+                });
+    }
+
     @Override
     public Flux<TransactionResponse> getTransactionsByCreditId(String id) {
         log.info("Fetching transactions by credit id: {}", id);
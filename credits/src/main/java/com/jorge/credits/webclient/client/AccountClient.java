@@ -4,8 +4,10 @@ import com.jorge.credits.webclient.dto.response.AccountBalanceResponse;
 import com.jorge.credits.webclient.dto.request.AccountBalanceUpdateRequest;
 import com.jorge.credits.webclient.dto.response.AccountResponse;
 import com.jorge.credits.webclient.dto.response.DebitCardResponse;
+import com.jorge.idempotency.NotAppliedException;
+import com.jorge.webclient.DownstreamGuard;
+import com.jorge.webclient.DownstreamGuards;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -16,50 +18,57 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class AccountClient {
     private final WebClient webClient;
-    private final ReactiveCircuitBreakerFactory circuitBreakerFactory;
+    private final DownstreamGuard downstreamGuard;
 
-    public AccountClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory, String baseUrl) {
-        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
-        this.circuitBreakerFactory = circuitBreakerFactory;
+    public AccountClient(WebClient webClient, DownstreamGuard downstreamGuard) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
     }
 
     public Mono<AccountBalanceResponse> reduceBalanceByAccountNumber(String accountNumber,
                                                                      AccountBalanceUpdateRequest accountBalanceUpdateRequest) {
-        return circuitBreakerFactory.create("accountClient").run(webClient.patch()
-                .uri("/accounts/account-number/" + accountNumber + "/balance/reduction")
+        return downstreamGuard.run(webClient.patch()
+                .uri("/accounts/account-number/{accountNumber}/balance/reduction", accountNumber)
                 .bodyValue(accountBalanceUpdateRequest)
                 .retrieve()
                 .bodyToMono(AccountBalanceResponse.class),
-                throwable -> Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable", throwable)));
+                throwable -> Mono.error(unavailable(throwable)));
     }
 
     public Mono<AccountResponse> getAccountByAccountNumber(String accountNumber) {
         Mono<AccountResponse> accountResponseMono = webClient.get()
-                .uri("/accounts/account-number/" + accountNumber)
+                .uri("/accounts/account-number/{accountNumber}", accountNumber)
                 .retrieve()
                 .bodyToMono(AccountResponse.class)
                 .onErrorResume(WebClientResponseException.NotFound.class, ex ->
                         Mono.empty());
 
-        return circuitBreakerFactory.create("accountClient").run(accountResponseMono,
+        return downstreamGuard.run(accountResponseMono,
                 throwable -> {
                     log.error(throwable.getMessage());
-                    return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable", throwable));
+                    return Mono.error(unavailable(throwable));
                 });
     }
 
     public Mono<DebitCardResponse> getDebitCardByDebitCardNumber(String debitCardNumber) {
         Mono<DebitCardResponse> debitCardResponseMono = webClient.get()
-                .uri("/debit-cards/card-number/" + debitCardNumber)
+                .uri("/debit-cards/card-number/{debitCardNumber}", debitCardNumber)
                 .retrieve()
                 .bodyToMono(DebitCardResponse.class)
                 .onErrorResume(WebClientResponseException.NotFound.class, ex ->
                         Mono.empty());
 
-        return circuitBreakerFactory.create("accountClient").run(debitCardResponseMono,
+        return downstreamGuard.run(debitCardResponseMono,
                 throwable -> {
                     log.error(throwable.getMessage());
-                    return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable", throwable));
+                    return Mono.error(unavailable(throwable));
                 });
     }
+
+    // A call that never reached the account service applied nothing, so the payment's Idempotency-Key can be reused
+    private static ResponseStatusException unavailable(Throwable throwable) {
+        return DownstreamGuards.wasNotSent(throwable)
+                ? new NotAppliedException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable", throwable)
+                : new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Account service unavailable", throwable);
+    }
 }
@@ -0,0 +1,87 @@
+package com.jorge.credits.webclient.client;
+
+import com.jorge.credits.model.TransactionResponse;
+import com.jorge.credits.webclient.dto.request.TransactionRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Coalesces single transaction requests that arrive within a short window into one batch call.
+ * Each caller still gets its own response, matched by position, or the error of the batch it was part of.
+ */
+@Slf4j
+public class TransactionBatcher {
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private final Sinks.Many<PendingTransaction> pendingTransactions = Sinks.many().unicast().onBackpressureBuffer();
+    private final Function<List<TransactionRequest>, Flux<TransactionResponse>> batchCall;
+
+    public TransactionBatcher(Function<List<TransactionRequest>, Flux<TransactionResponse>> batchCall,
+                              int maxBatchSize, Duration window) {
+        this.batchCall = batchCall;
+        pendingTransactions.asFlux()
+                .bufferTimeout(maxBatchSize, window, true)
+                .flatMap(this::dispatch, MAX_CONCURRENT_BATCHES)
+                .subscribe();
+    }
+
+    public Mono<TransactionResponse> submit(TransactionRequest transactionRequest) {
+        return Mono.create(sink -> enqueue(new PendingTransaction(transactionRequest, sink)));
+    }
+
+    public synchronized void close() {
+        // Completing the sink flushes whatever is still buffered before the subscription ends
+        pendingTransactions.tryEmitComplete();
+    }
+
+    // The unicast sink does not accept concurrent emissions, so callers from different threads are serialized here
+    private synchronized void enqueue(PendingTransaction pendingTransaction) {
+        Sinks.EmitResult result = pendingTransactions.tryEmitNext(pendingTransaction);
+        if (result.isFailure()) {
+            pendingTransaction.sink().error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Transaction batcher is not accepting requests: " + result));
+        }
+    }
+
+    private Mono<Void> dispatch(List<PendingTransaction> batch) {
+        List<TransactionRequest> transactionRequests = batch.stream()
+                .map(PendingTransaction::transactionRequest)
+                .toList();
+        log.debug("Sending a batch of {} transactions", transactionRequests.size());
+
+        return batchCall.apply(transactionRequests)
+                .collectList()
+                .doOnNext(transactionResponses -> complete(batch, transactionResponses))
+                .onErrorResume(e -> {
+                    log.error("Transaction batch of {} failed: {}", batch.size(), e.getMessage());
+                    batch.forEach(pendingTransaction -> pendingTransaction.sink().error(e));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // The batch endpoint answers in request order, so responses are handed back by position
+    private void complete(List<PendingTransaction> batch, List<TransactionResponse> transactionResponses) {
+        if (transactionResponses.size() != batch.size()) {
+            ResponseStatusException mismatch = new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                    "Transaction batch returned " + transactionResponses.size() + " responses for " + batch.size() + " requests");
+            batch.forEach(pendingTransaction -> pendingTransaction.sink().error(mismatch));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).sink().success(transactionResponses.get(i));
+        }
+    }
+
+    private record PendingTransaction(TransactionRequest transactionRequest, MonoSink<TransactionResponse> sink) {
+    }
+}
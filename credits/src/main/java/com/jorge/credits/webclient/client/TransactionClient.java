@@ -4,49 +4,64 @@ import com.jorge.credits.model.CreditCardTransactionResponse;
 import com.jorge.credits.model.TransactionResponse;
 import com.jorge.credits.webclient.dto.request.CreditCardTransactionRequest;
 import com.jorge.credits.webclient.dto.request.TransactionRequest;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import com.jorge.webclient.DownstreamGuard;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
 public class TransactionClient {
     private final WebClient webClient;
-    private final ReactiveCircuitBreakerFactory circuitBreakerFactory;
+    private final DownstreamGuard downstreamGuard;
+    private final TransactionBatcher transactionBatcher;
+
+    public TransactionClient(WebClient webClient, DownstreamGuard downstreamGuard) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
+        this.transactionBatcher = null;
+    }
 
-    public TransactionClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory, String baseUrl) {
-        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
-        this.circuitBreakerFactory = circuitBreakerFactory;
+    // Single createTransaction calls arriving within batchWindow are sent together through the batch endpoint
+    public TransactionClient(WebClient webClient, DownstreamGuard downstreamGuard,
+                             int maxBatchSize, Duration batchWindow) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
+        this.transactionBatcher = new TransactionBatcher(this::createTransactions, maxBatchSize, batchWindow);
     }
 
     public Flux<TransactionResponse> getTransactionsByCreditId(String creditId) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                .uri("/transactions/credit-id/" + creditId)
+        return downstreamGuard.run(webClient.get()
+                .uri("/transactions/credit-id/{creditId}", creditId)
                 .retrieve()
                 .bodyToFlux(TransactionResponse.class),
                 throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
 
     public Flux<CreditCardTransactionResponse> getCreditCardTransactionsByCreditCardNumber(String creditCardNumber) {
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                        .uri("/credit-card-transactions/credit-card-number/" + creditCardNumber)
+        return downstreamGuard.run(webClient.get()
+                        .uri("/credit-card-transactions/credit-card-number/{creditCardNumber}", creditCardNumber)
                         .retrieve()
                         .bodyToFlux(CreditCardTransactionResponse.class),
                 throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
 
     public Flux<CreditCardTransactionResponse> getCreditCardTransactionsByCreditCardNumberLast10(String creditCardNumber){
-        return circuitBreakerFactory.create("transactionClient").run(webClient.get()
-                        .uri("/credit-card-transactions/credit-card-number/" + creditCardNumber + "/last-transactions")
+        return downstreamGuard.run(webClient.get()
+                        .uri("/credit-card-transactions/credit-card-number/{creditCardNumber}/last-transactions", creditCardNumber)
                         .retrieve()
                         .bodyToFlux(CreditCardTransactionResponse.class),
                 throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
 
     public Mono<TransactionResponse> createTransaction(TransactionRequest transactionRequest){
-        return circuitBreakerFactory.create("transactionClient")
-                .run(webClient.post()
+        if (transactionBatcher != null) {
+            return transactionBatcher.submit(transactionRequest);
+        }
+        return downstreamGuard.run(webClient.post()
                         .uri("/transactions")
                         .bodyValue(transactionRequest)
                         .retrieve()
@@ -54,13 +69,27 @@ public class TransactionClient {
                         throwable -> Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
 
+    public Flux<TransactionResponse> createTransactions(List<TransactionRequest> transactionRequests){
+        return downstreamGuard.run(webClient.post()
+                        .uri("/transactions/batch")
+                        .bodyValue(transactionRequests)
+                        .retrieve()
+                        .bodyToFlux(TransactionResponse.class),
+                        throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
+    }
+
     public Mono<CreditCardTransactionResponse> createCreditCardTransaction(CreditCardTransactionRequest creditCardTransactionRequest){
-        return circuitBreakerFactory.create("transactionClient")
-                .run(webClient.post()
+        return downstreamGuard.run(webClient.post()
                         .uri("/credit-card-transactions")
                         .bodyValue(creditCardTransactionRequest)
                         .retrieve()
                         .bodyToMono(CreditCardTransactionResponse.class),
                         throwable -> Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transaction service unavailable", throwable)));
     }
+
+    public void close() {
+        if (transactionBatcher != null) {
+            transactionBatcher.close();
+        }
+    }
 }
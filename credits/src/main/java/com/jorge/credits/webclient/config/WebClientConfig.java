@@ -3,35 +3,41 @@ package com.jorge.credits.webclient.config;
 import com.jorge.credits.webclient.client.AccountClient;
 import com.jorge.credits.webclient.client.CustomerClient;
 import com.jorge.credits.webclient.client.TransactionClient;
+import com.jorge.webclient.DownstreamGuard;
+import com.jorge.webclient.DownstreamGuards;
+import com.jorge.webclient.ReactiveHttpClientFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Configuration
 public class WebClientConfig {
     @Bean
-    public TransactionClient transactionClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory,
-                                               @Value("${web.baseurl.transactionservice}") String baseUrl) {
-        return new TransactionClient(webClientBuilder, circuitBreakerFactory, baseUrl);
+    public TransactionClient transactionClient(ReactiveHttpClientFactory httpClientFactory, DownstreamGuards downstreamGuards,
+                                               @Value("${web.baseurl.transactionservice}") String baseUrl,
+                                               @Value("${web.batching.transactionservice.enabled:false}") boolean batchingEnabled,
+                                               @Value("${web.batching.transactionservice.max-size:50}") int maxBatchSize,
+                                               @Value("${web.batching.transactionservice.window:5ms}") Duration batchWindow) {
+        WebClient webClient = httpClientFactory.create("transactionClient", baseUrl);
+        DownstreamGuard downstreamGuard = downstreamGuards.forClient("transactionClient");
+        if (batchingEnabled) {
+            return new TransactionClient(webClient, downstreamGuard, maxBatchSize, batchWindow);
+        }
+        return new TransactionClient(webClient, downstreamGuard);
     }
 
     @Bean
-    public CustomerClient customerClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory,
+    public CustomerClient customerClient(ReactiveHttpClientFactory httpClientFactory, DownstreamGuards downstreamGuards,
                                          @Value("${web.baseurl.customerservice}") String baseUrl) {
-        return new CustomerClient(webClientBuilder, circuitBreakerFactory, baseUrl);
+        return new CustomerClient(httpClientFactory.create("customerClient", baseUrl), downstreamGuards.forClient("customerClient"));
     }
 
     @Bean
-    public AccountClient accountClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory,
+    public AccountClient accountClient(ReactiveHttpClientFactory httpClientFactory, DownstreamGuards downstreamGuards,
                                        @Value("${web.baseurl.accountservice}") String baseUrl) {
-        return new AccountClient(webClientBuilder, circuitBreakerFactory, baseUrl);
-    }
-
-    @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder()
-                .defaultHeader("Content-Type", "application/json");
+        return new AccountClient(httpClientFactory.create("accountClient", baseUrl), downstreamGuards.forClient("accountClient"));
     }
 }
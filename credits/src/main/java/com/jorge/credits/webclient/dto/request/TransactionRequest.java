@@ -19,10 +19,32 @@ public class TransactionRequest {
 
     private String relatedCreditId;
 
+    // Balance of the account around the movement, read from the account the movement updated
+    private BigDecimal balanceBefore;
+    private BigDecimal balanceAfter;
+
+    // Stamps the balance the movement left and derives the one it found, undoing amount and fee as they were applied
+    public TransactionRequest withBalanceAfter(BigDecimal balanceAfter) {
+        BigDecimal movementFee = fee == null ? BigDecimal.ZERO : fee;
+        this.balanceAfter = balanceAfter;
+        this.balanceBefore = transactionType.isDebit()
+                ? balanceAfter.add(amount.add(movementFee))
+                : balanceAfter.subtract(amount.subtract(movementFee));
+        return this;
+    }
+
     public enum TransactionType {
         CREDIT_PAYMENT,
         CREDIT_DEPOSIT,
         CREDIT_CARD_CONSUMPTION,
-        CREDIT_CARD_PAYMENT
+        CREDIT_CARD_PAYMENT;
+
+        // Same split as the transaction service: payments take amount and fee out of the account
+        public boolean isDebit() {
+            return switch (this) {
+                case CREDIT_PAYMENT, CREDIT_CARD_PAYMENT -> true;
+                case CREDIT_DEPOSIT, CREDIT_CARD_CONSUMPTION -> false;
+            };
+        }
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.jorge.credits.service.impl;
 import com.jorge.credits.mapper.CreditCardMapper;
 import com.jorge.credits.mapper.TransactionRequestMapper;
 import com.jorge.credits.model.*;
+import com.jorge.credits.producer.CreditStatusPublisher;
 import com.jorge.credits.repository.CreditCardRepository;
 import com.jorge.credits.webclient.client.AccountClient;
 import com.jorge.credits.webclient.client.CustomerClient;
@@ -48,6 +49,8 @@ public class CreditCardServiceImplTest {
     private CreditCardMapper creditCardMapper;
     @Spy
     private TransactionRequestMapper transactionRequestMapper;
+    @Mock
+    private CreditStatusPublisher creditStatusPublisher;
     @InjectMocks
     private CreditCardServiceImpl creditCardServiceImpl;
 
@@ -146,7 +149,7 @@ public class CreditCardServiceImplTest {
         when(accountClient.getDebitCardByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCardResponse));
         when(accountClient.getAccountByAccountNumber(debitCardResponse.getMainLinkedAccountNumber()))
                 .thenReturn(Mono.just(accountResponse));
-        when(accountClient.reduceBalanceByAccountNumber(mainAccountNumber, accountBalanceUpdateRequestFromDebitCardPayment)).thenReturn(Mono.just(new AccountBalanceResponse()));
+        when(accountClient.reduceBalanceByAccountNumber(mainAccountNumber, accountBalanceUpdateRequestFromDebitCardPayment)).thenReturn(Mono.just(new AccountBalanceResponse(null, AccountBalanceResponse.AccountType.SAVINGS, BigDecimal.valueOf(900))));
         when(creditCardRepository.save(any(CreditCard.class))).thenReturn(Mono.just(creditCard));
         when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
         when(transactionClient.createCreditCardTransaction(any(CreditCardTransactionRequest.class)))
@@ -194,7 +197,7 @@ public class CreditCardServiceImplTest {
         when(accountClient.getAccountByAccountNumber(secondAccountNumber)).thenReturn(Mono.just(secondAccountResponse));
 
         when(accountClient.reduceBalanceByAccountNumber(secondAccountNumber, accountBalanceUpdateRequestFromDebitCardPayment))
-                .thenReturn(Mono.just(new AccountBalanceResponse()));
+                .thenReturn(Mono.just(new AccountBalanceResponse(null, AccountBalanceResponse.AccountType.SAVINGS, BigDecimal.valueOf(900))));
 
         when(creditCardRepository.save(any(CreditCard.class))).thenReturn(Mono.just(creditCard));
         when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
@@ -3,6 +3,7 @@ package com.jorge.credits.service.impl;
 import com.jorge.credits.mapper.CreditMapper;
 import com.jorge.credits.mapper.TransactionRequestMapper;
 import com.jorge.credits.model.*;
+import com.jorge.credits.producer.CreditStatusPublisher;
 import com.jorge.credits.repository.CreditRepository;
 import com.jorge.credits.webclient.client.AccountClient;
 import com.jorge.credits.webclient.client.TransactionClient;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +46,8 @@ public class CreditServiceImplTest {
     private CreditRepository creditRepository;
     @Spy
     private TransactionRequestMapper transactionRequestMapper;
+    @Mock
+    private CreditStatusPublisher creditStatusPublisher;
     @InjectMocks
     private CreditServiceImpl creditServiceImpl;
 
@@ -122,7 +126,7 @@ public class CreditServiceImplTest {
         when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
         when(accountClient.getDebitCardByDebitCardNumber(debitCardNumber)).thenReturn(Mono.just(debitCardResponse));
         when(accountClient.getAccountByAccountNumber(accountNumber)).thenReturn(Mono.just(accountResponse));
-        when(accountClient.reduceBalanceByAccountNumber(accountNumber, accountBalanceUpdateRequestFromDebitCardPayment)).thenReturn(Mono.just(new AccountBalanceResponse()));
+        when(accountClient.reduceBalanceByAccountNumber(accountNumber, accountBalanceUpdateRequestFromDebitCardPayment)).thenReturn(Mono.just(new AccountBalanceResponse(accountNumber, AccountBalanceResponse.AccountType.SAVINGS, BigDecimal.valueOf(900))));
         when(creditRepository.save(any(Credit.class))).thenReturn(Mono.just(credit));
         when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
 
@@ -152,7 +156,7 @@ public class CreditServiceImplTest {
     void whenPayCreditById_WithAccountNumber_ThenReturnCreditResponse(){
         when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
         when(accountClient.reduceBalanceByAccountNumber(accountNumber, accountBalanceUpdateRequestFromAccountNumberPayment))
-                .thenReturn(Mono.just(new AccountBalanceResponse()));
+                .thenReturn(Mono.just(new AccountBalanceResponse(accountNumber, AccountBalanceResponse.AccountType.SAVINGS, BigDecimal.valueOf(900))));
         when(creditRepository.save(any(Credit.class))).thenReturn(Mono.just(credit));
         when(transactionClient.createTransaction(any(TransactionRequest.class))).thenReturn(Mono.just(new TransactionResponse()));
 
@@ -172,6 +176,22 @@ public class CreditServiceImplTest {
         Mockito.verify(creditRepository).findById(creditId);
         Mockito.verify(accountClient).reduceBalanceByAccountNumber(accountNumber, accountBalanceUpdateRequestFromAccountNumberPayment);
         Mockito.verify(creditRepository).save(any(Credit.class));
-        Mockito.verify(transactionClient).createTransaction(any(TransactionRequest.class));
+        // Stamped with the balance the account service reported after the debit
+        Mockito.verify(transactionClient).createTransaction(argThat(transactionRequest ->
+                BigDecimal.valueOf(900).equals(transactionRequest.getBalanceAfter())
+                        && BigDecimal.valueOf(900).add(creditPaymentRequest.getAmount()).compareTo(transactionRequest.getBalanceBefore()) == 0));
+    }
+
+    @Test
+    void whenDeleteCreditById_ThenPublishCreditStatusOfHolder(){
+        when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
+        when(creditRepository.deleteById(creditId)).thenReturn(Mono.empty());
+        when(creditStatusPublisher.publish(credit.getCreditHolderId())).thenReturn(Mono.empty());
+
+        StepVerifier.create(creditServiceImpl.deleteCreditById(creditId))
+                .verifyComplete();
+
+        Mockito.verify(creditRepository).deleteById(creditId);
+        Mockito.verify(creditStatusPublisher).publish(credit.getCreditHolderId());
     }
 }
@@ -2,9 +2,9 @@ package com.jorge.customers.webclient.client;
 
 import com.jorge.customers.webclient.dto.response.CreditCardResponse;
 import com.jorge.customers.webclient.dto.response.CreditResponse;
+import com.jorge.webclient.DownstreamGuard;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,25 +13,24 @@ import reactor.core.publisher.Flux;
 @Slf4j
 public class CreditClient {
     private final WebClient webClient;
-    private final ReactiveCircuitBreakerFactory circuitBreakerFactory;
+    private final DownstreamGuard downstreamGuard;
 
-    public CreditClient(
-            WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory, String baseUrl) {
-        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
-        this.circuitBreakerFactory = circuitBreakerFactory;
+    public CreditClient(WebClient webClient, DownstreamGuard downstreamGuard) {
+        this.webClient = webClient;
+        this.downstreamGuard = downstreamGuard;
     }
 
     public Flux<CreditCardResponse> getCreditCardsByCardHolderId(String cardHolderId) {
-        return circuitBreakerFactory.create("creditClient").run(webClient.get()
-                        .uri("/credit-cards/customer/" + cardHolderId)
+        return downstreamGuard.run(webClient.get()
+                        .uri("/credit-cards/customer/{cardHolderId}", cardHolderId)
                         .retrieve()
                         .bodyToFlux(CreditCardResponse.class),
                 throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Credit service unavailable", throwable)));
     }
 
     public Flux<CreditResponse> getCreditsByCreditHolderId(String creditHolderId) {
-        return circuitBreakerFactory.create("creditClient").run(webClient.get()
-                        .uri("/credits/customer/" + creditHolderId)
+        return downstreamGuard.run(webClient.get()
+                        .uri("/credits/customer/{creditHolderId}", creditHolderId)
                         .retrieve()
                         .bodyToFlux(CreditResponse.class),
                 throwable -> Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Credit service unavailable", throwable)));
@@ -2,29 +2,23 @@ package com.jorge.customers.webclient.config;
 
 import com.jorge.customers.webclient.client.AccountClient;
 import com.jorge.customers.webclient.client.CreditClient;
+import com.jorge.webclient.DownstreamGuards;
+import com.jorge.webclient.ReactiveHttpClientFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
     @Bean
-    public AccountClient accountClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory,
+    public AccountClient accountClient(ReactiveHttpClientFactory httpClientFactory, DownstreamGuards downstreamGuards,
                                        @Value("${web.baseurl.accountservice}") String baseUrl) {
-        return new AccountClient(webClientBuilder, circuitBreakerFactory, baseUrl);
+        return new AccountClient(httpClientFactory.create("accountClient", baseUrl), downstreamGuards.forClient("accountClient"));
     }
 
     @Bean
-    public CreditClient creditClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory circuitBreakerFactory,
+    public CreditClient creditClient(ReactiveHttpClientFactory httpClientFactory, DownstreamGuards downstreamGuards,
                                      @Value("${web.baseurl.creditservice}") String baseUrl) {
-        return new CreditClient(webClientBuilder, circuitBreakerFactory, baseUrl);
-    }
-
-    @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder()
-                .defaultHeader("Content-Type", "application/json");
+        return new CreditClient(httpClientFactory.create("creditClient", baseUrl), downstreamGuards.forClient("creditClient"));
     }
 }
@@ -0,0 +1,87 @@
+package com.jorge.transactions.config;
+
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.Transaction;
+import com.jorge.transactions.repository.DailyAccountRollupRepository;
+import com.jorge.transactions.repository.TransactionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Builds the daily rollups of the transactions stored before rollups were kept, or rebuilds those a failed update left
+// behind. Runs on startup with transactions.rollups.backfill-on-startup=true; every run overwrites the same documents.
+@Component
+@Slf4j
+public class DailyAccountRollupBackfill {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int BATCH_SIZE = 500;
+
+    private final TransactionStore transactionStore;
+    private final DailyAccountRollupRepository dailyAccountRollupRepository;
+    private final boolean backfillOnStartup;
+    private final int concurrency;
+
+    public DailyAccountRollupBackfill(TransactionStore transactionStore,
+                                      DailyAccountRollupRepository dailyAccountRollupRepository,
+                                      @Value("${transactions.rollups.backfill-on-startup:false}") boolean backfillOnStartup,
+                                      @Value("${transactions.rollups.backfill-concurrency:4}") int concurrency) {
+        this.transactionStore = transactionStore;
+        this.dailyAccountRollupRepository = dailyAccountRollupRepository;
+        this.backfillOnStartup = backfillOnStartup;
+        this.concurrency = concurrency;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        backfill(LocalDate.now())
+                .subscribe(days -> log.info("Backfilled {} daily account rollups", days),
+                        throwable -> log.error("Error backfilling daily account rollups: {}", throwable.getMessage()));
+    }
+
+    // Rebuilds the rollups of every day before the given one and emits how many were written. The current day is
+    // left to the live updates, which keep running meanwhile
+    public Mono<Long> backfill(LocalDate until) {
+        LocalDateTime end = until.atStartOfDay().minusNanos(1);
+        return transactionStore.findDistinctAccountNumbers()
+                .flatMap(accountNumber -> rollupsOf(accountNumber, end)
+                        .buffer(BATCH_SIZE)
+                        .concatMap(rollups -> dailyAccountRollupRepository.replaceAll(rollups)
+                                .thenReturn((long) rollups.size())), concurrency)
+                .reduce(0L, Long::sum);
+    }
+
+    // The account's history is read in date order a day at a time. A running balance gives a closing balance to the
+    // days whose transactions were recorded without one
+    private Flux<DailyAccountRollup> rollupsOf(String accountNumber, LocalDateTime end) {
+        BigDecimal[] balance = {BigDecimal.ZERO};
+        return transactionStore.streamByAccountNumberAndCreatedAtBetween(accountNumber, EPOCH, end)
+                .bufferUntilChanged(transaction -> transaction.getCreatedAt().toLocalDate())
+                .map(day -> {
+                    DailyAccountRollup rollup = DailyAccountRollup.empty(accountNumber, day.get(0).getCreatedAt().toLocalDate());
+                    day.forEach(transaction -> {
+                        rollup.add(transaction);
+                        balance[0] = transaction.getBalanceAfter() != null
+                                ? transaction.getBalanceAfter() : transaction.applyTo(balance[0]);
+                    });
+                    rollup.setClosingBalance(balance[0]);
+                    rollup.setClosingAt(lastOf(day).getCreatedAt());
+                    return rollup;
+                });
+    }
+
+    private static Transaction lastOf(List<Transaction> day) {
+        return day.get(day.size() - 1);
+    }
+}
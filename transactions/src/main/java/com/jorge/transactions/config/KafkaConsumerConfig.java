@@ -0,0 +1,52 @@
+package com.jorge.transactions.config;
+
+import com.jorge.transactions.listener.TransactionCreateListener;
+import com.jorge.transactions.listener.consumer.ReactiveKafkaBatchConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.receiver.MicrometerConsumerListener;
+import reactor.kafka.receiver.ReceiverOptions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+// Topics consumed by this service. Broker and client settings come from spring.kafka.*; the Kafka client metrics
+// (records-lag, fetch rate...) are published through Micrometer next to the consumer's own counters.
+@Configuration
+public class KafkaConsumerConfig {
+    private final Map<String, Object> consumerProperties;
+    private final MeterRegistry meterRegistry;
+    private final int maxPollRecords;
+    private final Duration commitInterval;
+
+    public KafkaConsumerConfig(KafkaProperties kafkaProperties, SslBundles sslBundles, MeterRegistry meterRegistry,
+                               @Value("${transactions.kafka.consumer.max-poll-records:1000}") int maxPollRecords,
+                               @Value("${transactions.kafka.consumer.commit-interval:1s}") Duration commitInterval) {
+        this.consumerProperties = kafkaProperties.buildConsumerProperties(sslBundles);
+        this.meterRegistry = meterRegistry;
+        this.maxPollRecords = maxPollRecords;
+        this.commitInterval = commitInterval;
+    }
+
+    @Bean
+    public ReactiveKafkaBatchConsumer transactionCreateConsumer(TransactionCreateListener listener) {
+        ReceiverOptions<String, String> receiverOptions = ReceiverOptions.<String, String>create(consumerProperties)
+                .consumerProperty(ConsumerConfig.GROUP_ID_CONFIG, "transactions-create-group")
+                .consumerProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)
+                .consumerProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)
+                // Bounds the records stored by one bulk write
+                .consumerProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords)
+                .commitInterval(commitInterval)
+                .consumerListener(new MicrometerConsumerListener(meterRegistry))
+                .subscription(List.of(TransactionCreateListener.TOPIC));
+        return new ReactiveKafkaBatchConsumer(TransactionCreateListener.TOPIC, receiverOptions,
+                listener::listenTransactionCreate, meterRegistry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.jorge.transactions.config;
+
+import com.jorge.transactions.model.CreditCardTransaction;
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.Transaction;
+import com.jorge.transactions.model.TransactionBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+// Creates the indexes declared with @Indexed/@CompoundIndex. Automatic index creation is disabled by default in Spring Boot.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Transaction.class, CreditCardTransaction.class,
+            TransactionBucket.class, DailyAccountRollup.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        createIndexes()
+                .subscribe(indexName -> log.info("Ensured index {}", indexName),
+                        throwable -> log.error("Error creating indexes: {}", throwable.getMessage()));
+    }
+
+    // Emits the name of every index once it exists
+    public Flux<String> createIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver =
+                new MongoPersistentEntityIndexResolver(reactiveMongoTemplate.getConverter().getMappingContext());
+
+        return Flux.fromIterable(INDEXED_DOCUMENTS)
+                .flatMap(documentClass -> {
+                    ReactiveIndexOperations indexOperations = reactiveMongoTemplate.indexOps(documentClass);
+                    return Flux.fromIterable(indexResolver.resolveIndexFor(documentClass))
+                            .flatMap(indexOperations::ensureIndex);
+                });
+    }
+}
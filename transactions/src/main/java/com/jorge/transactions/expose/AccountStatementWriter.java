@@ -0,0 +1,101 @@
+package com.jorge.transactions.expose;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jorge.transactions.model.StatementLine;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+// Writes an account statement straight to the response: every line is encoded into its own buffer from the
+// response's factory (pooled Netty buffers on the server) as soon as it arrives, so nothing is collected and the
+// first bytes leave before the query has finished.
+@Component
+public class AccountStatementWriter {
+    private static final String CSV_HEADER = "id,createdAt,transactionType,description,amount,fee,balance\n";
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ObjectWriter lineWriter;
+
+    public AccountStatementWriter(ObjectMapper objectMapper) {
+        // The buffer's stream is left open so the trailing newline can still be written
+        this.lineWriter = objectMapper.writerFor(StatementLine.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public Mono<Void> write(String accountNumber, String format, Flux<StatementLine> lines, ServerHttpResponse response) {
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        if ("ndjson".equalsIgnoreCase(format)) {
+            response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+            return response.writeWith(lines.map(line -> encode(bufferFactory, line)));
+        }
+        if ("csv".equalsIgnoreCase(format)) {
+            response.getHeaders().setContentType(TEXT_CSV);
+            response.getHeaders().setContentDisposition(ContentDisposition.attachment()
+                    .filename("statement-" + accountNumber + ".csv")
+                    .build());
+            return response.writeWith(Flux.concat(
+                    Mono.fromSupplier(() -> encode(bufferFactory, CSV_HEADER)),
+                    lines.map(line -> encode(bufferFactory, toCsv(line)))));
+        }
+        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported statement format: " + format));
+    }
+
+    private DataBuffer encode(DataBufferFactory bufferFactory, StatementLine line) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(256);
+        try (OutputStream outputStream = buffer.asOutputStream()) {
+            lineWriter.writeValue(outputStream, line);
+            outputStream.write('\n');
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DataBuffer encode(DataBufferFactory bufferFactory, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return bufferFactory.allocateBuffer(bytes.length).write(bytes);
+    }
+
+    static String toCsv(StatementLine line) {
+        return String.join(",",
+                csvField(line.getId()),
+                csvField(line.getCreatedAt() == null ? null : line.getCreatedAt().toString()),
+                csvField(line.getTransactionType()),
+                csvField(line.getDescription()),
+                csvField(line.getAmount()),
+                csvField(line.getFee()),
+                csvField(line.getBalance())) + "\n";
+    }
+
+    private static String csvField(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    // RFC 4180: fields holding a separator, a quote or a line break are quoted, with quotes doubled
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
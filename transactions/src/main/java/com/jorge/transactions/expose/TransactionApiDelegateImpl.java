@@ -1,7 +1,10 @@
 package com.jorge.transactions.expose;
 
 import com.jorge.transactions.api.TransactionsApiDelegate;
+import com.jorge.transactions.model.AccountBalanceResponse;
+import com.jorge.transactions.model.AccountRollupResponse;
 import com.jorge.transactions.model.FeeReportResponse;
+import com.jorge.transactions.model.FeeSummaryResponse;
 import com.jorge.transactions.model.TransactionRequest;
 import com.jorge.transactions.model.TransactionResponse;
 import com.jorge.transactions.service.TransactionService;
@@ -11,24 +14,51 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Component
 @RequiredArgsConstructor
 public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
     private final TransactionService transactionService;
+    private final AccountStatementWriter accountStatementWriter;
 
     @Override
     public Flux<FeeReportResponse> getTransactionsFeesByAccountNumberAndDateRange(String accountNumber, LocalDateTime startDate, LocalDateTime endDate, ServerWebExchange exchange) {
         return transactionService.getTransactionsFeesByAccountNumberAndDateRange(accountNumber, startDate, endDate);
     }
 
+    @Override
+    public Flux<FeeSummaryResponse> getFeeSummaryByAccountNumberAndDateRange(String accountNumber, LocalDateTime startDate,
+                                                                             LocalDateTime endDate, String groupBy,
+                                                                             ServerWebExchange exchange) {
+        return transactionService.getFeeSummaryByAccountNumberAndDateRange(accountNumber, startDate, endDate, groupBy);
+    }
+
+    @Override
+    public Mono<AccountBalanceResponse> getAccountBalanceAt(String accountNumber, LocalDateTime at, ServerWebExchange exchange) {
+        return transactionService.getAccountBalanceAt(accountNumber, at);
+    }
+
+    @Override
+    public Flux<AccountRollupResponse> getAccountRollups(String accountNumber, LocalDate startDate, LocalDate endDate,
+                                                         String groupBy, ServerWebExchange exchange) {
+        return transactionService.getAccountRollups(accountNumber, startDate, endDate, groupBy);
+    }
+
     @Override
     public Flux<TransactionResponse> getTransactionsByAccountNumberAndDateRange(String accountNumber, LocalDateTime firstDayOfMonth, LocalDateTime lastDayOfMonth, ServerWebExchange exchange) {
         return transactionService.getTransactionsByAccountNumberAndDateRange(accountNumber,
                 firstDayOfMonth, lastDayOfMonth);
     }
 
+    @Override
+    public Mono<Void> exportAccountStatement(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                             String format, ServerWebExchange exchange) {
+        return accountStatementWriter.write(accountNumber, format,
+                transactionService.getAccountStatement(accountNumber, startDate, endDate), exchange.getResponse());
+    }
+
     @Override
     public Flux<TransactionResponse> getAllTransactions(ServerWebExchange exchange) {
         return transactionService.getAllTransactions();
@@ -39,6 +69,12 @@ public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
         return transactionRequest.flatMap(transactionService::createTransaction);
     }
 
+    @Override
+    public Flux<TransactionResponse> createTransactionsBatch(Flux<TransactionRequest> transactionRequest, ServerWebExchange exchange) {
+        return transactionRequest.collectList()
+                .flatMapMany(transactionService::createTransactions);
+    }
+
     @Override
     public Mono<Void> deleteTransactionById(String id, ServerWebExchange exchange) {
         return transactionService.deleteTransactionById(id);
@@ -54,6 +90,11 @@ public class TransactionApiDelegateImpl implements TransactionsApiDelegate {
         return transactionService.getTransactionsByAccountNumber(accountNumber);
     }
 
+    @Override
+    public Flux<TransactionResponse> getLatestTransactionsByAccountNumber(String accountNumber, Integer limit, ServerWebExchange exchange) {
+        return transactionService.getLatestTransactionsByAccountNumber(accountNumber, limit);
+    }
+
     @Override
     public Flux<TransactionResponse> getTransactionsByCreditId(String creditId, ServerWebExchange exchange) {
         return transactionService.getTransactionsByCreditId(creditId);
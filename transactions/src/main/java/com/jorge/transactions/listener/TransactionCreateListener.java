@@ -0,0 +1,97 @@
+package com.jorge.transactions.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
+import com.jorge.transactions.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Stores the transactions published to transaction-create, a poll at a time. Subscribed in KafkaConsumerConfig
+@Component
+@Slf4j
+public class TransactionCreateListener {
+    public static final String TOPIC = "transaction-create";
+
+    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionService transactionService;
+    private final String deadLetterTopic;
+
+    public TransactionCreateListener(ObjectMapper objectMapper, KafkaTemplate<String, String> kafkaTemplate,
+                                     TransactionService transactionService,
+                                     @Value("${transactions.kafka.dead-letter-topic:transaction-create-dlt}") String deadLetterTopic) {
+        this.objectMapper = objectMapper;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionService = transactionService;
+        this.deadLetterTopic = deadLetterTopic;
+    }
+
+    // Records that can not be read as a transaction are moved to the dead-letter topic and the rest are stored with
+    // one bulk write. Only a failure to do either fails the poll, which is then received again
+    public Mono<Void> listenTransactionCreate(List<? extends ConsumerRecord<String, String>> records) {
+        List<TransactionCreateKafkaMessage> messages = new ArrayList<>();
+        List<Mono<Void>> deadLetters = new ArrayList<>();
+        records.forEach(record -> {
+            try {
+                TransactionCreateKafkaMessage message = objectMapper.readValue(record.value(), TransactionCreateKafkaMessage.class);
+                String missingField = missingField(message);
+                if (missingField == null) {
+                    messages.add(message);
+                } else {
+                    deadLetters.add(sendToDeadLetterTopic(record, "Missing " + missingField));
+                }
+            } catch (Exception e) {
+                deadLetters.add(sendToDeadLetterTopic(record, e.getMessage()));
+            }
+        });
+
+        return Mono.when(Flux.concat(deadLetters),
+                transactionService.ingestTransactions(messages)
+                        .doOnNext(stored -> log.info("Stored {} of {} transactions received from {}",
+                                stored, messages.size(), TOPIC)));
+    }
+
+    // The fields POST /transactions requires, plus the id that makes redelivery safe
+    private String missingField(TransactionCreateKafkaMessage message) {
+        if (message == null || message.getId() == null || message.getId().isBlank()) {
+            return "id";
+        }
+        if (message.getAccountNumber() == null) {
+            return "accountNumber";
+        }
+        if (message.getTransactionType() == null) {
+            return "transactionType";
+        }
+        if (message.getAmount() == null) {
+            return "amount";
+        }
+        if (message.getDescription() == null) {
+            return "description";
+        }
+        return null;
+    }
+
+    // Same headers as Spring Kafka's DeadLetterPublishingRecoverer, so the record can be traced back and replayed
+    private Mono<Void> sendToDeadLetterTopic(ConsumerRecord<String, String> record, String reason) {
+        log.error("Moving record {}-{}@{} to {}: {}", record.topic(), record.partition(), record.offset(), deadLetterTopic, reason);
+        ProducerRecord<String, String> deadLetter = new ProducerRecord<>(deadLetterTopic, record.key(), record.value());
+        deadLetter.headers()
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array())
+                .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(reason).getBytes(StandardCharsets.UTF_8));
+        return Mono.fromFuture(() -> kafkaTemplate.send(deadLetter)).then();
+    }
+}
@@ -0,0 +1,93 @@
+package com.jorge.transactions.listener.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+// Consumes one topic with reactor-kafka a poll at a time. The records of each poll are handed to the handler
+// together, so they can be stored with one bulk write, and their offsets are acknowledged once it completes. A failed
+// batch restarts the receiver, which receives the unacknowledged records again: the handler must be idempotent.
+@Slf4j
+public class ReactiveKafkaBatchConsumer {
+    private final String topic;
+    private final ReceiverOptions<String, String> receiverOptions;
+    private final Function<List<ReceiverRecord<String, String>>, Mono<Void>> handler;
+
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary batchSize;
+
+    private Disposable subscription;
+
+    public ReactiveKafkaBatchConsumer(String topic, ReceiverOptions<String, String> receiverOptions,
+                                      Function<List<ReceiverRecord<String, String>>, Mono<Void>> handler,
+                                      MeterRegistry meterRegistry) {
+        this.topic = topic;
+        this.receiverOptions = receiverOptions;
+        this.handler = handler;
+
+        this.processedCounter = Counter.builder("transactions.kafka.consumer.processed")
+                .description("Kafka records handled and acknowledged")
+                .tag("topic", topic)
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("transactions.kafka.consumer.failed")
+                .description("Polls whose handler failed and that will be received again")
+                .tag("topic", topic)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("transactions.kafka.consumer.batch.size")
+                .description("Kafka records handled together per poll")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Starting reactive batch consumer of topic {}", topic);
+        subscription = consume(Flux.defer(() -> KafkaReceiver.create(receiverOptions).receiveBatch()))
+                // A failed batch, poll or commit closes the receiver; unacknowledged records are received again
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.error("Consumer of topic {} failed, restarting: {}",
+                                topic, signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Flux<List<ReceiverRecord<String, String>>> consume(Flux<Flux<ReceiverRecord<String, String>>> batches) {
+        return batches.concatMap(batch -> batch.collectList()
+                .filter(records -> !records.isEmpty())
+                .flatMap(this::handle));
+    }
+
+    private Mono<List<ReceiverRecord<String, String>>> handle(List<ReceiverRecord<String, String>> records) {
+        return Mono.defer(() -> handler.apply(records))
+                .doOnError(e -> failedCounter.increment())
+                .then(Mono.fromCallable(() -> {
+                    records.forEach(record -> record.receiverOffset().acknowledge());
+                    processedCounter.increment(records.size());
+                    batchSize.record(records.size());
+                    return records;
+                }));
+    }
+}
@@ -0,0 +1,29 @@
+package com.jorge.transactions.listener.dto;
+
+import com.jorge.transactions.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// The body of POST /transactions plus the id the producer gives the transaction, which makes a redelivered record a
+// no-op, and the time the movement happened, which a queued record would otherwise lose
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionCreateKafkaMessage {
+    private String id;
+    private String accountNumber;
+    private BigDecimal fee;
+    private Transaction.TransactionType transactionType;
+    private BigDecimal amount;
+    private String description;
+    private LocalDateTime createdAt;
+    private String relatedCreditId;
+    private BigDecimal balanceBefore;
+    private BigDecimal balanceAfter;
+}
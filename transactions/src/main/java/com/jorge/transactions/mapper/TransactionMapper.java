@@ -1,26 +1,53 @@
 package com.jorge.transactions.mapper;
 
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
+import com.jorge.transactions.model.AccountRollupResponse;
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.FeeSummaryResponse;
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.StatementLine;
 import com.jorge.transactions.model.Transaction;
 import com.jorge.transactions.model.TransactionRequest;
 import com.jorge.transactions.model.TransactionResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Component
 public class TransactionMapper {
+    // The producer's id and time, when given, are kept, so a redelivered request maps to the same transaction
     public Transaction mapToTransaction(TransactionRequest transactionRequest) {
         Transaction transaction = new Transaction();
+        transaction.setId(transactionRequest.getId());
         transaction.setAccountNumber(transactionRequest.getAccountNumber());
         transaction.setFee(transactionRequest.getFee());
         transaction.setTransactionType(Transaction.TransactionType.valueOf(transactionRequest.getTransactionType().name()));
         transaction.setAmount(transactionRequest.getAmount());
         transaction.setDescription(transactionRequest.getDescription());
-        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setCreatedAt(transactionRequest.getCreatedAt() == null ? LocalDateTime.now() : transactionRequest.getCreatedAt());
         transaction.setRelatedCreditId(transactionRequest.getRelatedCreditId());
+        transaction.setBalanceBefore(transactionRequest.getBalanceBefore());
+        transaction.setBalanceAfter(transactionRequest.getBalanceAfter());
         return transaction;
     }
 
+    // The producer's id and time are kept, so a redelivered message maps to the same transaction
+    public Transaction mapToTransaction(TransactionCreateKafkaMessage message) {
+        return Transaction.builder()
+                .id(message.getId())
+                .accountNumber(message.getAccountNumber())
+                .fee(message.getFee())
+                .transactionType(message.getTransactionType())
+                .amount(message.getAmount())
+                .description(message.getDescription())
+                .createdAt(message.getCreatedAt() == null ? LocalDateTime.now() : message.getCreatedAt())
+                .relatedCreditId(message.getRelatedCreditId())
+                .balanceBefore(message.getBalanceBefore())
+                .balanceAfter(message.getBalanceAfter())
+                .build();
+    }
+
     public TransactionResponse mapToTransactionResponse(Transaction transaction) {
         TransactionResponse transactionResponse = new TransactionResponse();
         transactionResponse.setId(transaction.getId());
@@ -31,6 +58,40 @@ public class TransactionMapper {
         transactionResponse.setDescription(transaction.getDescription());
         transactionResponse.setCreatedAt(transaction.getCreatedAt());
         transactionResponse.setRelatedCreditId(transaction.getRelatedCreditId());
+        transactionResponse.setBalanceBefore(transaction.getBalanceBefore());
+        transactionResponse.setBalanceAfter(transaction.getBalanceAfter());
         return transactionResponse;
     }
+
+    public StatementLine mapToStatementLine(Transaction transaction, BigDecimal balance) {
+        StatementLine statementLine = new StatementLine();
+        statementLine.setId(transaction.getId());
+        statementLine.setCreatedAt(transaction.getCreatedAt());
+        statementLine.setTransactionType(transaction.getTransactionType().name());
+        statementLine.setDescription(transaction.getDescription());
+        statementLine.setAmount(transaction.getAmount());
+        statementLine.setFee(transaction.getFee() == null ? BigDecimal.ZERO : transaction.getFee());
+        statementLine.setBalance(balance);
+        return statementLine;
+    }
+
+    public FeeSummaryResponse mapToFeeSummaryResponse(FeeTotal feeTotal) {
+        FeeSummaryResponse feeSummaryResponse = new FeeSummaryResponse();
+        feeSummaryResponse.setPeriod(feeTotal.getPeriod());
+        feeSummaryResponse.setType(FeeSummaryResponse.TypeEnum.valueOf(feeTotal.getType().name()));
+        feeSummaryResponse.setTotalAmount(feeTotal.getTotalAmount());
+        feeSummaryResponse.setCount(feeTotal.getCount());
+        return feeSummaryResponse;
+    }
+
+    public AccountRollupResponse mapToAccountRollupResponse(String period, DailyAccountRollup rollup) {
+        AccountRollupResponse accountRollupResponse = new AccountRollupResponse();
+        accountRollupResponse.setPeriod(period);
+        accountRollupResponse.setCreditTotal(rollup.getCreditTotal());
+        accountRollupResponse.setDebitTotal(rollup.getDebitTotal());
+        accountRollupResponse.setFeeTotal(rollup.getFeeTotal());
+        accountRollupResponse.setCount(rollup.getCount());
+        accountRollupResponse.setClosingBalance(rollup.getClosingBalance());
+        return accountRollupResponse;
+    }
 }
@@ -2,6 +2,7 @@ package com.jorge.transactions.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -13,6 +14,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "credit_card_transactions")
+// Serves the movements of a card newest first as an index walk, without an in-memory sort
+@CompoundIndex(name = "creditCardNumber_createdAt", def = "{'creditCardNumber': 1, 'createdAt': -1}")
 public class CreditCardTransaction {
     @Id
     private String id;
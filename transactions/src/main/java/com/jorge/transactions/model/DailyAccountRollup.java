@@ -0,0 +1,116 @@
+package com.jorge.transactions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Totals of the transactions of one account and day, kept up to date with $inc as transactions are created.
+// Days without transactions have no document.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "daily_account_rollups")
+@CompoundIndex(name = "accountNumber_date", def = "{'accountNumber': 1, 'date': 1}", unique = true)
+public class DailyAccountRollup {
+    @Id
+    private String id;
+    private String accountNumber;
+    private LocalDate date;
+    // Amounts of the transactions that add to the balance and of those that take from it, fees excluded
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal creditTotal;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal debitTotal;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal feeTotal;
+    private Long count;
+    // Balance stamped on the latest transaction of the day, and when that transaction was created
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal closingBalance;
+    private LocalDateTime closingAt;
+    private LocalDateTime updatedAt;
+
+    public static DailyAccountRollup empty(String accountNumber, LocalDate date) {
+        return DailyAccountRollup.builder()
+                .accountNumber(accountNumber)
+                .date(date)
+                .creditTotal(BigDecimal.ZERO)
+                .debitTotal(BigDecimal.ZERO)
+                .feeTotal(BigDecimal.ZERO)
+                .count(0L)
+                .build();
+    }
+
+    // The totals the transactions add to each account and day they belong to
+    public static Collection<DailyAccountRollup> of(Collection<Transaction> transactions) {
+        Map<String, DailyAccountRollup> rollups = new LinkedHashMap<>();
+        transactions.forEach(transaction -> {
+            LocalDate date = transaction.getCreatedAt().toLocalDate();
+            rollups.computeIfAbsent(transaction.getAccountNumber() + "|" + date,
+                            key -> empty(transaction.getAccountNumber(), date))
+                    .add(transaction);
+        });
+        return rollups.values();
+    }
+
+    public void add(Transaction transaction) {
+        if (transaction.getTransactionType().isDebit()) {
+            debitTotal = debitTotal.add(transaction.getAmount());
+        } else {
+            creditTotal = creditTotal.add(transaction.getAmount());
+        }
+        feeTotal = feeTotal.add(transaction.getFee() == null ? BigDecimal.ZERO : transaction.getFee());
+        count++;
+        if (transaction.getBalanceAfter() != null
+                && (closingAt == null || !transaction.getCreatedAt().isBefore(closingAt))) {
+            closingBalance = transaction.getBalanceAfter();
+            closingAt = transaction.getCreatedAt();
+        }
+    }
+
+    // The days of one period added up; the closing balance is the last one known
+    public static DailyAccountRollup sum(List<DailyAccountRollup> days) {
+        DailyAccountRollup total = empty(days.get(0).getAccountNumber(), days.get(0).getDate());
+        days.forEach(day -> {
+            total.creditTotal = total.creditTotal.add(day.getCreditTotal());
+            total.debitTotal = total.debitTotal.add(day.getDebitTotal());
+            total.feeTotal = total.feeTotal.add(day.getFeeTotal());
+            total.count += day.getCount();
+            if (day.getClosingBalance() != null) {
+                total.closingBalance = day.getClosingBalance();
+                total.closingAt = day.getClosingAt();
+            }
+        });
+        return total;
+    }
+
+    public enum Period {
+        DAY,
+        MONTH,
+        YEAR;
+
+        // yyyy-MM-dd, yyyy-MM or yyyy
+        public String keyOf(LocalDate date) {
+            return switch (this) {
+                case DAY -> date.toString();
+                case MONTH -> YearMonth.from(date).toString();
+                case YEAR -> Year.from(date).toString();
+            };
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.jorge.transactions.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Fees of one type charged to an account within one day or month, as grouped by Mongo
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeTotal {
+    private String period;
+    private FeeType type;
+    private BigDecimal totalAmount;
+    private long count;
+
+    public enum FeeType {
+        MAINTENANCE_FEE,
+        TRANSACTION_FEE
+    }
+
+    public enum Period {
+        DAY("%Y-%m-%d"),
+        MONTH("%Y-%m");
+
+        private final String dateFormat;
+
+        Period(String dateFormat) {
+            this.dateFormat = dateFormat;
+        }
+
+        public String getDateFormat() {
+            return dateFormat;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.jorge.transactions.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -13,6 +14,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "transactions")
+// Serves the latest transactions of an account as an index walk, without an in-memory sort
+@CompoundIndex(name = "accountNumber_createdAt", def = "{'accountNumber': 1, 'createdAt': -1}")
+// Covers the fee summary: the range scan reads fee and type from the index without fetching the documents
+@CompoundIndex(name = "accountNumber_createdAt_fee_transactionType",
+        def = "{'accountNumber': 1, 'createdAt': 1, 'fee': 1, 'transactionType': 1}")
+// Payments of a credit
+@CompoundIndex(name = "relatedCreditId_createdAt", def = "{'relatedCreditId': 1, 'createdAt': 1}")
 public class    Transaction {
     @Id
     private String id;
@@ -24,6 +32,10 @@ public class    Transaction {
     private LocalDateTime createdAt;
 
     private String relatedCreditId;
+    // Account balance around the movement, as reported by the service that applied it. Null on records created
+    // before balances were reported and on movements that do not touch an account balance
+    private BigDecimal balanceBefore;
+    private BigDecimal balanceAfter;
 
     public enum TransactionType {
         DEBIT,
@@ -33,6 +45,22 @@ public class    Transaction {
         CREDIT_PAYMENT,
         CREDIT_DEPOSIT,
         CREDIT_CARD_PAYMENT,
-        MAINTENANCE_FEE
+        MAINTENANCE_FEE;
+
+        // Debits take amount and fee out of the account; the other types add the amount less the fee
+        public boolean isDebit() {
+            return switch (this) {
+                case DEBIT, WITHDRAWAL, MAINTENANCE_FEE, CREDIT_PAYMENT, CREDIT_CARD_PAYMENT -> true;
+                case CREDIT, DEPOSIT, CREDIT_DEPOSIT -> false;
+            };
+        }
+    }
+
+    // Balance of the account after this transaction, given the balance before it
+    public BigDecimal applyTo(BigDecimal balance) {
+        BigDecimal movementFee = fee == null ? BigDecimal.ZERO : fee;
+        return transactionType.isDebit()
+                ? balance.subtract(amount.add(movementFee))
+                : balance.add(amount.subtract(movementFee));
     }
 }
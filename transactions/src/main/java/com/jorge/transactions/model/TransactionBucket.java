@@ -0,0 +1,93 @@
+package com.jorge.transactions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+// Transactions of one account and month in a single document. Entries are appended with $push and the totals kept
+// with $inc; a month with more entries than a bucket holds continues in another bucket of the same month. A transaction
+// id is stored once: the unique index covers other buckets and the append condition the bucket being written.
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "transaction_buckets")
+@CompoundIndex(name = "accountNumber_month", def = "{'accountNumber': 1, 'month': 1}")
+// Unique across buckets: an entry is never pushed into a second bucket. Buckets emptied by deletes are left out
+@CompoundIndex(name = "entries_transactionId_unique", def = "{'entries.transactionId': 1}", unique = true,
+        partialFilter = "{'entries.transactionId': {$exists: true}}")
+@CompoundIndex(name = "entries_relatedCreditId", def = "{'entries.relatedCreditId': 1}", sparse = true)
+public class TransactionBucket {
+    @Id
+    private String id;
+    private String accountNumber;
+    // yyyy-MM of the entries' createdAt, so months sort as strings
+    private String month;
+    private Integer count;
+    // Balance change of the entries, summed by $inc
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal netChange;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal feeTotal;
+    private List<Entry> entries;
+
+    public static String monthOf(LocalDateTime createdAt) {
+        return YearMonth.from(createdAt).toString();
+    }
+
+    // A transaction without its account number, which is the bucket's
+    @Builder
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String transactionId;
+        private Transaction.TransactionType transactionType;
+        private BigDecimal amount;
+        private BigDecimal fee;
+        private String description;
+        private LocalDateTime createdAt;
+        private String relatedCreditId;
+        private BigDecimal balanceBefore;
+        private BigDecimal balanceAfter;
+
+        public static Entry of(Transaction transaction) {
+            return Entry.builder()
+                    .transactionId(transaction.getId())
+                    .transactionType(transaction.getTransactionType())
+                    .amount(transaction.getAmount())
+                    .fee(transaction.getFee())
+                    .description(transaction.getDescription())
+                    .createdAt(transaction.getCreatedAt())
+                    .relatedCreditId(transaction.getRelatedCreditId())
+                    .balanceBefore(transaction.getBalanceBefore())
+                    .balanceAfter(transaction.getBalanceAfter())
+                    .build();
+        }
+
+        public Transaction toTransaction(String accountNumber) {
+            return Transaction.builder()
+                    .id(transactionId)
+                    .accountNumber(accountNumber)
+                    .transactionType(transactionType)
+                    .amount(amount)
+                    .fee(fee)
+                    .description(description)
+                    .createdAt(createdAt)
+                    .relatedCreditId(relatedCreditId)
+                    .balanceBefore(balanceBefore)
+                    .balanceAfter(balanceAfter)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import com.jorge.transactions.model.TransactionBucket;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One document per account and month in the transaction_buckets collection. A range read fetches one document per
+// month instead of one per transaction; the entries outside the range are filtered out by the server.
+@Repository
+@ConditionalOnProperty(name = "transactions.storage.layout", havingValue = "bucket")
+public class BucketTransactionStore implements TransactionStore {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int maxEntries;
+
+    public BucketTransactionStore(ReactiveMongoTemplate reactiveMongoTemplate,
+                                  @Value("${transactions.storage.bucket-max-entries:1000}") int maxEntries) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Flux<Transaction> findAll() {
+        return reactiveMongoTemplate.findAll(TransactionBucket.class)
+                .flatMapIterable(BucketTransactionStore::transactionsOf);
+    }
+
+    @Override
+    public Mono<Transaction> findById(String id) {
+        return findBucketOf(id)
+                .map(bucket -> bucket.getEntries().get(0).toTransaction(bucket.getAccountNumber()));
+    }
+
+    @Override
+    public Mono<Transaction> save(Transaction transaction) {
+        return Mono.defer(() -> {
+            if (transaction.getId() == null) {
+                transaction.setId(new ObjectId().toHexString());
+                return append(List.of(transaction)).thenReturn(transaction);
+            }
+            return findBucketOf(transaction.getId())
+                    .flatMap(bucket -> replace(bucket, transaction).thenReturn(transaction))
+                    .switchIfEmpty(Mono.defer(() -> append(List.of(transaction)).thenReturn(transaction)));
+        });
+    }
+
+    @Override
+    public Flux<Transaction> insertAllUnordered(List<Transaction> transactions) {
+        return Flux.defer(() -> {
+            transactions.stream()
+                    .filter(transaction -> transaction.getId() == null)
+                    .forEach(transaction -> transaction.setId(new ObjectId().toHexString()));
+            return append(transactions).thenMany(Flux.fromIterable(transactions));
+        });
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return findBucketOf(id).flatMap(this::remove);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumber(String accountNumber) {
+        return entries(Criteria.where("accountNumber").is(accountNumber), true, Sort.Direction.ASC);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberOrderByCreatedAtDesc(String accountNumber, Limit limit) {
+        Flux<Transaction> latest = entries(Criteria.where("accountNumber").is(accountNumber), true, Sort.Direction.DESC);
+        return limit.isUnlimited() ? latest : latest.take(limit.max());
+    }
+
+    @Override
+    public Mono<Transaction> findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(String accountNumber,
+                                                                                         LocalDateTime before) {
+        // Months are read newest first and the search usually ends in the month of the given time
+        return entries(Criteria.where("accountNumber").is(accountNumber).and("month").lte(TransactionBucket.monthOf(before)),
+                new Document("$lt", List.of("$$entry.createdAt", toDate(before))), Sort.Direction.DESC)
+                .next();
+    }
+
+    @Override
+    public Flux<Transaction> findByRelatedCreditId(String relatedCreditId) {
+        return entries(Criteria.where("entries.relatedCreditId").is(relatedCreditId),
+                new Document("$eq", List.of("$$entry.relatedCreditId", relatedCreditId)), Sort.Direction.ASC);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(String accountNumber, LocalDateTime start,
+                                                                                    LocalDateTime end) {
+        return entries(monthsOf(accountNumber, start, end), new Document("$and", List.of(
+                        new Document("$gte", List.of("$$entry.createdAt", toDate(start))),
+                        new Document("$lte", List.of("$$entry.createdAt", toDate(end))))),
+                Sort.Direction.ASC);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(String accountNumber,
+                                                                                                     BigDecimal feeIsGreaterThan,
+                                                                                                     LocalDateTime start,
+                                                                                                     LocalDateTime end) {
+        return findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(accountNumber, start, end)
+                .filter(transaction -> transaction.getFee() != null && transaction.getFee().compareTo(feeIsGreaterThan) > 0);
+    }
+
+    @Override
+    public Mono<BigDecimal> sumBalanceBefore(String accountNumber, LocalDateTime before) {
+        // Months before the one of the given time are summed from their totals; only that month's entries are read
+        String month = TransactionBucket.monthOf(before);
+        AggregationOperation sumNetChange = context -> new Document("$group", new Document("_id", null)
+                .append("balance", new Document("$sum", "$netChange")));
+        Mono<BigDecimal> closedMonths = reactiveMongoTemplate.aggregate(Aggregation.newAggregation(
+                                Aggregation.match(Criteria.where("accountNumber").is(accountNumber).and("month").lt(month)),
+                                sumNetChange),
+                        TransactionBucket.class, Document.class)
+                .next()
+                .map(result -> result.get("balance", Decimal128.class).bigDecimalValue())
+                .defaultIfEmpty(BigDecimal.ZERO);
+        Mono<BigDecimal> openMonth = entries(Criteria.where("accountNumber").is(accountNumber).and("month").is(month),
+                new Document("$lt", List.of("$$entry.createdAt", toDate(before))), Sort.Direction.ASC)
+                .reduce(BigDecimal.ZERO, (balance, transaction) -> transaction.applyTo(balance));
+        return Mono.zip(closedMonths, openMonth, BigDecimal::add);
+    }
+
+    @Override
+    public Flux<FeeTotal> sumFeesByPeriod(String accountNumber, LocalDateTime start, LocalDateTime end,
+                                          FeeTotal.Period period) {
+        AggregationOperation feesInRange = context -> new Document("$match", new Document("entries.createdAt",
+                new Document("$gte", toDate(start)).append("$lte", toDate(end)))
+                .append("entries.fee", new Document("$ne", null)));
+        AggregationOperation feesOnly = context -> new Document("$project", new Document("_id", 0)
+                .append("createdAt", "$entries.createdAt")
+                .append("transactionType", "$entries.transactionType")
+                .append("fee", new Document("$toDecimal", "$entries.fee")));
+        List<AggregationOperation> pipeline = new ArrayList<>(List.of(
+                Aggregation.match(monthsOf(accountNumber, start, end)),
+                Aggregation.unwind("entries"),
+                feesInRange,
+                feesOnly));
+        pipeline.addAll(TransactionRepositoryCustomImpl.feeTotalsByPeriod(period));
+        return reactiveMongoTemplate.aggregate(Aggregation.newAggregation(pipeline), TransactionBucket.class, FeeTotal.class);
+    }
+
+    @Override
+    public Flux<Transaction> streamByAccountNumberAndCreatedAtBetween(String accountNumber, LocalDateTime start,
+                                                                      LocalDateTime end) {
+        // Already read a month at a time
+        return findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(accountNumber, start, end);
+    }
+
+    @Override
+    public Flux<Transaction> findAllById(Collection<String> ids) {
+        Set<String> wanted = Set.copyOf(ids);
+        return reactiveMongoTemplate.find(Query.query(Criteria.where("entries.transactionId").in(ids)), TransactionBucket.class)
+                .flatMapIterable(BucketTransactionStore::transactionsOf)
+                .filter(transaction -> wanted.contains(transaction.getId()));
+    }
+
+    @Override
+    public Flux<String> findExistingIds(Collection<String> ids) {
+        // Through the entries.transactionId index; the buckets found may hold other entries too
+        Query query = Query.query(Criteria.where("entries.transactionId").in(ids));
+        query.fields().include("entries.transactionId");
+        Set<String> wanted = Set.copyOf(ids);
+        return reactiveMongoTemplate.find(query, TransactionBucket.class)
+                .flatMapIterable(TransactionBucket::getEntries)
+                .map(TransactionBucket.Entry::getTransactionId)
+                .filter(wanted::contains);
+    }
+
+    @Override
+    public Flux<String> findDistinctAccountNumbers() {
+        return reactiveMongoTemplate.findDistinct(new Query(), "accountNumber", TransactionBucket.class, String.class);
+    }
+
+    // Appends the transactions to the bucket of their account and month with one unordered bulk write. Each upsert
+    // only matches a bucket with room for all its entries, so a full month continues in a new bucket. It also skips a
+    // bucket already holding one of its ids; the upsert then creates a bucket with that id again, which the unique
+    // entries.transactionId index rejects with a duplicate key error, as the document layout does for a repeated _id.
+    private Mono<Void> append(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, List<Transaction>> byBucket = transactions.stream()
+                .collect(Collectors.groupingBy(
+                        transaction -> transaction.getAccountNumber() + "|" + TransactionBucket.monthOf(transaction.getCreatedAt()),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                TransactionBucket.class);
+        byBucket.values().forEach(bucketTransactions -> {
+            for (int from = 0; from < bucketTransactions.size(); from += maxEntries) {
+                List<Transaction> chunk = bucketTransactions.subList(from, Math.min(from + maxEntries, bucketTransactions.size()));
+                Transaction first = chunk.get(0);
+                Query bucketWithRoom = Query.query(Criteria.where("accountNumber").is(first.getAccountNumber())
+                        .and("month").is(TransactionBucket.monthOf(first.getCreatedAt()))
+                        .and("count").lte(maxEntries - chunk.size())
+                        .and("entries.transactionId").nin(chunk.stream().map(Transaction::getId).toList()));
+                bulkOperations.upsert(bucketWithRoom, new Update()
+                        .push("entries").each(chunk.stream().map(TransactionBucket.Entry::of).toArray())
+                        .inc("count", chunk.size())
+                        .inc("netChange", new Decimal128(sum(chunk, transaction -> transaction.applyTo(BigDecimal.ZERO))))
+                        .inc("feeTotal", new Decimal128(sum(chunk, BucketTransactionStore::feeOf))));
+            }
+        });
+        return bulkOperations.execute().then();
+    }
+
+    // An update that stays in the same bucket replaces the entry in place; otherwise it moves to the bucket of its
+    // new account or month
+    private Mono<Void> replace(TransactionBucket bucket, Transaction transaction) {
+        Transaction existing = bucket.getEntries().get(0).toTransaction(bucket.getAccountNumber());
+        if (!bucket.getAccountNumber().equals(transaction.getAccountNumber())
+                || !bucket.getMonth().equals(TransactionBucket.monthOf(transaction.getCreatedAt()))) {
+            return remove(bucket).then(append(List.of(transaction)));
+        }
+        Query entry = Query.query(Criteria.where("_id").is(bucket.getId()).and("entries.transactionId").is(transaction.getId()));
+        Update update = new Update()
+                .set("entries.$", TransactionBucket.Entry.of(transaction))
+                .inc("netChange", new Decimal128(transaction.applyTo(BigDecimal.ZERO).subtract(existing.applyTo(BigDecimal.ZERO))))
+                .inc("feeTotal", new Decimal128(feeOf(transaction).subtract(feeOf(existing))));
+        return reactiveMongoTemplate.updateFirst(entry, update, TransactionBucket.class).then();
+    }
+
+    private Mono<Void> remove(TransactionBucket bucket) {
+        TransactionBucket.Entry entry = bucket.getEntries().get(0);
+        Transaction existing = entry.toTransaction(bucket.getAccountNumber());
+        Update update = new Update()
+                .pull("entries", new Document("transactionId", entry.getTransactionId()))
+                .inc("count", -1)
+                .inc("netChange", new Decimal128(existing.applyTo(BigDecimal.ZERO).negate()))
+                .inc("feeTotal", new Decimal128(feeOf(existing).negate()));
+        return reactiveMongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(bucket.getId())), update,
+                TransactionBucket.class).then();
+    }
+
+    // The bucket holding the transaction, with that entry only
+    private Mono<TransactionBucket> findBucketOf(String transactionId) {
+        Query query = Query.query(Criteria.where("entries.transactionId").is(transactionId));
+        query.fields()
+                .include("accountNumber", "month")
+                .elemMatch("entries", Criteria.where("transactionId").is(transactionId));
+        return reactiveMongoTemplate.findOne(query, TransactionBucket.class);
+    }
+
+    // The entries of the matching buckets that meet the condition, in createdAt order. Buckets are read in month
+    // order, so the entries are sorted one month at a time as its buckets arrive.
+    private Flux<Transaction> entries(Criteria buckets, Object entryCondition, Sort.Direction direction) {
+        AggregationOperation matchingEntries = context -> new Document("$project", new Document("accountNumber", 1)
+                .append("month", 1)
+                .append("entries", new Document("$filter", new Document("input", "$entries")
+                        .append("as", "entry")
+                        .append("cond", entryCondition))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(buckets),
+                Aggregation.sort(Sort.by(direction, "month")),
+                matchingEntries);
+
+        Comparator<Transaction> byCreatedAt = Comparator.comparing(Transaction::getCreatedAt);
+        Comparator<Transaction> order = direction.isAscending() ? byCreatedAt : byCreatedAt.reversed();
+        return reactiveMongoTemplate.aggregate(aggregation, TransactionBucket.class, TransactionBucket.class)
+                .bufferUntilChanged(TransactionBucket::getMonth)
+                .flatMapIterable(monthBuckets -> monthBuckets.stream()
+                        .flatMap(bucket -> transactionsOf(bucket).stream())
+                        .sorted(order)
+                        .toList());
+    }
+
+    private static Criteria monthsOf(String accountNumber, LocalDateTime start, LocalDateTime end) {
+        return Criteria.where("accountNumber").is(accountNumber)
+                .and("month").gte(TransactionBucket.monthOf(start)).lte(TransactionBucket.monthOf(end));
+    }
+
+    private static List<Transaction> transactionsOf(TransactionBucket bucket) {
+        if (bucket.getEntries() == null) {
+            return List.of();
+        }
+        return bucket.getEntries().stream()
+                .map(entry -> entry.toTransaction(bucket.getAccountNumber()))
+                .toList();
+    }
+
+    private static BigDecimal sum(List<Transaction> transactions, Function<Transaction, BigDecimal> value) {
+        return transactions.stream().map(value).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static BigDecimal feeOf(Transaction transaction) {
+        return transaction.getFee() == null ? BigDecimal.ZERO : transaction.getFee();
+    }
+
+    // Raw stages are not mapped, so dates are converted the way Spring stores LocalDateTime: in the server zone
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
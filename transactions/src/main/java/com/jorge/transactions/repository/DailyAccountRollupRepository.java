@@ -0,0 +1,15 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.DailyAccountRollup;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+@Repository
+public interface DailyAccountRollupRepository extends ReactiveMongoRepository<DailyAccountRollup, String>,
+        DailyAccountRollupRepositoryCustom {
+    Flux<DailyAccountRollup> findByAccountNumberAndDateBetweenOrderByDateAsc(String accountNumber, Range<LocalDate> dateRange);
+}
@@ -0,0 +1,23 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.Transaction;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface DailyAccountRollupRepositoryCustom {
+    // Adds the transactions to the rollups of their account and day with one bulk write. The closing balance only
+    // moves forward, to the balance stamped on a transaction created after the one it came from
+    Mono<Void> recordAll(List<Transaction> transactions);
+
+    // Takes the transactions back out of the totals of their day. A closing balance that may have come from one of
+    // them is cleared, to be set again with recordClosings from the transactions left that day
+    Mono<Void> removeAll(List<Transaction> transactions);
+
+    // Moves the closing balance of each day forward to the latest of the transactions, leaving the totals as they are
+    Mono<Void> recordClosings(List<Transaction> transactions);
+
+    // Overwrites the rollups of their account and day, used to rebuild them from the stored transactions
+    Mono<Void> replaceAll(List<DailyAccountRollup> rollups);
+}
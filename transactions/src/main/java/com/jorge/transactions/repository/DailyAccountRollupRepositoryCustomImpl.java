@@ -0,0 +1,131 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class DailyAccountRollupRepositoryCustomImpl implements DailyAccountRollupRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Void> recordAll(List<Transaction> transactions) {
+        Collection<DailyAccountRollup> rollups = rollupsOf(transactions);
+        if (rollups.isEmpty()) {
+            return Mono.empty();
+        }
+        // Ordered, so each day exists before its closing balance is compared
+        ReactiveBulkOperations bulkOperations =
+                reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, DailyAccountRollup.class);
+        LocalDateTime now = LocalDateTime.now();
+        rollups.forEach(rollup -> {
+            bulkOperations.upsert(byAccountAndDate(rollup.getAccountNumber(), rollup.getDate()),
+                    totalsUpdate(rollup, BigDecimal.ONE).set("updatedAt", now));
+            if (rollup.getClosingAt() != null) {
+                moveClosingForward(bulkOperations, rollup);
+            }
+        });
+        return bulkOperations.execute().then();
+    }
+
+    @Override
+    public Mono<Void> removeAll(List<Transaction> transactions) {
+        Collection<DailyAccountRollup> rollups = rollupsOf(transactions);
+        if (rollups.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations =
+                reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyAccountRollup.class);
+        LocalDateTime now = LocalDateTime.now();
+        rollups.forEach(rollup -> {
+            bulkOperations.updateOne(byAccountAndDate(rollup.getAccountNumber(), rollup.getDate()),
+                    totalsUpdate(rollup, BigDecimal.ONE.negate()).set("updatedAt", now));
+            // A closing at or before the latest removed transaction came from it or from an earlier one, never from a
+            // later transaction still stored
+            if (rollup.getClosingAt() != null) {
+                bulkOperations.updateOne(Query.query(Criteria.where("accountNumber").is(rollup.getAccountNumber())
+                                .and("date").is(rollup.getDate())
+                                .and("closingAt").lte(rollup.getClosingAt())),
+                        new Update().unset("closingBalance").unset("closingAt"));
+            }
+        });
+        return bulkOperations.execute().then();
+    }
+
+    @Override
+    public Mono<Void> recordClosings(List<Transaction> transactions) {
+        List<DailyAccountRollup> closings = rollupsOf(transactions).stream()
+                .filter(rollup -> rollup.getClosingAt() != null)
+                .toList();
+        if (closings.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations =
+                reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyAccountRollup.class);
+        closings.forEach(rollup -> moveClosingForward(bulkOperations, rollup));
+        return bulkOperations.execute().then();
+    }
+
+    @Override
+    public Mono<Void> replaceAll(List<DailyAccountRollup> rollups) {
+        if (rollups.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations =
+                reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyAccountRollup.class);
+        LocalDateTime now = LocalDateTime.now();
+        rollups.forEach(rollup -> bulkOperations.upsert(byAccountAndDate(rollup.getAccountNumber(), rollup.getDate()),
+                new Update()
+                        .set("creditTotal", new Decimal128(rollup.getCreditTotal()))
+                        .set("debitTotal", new Decimal128(rollup.getDebitTotal()))
+                        .set("feeTotal", new Decimal128(rollup.getFeeTotal()))
+                        .set("count", rollup.getCount())
+                        .set("closingBalance", rollup.getClosingBalance() == null ? null : new Decimal128(rollup.getClosingBalance()))
+                        .set("closingAt", rollup.getClosingAt())
+                        .set("updatedAt", now)));
+        return bulkOperations.execute().then();
+    }
+
+    // Movements that do not belong to an account, like credit card payments, have no rollup
+    private Collection<DailyAccountRollup> rollupsOf(List<Transaction> transactions) {
+        return DailyAccountRollup.of(transactions.stream()
+                .filter(transaction -> transaction.getAccountNumber() != null && transaction.getCreatedAt() != null)
+                .toList());
+    }
+
+    private void moveClosingForward(ReactiveBulkOperations bulkOperations, DailyAccountRollup rollup) {
+        bulkOperations.updateOne(Query.query(Criteria.where("accountNumber").is(rollup.getAccountNumber())
+                        .and("date").is(rollup.getDate())
+                        .orOperator(Criteria.where("closingAt").is(null),
+                                Criteria.where("closingAt").lte(rollup.getClosingAt()))),
+                new Update()
+                        .set("closingBalance", new Decimal128(rollup.getClosingBalance()))
+                        .set("closingAt", rollup.getClosingAt()));
+    }
+
+    private Query byAccountAndDate(String accountNumber, LocalDate date) {
+        return Query.query(Criteria.where("accountNumber").is(accountNumber).and("date").is(date));
+    }
+
+    private Update totalsUpdate(DailyAccountRollup rollup, BigDecimal sign) {
+        return new Update()
+                .inc("creditTotal", new Decimal128(rollup.getCreditTotal().multiply(sign)))
+                .inc("debitTotal", new Decimal128(rollup.getDebitTotal().multiply(sign)))
+                .inc("feeTotal", new Decimal128(rollup.getFeeTotal().multiply(sign)))
+                .inc("count", sign.longValue() * rollup.getCount());
+    }
+}
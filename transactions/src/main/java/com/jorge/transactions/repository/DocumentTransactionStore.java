@@ -0,0 +1,116 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// One document per transaction in the transactions collection
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transactions.storage.layout", havingValue = "document", matchIfMissing = true)
+public class DocumentTransactionStore implements TransactionStore {
+    private final TransactionRepository transactionRepository;
+
+    @Override
+    public Flux<Transaction> findAll() {
+        return transactionRepository.findAll();
+    }
+
+    @Override
+    public Mono<Transaction> findById(String id) {
+        return transactionRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Transaction> save(Transaction transaction) {
+        return transactionRepository.save(transaction);
+    }
+
+    @Override
+    public Flux<Transaction> insertAllUnordered(List<Transaction> transactions) {
+        return transactionRepository.insertAllUnordered(transactions);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return transactionRepository.deleteById(id);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumber(String accountNumber) {
+        return transactionRepository.findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberOrderByCreatedAtDesc(String accountNumber, Limit limit) {
+        return transactionRepository.findByAccountNumberOrderByCreatedAtDesc(accountNumber, limit);
+    }
+
+    @Override
+    public Mono<Transaction> findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(String accountNumber,
+                                                                                         LocalDateTime before) {
+        return transactionRepository.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(accountNumber, before);
+    }
+
+    @Override
+    public Flux<Transaction> findByRelatedCreditId(String relatedCreditId) {
+        return transactionRepository.findByRelatedCreditId(relatedCreditId);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(String accountNumber, LocalDateTime start,
+                                                                                    LocalDateTime end) {
+        return transactionRepository.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(accountNumber, start, end);
+    }
+
+    @Override
+    public Flux<Transaction> findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(String accountNumber,
+                                                                                                     BigDecimal feeIsGreaterThan,
+                                                                                                     LocalDateTime start,
+                                                                                                     LocalDateTime end) {
+        return transactionRepository.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(accountNumber,
+                feeIsGreaterThan, start, end);
+    }
+
+    @Override
+    public Mono<BigDecimal> sumBalanceBefore(String accountNumber, LocalDateTime before) {
+        return transactionRepository.sumBalanceBefore(accountNumber, before);
+    }
+
+    @Override
+    public Flux<FeeTotal> sumFeesByPeriod(String accountNumber, LocalDateTime start, LocalDateTime end,
+                                          FeeTotal.Period period) {
+        return transactionRepository.sumFeesByPeriod(accountNumber, start, end, period);
+    }
+
+    @Override
+    public Flux<Transaction> streamByAccountNumberAndCreatedAtBetween(String accountNumber, LocalDateTime start,
+                                                                      LocalDateTime end) {
+        return transactionRepository.streamByAccountNumberAndCreatedAtBetween(accountNumber, start, end);
+    }
+
+    @Override
+    public Flux<Transaction> findAllById(Collection<String> ids) {
+        return transactionRepository.findAllById(ids);
+    }
+
+    @Override
+    public Flux<String> findExistingIds(Collection<String> ids) {
+        return transactionRepository.findExistingIds(ids);
+    }
+
+    @Override
+    public Flux<String> findDistinctAccountNumbers() {
+        return transactionRepository.findDistinctAccountNumbers();
+    }
+}
@@ -1,16 +1,20 @@
 package com.jorge.transactions.repository;
 
 import com.jorge.transactions.model.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Repository
-public interface TransactionRepository extends ReactiveMongoRepository<Transaction, String> {
+public interface TransactionRepository extends ReactiveMongoRepository<Transaction, String>, TransactionRepositoryCustom {
     Flux<Transaction> findByAccountNumber(String accountNumber);
+    Flux<Transaction> findByAccountNumberOrderByCreatedAtDesc(String accountNumber, Limit limit);
+    Mono<Transaction> findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(String accountNumber, LocalDateTime before);
     Flux<Transaction> findByRelatedCreditId(String relatedCreditId);
     Flux<Transaction> findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(String accountNumber,
                                                                              LocalDateTime firstDayOfMonth,
@@ -0,0 +1,31 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TransactionRepositoryCustom {
+    // Inserts every transaction with one unordered bulk write and emits them back in the given order, ids included
+    Flux<Transaction> insertAllUnordered(List<Transaction> transactions);
+
+    // Balance left by every transaction of the account created before the given time, summed by Mongo
+    Mono<BigDecimal> sumBalanceBefore(String accountNumber, LocalDateTime before);
+
+    // Fees charged in [start, end] grouped by type and day or month, ordered by period and type
+    Flux<FeeTotal> sumFeesByPeriod(String accountNumber, LocalDateTime start, LocalDateTime end, FeeTotal.Period period);
+
+    // Transactions of the account created in [start, end] in date order, read from a cursor a batch at a time
+    Flux<Transaction> streamByAccountNumberAndCreatedAtBetween(String accountNumber, LocalDateTime start, LocalDateTime end);
+
+    // The ones of the given ids that belong to a stored transaction
+    Flux<String> findExistingIds(Collection<String> ids);
+
+    // Every account number that has transactions
+    Flux<String> findDistinctAccountNumbers();
+}
@@ -0,0 +1,144 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+    private static final List<String> DEBIT_TYPES = Arrays.stream(Transaction.TransactionType.values())
+            .filter(Transaction.TransactionType::isDebit)
+            .map(Enum::name)
+            .toList();
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int cursorBatchSize;
+
+    public TransactionRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                           @Value("${transactions.statement.cursor-batch-size:1000}") int cursorBatchSize) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public Flux<Transaction> insertAllUnordered(List<Transaction> transactions) {
+        return Flux.defer(() -> {
+            // Ids are assigned up front because a bulk write does not hand the generated ids back to the entities
+            transactions.stream()
+                    .filter(transaction -> transaction.getId() == null)
+                    .forEach(transaction -> transaction.setId(new ObjectId().toHexString()));
+            return reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)
+                    .insert(transactions)
+                    .execute()
+                    .thenMany(Flux.fromIterable(transactions));
+        });
+    }
+
+    @Override
+    public Mono<BigDecimal> sumBalanceBefore(String accountNumber, LocalDateTime before) {
+        // Amounts may be stored as strings or decimals, $toDecimal reads both
+        Document amount = new Document("$toDecimal", new Document("$ifNull", List.of("$amount", "0")));
+        Document fee = new Document("$toDecimal", new Document("$ifNull", List.of("$fee", "0")));
+        Document signedMovement = new Document("$cond", List.of(
+                new Document("$in", List.of("$transactionType", DEBIT_TYPES)),
+                new Document("$subtract", List.of(new Decimal128(BigDecimal.ZERO), new Document("$add", List.of(amount, fee)))),
+                new Document("$subtract", List.of(amount, fee))));
+        AggregationOperation sumMovements = context -> new Document("$group", new Document("_id", null)
+                .append("balance", new Document("$sum", signedMovement)));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("accountNumber").is(accountNumber).and("createdAt").lt(before)),
+                sumMovements);
+        return reactiveMongoTemplate.aggregate(aggregation, Transaction.class, Document.class)
+                .next()
+                .map(result -> result.get("balance", Decimal128.class).bigDecimalValue())
+                .defaultIfEmpty(BigDecimal.ZERO);
+    }
+
+    @Override
+    public Flux<FeeTotal> sumFeesByPeriod(String accountNumber, LocalDateTime start, LocalDateTime end,
+                                          FeeTotal.Period period) {
+        // Only index fields are projected, so the range is answered from the index alone
+        AggregationOperation feesOnly = context -> new Document("$project", new Document("_id", 0)
+                .append("createdAt", 1)
+                .append("transactionType", 1)
+                .append("fee", new Document("$toDecimal", "$fee")));
+        List<AggregationOperation> pipeline = new ArrayList<>(List.of(
+                Aggregation.match(Criteria.where("accountNumber").is(accountNumber)
+                        .and("createdAt").gte(start).lte(end)
+                        .and("fee").ne(null)),
+                feesOnly));
+        pipeline.addAll(feeTotalsByPeriod(period));
+        return reactiveMongoTemplate.aggregate(Aggregation.newAggregation(pipeline), Transaction.class, FeeTotal.class);
+    }
+
+    // Sums the fees of documents holding createdAt, transactionType and a decimal fee into FeeTotal rows.
+    // Stages after a custom projection are written raw so they are not mapped against the entity.
+    static List<AggregationOperation> feeTotalsByPeriod(FeeTotal.Period period) {
+        AggregationOperation chargedFees = context -> new Document("$match",
+                new Document("fee", new Document("$gt", new Decimal128(BigDecimal.ZERO))));
+        // createdAt is stored from LocalDateTime in the server zone, so days and months are cut in that zone too
+        Document periodKey = new Document("$dateToString", new Document("format", period.getDateFormat())
+                .append("date", "$createdAt")
+                .append("timezone", ZoneId.systemDefault().getId()));
+        Document feeType = new Document("$cond", List.of(
+                new Document("$eq", List.of("$transactionType", Transaction.TransactionType.MAINTENANCE_FEE.name())),
+                FeeTotal.FeeType.MAINTENANCE_FEE.name(),
+                FeeTotal.FeeType.TRANSACTION_FEE.name()));
+        AggregationOperation groupByPeriodAndType = context -> new Document("$group",
+                new Document("_id", new Document("period", periodKey).append("type", feeType))
+                        .append("totalAmount", new Document("$sum", "$fee"))
+                        .append("count", new Document("$sum", 1L)));
+        AggregationOperation flatten = context -> new Document("$project", new Document("_id", 0)
+                .append("period", "$_id.period")
+                .append("type", "$_id.type")
+                .append("totalAmount", 1)
+                .append("count", 1));
+        AggregationOperation byPeriodAndType = context -> new Document("$sort",
+                new Document("period", 1).append("type", 1));
+
+        return List.of(chargedFees, groupByPeriodAndType, flatten, byPeriodAndType);
+    }
+
+    @Override
+    public Flux<Transaction> streamByAccountNumberAndCreatedAtBetween(String accountNumber, LocalDateTime start,
+                                                                      LocalDateTime end) {
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber).and("createdAt").gte(start).lte(end))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .cursorBatchSize(cursorBatchSize);
+        return reactiveMongoTemplate.find(query, Transaction.class);
+    }
+
+    @Override
+    public Flux<String> findExistingIds(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("_id");
+        return reactiveMongoTemplate.find(query, Transaction.class)
+                .map(Transaction::getId);
+    }
+
+    @Override
+    public Flux<String> findDistinctAccountNumbers() {
+        return reactiveMongoTemplate.findDistinct(Query.query(Criteria.where("accountNumber").ne(null)), "accountNumber",
+                Transaction.class, String.class);
+    }
+}
@@ -0,0 +1,64 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Where transactions are kept, chosen with transactions.storage.layout:
+// - document (default): one document per transaction, see DocumentTransactionStore
+// - bucket: one document per account and month holding its transactions, see BucketTransactionStore
+// Both layouts answer every query with the same transactions.
+public interface TransactionStore {
+    Flux<Transaction> findAll();
+
+    Mono<Transaction> findById(String id);
+
+    Mono<Transaction> save(Transaction transaction);
+
+    // Stores every transaction with one unordered bulk write and emits them back in the given order, ids included
+    Flux<Transaction> insertAllUnordered(List<Transaction> transactions);
+
+    Mono<Void> deleteById(String id);
+
+    Flux<Transaction> findByAccountNumber(String accountNumber);
+
+    Flux<Transaction> findByAccountNumberOrderByCreatedAtDesc(String accountNumber, Limit limit);
+
+    // The last transaction of the account created before the given time
+    Mono<Transaction> findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(String accountNumber, LocalDateTime before);
+
+    Flux<Transaction> findByRelatedCreditId(String relatedCreditId);
+
+    Flux<Transaction> findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(String accountNumber, LocalDateTime start,
+                                                                             LocalDateTime end);
+
+    Flux<Transaction> findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(String accountNumber,
+                                                                                              BigDecimal feeIsGreaterThan,
+                                                                                              LocalDateTime start,
+                                                                                              LocalDateTime end);
+
+    // Balance left by every transaction of the account created before the given time
+    Mono<BigDecimal> sumBalanceBefore(String accountNumber, LocalDateTime before);
+
+    // Fees charged in [start, end] grouped by type and day or month, ordered by period and type
+    Flux<FeeTotal> sumFeesByPeriod(String accountNumber, LocalDateTime start, LocalDateTime end, FeeTotal.Period period);
+
+    // Transactions of the account created in [start, end] in date order, read a batch at a time
+    Flux<Transaction> streamByAccountNumberAndCreatedAtBetween(String accountNumber, LocalDateTime start, LocalDateTime end);
+
+    // The stored transactions among the given ids, in no particular order
+    Flux<Transaction> findAllById(Collection<String> ids);
+
+    // The ones of the given ids that belong to a stored transaction
+    Flux<String> findExistingIds(Collection<String> ids);
+
+    // Every account number that has transactions
+    Flux<String> findDistinctAccountNumbers();
+}
@@ -1,21 +1,31 @@
 package com.jorge.transactions.service;
 
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
+import com.jorge.transactions.model.AccountBalanceResponse;
+import com.jorge.transactions.model.AccountRollupResponse;
 import com.jorge.transactions.model.FeeReportResponse;
+import com.jorge.transactions.model.FeeSummaryResponse;
+import com.jorge.transactions.model.StatementLine;
 import com.jorge.transactions.model.TransactionRequest;
 import com.jorge.transactions.model.TransactionResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface TransactionService {
     Flux<TransactionResponse> getAllTransactions();
     Mono<TransactionResponse> createTransaction(TransactionRequest transactionRequest);
+    Flux<TransactionResponse> createTransactions(List<TransactionRequest> transactionRequests);
+    Mono<Long> ingestTransactions(List<TransactionCreateKafkaMessage> messages);
     Mono<TransactionResponse> getTransactionById(String id);
     Mono<TransactionResponse> updateTransaction(String id, TransactionRequest transactionRequest);
     Mono<Void> deleteTransactionById(String id);
 
     Flux<TransactionResponse> getTransactionsByAccountNumber(String accountNumber);
+    Flux<TransactionResponse> getLatestTransactionsByAccountNumber(String accountNumber, Integer limit);
     Flux<TransactionResponse> getTransactionsByCreditId(String creditId);
     Flux<TransactionResponse> getTransactionsByAccountNumberAndDateRange(String accountNumber,
                                                                          LocalDateTime startDate,
@@ -23,4 +33,12 @@ public interface TransactionService {
     Flux<FeeReportResponse> getTransactionsFeesByAccountNumberAndDateRange(String accountNumber,
                                                                            LocalDateTime createdAtStart,
                                                                            LocalDateTime createdAtEnd);
+    Flux<FeeSummaryResponse> getFeeSummaryByAccountNumberAndDateRange(String accountNumber,
+                                                                      LocalDateTime startDate,
+                                                                      LocalDateTime endDate,
+                                                                      String groupBy);
+    Flux<StatementLine> getAccountStatement(String accountNumber, LocalDateTime startDate, LocalDateTime endDate);
+    Mono<AccountBalanceResponse> getAccountBalanceAt(String accountNumber, LocalDateTime at);
+    Flux<AccountRollupResponse> getAccountRollups(String accountNumber, LocalDate startDate, LocalDate endDate,
+                                                  String groupBy);
 }
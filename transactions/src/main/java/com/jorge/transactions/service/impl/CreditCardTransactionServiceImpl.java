@@ -8,14 +8,13 @@ import com.jorge.transactions.repository.CreditCardTransactionRepository;
 import com.jorge.transactions.service.CreditCardTransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Comparator;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -67,17 +66,14 @@ public class CreditCardTransactionServiceImpl implements CreditCardTransactionSe
     @Override
     public Flux<CreditCardTransactionResponse> getCreditCardTransactionsByCreditCardNumber(String creditCardNumber) {
         log.info("Fetching credit card transactions for credit card number: {}", creditCardNumber);
-        return creditCardTransactionRepository.findByCreditCardNumber(creditCardNumber)
-                .sort(Comparator.comparing(CreditCardTransaction::getCreatedAt).reversed())
+        return creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(creditCardNumber)
                 .map(creditCardTransactionMapper::mapToCreditCardTransactionResponse);
     }
 
     @Override
     public Flux<CreditCardTransactionResponse> getCreditCardTransactionsByCreditCardNumberLast10(String creditCardNumber) {
         log.info("Fetching last 10 credit card transactions for credit card number: {}", creditCardNumber);
-        return creditCardTransactionRepository.findByCreditCardNumber(creditCardNumber)
-                .sort(Comparator.comparing(CreditCardTransaction::getCreatedAt).reversed())
-                .take(10)
+        return creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(creditCardNumber, Limit.of(10))
                 .map(creditCardTransactionMapper::mapToCreditCardTransactionResponse);
     }
 
@@ -1,14 +1,24 @@
 package com.jorge.transactions.service.impl;
 
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
 import com.jorge.transactions.mapper.TransactionMapper;
+import com.jorge.transactions.model.AccountBalanceResponse;
+import com.jorge.transactions.model.AccountRollupResponse;
+import com.jorge.transactions.model.DailyAccountRollup;
 import com.jorge.transactions.model.FeeReportResponse;
+import com.jorge.transactions.model.FeeSummaryResponse;
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.StatementLine;
 import com.jorge.transactions.model.Transaction;
 import com.jorge.transactions.model.TransactionRequest;
 import com.jorge.transactions.model.TransactionResponse;
-import com.jorge.transactions.repository.TransactionRepository;
+import com.jorge.transactions.repository.DailyAccountRollupRepository;
+import com.jorge.transactions.repository.TransactionStore;
 import com.jorge.transactions.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -16,19 +26,31 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
+    private static final int MAX_LATEST_TRANSACTIONS = 100;
+
     private final TransactionMapper transactionMapper;
-    private final TransactionRepository transactionRepository;
+    private final TransactionStore transactionStore;
+    private final DailyAccountRollupRepository dailyAccountRollupRepository;
 
     @Override
     public Flux<TransactionResponse> getAllTransactions() {
-        return transactionRepository.findAll()
+        return transactionStore.findAll()
                 .map(transactionMapper::mapToTransactionResponse);
     }
 
@@ -36,14 +58,93 @@ public class TransactionServiceImpl implements TransactionService {
     public Mono<TransactionResponse> createTransaction(TransactionRequest transactionRequest) {
         log.info("Creating a new transaction");
         Transaction transaction = transactionMapper.mapToTransaction(transactionRequest);
-        return transactionRepository.save(transaction)
+        // A request repeating a producer id already stored is a redelivery and gets the stored transaction back
+        Mono<Transaction> storedTransaction = transaction.getId() == null
+                ? Mono.empty() : transactionStore.findById(transaction.getId());
+        return storedTransaction
+                .switchIfEmpty(Mono.defer(() -> transactionStore.save(transaction)
+                        .flatMap(savedTransaction -> recordRollups(List.of(savedTransaction)).thenReturn(savedTransaction))))
+                .map(transactionMapper::mapToTransactionResponse);
+    }
+
+    @Override
+    public Flux<TransactionResponse> createTransactions(List<TransactionRequest> transactionRequests) {
+        log.info("Creating a batch of {} transactions", transactionRequests.size());
+        List<Transaction> transactions = transactionRequests.stream()
+                .map(transactionMapper::mapToTransaction)
+                .toList();
+        if (transactions.isEmpty()) {
+            return Flux.empty();
+        }
+        Set<String> producerIds = transactions.stream()
+                .map(Transaction::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (producerIds.isEmpty()) {
+            return insertWithRollups(transactions)
+                    .map(transactionMapper::mapToTransactionResponse);
+        }
+        // Requests carrying the producer's id are deduplicated like ingested messages: an id already stored, or
+        // earlier in the batch, is a redelivery and answers with the stored transaction. Callers match responses to
+        // requests by position, so there is still one response per request, in order.
+        return transactionStore.findAllById(producerIds)
+                .collectMap(Transaction::getId)
+                .flatMapMany(storedTransactions -> {
+                    Map<String, Transaction> transactionsById = new HashMap<>(storedTransactions);
+                    List<Transaction> newTransactions = transactions.stream()
+                            .filter(transaction -> transaction.getId() == null
+                                    || transactionsById.putIfAbsent(transaction.getId(), transaction) == null)
+                            .toList();
+                    int redelivered = transactions.size() - newTransactions.size();
+                    if (redelivered > 0) {
+                        log.info("Skipping {} transactions of the batch already stored or repeated", redelivered);
+                    }
+                    Mono<List<Transaction>> savedTransactions = newTransactions.isEmpty()
+                            ? Mono.just(List.of()) : insertWithRollups(newTransactions).collectList();
+                    return savedTransactions.flatMapIterable(saved -> {
+                        Map<Transaction, Transaction> savedByRequest = new IdentityHashMap<>();
+                        for (int i = 0; i < newTransactions.size(); i++) {
+                            savedByRequest.put(newTransactions.get(i), saved.get(i));
+                        }
+                        return transactions.stream()
+                                .map(transaction -> savedByRequest.containsKey(transaction)
+                                        ? savedByRequest.get(transaction)
+                                        : transactionsById.get(transaction.getId()))
+                                .toList();
+                    });
+                })
                 .map(transactionMapper::mapToTransactionResponse);
     }
 
+    @Override
+    public Mono<Long> ingestTransactions(List<TransactionCreateKafkaMessage> messages) {
+        // The producer's id identifies the transaction: one already stored, or earlier in the batch, is a redelivery
+        Map<String, Transaction> transactionsById = new LinkedHashMap<>();
+        messages.forEach(message -> transactionsById.putIfAbsent(message.getId(), transactionMapper.mapToTransaction(message)));
+        if (transactionsById.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return transactionStore.findExistingIds(transactionsById.keySet())
+                .collect(Collectors.toSet())
+                .flatMap(storedIds -> {
+                    List<Transaction> newTransactions = transactionsById.values().stream()
+                            .filter(transaction -> !storedIds.contains(transaction.getId()))
+                            .toList();
+                    if (newTransactions.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    log.info("Ingesting a batch of {} transactions, {} already stored", newTransactions.size(), storedIds.size());
+                    return transactionStore.insertAllUnordered(newTransactions)
+                            .collectList()
+                            .flatMap(savedTransactions -> recordRollups(savedTransactions)
+                                    .thenReturn((long) savedTransactions.size()));
+                });
+    }
+
     @Override
     public Mono<TransactionResponse> getTransactionById(String id) {
         log.info("Fetching transaction by id: {}", id);
-        return transactionRepository.findById(id)
+        return transactionStore.findById(id)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Movimiento con id: " + id + " no encontrado")))
                 .map(transactionMapper::mapToTransactionResponse);
@@ -52,34 +153,51 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     public Mono<TransactionResponse> updateTransaction(String id, TransactionRequest transactionRequest) {
         log.info("Updating transaction status for transaction id: {}", id);
-        Mono<Transaction> transactionMono = transactionRepository.findById(id)
+        Mono<Transaction> transactionMono = transactionStore.findById(id)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Movimiento con id: " + id + " no encontrado")));
         return transactionMono.flatMap(existingTransaction ->
-                                transactionRepository.save(
-                                        updateTransactionFromRequest(existingTransaction, transactionRequest))
+                                transactionStore.save(
+                                                updateTransactionFromRequest(existingTransaction, transactionRequest))
+                                        .flatMap(updatedTransaction -> removeRollups(List.of(existingTransaction))
+                                                .then(recordRollups(List.of(updatedTransaction)))
+                                                .thenReturn(updatedTransaction))
                 ).map(transactionMapper::mapToTransactionResponse);
     }
 
     @Override
     public Mono<Void> deleteTransactionById(String id) {
         log.info("Deleting transaction by id: {}", id);
-        return transactionRepository.deleteById(id);
+        return transactionStore.findById(id)
+                .flatMap(transaction -> transactionStore.deleteById(id)
+                        .then(removeRollups(List.of(transaction))));
     }
 
     @Override
     public Flux<TransactionResponse> getTransactionsByAccountNumber(String accountNumber) {
         log.info("Fetching transactions for account number: {}", accountNumber);
-        return transactionRepository.findByAccountNumber(accountNumber)
+        return transactionStore.findByAccountNumber(accountNumber)
                 .switchIfEmpty(Mono.error(
                         new ResponseStatusException(HttpStatus.NOT_FOUND, "Transactions not found for account number: " + accountNumber)))
                 .map(transactionMapper::mapToTransactionResponse);
     }
 
+    @Override
+    public Flux<TransactionResponse> getLatestTransactionsByAccountNumber(String accountNumber, Integer limit) {
+        log.info("Fetching latest {} transactions for account number: {}", limit, accountNumber);
+        if (limit == null || limit < 1 || limit > MAX_LATEST_TRANSACTIONS) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_LATEST_TRANSACTIONS));
+        }
+        // Sort and limit run in Mongo over the (accountNumber, createdAt desc) index
+        return transactionStore.findByAccountNumberOrderByCreatedAtDesc(accountNumber, Limit.of(limit))
+                .map(transactionMapper::mapToTransactionResponse);
+    }
+
     @Override
     public Flux<TransactionResponse> getTransactionsByCreditId(String creditId) {
         log.info("Fetching transactions for credit id: {}", creditId);
-        return transactionRepository.findByRelatedCreditId((creditId))
+        return transactionStore.findByRelatedCreditId((creditId))
                 .switchIfEmpty(Mono.error(
                         new ResponseStatusException(HttpStatus.NOT_FOUND, "Transactions not found for credit id: " + creditId)))
                 .map(transactionMapper::mapToTransactionResponse);
@@ -89,7 +207,7 @@ public class TransactionServiceImpl implements TransactionService {
     public Flux<TransactionResponse> getTransactionsByAccountNumberAndDateRange(String accountNumber,
                                                                                 LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Fetching transactions for account number: {} and created at: {}", accountNumber, startDate);
-        return transactionRepository.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(accountNumber, startDate, endDate)
+        return transactionStore.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(accountNumber, startDate, endDate)
                 .map(transactionMapper::mapToTransactionResponse);
     }
 
@@ -97,7 +215,7 @@ public class TransactionServiceImpl implements TransactionService {
     public Flux<FeeReportResponse> getTransactionsFeesByAccountNumberAndDateRange(String accountNumber,
                                                                                   LocalDateTime createdAtStart, LocalDateTime createdAtEnd) {
         log.info("Fetching transactions fees for account number: {} and created at: {}", accountNumber, createdAtStart);
-        return transactionRepository.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(accountNumber,
+        return transactionStore.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(accountNumber,
                         BigDecimal.ZERO, createdAtStart, createdAtEnd)
                 .map(transaction -> {
                     FeeReportResponse feeReport = new FeeReportResponse();
@@ -114,6 +232,138 @@ public class TransactionServiceImpl implements TransactionService {
                 });
     }
 
+    @Override
+    public Flux<FeeSummaryResponse> getFeeSummaryByAccountNumberAndDateRange(String accountNumber,
+                                                                             LocalDateTime startDate,
+                                                                             LocalDateTime endDate,
+                                                                             String groupBy) {
+        log.info("Summarizing fees by {} for account number: {} from {} to {}", groupBy, accountNumber, startDate, endDate);
+        if (startDate.isAfter(endDate)) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date must not be after end date"));
+        }
+        FeeTotal.Period period;
+        try {
+            period = groupBy == null ? FeeTotal.Period.MONTH : FeeTotal.Period.valueOf(groupBy);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported fee grouping: " + groupBy));
+        }
+        // Grouped and summed by Mongo, so a year of fees comes back as at most a row per type and period
+        return transactionStore.sumFeesByPeriod(accountNumber, startDate, endDate, period)
+                .map(transactionMapper::mapToFeeSummaryResponse);
+    }
+
+    @Override
+    public Flux<StatementLine> getAccountStatement(String accountNumber, LocalDateTime startDate, LocalDateTime endDate) {
+        log.info("Exporting statement for account number: {} from {} to {}", accountNumber, startDate, endDate);
+        if (startDate.isAfter(endDate)) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date must not be after end date"));
+        }
+        // Lines are emitted as the cursor reads them, each carrying the balance stamped on it or, for records
+        // without one, the balance left by the transactions before it
+        return getBalanceBefore(accountNumber, startDate)
+                .flatMapMany(openingBalance -> {
+                    BigDecimal[] balance = {openingBalance};
+                    return transactionStore.streamByAccountNumberAndCreatedAtBetween(accountNumber, startDate, endDate)
+                            .map(transaction -> {
+                                balance[0] = transaction.getBalanceAfter() != null
+                                        ? transaction.getBalanceAfter() : transaction.applyTo(balance[0]);
+                                return transactionMapper.mapToStatementLine(transaction, balance[0]);
+                            });
+                });
+    }
+
+    @Override
+    public Mono<AccountBalanceResponse> getAccountBalanceAt(String accountNumber, LocalDateTime at) {
+        log.info("Fetching balance of account number: {} at {}", accountNumber, at);
+        return getBalanceBefore(accountNumber, at)
+                .map(balance -> {
+                    AccountBalanceResponse accountBalanceResponse = new AccountBalanceResponse();
+                    accountBalanceResponse.setAccountNumber(accountNumber);
+                    accountBalanceResponse.setAt(at);
+                    accountBalanceResponse.setBalance(balance);
+                    return accountBalanceResponse;
+                });
+    }
+
+    // The balance stamped on the last transaction before the given time, one index lookup. History recorded
+    // before balances were stamped is summed instead
+    private Mono<BigDecimal> getBalanceBefore(String accountNumber, LocalDateTime before) {
+        return transactionStore.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(accountNumber, before)
+                .flatMap(lastTransaction -> lastTransaction.getBalanceAfter() != null
+                        ? Mono.just(lastTransaction.getBalanceAfter())
+                        : transactionStore.sumBalanceBefore(accountNumber, before))
+                .defaultIfEmpty(BigDecimal.ZERO);
+    }
+
+    @Override
+    public Flux<AccountRollupResponse> getAccountRollups(String accountNumber, LocalDate startDate, LocalDate endDate,
+                                                         String groupBy) {
+        log.info("Fetching rollups by {} for account number: {} from {} to {}", groupBy, accountNumber, startDate, endDate);
+        if (startDate.isAfter(endDate)) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date must not be after end date"));
+        }
+        DailyAccountRollup.Period period;
+        try {
+            period = groupBy == null ? DailyAccountRollup.Period.DAY : DailyAccountRollup.Period.valueOf(groupBy);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported rollup grouping: " + groupBy));
+        }
+        // One small document per day with transactions, so a month reads at most 31 of them
+        return dailyAccountRollupRepository.findByAccountNumberAndDateBetweenOrderByDateAsc(accountNumber,
+                        Range.closed(startDate, endDate))
+                .bufferUntilChanged(rollup -> period.keyOf(rollup.getDate()))
+                .map(days -> transactionMapper.mapToAccountRollupResponse(period.keyOf(days.get(0).getDate()),
+                        DailyAccountRollup.sum(days)));
+    }
+
+    // Rollups follow the transactions on a best effort basis: the transaction is already stored, so a failed
+    // update is logged and left to DailyAccountRollupBackfill to rebuild
+    // The store emits once the whole batch is written, so the rollups are updated with one more bulk write
+    private Flux<Transaction> insertWithRollups(List<Transaction> transactions) {
+        return transactionStore.insertAllUnordered(transactions)
+                .collectList()
+                .flatMapMany(savedTransactions -> recordRollups(savedTransactions)
+                        .thenMany(Flux.fromIterable(savedTransactions)));
+    }
+
+    private Mono<Void> recordRollups(List<Transaction> transactions) {
+        return dailyAccountRollupRepository.recordAll(transactions)
+                .onErrorResume(e -> {
+                    log.warn("Could not record the daily rollups of {} transactions: {}", transactions.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> removeRollups(List<Transaction> transactions) {
+        return dailyAccountRollupRepository.removeAll(transactions)
+                .then(restoreClosings(transactions))
+                .onErrorResume(e -> {
+                    log.warn("Could not remove {} transactions from the daily rollups: {}", transactions.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    // removeAll clears a closing balance the removed transactions may have set: the latest transaction left on each
+    // of their days sets it again, and a day with none left keeps no closing balance
+    private Mono<Void> restoreClosings(List<Transaction> removed) {
+        return Flux.fromIterable(removed.stream()
+                        .filter(transaction -> transaction.getAccountNumber() != null && transaction.getBalanceAfter() != null
+                                && transaction.getCreatedAt() != null)
+                        .map(transaction -> Map.entry(transaction.getAccountNumber(), transaction.getCreatedAt().toLocalDate()))
+                        .distinct()
+                        .toList())
+                .concatMap(day -> transactionStore.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(day.getKey(),
+                                day.getValue().atStartOfDay(), day.getValue().atTime(LocalTime.MAX))
+                        .filter(transaction -> transaction.getBalanceAfter() != null)
+                        .takeLast(1))
+                .collectList()
+                .filter(closings -> !closings.isEmpty())
+                .flatMap(dailyAccountRollupRepository::recordClosings);
+    }
+
     public Transaction updateTransactionFromRequest(Transaction existingTransaction, TransactionRequest transactionRequest) {
         Transaction updatedTransaction = transactionMapper.mapToTransaction(transactionRequest);
         updatedTransaction.setId(existingTransaction.getId());
@@ -0,0 +1,86 @@
+package com.jorge.transactions.config;
+
+import com.jorge.transactions.model.DailyAccountRollup;
+import com.jorge.transactions.model.Transaction;
+import com.jorge.transactions.repository.DailyAccountRollupRepository;
+import com.jorge.transactions.repository.TransactionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyAccountRollupBackfillTest {
+    @Mock
+    private TransactionStore transactionStore;
+
+    @Mock
+    private DailyAccountRollupRepository dailyAccountRollupRepository;
+
+    private DailyAccountRollupBackfill dailyAccountRollupBackfill;
+
+    @BeforeEach
+    void setUp() {
+        dailyAccountRollupBackfill = new DailyAccountRollupBackfill(transactionStore, dailyAccountRollupRepository, false, 2);
+    }
+
+    @Test
+    void whenBackfill_ThenOneRollupPerDayWithRunningClosingBalance() {
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        when(transactionStore.findDistinctAccountNumbers()).thenReturn(Flux.just("ACC123"));
+        when(transactionStore.streamByAccountNumberAndCreatedAtBetween(eq("ACC123"), any(LocalDateTime.class),
+                eq(LocalDate.of(2024, 3, 12).atStartOfDay().minusNanos(1))))
+                .thenReturn(Flux.just(
+                        transaction(Transaction.TransactionType.DEPOSIT, 200, 0, day.atTime(9, 0), null),
+                        transaction(Transaction.TransactionType.WITHDRAWAL, 50, 2, day.atTime(18, 0), null),
+                        transaction(Transaction.TransactionType.DEPOSIT, 10, 0, day.plusDays(1).atTime(8, 0),
+                                BigDecimal.valueOf(158))));
+        when(dailyAccountRollupRepository.replaceAll(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(dailyAccountRollupBackfill.backfill(LocalDate.of(2024, 3, 12)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DailyAccountRollup>> rollups = ArgumentCaptor.forClass(List.class);
+        verify(dailyAccountRollupRepository).replaceAll(rollups.capture());
+        DailyAccountRollup first = rollups.getValue().get(0);
+        assertEquals(day, first.getDate());
+        assertEquals(BigDecimal.valueOf(200), first.getCreditTotal());
+        assertEquals(BigDecimal.valueOf(50), first.getDebitTotal());
+        assertEquals(BigDecimal.valueOf(2), first.getFeeTotal());
+        assertEquals(2L, first.getCount());
+        // Replayed from the unstamped movements: 200 - (50 + 2)
+        assertEquals(BigDecimal.valueOf(148), first.getClosingBalance());
+        assertEquals(BigDecimal.valueOf(158), rollups.getValue().get(1).getClosingBalance());
+    }
+
+    private Transaction transaction(Transaction.TransactionType type, long amount, long fee, LocalDateTime createdAt,
+                                    BigDecimal balanceAfter) {
+        return Transaction.builder()
+                .accountNumber("ACC123")
+                .transactionType(type)
+                .amount(BigDecimal.valueOf(amount))
+                .fee(BigDecimal.valueOf(fee))
+                .createdAt(createdAt)
+                .balanceAfter(balanceAfter)
+                .build();
+    }
+}
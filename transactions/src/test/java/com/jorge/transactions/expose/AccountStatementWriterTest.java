@@ -0,0 +1,83 @@
+package com.jorge.transactions.expose;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jorge.transactions.model.StatementLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AccountStatementWriterTest {
+    private AccountStatementWriter accountStatementWriter;
+    private MockServerHttpResponse response;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        accountStatementWriter = new AccountStatementWriter(objectMapper);
+        response = new MockServerHttpResponse();
+    }
+
+    @Test
+    void whenWriteCsv_ThenWriteHeaderAndOneQuotedRowPerLine() {
+        StepVerifier.create(accountStatementWriter.write("ACC123", "csv",
+                        Flux.just(line("t1", "Transfer to account 200, rent \"May\"", "150.00")), response))
+                .verifyComplete();
+
+        assertEquals("text/csv;charset=UTF-8", response.getHeaders().getContentType().toString());
+        StepVerifier.create(response.getBodyAsString())
+                .expectNext("id,createdAt,transactionType,description,amount,fee,balance\n"
+                        + "t1,2024-01-02T10:15,DEBIT,\"Transfer to account 200, rent \"\"May\"\"\",30,0,150.00\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void whenWriteNdjson_ThenWriteOneJsonObjectPerLine() {
+        StepVerifier.create(accountStatementWriter.write("ACC123", "ndjson",
+                        Flux.just(line("t1", "Rent", "150.00"), line("t2", "Rent", "120.00")), response))
+                .verifyComplete();
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        StepVerifier.create(response.getBodyAsString())
+                .assertNext(body -> {
+                    String[] lines = body.split("\n");
+                    assertEquals(2, lines.length);
+                    assertEquals("{\"id\":\"t2\",\"createdAt\":\"2024-01-02T10:15:00\",\"transactionType\":\"DEBIT\","
+                            + "\"description\":\"Rent\",\"amount\":30,\"fee\":0,\"balance\":120.00}", lines[1]);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenWriteUnknownFormat_ThenThrowBadRequestException() {
+        StepVerifier.create(accountStatementWriter.write("ACC123", "xml", Flux.empty(), response))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    private StatementLine line(String id, String description, String balance) {
+        StatementLine line = new StatementLine();
+        line.setId(id);
+        line.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 15));
+        line.setTransactionType("DEBIT");
+        line.setDescription(description);
+        line.setAmount(BigDecimal.valueOf(30));
+        line.setFee(BigDecimal.ZERO);
+        line.setBalance(new BigDecimal(balance));
+        return line;
+    }
+}
@@ -0,0 +1,110 @@
+package com.jorge.transactions.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
+import com.jorge.transactions.model.Transaction;
+import com.jorge.transactions.service.TransactionService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionCreateListenerTest {
+    private static final String DEAD_LETTER_TOPIC = "transaction-create-dlt";
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private TransactionService transactionService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private TransactionCreateListener transactionCreateListener;
+
+    @BeforeEach
+    void setUp() {
+        transactionCreateListener = new TransactionCreateListener(objectMapper, kafkaTemplate, transactionService,
+                DEAD_LETTER_TOPIC);
+    }
+
+    @Test
+    void whenPollHasValidAndPoisonRecords_ThenValidOnesAreStoredTogetherAndPoisonOnesDeadLettered() throws Exception {
+        TransactionCreateKafkaMessage deposit = message("tx-1");
+        TransactionCreateKafkaMessage withoutId = message(null);
+        when(transactionService.ingestTransactions(anyList())).thenReturn(Mono.just(1L));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        StepVerifier.create(transactionCreateListener.listenTransactionCreate(List.of(
+                        record(0, objectMapper.writeValueAsString(deposit)),
+                        record(1, "not json"),
+                        record(2, objectMapper.writeValueAsString(withoutId)))))
+                .verifyComplete();
+
+        verify(transactionService).ingestTransactions(List.of(deposit));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<String, String>> deadLetters = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(deadLetters.capture());
+        ProducerRecord<String, String> poison = deadLetters.getAllValues().get(0);
+        assertEquals(DEAD_LETTER_TOPIC, poison.topic());
+        assertEquals("not json", poison.value());
+        assertEquals(TransactionCreateListener.TOPIC,
+                new String(poison.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value(), StandardCharsets.UTF_8));
+        assertEquals("Missing id", new String(deadLetters.getAllValues().get(1).headers()
+                .lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whenStoringFails_ThenPollFails() throws Exception {
+        when(transactionService.ingestTransactions(anyList())).thenReturn(Mono.error(new IllegalStateException("Mongo unavailable")));
+
+        StepVerifier.create(transactionCreateListener.listenTransactionCreate(List.of(
+                        record(0, objectMapper.writeValueAsString(message("tx-1"))))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    private TransactionCreateKafkaMessage message(String id) {
+        return TransactionCreateKafkaMessage.builder()
+                .id(id)
+                .accountNumber("ACC123")
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(100))
+                .fee(BigDecimal.ZERO)
+                .description("Deposit")
+                .createdAt(LocalDateTime.of(2024, 3, 10, 9, 0))
+                .build();
+    }
+
+    private ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>(TransactionCreateListener.TOPIC, 0, offset, "ACC123", value);
+    }
+}
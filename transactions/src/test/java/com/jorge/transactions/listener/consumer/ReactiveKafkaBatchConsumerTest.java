@@ -0,0 +1,88 @@
+package com.jorge.transactions.listener.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ReactiveKafkaBatchConsumerTest {
+    private static final String TOPIC = "transaction-create";
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void whenPollIsReceived_ThenHandlerGetsAllItsRecordsAtOnceAndOffsetsAreAcknowledgedAfterIt() {
+        Sinks.Empty<Void> stored = Sinks.empty();
+        List<List<ReceiverRecord<String, String>>> handled = new ArrayList<>();
+        ReactiveKafkaBatchConsumer consumer = consumer(records -> {
+            handled.add(records);
+            return stored.asMono();
+        });
+        ReceiverRecord<String, String> first = record(0, 0);
+        ReceiverRecord<String, String> second = record(1, 0);
+
+        StepVerifier.create(consumer.consume(Flux.just(Flux.just(first, second))))
+                .then(() -> {
+                    assertEquals(List.of(List.of(first, second)), handled);
+                    verify(first.receiverOffset(), never()).acknowledge();
+                    stored.tryEmitEmpty();
+                })
+                .expectNext(List.of(first, second))
+                .verifyComplete();
+
+        verify(first.receiverOffset()).acknowledge();
+        verify(second.receiverOffset()).acknowledge();
+        assertEquals(2.0, meterRegistry.get("transactions.kafka.consumer.processed").counter().count());
+    }
+
+    @Test
+    void whenHandlerFails_ThenOffsetsAreNotAcknowledgedAndTheErrorRestartsTheReceiver() {
+        ReactiveKafkaBatchConsumer consumer = consumer(records -> Mono.error(new IllegalStateException("Mongo unavailable")));
+        ReceiverRecord<String, String> record = record(0, 0);
+
+        StepVerifier.create(consumer.consume(Flux.just(Flux.just(record))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(record.receiverOffset(), never()).acknowledge();
+        assertEquals(1.0, meterRegistry.get("transactions.kafka.consumer.failed").counter().count());
+    }
+
+    @Test
+    void whenPollIsEmpty_ThenHandlerIsNotCalled() {
+        ReactiveKafkaBatchConsumer consumer = consumer(records -> Mono.error(new AssertionError("Handler called")));
+
+        StepVerifier.create(consumer.consume(Flux.just(Flux.empty())))
+                .verifyComplete();
+    }
+
+    private ReactiveKafkaBatchConsumer consumer(Function<List<ReceiverRecord<String, String>>, Mono<Void>> handler) {
+        return new ReactiveKafkaBatchConsumer(TOPIC, ReceiverOptions.create(), handler, meterRegistry);
+    }
+
+    private ReceiverRecord<String, String> record(int partition, long offset) {
+        return new ReceiverRecord<>(new ConsumerRecord<>(TOPIC, partition, offset, null, "{}"), mock(ReceiverOffset.class));
+    }
+}
@@ -0,0 +1,234 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.config.MongoIndexInitializer;
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares the bucket layout with one document per transaction on a real MongoDB (docker-compose-dependencies.yml):
+// both must answer every query with the same transactions, and the benchmark prints read latency and index size:
+// mvn test -Pintegration [-Dmongodb.uri=...]
+@Tag("integration")
+class TransactionBucketLayoutBenchmarkTest {
+    private static final String MONGODB_URI = System.getProperty("mongodb.uri", "mongodb://localhost:27017");
+    private static final String DATABASE = "transactions-bucket-benchmark";
+    private static final int ACCOUNTS = 20;
+    private static final int TRANSACTIONS = 50_000;
+    private static final int READS = 200;
+    private static final String ACCOUNT_NUMBER = "1000000000001";
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static MongoClient mongoClient;
+    private static ReactiveMongoTemplate reactiveMongoTemplate;
+    private static TransactionStore documentStore;
+    private static TransactionStore bucketStore;
+
+    @BeforeAll
+    static void seed() {
+        mongoClient = MongoClients.create(MONGODB_URI);
+        reactiveMongoTemplate = new ReactiveMongoTemplate(mongoClient, DATABASE);
+        reactiveMongoTemplate.getMongoDatabase().flatMap(database -> Mono.from(database.drop())).block();
+        new MongoIndexInitializer(reactiveMongoTemplate).createIndexes().blockLast();
+
+        TransactionRepository transactionRepository = new ReactiveMongoRepositoryFactory(reactiveMongoTemplate)
+                .getRepository(TransactionRepository.class, RepositoryComposition.RepositoryFragments.just(
+                        new TransactionRepositoryCustomImpl(reactiveMongoTemplate, 1000)));
+        documentStore = new DocumentTransactionStore(transactionRepository);
+        bucketStore = new BucketTransactionStore(reactiveMongoTemplate, 1000);
+
+        // Ids are assigned by the first insert, so both layouts hold the same transactions
+        List<Transaction> transactions = IntStream.range(0, TRANSACTIONS)
+                .mapToObj(i -> Transaction.builder()
+                        .accountNumber(String.valueOf(1000000000001L + i % ACCOUNTS))
+                        .transactionType(i % 3 == 0 ? Transaction.TransactionType.WITHDRAWAL : Transaction.TransactionType.DEPOSIT)
+                        .amount(BigDecimal.valueOf(10 + i % 50))
+                        .fee(i % 4 == 0 ? new BigDecimal("1.50") : BigDecimal.ZERO)
+                        .description("Seed " + i)
+                        .createdAt(START.plusMinutes(15L * i))
+                        .relatedCreditId(i % 10 == 0 ? "credit-" + i % 7 : null)
+                        .build())
+                .toList();
+        Flux.fromIterable(transactions).buffer(5_000)
+                .concatMap(batch -> documentStore.insertAllUnordered(batch).then(bucketStore.insertAllUnordered(batch).then()))
+                .blockLast();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        Mono.from(mongoClient.getDatabase(DATABASE).drop()).block();
+        mongoClient.close();
+    }
+
+    static Stream<Arguments> queries() {
+        LocalDateTime end = START.plusMonths(2).plusDays(10);
+        return Stream.of(
+                query("findByAccountNumber", true, store -> store.findByAccountNumber(ACCOUNT_NUMBER)),
+                query("findByAccountNumberOrderByCreatedAtDesc", false, store ->
+                        store.findByAccountNumberOrderByCreatedAtDesc(ACCOUNT_NUMBER, Limit.of(10))),
+                query("findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc", false, store ->
+                        store.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(ACCOUNT_NUMBER, end).flux()),
+                query("findByRelatedCreditId", true, store -> store.findByRelatedCreditId("credit-3")),
+                query("findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt", false, store ->
+                        store.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(ACCOUNT_NUMBER, START.plusDays(10), end)),
+                query("findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt", false, store ->
+                        store.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(ACCOUNT_NUMBER,
+                                BigDecimal.ZERO, START.plusDays(10), end)),
+                query("streamByAccountNumberAndCreatedAtBetween", false, store ->
+                        store.streamByAccountNumberAndCreatedAtBetween(ACCOUNT_NUMBER, START.plusDays(10), end)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void whenQueryRunsOnBothLayouts_ThenSameTransactionsAreReturned(String name, boolean unordered,
+                                                                    Function<TransactionStore, Flux<Transaction>> query) {
+        List<String> fromDocuments = describe(query.apply(documentStore), unordered);
+        List<String> fromBuckets = describe(query.apply(bucketStore), unordered);
+
+        assertTrue(!fromDocuments.isEmpty(), name + " should find seeded transactions");
+        assertEquals(fromDocuments, fromBuckets, name);
+    }
+
+    @Test
+    void whenTotalsAreComputedOnBothLayouts_ThenTheyMatch() {
+        LocalDateTime before = START.plusMonths(3).plusDays(5);
+        assertEquals(0, documentStore.sumBalanceBefore(ACCOUNT_NUMBER, before).block()
+                .compareTo(bucketStore.sumBalanceBefore(ACCOUNT_NUMBER, before).block()));
+
+        List<String> fromDocuments = feeTotals(documentStore);
+        List<String> fromBuckets = feeTotals(bucketStore);
+        assertTrue(!fromDocuments.isEmpty());
+        assertEquals(fromDocuments, fromBuckets);
+    }
+
+    @Test
+    void whenTransactionIsUpdatedAndDeleted_ThenBucketTotalsFollow() {
+        String accountNumber = "1000000009999";
+        LocalDateTime after = START.plusYears(2);
+        Transaction transaction = bucketStore.save(Transaction.builder()
+                .accountNumber(accountNumber)
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(new BigDecimal("500.00"))
+                .fee(BigDecimal.ZERO)
+                .createdAt(START.plusYears(1))
+                .build()).block();
+        assertEquals(0, new BigDecimal("500.00").compareTo(bucketStore.sumBalanceBefore(accountNumber, after).block()));
+
+        transaction.setTransactionType(Transaction.TransactionType.WITHDRAWAL);
+        transaction.setAmount(new BigDecimal("100.00"));
+        bucketStore.save(transaction).block();
+        assertEquals(0, new BigDecimal("-100.00").compareTo(bucketStore.sumBalanceBefore(accountNumber, after).block()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(bucketStore.findById(transaction.getId()).block().getAmount()));
+
+        bucketStore.deleteById(transaction.getId()).block();
+        assertEquals(0, BigDecimal.ZERO.compareTo(bucketStore.sumBalanceBefore(accountNumber, after).block()));
+        assertNull(bucketStore.findById(transaction.getId()).block());
+    }
+
+    @Test
+    void whenTransactionIdIsAppendedAgain_ThenItIsRejectedInItsBucketAndInANewOne() {
+        String accountNumber = "1000000009998";
+        Transaction transaction = bucketStore.save(Transaction.builder()
+                .accountNumber(accountNumber)
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(new BigDecimal("500.00"))
+                .fee(BigDecimal.ZERO)
+                .createdAt(START.plusYears(1))
+                .build()).block();
+        // A store with one entry per bucket would put the repeated id in a new bucket of the month
+        TransactionStore fullBucketStore = new BucketTransactionStore(reactiveMongoTemplate, 1);
+
+        assertThrows(RuntimeException.class, () -> bucketStore.insertAllUnordered(List.of(transaction)).blockLast());
+        assertThrows(RuntimeException.class, () -> fullBucketStore.insertAllUnordered(List.of(transaction)).blockLast());
+
+        assertEquals(1, bucketStore.findByAccountNumber(accountNumber).count().block());
+        assertEquals(0, new BigDecimal("500.00").compareTo(
+                bucketStore.sumBalanceBefore(accountNumber, START.plusYears(2)).block()));
+    }
+
+    @Test
+    void benchmarkRangeReadsAndIndexSize() {
+        LocalDateTime start = START.plusDays(20);
+        LocalDateTime end = start.plusMonths(3);
+        Function<TransactionStore, Flux<Transaction>> rangeRead = store ->
+                store.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(ACCOUNT_NUMBER, start, end);
+
+        Duration documentLatency = averageLatency(documentStore, rangeRead);
+        Duration bucketLatency = averageLatency(bucketStore, rangeRead);
+        long documentIndexSize = totalIndexSize("transactions");
+        long bucketIndexSize = totalIndexSize("transaction_buckets");
+
+        System.out.printf("3-month range read of %d transactions: document %d us, bucket %d us%n",
+                rangeRead.apply(documentStore).count().block(), documentLatency.toNanos() / 1_000, bucketLatency.toNanos() / 1_000);
+        System.out.printf("Total index size: document %d bytes, bucket %d bytes%n", documentIndexSize, bucketIndexSize);
+        assertTrue(bucketIndexSize < documentIndexSize, "Buckets should index fewer keys than one document per transaction");
+    }
+
+    private static Arguments query(String name, boolean unordered, Function<TransactionStore, Flux<Transaction>> query) {
+        return Arguments.of(name, unordered, query);
+    }
+
+    private static List<String> describe(Flux<Transaction> transactions, boolean unordered) {
+        List<String> described = transactions
+                .map(transaction -> String.join("|", transaction.getId(), transaction.getAccountNumber(),
+                        transaction.getTransactionType().name(), transaction.getAmount().toPlainString(),
+                        String.valueOf(transaction.getFee()), String.valueOf(transaction.getCreatedAt()),
+                        String.valueOf(transaction.getRelatedCreditId())))
+                .collectList()
+                .block();
+        return unordered ? described.stream().sorted(Comparator.naturalOrder()).toList() : described;
+    }
+
+    private static List<String> feeTotals(TransactionStore store) {
+        return store.sumFeesByPeriod(ACCOUNT_NUMBER, START.plusDays(3), START.plusMonths(4), FeeTotal.Period.DAY)
+                .map(total -> total.getPeriod() + "|" + total.getType() + "|" + total.getTotalAmount().stripTrailingZeros()
+                        + "|" + total.getCount())
+                .collectList()
+                .block();
+    }
+
+    private static Duration averageLatency(TransactionStore store, Function<TransactionStore, Flux<Transaction>> read) {
+        // Warm up the connection pool and the server cache before timing
+        for (int i = 0; i < 20; i++) {
+            read.apply(store).blockLast();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            read.apply(store).blockLast();
+        }
+        return Duration.ofNanos((System.nanoTime() - started) / READS);
+    }
+
+    private static long totalIndexSize(String collection) {
+        Document stats = reactiveMongoTemplate.executeCommand(new Document("collStats", collection)).block();
+        return stats.get("totalIndexSize", Number.class).longValue();
+    }
+}
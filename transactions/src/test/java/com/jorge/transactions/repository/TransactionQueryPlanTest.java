@@ -0,0 +1,234 @@
+package com.jorge.transactions.repository;
+
+import com.jorge.transactions.config.MongoIndexInitializer;
+import com.jorge.transactions.model.CreditCardTransaction;
+import com.jorge.transactions.model.FeeTotal;
+import com.jorge.transactions.model.Transaction;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs every repository query against a real MongoDB (docker-compose-dependencies.yml) with the declared indexes,
+// captures the command the driver sends and fails if its winning plan scans the collection or sorts in memory:
+// mvn test -Pintegration [-Dmongodb.uri=...]
+@Tag("integration")
+class TransactionQueryPlanTest {
+    private static final String MONGODB_URI = System.getProperty("mongodb.uri", "mongodb://localhost:27017");
+    private static final String DATABASE = "transactions-query-plan-test";
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate");
+    private static final String ACCOUNT_NUMBER = "1000000000001";
+    private static final String CREDIT_ID = "credit-1";
+    private static final String CREDIT_CARD_NUMBER = "4000000000000001";
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusMonths(3);
+
+    private static final List<BsonDocument> sentCommands = Collections.synchronizedList(new ArrayList<>());
+    private static MongoClient mongoClient;
+    private static TransactionRepository transactionRepository;
+    private static CreditCardTransactionRepository creditCardTransactionRepository;
+    private static DailyAccountRollupRepository dailyAccountRollupRepository;
+
+    @BeforeAll
+    static void connect() {
+        CommandListener commandRecorder = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (QUERY_COMMANDS.contains(event.getCommandName()) && DATABASE.equals(event.getDatabaseName())) {
+                    // The event's document is only valid during the callback
+                    sentCommands.add(BsonDocument.parse(event.getCommand()
+                            .toJson(JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build())));
+                }
+            }
+        };
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MONGODB_URI))
+                .addCommandListener(commandRecorder)
+                .build());
+        ReactiveMongoTemplate reactiveMongoTemplate = new ReactiveMongoTemplate(mongoClient, DATABASE);
+        reactiveMongoTemplate.getMongoDatabase().flatMap(database -> Mono.from(database.drop())).block();
+
+        new MongoIndexInitializer(reactiveMongoTemplate).createIndexes().blockLast();
+        seed(reactiveMongoTemplate);
+
+        ReactiveMongoRepositoryFactory repositoryFactory = new ReactiveMongoRepositoryFactory(reactiveMongoTemplate);
+        transactionRepository = repositoryFactory.getRepository(TransactionRepository.class,
+                RepositoryComposition.RepositoryFragments.just(new TransactionRepositoryCustomImpl(reactiveMongoTemplate, 1000)));
+        creditCardTransactionRepository = repositoryFactory.getRepository(CreditCardTransactionRepository.class);
+        dailyAccountRollupRepository = repositoryFactory.getRepository(DailyAccountRollupRepository.class,
+                RepositoryComposition.RepositoryFragments.just(new DailyAccountRollupRepositoryCustomImpl(reactiveMongoTemplate)));
+        transactionRepository.findAll().collectList().flatMap(dailyAccountRollupRepository::recordAll).block();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        Mono.from(mongoClient.getDatabase(DATABASE).drop()).block();
+        mongoClient.close();
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("findByAccountNumber", () -> transactionRepository.findByAccountNumber(ACCOUNT_NUMBER)),
+                query("findByAccountNumberOrderByCreatedAtDesc", () ->
+                        transactionRepository.findByAccountNumberOrderByCreatedAtDesc(ACCOUNT_NUMBER, Limit.of(10))),
+                query("findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc", () ->
+                        transactionRepository.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc(ACCOUNT_NUMBER, END)),
+                query("findByRelatedCreditId", () -> transactionRepository.findByRelatedCreditId(CREDIT_ID)),
+                query("findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt", () ->
+                        transactionRepository.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(ACCOUNT_NUMBER, START, END)),
+                query("findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt", () ->
+                        transactionRepository.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(
+                                ACCOUNT_NUMBER, BigDecimal.ZERO, START, END)),
+                query("sumBalanceBefore", () -> transactionRepository.sumBalanceBefore(ACCOUNT_NUMBER, END)),
+                query("sumFeesByPeriod", () ->
+                        transactionRepository.sumFeesByPeriod(ACCOUNT_NUMBER, START, END, FeeTotal.Period.DAY)),
+                query("streamByAccountNumberAndCreatedAtBetween", () ->
+                        transactionRepository.streamByAccountNumberAndCreatedAtBetween(ACCOUNT_NUMBER, START, END)),
+                query("findByCreditCardNumberOrderByCreatedAtDesc", () ->
+                        creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(CREDIT_CARD_NUMBER)),
+                query("findByCreditCardNumberOrderByCreatedAtDesc limited", () ->
+                        creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(CREDIT_CARD_NUMBER, Limit.of(10))),
+                query("findByAccountNumberAndDateBetweenOrderByDateAsc", () ->
+                        dailyAccountRollupRepository.findByAccountNumberAndDateBetweenOrderByDateAsc(ACCOUNT_NUMBER,
+                                Range.closed(START.toLocalDate(), END.toLocalDate()))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void whenRepositoryQueryRuns_ThenWinningPlanUsesAnIndexWithoutInMemorySort(String name, Supplier<Publisher<?>> query) {
+        sentCommands.clear();
+        Flux.from(query.get()).blockLast();
+        assertEquals(1, sentCommands.size(), "One query command should be sent by " + name);
+
+        Document explain = Mono.from(mongoClient.getDatabase(DATABASE).runCommand(new BsonDocument("explain", queryOf(sentCommands.get(0)))
+                        .append("verbosity", new BsonString("queryPlanner"))))
+                .block();
+        assertNotNull(explain);
+
+        List<Document> winningPlans = new ArrayList<>();
+        collect(explain, "winningPlan", winningPlans);
+        assertTrue(!winningPlans.isEmpty(), "No winning plan in " + explain.toJson());
+        List<String> violations = new ArrayList<>();
+        winningPlans.forEach(plan -> findViolations(plan, violations));
+        assertTrue(violations.isEmpty(), name + " runs " + violations + ": " + explain.toJson());
+    }
+
+    private static Arguments query(String name, Supplier<Publisher<?>> query) {
+        return Arguments.of(name, query);
+    }
+
+    // The command as sent, without the session and cluster fields the driver adds
+    private static BsonDocument queryOf(BsonDocument command) {
+        BsonDocument query = new BsonDocument();
+        command.forEach((field, value) -> {
+            if (!field.startsWith("$") && !field.equals("lsid") && !field.equals("txnNumber")) {
+                query.append(field, value);
+            }
+        });
+        return query;
+    }
+
+    // A collection scan, or a sort of documents read from the collection. A sort over the output of a $group that
+    // was pushed down into the plan sorts the groups, not the documents, and is allowed.
+    private static void findViolations(Document plan, List<String> violations) {
+        String stage = plan.getString("stage");
+        if ("COLLSCAN".equals(stage) || ("SORT".equals(stage) && !containsStage(plan, "GROUP"))) {
+            violations.add(stage);
+        }
+        children(plan).forEach(child -> findViolations(child, violations));
+    }
+
+    private static boolean containsStage(Document plan, String stage) {
+        return stage.equals(plan.getString("stage")) || children(plan).stream().anyMatch(child -> containsStage(child, stage));
+    }
+
+    // Child plans sit under inputStage, inputStages or queryPlan depending on the stage and the server version
+    private static List<Document> children(Document plan) {
+        List<Document> children = new ArrayList<>();
+        plan.forEach((field, value) -> {
+            if (value instanceof Document child) {
+                children.add(child);
+            } else if (value instanceof List<?> list) {
+                list.stream().filter(Document.class::isInstance).map(Document.class::cast).forEach(children::add);
+            }
+        });
+        return children;
+    }
+
+    private static void collect(Object value, String field, List<Document> found) {
+        if (value instanceof Document document) {
+            document.forEach((key, child) -> {
+                if (key.equals(field) && child instanceof Document plan) {
+                    found.add(plan);
+                } else {
+                    collect(child, field, found);
+                }
+            });
+        } else if (value instanceof List<?> list) {
+            list.forEach(child -> collect(child, field, found));
+        } else if (value instanceof BsonValue) {
+            throw new IllegalStateException("Explain output should be decoded as documents");
+        }
+    }
+
+    // Several accounts and cards, so the planner has a reason to prefer an index
+    private static void seed(ReactiveMongoTemplate reactiveMongoTemplate) {
+        List<Transaction> transactions = IntStream.range(0, 2_000)
+                .mapToObj(i -> Transaction.builder()
+                        .accountNumber(String.valueOf(1000000000001L + i % 20))
+                        .transactionType(i % 3 == 0 ? Transaction.TransactionType.WITHDRAWAL : Transaction.TransactionType.DEPOSIT)
+                        .amount(BigDecimal.valueOf(10 + i % 50))
+                        .fee(i % 4 == 0 ? new BigDecimal("1.50") : BigDecimal.ZERO)
+                        .description("Seed " + i)
+                        .createdAt(START.plusHours(i))
+                        .relatedCreditId(i % 10 == 0 ? "credit-" + i % 7 : null)
+                        .build())
+                .toList();
+        List<CreditCardTransaction> creditCardTransactions = IntStream.range(0, 500)
+                .mapToObj(i -> CreditCardTransaction.builder()
+                        .creditCardNumber(String.valueOf(4000000000000001L + i % 10))
+                        .transactionType(CreditCardTransaction.CreditCardTransactionType.CREDIT_CARD_CONSUMPTION)
+                        .amount(BigDecimal.valueOf(5 + i % 20))
+                        .createdAt(START.plusHours(i))
+                        .build())
+                .toList();
+        reactiveMongoTemplate.insertAll(transactions).blockLast();
+        reactiveMongoTemplate.insertAll(creditCardTransactions).blockLast();
+    }
+}
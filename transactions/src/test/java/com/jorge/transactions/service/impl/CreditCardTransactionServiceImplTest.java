@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
@@ -28,6 +29,7 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -206,7 +208,8 @@ public class CreditCardTransactionServiceImplTest {
                 .createdAt(LocalDateTime.now().minusDays(1))
                 .build();
 
-        when(creditCardTransactionRepository.findByCreditCardNumber(anyString())).thenReturn(Flux.just(transaction1, transaction2));
+        // Mongo returns them newest first
+        when(creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(anyString())).thenReturn(Flux.just(transaction2, transaction1));
 
         Flux<CreditCardTransactionResponse> result = creditCardTransactionServiceImpl.getCreditCardTransactionsByCreditCardNumber("1111222233334444");
 
@@ -229,18 +232,19 @@ public class CreditCardTransactionServiceImplTest {
     @Test
     void whenGetCreditCardTransactionsByCreditCardNumberLast10_ThenReturnFluxOfLast10CreditCardTransactionResponse() {
         List<CreditCardTransaction> transactions = new ArrayList<>();
-        // Create more than 10 transactions to test the take(10) functionality
-        for (int i = 0; i < 15; i++) {
+        // The limit is applied by Mongo, which returns the 10 newest
+        for (int i = 0; i < 10; i++) {
             transactions.add(CreditCardTransaction.builder()
                     .id(UUID.randomUUID().toString())
                     .creditCardNumber("1111222233334444")
                     .transactionType(CreditCardTransaction.CreditCardTransactionType.CREDIT_CARD_CONSUMPTION)
                     .amount(BigDecimal.valueOf(10.0 + i))
-                    .createdAt(LocalDateTime.now().minusDays(14 - i)) // Still good practice to have some ordering
+                    .createdAt(LocalDateTime.now().minusDays(i))
                     .build());
         }
 
-        when(creditCardTransactionRepository.findByCreditCardNumber(anyString())).thenReturn(Flux.fromIterable(transactions));
+        when(creditCardTransactionRepository.findByCreditCardNumberOrderByCreatedAtDesc(anyString(), eq(Limit.of(10))))
+                .thenReturn(Flux.fromIterable(transactions));
 
         Flux<CreditCardTransactionResponse> result = creditCardTransactionServiceImpl.getCreditCardTransactionsByCreditCardNumberLast10("1111222233334444");
 
@@ -1,19 +1,27 @@
 package com.jorge.transactions.service.impl;
 
+import com.jorge.transactions.listener.dto.TransactionCreateKafkaMessage;
 import com.jorge.transactions.mapper.TransactionMapper;
+import com.jorge.transactions.model.DailyAccountRollup;
 import com.jorge.transactions.model.FeeReportResponse;
+import com.jorge.transactions.model.FeeSummaryResponse;
+import com.jorge.transactions.model.FeeTotal;
 import com.jorge.transactions.model.Transaction;
 import com.jorge.transactions.model.TransactionRequest;
 import com.jorge.transactions.model.TransactionResponse;
-import com.jorge.transactions.repository.TransactionRepository;
+import com.jorge.transactions.repository.DailyAccountRollupRepository;
+import com.jorge.transactions.repository.TransactionStore;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
@@ -21,18 +29,28 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionServiceImplTest {
     @Mock
-    private TransactionRepository transactionRepository;
+    private TransactionStore transactionStore;
+
+    @Mock
+    private DailyAccountRollupRepository dailyAccountRollupRepository;
 
     @Spy
     private TransactionMapper transactionMapper;
@@ -77,7 +95,7 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenGetAllTransactions_ThenReturnFluxOfTransactionResponse() {
-        when(transactionRepository.findAll()).thenReturn(Flux.just(transaction));
+        when(transactionStore.findAll()).thenReturn(Flux.just(transaction));
 
         Flux<TransactionResponse> result = transactionServiceImpl.getAllTransactions();
 
@@ -98,7 +116,8 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenCreateTransaction_ThenReturnMonoOfTransactionResponse() {
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(Mono.just(transaction));
+        when(transactionStore.save(any(Transaction.class))).thenReturn(Mono.just(transaction));
+        when(dailyAccountRollupRepository.recordAll(List.of(transaction))).thenReturn(Mono.empty());
 
         Mono<TransactionResponse> result = transactionServiceImpl.createTransaction(transactionRequest);
 
@@ -117,9 +136,99 @@ public class TransactionServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void whenCreateTransactions_WithValidRequests_ThenReturnFluxOfTransactionResponse() {
+        when(transactionStore.insertAllUnordered(anyList())).thenReturn(Flux.just(transaction, transaction));
+        when(dailyAccountRollupRepository.recordAll(List.of(transaction, transaction))).thenReturn(Mono.empty());
+
+        Flux<TransactionResponse> result = transactionServiceImpl.createTransactions(List.of(transactionRequest, transactionRequest));
+
+        StepVerifier.create(result)
+                .assertNext(response -> assertEquals(transactionResponse.getAccountNumber(), response.getAccountNumber()))
+                .assertNext(response -> assertEquals(transactionResponse.getAmount(), response.getAmount()))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenCreateTransactions_WithEmptyBatch_ThenReturnEmptyFluxWithoutWriting() {
+        Flux<TransactionResponse> result = transactionServiceImpl.createTransactions(List.of());
+
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        verify(transactionStore, never()).insertAllUnordered(anyList());
+    }
+
+    @Test
+    void whenCreateTransactions_WithRedeliveredProducerIds_ThenOnlyNewOnesAreInsertedAndEveryRequestIsAnswered() {
+        TransactionRequest redelivered = new TransactionRequest("ACC123", TransactionRequest.TransactionTypeEnum.DEPOSIT,
+                BigDecimal.valueOf(100), "Deposit").id("outbox-1");
+        TransactionRequest fresh = new TransactionRequest("ACC123", TransactionRequest.TransactionTypeEnum.WITHDRAWAL,
+                BigDecimal.valueOf(40), "Withdrawal").id("outbox-2");
+        Transaction stored = Transaction.builder().id("outbox-1").accountNumber("ACC123")
+                .transactionType(Transaction.TransactionType.DEPOSIT).amount(BigDecimal.valueOf(100))
+                .description("Deposit").createdAt(LocalDateTime.now().minusDays(1)).build();
+        when(transactionStore.findAllById(Set.of("outbox-1", "outbox-2"))).thenReturn(Flux.just(stored));
+        when(transactionStore.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
+        when(dailyAccountRollupRepository.recordAll(anyList())).thenReturn(Mono.empty());
+
+        // One response per request and in request order: the stored one for the redelivery and the repeat
+        StepVerifier.create(transactionServiceImpl.createTransactions(List.of(redelivered, fresh, fresh)))
+                .assertNext(response -> {
+                    assertEquals("outbox-1", response.getId());
+                    assertEquals(stored.getCreatedAt(), response.getCreatedAt());
+                })
+                .assertNext(response -> assertEquals("outbox-2", response.getId()))
+                .assertNext(response -> assertEquals("outbox-2", response.getId()))
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(transactionStore).insertAllUnordered(inserted.capture());
+        assertEquals(List.of("outbox-2"), inserted.getValue().stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void whenIngestTransactions_WithRedeliveredIds_ThenOnlyNewOnesAreInsertedWithTheProducerIds() {
+        TransactionCreateKafkaMessage stored = TransactionCreateKafkaMessage.builder()
+                .id("tx-1").accountNumber("ACC123").transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(100)).description("Deposit").build();
+        TransactionCreateKafkaMessage fresh = TransactionCreateKafkaMessage.builder()
+                .id("tx-2").accountNumber("ACC123").transactionType(Transaction.TransactionType.WITHDRAWAL)
+                .amount(BigDecimal.valueOf(40)).description("Withdrawal").build();
+        when(transactionStore.findExistingIds(Set.of("tx-1", "tx-2"))).thenReturn(Flux.just("tx-1"));
+        when(transactionStore.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
+        when(dailyAccountRollupRepository.recordAll(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionServiceImpl.ingestTransactions(List.of(stored, fresh, fresh)))
+                .expectNext(1L)
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(transactionStore).insertAllUnordered(inserted.capture());
+        assertEquals(List.of("tx-2"), inserted.getValue().stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void whenIngestTransactions_WithEveryIdStored_ThenNothingIsWritten() {
+        TransactionCreateKafkaMessage stored = TransactionCreateKafkaMessage.builder()
+                .id("tx-1").accountNumber("ACC123").transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(100)).description("Deposit").build();
+        when(transactionStore.findExistingIds(Set.of("tx-1"))).thenReturn(Flux.just("tx-1"));
+
+        StepVerifier.create(transactionServiceImpl.ingestTransactions(List.of(stored)))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(transactionStore, never()).insertAllUnordered(anyList());
+    }
+
     @Test
     void whenGetTransactionById_WithExistingId_ThenReturnMonoOfTransactionResponse() {
-        when(transactionRepository.findById(anyString())).thenReturn(Mono.just(transaction));
+        when(transactionStore.findById(anyString())).thenReturn(Mono.just(transaction));
 
         Mono<TransactionResponse> result = transactionServiceImpl.getTransactionById("someId");
 
@@ -140,7 +249,7 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenGetTransactionById_WithNonExistingId_ThenReturnNotFoundException() {
-        when(transactionRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(transactionStore.findById(anyString())).thenReturn(Mono.empty());
 
         Mono<TransactionResponse> result = transactionServiceImpl.getTransactionById("nonExistingId");
 
@@ -182,8 +291,10 @@ public class TransactionServiceImplTest {
         updatedResponse.setRelatedCreditId(updatedTransaction.getRelatedCreditId());
 
 
-        when(transactionRepository.findById(anyString())).thenReturn(Mono.just(transaction));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(Mono.just(updatedTransaction));
+        when(transactionStore.findById(anyString())).thenReturn(Mono.just(transaction));
+        when(transactionStore.save(any(Transaction.class))).thenReturn(Mono.just(updatedTransaction));
+        when(dailyAccountRollupRepository.removeAll(List.of(transaction))).thenReturn(Mono.empty());
+        when(dailyAccountRollupRepository.recordAll(List.of(updatedTransaction))).thenReturn(Mono.empty());
 
         Mono<TransactionResponse> result = transactionServiceImpl.updateTransaction("someId", updateRequest);
 
@@ -204,7 +315,7 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenUpdateTransaction_WithNonExistingId_ThenReturnNotFoundException() {
-        when(transactionRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(transactionStore.findById(anyString())).thenReturn(Mono.empty());
 
         Mono<TransactionResponse> result = transactionServiceImpl.updateTransaction("nonExistingId", transactionRequest);
 
@@ -217,17 +328,82 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenDeleteTransactionById_ThenReturnMonoVoid() {
-        when(transactionRepository.deleteById(anyString())).thenReturn(Mono.empty());
+        when(transactionStore.findById(anyString())).thenReturn(Mono.just(transaction));
+        when(transactionStore.deleteById(anyString())).thenReturn(Mono.empty());
+        when(dailyAccountRollupRepository.removeAll(List.of(transaction))).thenReturn(Mono.empty());
 
         Mono<Void> result = transactionServiceImpl.deleteTransactionById("someId");
 
         StepVerifier.create(result)
                 .verifyComplete();
+        verify(dailyAccountRollupRepository).removeAll(List.of(transaction));
+    }
+
+    @Test
+    void whenDeleteTransactionThatClosedTheDay_ThenLatestTransactionLeftClosesItAgain() {
+        LocalDateTime morning = LocalDateTime.of(2026, 10, 17, 9, 0);
+        Transaction earlier = Transaction.builder()
+                .id("earlier")
+                .accountNumber("ACC123")
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(100))
+                .fee(BigDecimal.ZERO)
+                .balanceAfter(BigDecimal.valueOf(100))
+                .createdAt(morning)
+                .build();
+        Transaction closing = Transaction.builder()
+                .id("closing")
+                .accountNumber("ACC123")
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(50))
+                .fee(BigDecimal.ZERO)
+                .balanceAfter(BigDecimal.valueOf(150))
+                .createdAt(morning.plusHours(8))
+                .build();
+        when(transactionStore.findById("closing")).thenReturn(Mono.just(closing));
+        when(transactionStore.deleteById("closing")).thenReturn(Mono.empty());
+        when(dailyAccountRollupRepository.removeAll(List.of(closing))).thenReturn(Mono.empty());
+        when(transactionStore.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt("ACC123",
+                LocalDate.of(2026, 10, 17).atStartOfDay(), LocalDate.of(2026, 10, 17).atTime(LocalTime.MAX)))
+                .thenReturn(Flux.just(earlier));
+        when(dailyAccountRollupRepository.recordClosings(List.of(earlier))).thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionServiceImpl.deleteTransactionById("closing"))
+                .verifyComplete();
+
+        verify(dailyAccountRollupRepository).removeAll(List.of(closing));
+        verify(dailyAccountRollupRepository).recordClosings(List.of(earlier));
+    }
+
+    @Test
+    void whenDeleteLastTransactionOfTheDay_ThenNoClosingIsRecorded() {
+        transaction.setBalanceAfter(BigDecimal.valueOf(100));
+        when(transactionStore.findById(anyString())).thenReturn(Mono.just(transaction));
+        when(transactionStore.deleteById(anyString())).thenReturn(Mono.empty());
+        when(dailyAccountRollupRepository.removeAll(List.of(transaction))).thenReturn(Mono.empty());
+        when(transactionStore.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(any(), any(), any()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(transactionServiceImpl.deleteTransactionById("someId"))
+                .verifyComplete();
+
+        verify(dailyAccountRollupRepository, never()).recordClosings(anyList());
+    }
+
+    @Test
+    void whenCreateTransaction_WithRollupUpdateFailing_ThenTransactionIsStillReturned() {
+        when(transactionStore.save(any(Transaction.class))).thenReturn(Mono.just(transaction));
+        when(dailyAccountRollupRepository.recordAll(List.of(transaction)))
+                .thenReturn(Mono.error(new IllegalStateException("Mongo unavailable")));
+
+        StepVerifier.create(transactionServiceImpl.createTransaction(transactionRequest))
+                .assertNext(response -> assertEquals(transaction.getId(), response.getId()))
+                .verifyComplete();
     }
 
     @Test
     void whenGetTransactionsByAccountNumber_WithExistingTransactions_ThenReturnFluxOfTransactionResponse() {
-        when(transactionRepository.findByAccountNumber(anyString())).thenReturn(Flux.just(transaction));
+        when(transactionStore.findByAccountNumber(anyString())).thenReturn(Flux.just(transaction));
 
         Flux<TransactionResponse> result = transactionServiceImpl.getTransactionsByAccountNumber("ACC123");
 
@@ -248,7 +424,7 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenGetTransactionsByAccountNumber_WithNoTransactions_ThenReturnNotFoundException() {
-        when(transactionRepository.findByAccountNumber(anyString())).thenReturn(Flux.empty());
+        when(transactionStore.findByAccountNumber(anyString())).thenReturn(Flux.empty());
 
         Flux<TransactionResponse> result = transactionServiceImpl.getTransactionsByAccountNumber("nonExistingAcc");
 
@@ -259,12 +435,34 @@ public class TransactionServiceImplTest {
                 .verify();
     }
 
+    @Test
+    void whenGetLatestTransactionsByAccountNumber_ThenPushLimitDownToRepository() {
+        when(transactionStore.findByAccountNumberOrderByCreatedAtDesc("ACC123", Limit.of(10)))
+                .thenReturn(Flux.just(transaction));
+
+        Flux<TransactionResponse> result = transactionServiceImpl.getLatestTransactionsByAccountNumber("ACC123", 10);
+
+        StepVerifier.create(result)
+                .assertNext(response -> assertEquals(transactionResponse.getId(), response.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetLatestTransactionsByAccountNumber_WithLimitOutOfRange_ThenReturnBadRequest() {
+        StepVerifier.create(transactionServiceImpl.getLatestTransactionsByAccountNumber("ACC123", 1000))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        verify(transactionStore, never()).findByAccountNumberOrderByCreatedAtDesc(anyString(), any(Limit.class));
+    }
+
     @Test
     void whenGetTransactionsByCreditId_WithExistingTransactions_ThenReturnFluxOfTransactionResponse() {
         transaction.setRelatedCreditId("CREDIT123");
         transactionResponse.setRelatedCreditId("CREDIT123");
 
-        when(transactionRepository.findByRelatedCreditId(anyString())).thenReturn(Flux.just(transaction));
+        when(transactionStore.findByRelatedCreditId(anyString())).thenReturn(Flux.just(transaction));
 
         Flux<TransactionResponse> result = transactionServiceImpl.getTransactionsByCreditId("CREDIT123");
 
@@ -285,7 +483,7 @@ public class TransactionServiceImplTest {
 
     @Test
     void whenGetTransactionsByCreditId_WithNoTransactions_ThenReturnNotFoundException() {
-        when(transactionRepository.findByRelatedCreditId(anyString())).thenReturn(Flux.empty());
+        when(transactionStore.findByRelatedCreditId(anyString())).thenReturn(Flux.empty());
 
         Flux<TransactionResponse> result = transactionServiceImpl.getTransactionsByCreditId("nonExistingCredit");
 
@@ -301,7 +499,7 @@ public class TransactionServiceImplTest {
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
 
-        when(transactionRepository.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Flux.just(transaction));
+        when(transactionStore.findByAccountNumberAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Flux.just(transaction));
 
         Flux<TransactionResponse> result = transactionServiceImpl.getTransactionsByAccountNumberAndDateRange("ACC123", startDate, endDate);
 
@@ -336,7 +534,7 @@ public class TransactionServiceImplTest {
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
 
-        when(transactionRepository.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(BigDecimal.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(transactionStore.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(BigDecimal.class), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(Flux.just(transactionWithFee));
 
         Flux<FeeReportResponse> result = transactionServiceImpl.getTransactionsFeesByAccountNumberAndDateRange("ACC123", startDate, endDate);
@@ -367,7 +565,7 @@ public class TransactionServiceImplTest {
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
 
-        when(transactionRepository.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(BigDecimal.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(transactionStore.findByAccountNumberAndFeeGreaterThanAndCreatedAtBetweenOrderByCreatedAt(anyString(), any(BigDecimal.class), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(Flux.just(transactionWithFee));
 
         Flux<FeeReportResponse> result = transactionServiceImpl.getTransactionsFeesByAccountNumberAndDateRange("ACC123", startDate, endDate);
@@ -381,4 +579,173 @@ public class TransactionServiceImplTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void whenGetAccountStatement_ThenCarryRunningBalanceFromOpeningBalance() {
+        LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+        Transaction withdrawal = Transaction.builder()
+                .id(UUID.randomUUID().toString())
+                .accountNumber("ACC123")
+                .fee(BigDecimal.valueOf(2))
+                .transactionType(Transaction.TransactionType.WITHDRAWAL)
+                .amount(BigDecimal.valueOf(30))
+                .createdAt(startDate.plusDays(2))
+                .build();
+
+        // Recorded before balances were stamped, so the opening balance is summed
+        when(transactionStore.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc("ACC123", startDate))
+                .thenReturn(Mono.just(transaction));
+        when(transactionStore.sumBalanceBefore("ACC123", startDate)).thenReturn(Mono.just(BigDecimal.valueOf(50)));
+        when(transactionStore.streamByAccountNumberAndCreatedAtBetween("ACC123", startDate, endDate))
+                .thenReturn(Flux.just(transaction, withdrawal));
+
+        StepVerifier.create(transactionServiceImpl.getAccountStatement("ACC123", startDate, endDate))
+                .assertNext(line -> assertEquals(BigDecimal.valueOf(150), line.getBalance()))
+                .assertNext(line -> {
+                    assertEquals("WITHDRAWAL", line.getTransactionType());
+                    assertEquals(BigDecimal.valueOf(118), line.getBalance());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetAccountStatement_WithStampedBalances_ThenBalancesAreReadFromTheRecords() {
+        LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+        Transaction lastBeforeStart = Transaction.builder()
+                .accountNumber("ACC123")
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(BigDecimal.valueOf(20))
+                .balanceBefore(BigDecimal.valueOf(180))
+                .balanceAfter(BigDecimal.valueOf(200))
+                .createdAt(startDate.minusDays(3))
+                .build();
+        Transaction withdrawal = Transaction.builder()
+                .accountNumber("ACC123")
+                .fee(BigDecimal.valueOf(2))
+                .transactionType(Transaction.TransactionType.WITHDRAWAL)
+                .amount(BigDecimal.valueOf(30))
+                .balanceBefore(BigDecimal.valueOf(200))
+                .balanceAfter(BigDecimal.valueOf(168))
+                .createdAt(startDate.plusDays(2))
+                .build();
+
+        when(transactionStore.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc("ACC123", startDate))
+                .thenReturn(Mono.just(lastBeforeStart));
+        when(transactionStore.streamByAccountNumberAndCreatedAtBetween("ACC123", startDate, endDate))
+                .thenReturn(Flux.just(withdrawal));
+
+        StepVerifier.create(transactionServiceImpl.getAccountStatement("ACC123", startDate, endDate))
+                .assertNext(line -> assertEquals(BigDecimal.valueOf(168), line.getBalance()))
+                .verifyComplete();
+        verify(transactionStore, never()).sumBalanceBefore(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void whenGetAccountBalanceAt_WithNoTransactionsBefore_ThenReturnZero() {
+        LocalDateTime at = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(transactionStore.findFirstByAccountNumberAndCreatedAtBeforeOrderByCreatedAtDesc("ACC123", at))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(transactionServiceImpl.getAccountBalanceAt("ACC123", at))
+                .assertNext(response -> {
+                    assertEquals("ACC123", response.getAccountNumber());
+                    assertEquals(at, response.getAt());
+                    assertEquals(BigDecimal.ZERO, response.getBalance());
+                })
+                .verifyComplete();
+        verify(transactionStore, never()).sumBalanceBefore(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void whenGetAccountStatement_WithStartAfterEnd_ThenThrowBadRequestException() {
+        LocalDateTime endDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        StepVerifier.create(transactionServiceImpl.getAccountStatement("ACC123", endDate.plusDays(1), endDate))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verify(transactionStore, never()).sumBalanceBefore(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void whenGetFeeSummaryByAccountNumberAndDateRange_ThenReturnTotalsGroupedByMongo() {
+        LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 12, 31, 23, 59, 59);
+        when(transactionStore.sumFeesByPeriod("ACC123", startDate, endDate, FeeTotal.Period.MONTH))
+                .thenReturn(Flux.just(
+                        new FeeTotal("2024-01", FeeTotal.FeeType.MAINTENANCE_FEE, BigDecimal.valueOf(5), 1),
+                        new FeeTotal("2024-01", FeeTotal.FeeType.TRANSACTION_FEE, BigDecimal.valueOf(12), 6)));
+
+        StepVerifier.create(transactionServiceImpl.getFeeSummaryByAccountNumberAndDateRange("ACC123", startDate, endDate, null))
+                .assertNext(summary -> {
+                    assertEquals("2024-01", summary.getPeriod());
+                    assertEquals(FeeSummaryResponse.TypeEnum.MAINTENANCE_FEE, summary.getType());
+                    assertEquals(1L, summary.getCount());
+                })
+                .assertNext(summary -> {
+                    assertEquals(FeeSummaryResponse.TypeEnum.TRANSACTION_FEE, summary.getType());
+                    assertEquals(BigDecimal.valueOf(12), summary.getTotalAmount());
+                    assertEquals(6L, summary.getCount());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetFeeSummaryByAccountNumberAndDateRange_WithUnknownGrouping_ThenThrowBadRequestException() {
+        LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        StepVerifier.create(transactionServiceImpl.getFeeSummaryByAccountNumberAndDateRange("ACC123", startDate,
+                        startDate.plusYears(1), "WEEK"))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    @Test
+    void whenGetAccountRollups_GroupedByMonth_ThenSumDaysAndKeepLastClosingBalance() {
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 2, 29);
+        when(dailyAccountRollupRepository.findByAccountNumberAndDateBetweenOrderByDateAsc("ACC123",
+                Range.closed(startDate, endDate)))
+                .thenReturn(Flux.just(
+                        rollup(LocalDate.of(2024, 1, 3), 100, 20, BigDecimal.valueOf(80)),
+                        rollup(LocalDate.of(2024, 1, 20), 50, 0, null),
+                        rollup(LocalDate.of(2024, 2, 1), 0, 30, BigDecimal.valueOf(100))));
+
+        StepVerifier.create(transactionServiceImpl.getAccountRollups("ACC123", startDate, endDate, "MONTH"))
+                .assertNext(month -> {
+                    assertEquals("2024-01", month.getPeriod());
+                    assertEquals(BigDecimal.valueOf(150), month.getCreditTotal());
+                    assertEquals(BigDecimal.valueOf(20), month.getDebitTotal());
+                    assertEquals(4L, month.getCount());
+                    assertEquals(BigDecimal.valueOf(80), month.getClosingBalance());
+                })
+                .assertNext(month -> {
+                    assertEquals("2024-02", month.getPeriod());
+                    assertEquals(BigDecimal.valueOf(30), month.getDebitTotal());
+                    assertEquals(BigDecimal.valueOf(100), month.getClosingBalance());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetAccountRollups_WithUnknownGrouping_ThenThrowBadRequestException() {
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+
+        StepVerifier.create(transactionServiceImpl.getAccountRollups("ACC123", startDate, startDate.plusYears(1), "WEEK"))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    private DailyAccountRollup rollup(LocalDate date, long credit, long debit, BigDecimal closingBalance) {
+        DailyAccountRollup rollup = DailyAccountRollup.empty("ACC123", date);
+        rollup.setCreditTotal(BigDecimal.valueOf(credit));
+        rollup.setDebitTotal(BigDecimal.valueOf(debit));
+        rollup.setCount(2L);
+        rollup.setClosingBalance(closingBalance);
+        return rollup;
+    }
 }